@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.operation.BuildSpec;
+import heretical.pointer.operation.json.JSONBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link JSONBuilder} building a new object from a Map of arguments.
+ * <p>
+ * The {@link BuildSpec} has {@code width} declarations spread over objects nested {@code depth} levels deep,
+ * mixing plain puts, typed puts, array appends and literal values, as a typical record mapping would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BuilderBenchmark
+  {
+  @Param({"4", "16", "64"})
+  public int width;
+
+  @Param({"1", "4", "8"})
+  public int depth;
+
+  @SuppressWarnings("rawtypes") // the JSONBuilder arguments are keyed by raw Comparable
+  Map<Comparable, Object> arguments;
+  JSONBuilder builder;
+
+  @Setup
+  public void setup()
+    {
+    arguments = new HashMap<>();
+
+    BuildSpec<?> spec = new BuildSpec<>()
+      .putInto( (Object) 1, "/version" );
+
+    for( int i = 0; i < width; i++ )
+      {
+      String key = "field" + i;
+      String into = parentFor( i ) + "/" + key;
+
+      switch( i % 4 )
+        {
+        case 0:
+          arguments.put( key, "value-" + i );
+          spec.putInto( key, into );
+          break;
+        case 1:
+          arguments.put( key, i );
+          spec.putInto( key, String.class, into );
+          break;
+        case 2:
+          arguments.put( key, Integer.toString( i ) );
+          spec.putInto( key, Integer.class, into );
+          break;
+        default:
+          arguments.put( key, i * 0.5D );
+          spec.addInto( key, parentFor( i ) + "/values" );
+          break;
+        }
+      }
+
+    builder = new JSONBuilder( spec );
+    }
+
+  private String parentFor( int field )
+    {
+    StringBuilder builder = new StringBuilder();
+
+    for( int i = 0; i < field % depth; i++ )
+      builder.append( "/level" ).append( i );
+
+    return builder.toString();
+    }
+
+  @Benchmark
+  public ObjectNode build()
+    {
+    ObjectNode value = JsonNodeFactory.instance.objectNode();
+
+    builder.build( ( key, type ) -> arguments.get( key ), value );
+
+    return value;
+    }
+  }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.operation.CopySpec;
+import heretical.pointer.operation.json.JSONCopier;
+import heretical.pointer.operation.json.JSONStreamCopier;
+import heretical.pointer.operation.json.filter.JSONBooleanPointerFilter;
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.json.JSONPrimitiveTransforms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link JSONCopier} with a set of representative {@link CopySpec} declarations, and the
+ * {@link JSONStreamCopier} against parsing and copying a tree for the same projection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CopierBenchmark
+  {
+  public enum Spec
+    {
+      /** copy the whole document */
+      ALL,
+      /** project a few fields from every record */
+      PROJECT,
+      /** copy the records, removing the tags at any depth */
+      EXCLUDE,
+      /** copy the records, removing the nested children */
+      PRUNE,
+      /** copy the records, coercing every score to a string */
+      TRANSFORM,
+      /** copy every active record, without its children */
+      FILTER
+    }
+
+  @Param({"10", "100", "1000"})
+  public int width;
+
+  @Param({"2", "8"})
+  public int depth;
+
+  @Param({"ALL", "PROJECT", "EXCLUDE", "PRUNE", "TRANSFORM", "FILTER"})
+  public Spec spec;
+
+  @Param({"DEEP", "SHARED"})
+  public CopyMode mode;
+
+  ObjectMapper mapper = new ObjectMapper();
+  ObjectNode document;
+  byte[] bytes;
+  JSONCopier copier;
+  JSONStreamCopier streamCopier;
+
+  @Setup
+  public void setup()
+    {
+    DocumentGenerator generator = new DocumentGenerator( width, depth );
+
+    document = generator.generate();
+    bytes = generator.generateBytes();
+    copier = new JSONCopier( mode, specFor( spec ) );
+
+    streamCopier = new JSONStreamCopier( mapper, specFor( spec ) );
+    }
+
+  static CopySpec<?> specFor( Spec spec )
+    {
+    switch( spec )
+      {
+      case ALL:
+        return new CopySpec<>()
+          .from( CopySpec.ROOT );
+      case PROJECT:
+        return new CopySpec<>()
+          .fromInclude( CopySpec.ROOT, "/records/*/id", "/records/*/name", "/records/*/child/score" );
+      case EXCLUDE:
+        return new CopySpec<>()
+          .fromExclude( CopySpec.ROOT, "/**/tags" );
+      case PRUNE:
+        return new CopySpec<>()
+          .fromExclude( CopySpec.ROOT, "/records/*/child" );
+      case TRANSFORM:
+        return new CopySpec<>()
+          .fromTransform( CopySpec.ROOT, "/**/score", JSONPrimitiveTransforms.TO_STRING );
+      case FILTER:
+        return new CopySpec<>()
+          .fromInclude( CopySpec.ROOT, "/records/*", new JSONBooleanPointerFilter( "/active", true ) )
+          .exclude( "/records/*/child" );
+      default:
+        throw new IllegalArgumentException( "unknown spec: " + spec );
+      }
+    }
+
+  @Benchmark
+  public ObjectNode copy()
+    {
+    ObjectNode into = JsonNodeFactory.instance.objectNode();
+
+    copier.copy( document, into );
+
+    return into;
+    }
+
+  @Benchmark
+  public ObjectNode parseAndCopy() throws IOException
+    {
+    JsonNode from = mapper.readTree( bytes );
+    ObjectNode into = JsonNodeFactory.instance.objectNode();
+
+    copier.copy( from, into );
+
+    return into;
+    }
+
+  @Benchmark
+  public byte[] streamCopy() throws IOException
+    {
+    ByteArrayOutputStream output = new ByteArrayOutputStream( bytes.length );
+
+    try( JsonParser parser = mapper.getFactory().createParser( bytes );
+         JsonGenerator generator = mapper.getFactory().createGenerator( output ) )
+      {
+      streamCopier.copy( parser, generator );
+      }
+
+    return output.toByteArray();
+    }
+  }
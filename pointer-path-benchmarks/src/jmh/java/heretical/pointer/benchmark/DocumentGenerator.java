@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.json.JSONFormat;
+
+/**
+ * Class DocumentGenerator creates synthetic JSON documents so the benchmarks can run without any external data.
+ * <p>
+ * A document has a {@code records} array of {@code width} records. Each record is a chain of {@code depth}
+ * nested objects linked through the {@code child} field, where every object in the chain has the same leaf fields:
+ * <pre>
+ * { "records" : [ { "id" : 0, "name" : "...", "active" : true, "score" : 0.5, "tags" : [ ... ],
+ *                   "child" : { "id" : 0, "name" : "...", ..., "child" : { ... } } }, ... ] }
+ * </pre>
+ * Documents are generated from a fixed seed, so the same width and depth always yields the same document.
+ */
+public class DocumentGenerator
+  {
+  public static final long DEFAULT_SEED = 42L;
+
+  private static final String[] NAMES = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+  private static final String[] TAGS = {"red", "green", "blue", "cyan", "magenta", "yellow"};
+
+  private final JsonNodeFactory factory = JsonNodeFactory.instance;
+  private final int width;
+  private final int depth;
+  private final long seed;
+
+  /**
+   * Constructor DocumentGenerator creates a new DocumentGenerator instance.
+   *
+   * @param width the number of records in the document
+   * @param depth the number of nested objects in each record
+   */
+  public DocumentGenerator( int width, int depth )
+    {
+    this( width, depth, DEFAULT_SEED );
+    }
+
+  /**
+   * Constructor DocumentGenerator creates a new DocumentGenerator instance.
+   *
+   * @param width the number of records in the document
+   * @param depth the number of nested objects in each record
+   * @param seed  the random seed
+   */
+  public DocumentGenerator( int width, int depth, long seed )
+    {
+    if( width < 1 || depth < 1 )
+      throw new IllegalArgumentException( "width and depth must be greater than zero" );
+
+    this.width = width;
+    this.depth = depth;
+    this.seed = seed;
+    }
+
+  public int getWidth()
+    {
+    return width;
+    }
+
+  public int getDepth()
+    {
+    return depth;
+    }
+
+  /**
+   * Method generate returns a new document.
+   *
+   * @return ObjectNode
+   */
+  public ObjectNode generate()
+    {
+    Random random = new Random( seed );
+    ObjectNode root = factory.objectNode();
+    ArrayNode records = root.putArray( "records" );
+
+    for( int i = 0; i < width; i++ )
+      records.add( record( random, i, depth ) );
+
+    return root;
+    }
+
+  /**
+   * Method generateBytes returns a new document serialized as JSON.
+   *
+   * @return byte[]
+   */
+  public byte[] generateBytes()
+    {
+    return generateBytes( JSONFormat.JSON );
+    }
+
+  /**
+   * Method generateBytes returns a new document serialized in the given format.
+   *
+   * @param format of JSONFormat
+   * @return byte[]
+   */
+  public byte[] generateBytes( JSONFormat format )
+    {
+    try
+      {
+      return format.getMapper().writeValueAsBytes( generate() );
+      }
+    catch( JsonProcessingException exception )
+      {
+      throw new IllegalStateException( exception );
+      }
+    }
+
+  /**
+   * Method deepestPointer returns an absolute pointer to the innermost {@code name} of the last record.
+   *
+   * @return String
+   */
+  public String deepestPointer()
+    {
+    StringBuilder builder = new StringBuilder( "/records/" ).append( width - 1 );
+
+    for( int i = 1; i < depth; i++ )
+      builder.append( "/child" );
+
+    return builder.append( "/name" ).toString();
+    }
+
+  private ObjectNode record( Random random, int id, int remaining )
+    {
+    ObjectNode node = factory.objectNode();
+
+    node.put( "id", id );
+    node.put( "name", NAMES[ random.nextInt( NAMES.length ) ] + "-" + id );
+    node.put( "active", random.nextBoolean() );
+    node.put( "score", random.nextDouble() );
+
+    ArrayNode tags = node.putArray( "tags" );
+
+    for( int i = 0; i < 3; i++ )
+      tags.add( TAGS[ random.nextInt( TAGS.length ) ] );
+
+    if( remaining > 1 )
+      node.set( "child", record( random, id, remaining - 1 ) );
+
+    return node;
+    }
+  }
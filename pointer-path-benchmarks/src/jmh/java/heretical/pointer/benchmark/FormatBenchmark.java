@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import heretical.pointer.operation.json.JSONStreamCopier;
+import heretical.pointer.path.json.JSONFormat;
+import heretical.pointer.path.json.JSONStreamEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link JSONStreamEvaluator} and {@link JSONStreamCopier} on the same document encoded in each
+ * {@link JSONFormat}, projections read and write the same format.
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormatBenchmark
+  {
+  @Param({"100", "1000"})
+  public int width;
+
+  @Param({"JSON", "SMILE", "CBOR"})
+  public JSONFormat format;
+
+  @Param({"PROJECT", "TRANSFORM"})
+  public CopierBenchmark.Spec spec;
+
+  byte[] bytes;
+  JSONStreamEvaluator evaluator;
+  JSONStreamCopier copier;
+
+  @Setup
+  public void setup()
+    {
+    bytes = new DocumentGenerator( width, 4 ).generateBytes( format );
+    evaluator = new JSONStreamEvaluator( format, "/records/*/child/score", "/**/tags" );
+    copier = new JSONStreamCopier( format, CopierBenchmark.specFor( spec ) );
+    }
+
+  @Benchmark
+  public List<ArrayNode> evaluate() throws IOException
+    {
+    return evaluator.allAt( new ByteArrayInputStream( bytes ) );
+    }
+
+  @Benchmark
+  public byte[] streamCopy() throws IOException
+    {
+    ByteArrayOutputStream output = new ByteArrayOutputStream( bytes.length );
+
+    copier.copy( new ByteArrayInputStream( bytes ), output );
+
+    return output.toByteArray();
+    }
+  }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import heretical.pointer.operation.json.JSONCopier;
+import heretical.pointer.operation.json.JSONLinesProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@link JSONLinesProcessor} on the calling thread, and in parallel, over {@code lines} records
+ * produced by the {@link DocumentGenerator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JSONLinesBenchmark
+  {
+  @Param({"10000"})
+  public int lines;
+
+  @Param({"PROJECT", "TRANSFORM"})
+  public CopierBenchmark.Spec spec;
+
+  byte[] bytes;
+  JSONLinesProcessor processor;
+
+  @Setup
+  public void setup() throws IOException
+    {
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode records = new DocumentGenerator( lines, 2 ).generate().get( "records" );
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    // each line is a document of one record, so the specs apply unchanged
+    for( JsonNode record : records )
+      {
+      output.write( mapper.writeValueAsBytes( mapper.createObjectNode().set( "records", mapper.createArrayNode().add( record ) ) ) );
+      output.write( '\n' );
+      }
+
+    bytes = output.toByteArray();
+    processor = new JSONLinesProcessor( new JSONCopier( CopierBenchmark.specFor( spec ) ) );
+    }
+
+  @Benchmark
+  public JSONLinesProcessor.Stats serial() throws IOException
+    {
+    return processor.process( new ByteArrayInputStream( bytes ), new ByteArrayOutputStream( bytes.length ) );
+    }
+
+  @Benchmark
+  public JSONLinesProcessor.Stats parallel() throws IOException
+    {
+    return processor.process( ForkJoinPool.commonPool(), new ByteArrayInputStream( bytes ), new ByteArrayOutputStream( bytes.length ) );
+    }
+  }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.json.JSONKeySummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+
+/**
+ * Benchmarks repeated descent queries with and without a {@link JSONKeySummary} of the document, and the cost
+ * of building the summary.
+ * <p>
+ * The {@code flagged} field is only set on the innermost object of the last record, so a summary lets
+ * {@code /**}{@code /flagged} skip every other record, while {@code /**}{@code /name} matches in every object
+ * and cannot be pruned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeySummaryBenchmark
+  {
+  @Param({"100", "1000"})
+  public int width;
+
+  @Param({"8"})
+  public int depth;
+
+  @Param({"/**/flagged", "/**/name"})
+  public String path;
+
+  ObjectNode document;
+  JSONKeySummary summary;
+  NestedPointer<JsonNode, ArrayNode> pointer;
+
+  @Setup
+  public void setup()
+    {
+    DocumentGenerator generator = new DocumentGenerator( width, depth );
+    String deepest = generator.deepestPointer();
+
+    document = generator.generate();
+    ( (ObjectNode) document.at( deepest.substring( 0, deepest.lastIndexOf( '/' ) ) ) ).put( "flagged", true );
+
+    summary = new JSONKeySummary( document );
+    pointer = COMPILER.nested( path );
+    }
+
+  @Benchmark
+  public ArrayNode allAt()
+    {
+    return pointer.allAt( document );
+    }
+
+  @Benchmark
+  public ArrayNode allAtSummary()
+    {
+    return pointer.allAt( document, summary );
+    }
+
+  @Benchmark
+  public JSONKeySummary summarize()
+    {
+    return new JSONKeySummary( document );
+    }
+  }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.json.JSONMappedArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+
+/**
+ * Benchmarks evaluating a pointer against every element of a file holding a top level array, by reading the file
+ * into a tree, and by a {@link JSONMappedArray}.
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation of each, the mapped file is never read into the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MappedArrayBenchmark
+  {
+  @Param({"10000"})
+  public int width;
+
+  @Param({"/child/score", "/**/tags"})
+  public String path;
+
+  ObjectMapper mapper = new ObjectMapper();
+  Path file;
+  NestedPointer<JsonNode, ArrayNode> pointer;
+  JSONMappedArray array;
+
+  @Setup
+  public void setup() throws IOException
+    {
+    JsonNode records = new DocumentGenerator( width, 4 ).generate().get( "records" );
+
+    file = Files.createTempFile( "records", ".json" );
+
+    mapper.writeValue( file.toFile(), records );
+
+    pointer = COMPILER.nested( path );
+    array = new JSONMappedArray( file );
+    }
+
+  @TearDown
+  public void tearDown() throws IOException
+    {
+    Files.deleteIfExists( file );
+    }
+
+  @Benchmark
+  public ArrayNode readTree() throws IOException
+    {
+    ArrayNode result = mapper.createArrayNode();
+
+    for( JsonNode element : mapper.readTree( file.toFile() ) )
+      result.addAll( pointer.allAt( element ) );
+
+    return result;
+    }
+
+  @Benchmark
+  public ArrayNode mapped() throws IOException
+    {
+    return array.allAt( ForkJoinPool.commonPool(), pointer );
+    }
+  }
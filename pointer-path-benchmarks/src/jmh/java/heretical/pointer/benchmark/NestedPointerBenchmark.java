@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.json.JSONPrimitiveTransforms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+
+/**
+ * Benchmarks the {@link NestedPointer} accessors and mutators for absolute, wildcard ({@code /*}) and
+ * descent ({@code /**}) pointers over documents of varying width and depth.
+ * <p>
+ * The {@code at} and {@code exists} benchmarks stop at the first match, and are best compared against
+ * {@code allAt} on the same pointer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NestedPointerBenchmark
+  {
+  public enum Kind
+    {
+      /** the innermost name of the last record, e.g. {@code /records/9/child/child/name} */
+      ABSOLUTE,
+      /** the top level name of every record */
+      WILDCARD,
+      /** every name at any depth */
+      DESCENT
+    }
+
+  @Param({"10", "100", "1000"})
+  public int width;
+
+  @Param({"2", "8", "32"})
+  public int depth;
+
+  @Param({"ABSOLUTE", "WILDCARD", "DESCENT"})
+  public Kind kind;
+
+  ObjectNode document;
+  NestedPointer<JsonNode, ArrayNode> pointer;
+
+  @Setup
+  public void setup()
+    {
+    DocumentGenerator generator = new DocumentGenerator( width, depth );
+
+    document = generator.generate();
+    pointer = COMPILER.nested( pointerFor( generator, kind ) );
+    }
+
+  static String pointerFor( DocumentGenerator generator, Kind kind )
+    {
+    switch( kind )
+      {
+      case ABSOLUTE:
+        return generator.deepestPointer();
+      case WILDCARD:
+        return "/records/*/name";
+      case DESCENT:
+        return "/records/**/name";
+      default:
+        throw new IllegalArgumentException( "unknown kind: " + kind );
+      }
+    }
+
+  /**
+   * Holds a private copy of the document for the mutating benchmarks, refreshed before every invocation.
+   */
+  @State(Scope.Thread)
+  public static class MutableDocument
+    {
+    ObjectNode document;
+
+    @Setup(Level.Invocation)
+    public void setup( NestedPointerBenchmark benchmark )
+      {
+      document = benchmark.document.deepCopy();
+      }
+    }
+
+  @Benchmark
+  public ArrayNode allAt()
+    {
+    return pointer.allAt( document );
+    }
+
+  @Benchmark
+  public JsonNode at()
+    {
+    return pointer.at( document );
+    }
+
+  @Benchmark
+  public boolean exists()
+    {
+    return pointer.exists( document );
+    }
+
+  @Benchmark
+  public ObjectNode copy()
+    {
+    ObjectNode into = JsonNodeFactory.instance.objectNode();
+
+    pointer.copy( document, into, null );
+
+    return into;
+    }
+
+  @Benchmark
+  public ObjectNode copyShared()
+    {
+    ObjectNode into = JsonNodeFactory.instance.objectNode();
+
+    pointer.copy( document, into, null, CopyMode.SHARED );
+
+    return into;
+    }
+
+  @Benchmark
+  public ObjectNode apply( MutableDocument mutable )
+    {
+    pointer.apply( mutable.document, JSONPrimitiveTransforms.TO_STRING );
+
+    return mutable.document;
+    }
+
+  @Benchmark
+  public ObjectNode remove( MutableDocument mutable )
+    {
+    pointer.remove( mutable.document );
+
+    return mutable.document;
+    }
+  }
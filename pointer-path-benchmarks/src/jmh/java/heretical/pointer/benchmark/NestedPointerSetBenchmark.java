@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.DocumentIndex;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.NestedPointerSet;
+import heretical.pointer.path.json.JSONStreamEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+
+/**
+ * Benchmarks evaluating several pointers one at a time, sharing a {@link DocumentIndex}, as a single
+ * {@link NestedPointerSet}, and with the {@link JSONStreamEvaluator} directly against the serialized document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NestedPointerSetBenchmark
+  {
+  static final String[] POINTERS = {
+    "/records/0/id",
+    "/records/*/name",
+    "/records/*/child/score",
+    "/records/*/tags/0",
+    "/records/**/active"
+  };
+
+  @Param({"10", "100", "1000"})
+  public int width;
+
+  @Param({"2", "8"})
+  public int depth;
+
+  ObjectMapper mapper = new ObjectMapper();
+  ObjectNode document;
+  byte[] bytes;
+  List<NestedPointer<JsonNode, ArrayNode>> pointers;
+  NestedPointerSet<JsonNode, ArrayNode> pointerSet;
+  JSONStreamEvaluator evaluator;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup()
+    {
+    DocumentGenerator generator = new DocumentGenerator( width, depth );
+
+    document = generator.generate();
+    bytes = generator.generateBytes();
+    pointers = new ArrayList<>( POINTERS.length );
+
+    for( int i = 0; i < POINTERS.length; i++ )
+      pointers.add( COMPILER.nested( POINTERS[ i ] ) );
+
+    pointerSet = COMPILER.nestedSet( POINTERS );
+    evaluator = new JSONStreamEvaluator( mapper, COMPILER, POINTERS );
+    }
+
+  @Benchmark
+  public void allAtEach( Blackhole blackhole )
+    {
+    for( NestedPointer<JsonNode, ArrayNode> pointer : pointers )
+      blackhole.consume( pointer.allAt( document ) );
+    }
+
+  @Benchmark
+  public void allAtEachIndexed( Blackhole blackhole )
+    {
+    DocumentIndex<JsonNode> index = COMPILER.index( document );
+
+    for( NestedPointer<JsonNode, ArrayNode> pointer : pointers )
+      blackhole.consume( pointer.allAt( index ) );
+    }
+
+  @Benchmark
+  public List<ArrayNode> allAtSet()
+    {
+    return pointerSet.allAt( document );
+    }
+
+  @Benchmark
+  public void parseAndAllAtEach( Blackhole blackhole ) throws IOException
+    {
+    JsonNode from = mapper.readTree( bytes );
+
+    for( NestedPointer<JsonNode, ArrayNode> pointer : pointers )
+      blackhole.consume( pointer.allAt( from ) );
+    }
+
+  @Benchmark
+  public List<ArrayNode> streamAllAt() throws IOException
+    {
+    try( JsonParser parser = mapper.getFactory().createParser( bytes ) )
+      {
+      return evaluator.allAt( parser );
+      }
+    }
+  }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import heretical.pointer.path.NestedPointer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static heretical.pointer.path.pojo.POJONestedPointerCompiler.COMPILER;
+
+/**
+ * Benchmarks reading {@code /order/lines/*}{@code /price} from a tree of beans with hand written getters,
+ * with per call reflection, and with a POJO nested pointer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class POJOPointerBenchmark
+  {
+  public static class Root
+    {
+    private Order order = new Order();
+
+    public Order getOrder()
+      {
+      return order;
+      }
+    }
+
+  public static class Order
+    {
+    private List<Line> lines = new ArrayList<>();
+
+    public List<Line> getLines()
+      {
+      return lines;
+      }
+    }
+
+  public static class Line
+    {
+    private final double price;
+
+    public Line( double price )
+      {
+      this.price = price;
+      }
+
+    public double getPrice()
+      {
+      return price;
+      }
+    }
+
+  @Param({"10", "100"})
+  public int width;
+
+  Root root;
+  NestedPointer<Object, List<Object>> pointer;
+  Method getOrder;
+  Method getLines;
+  Method getPrice;
+
+  @Setup
+  public void setup() throws NoSuchMethodException
+    {
+    root = new Root();
+
+    for( int i = 0; i < width; i++ )
+      root.getOrder().getLines().add( new Line( i ) );
+
+    pointer = COMPILER.nested( "/order/lines/*/price" );
+    getOrder = Root.class.getMethod( "getOrder" );
+    getLines = Order.class.getMethod( "getLines" );
+    getPrice = Line.class.getMethod( "getPrice" );
+    }
+
+  @Benchmark
+  public List<Object> getters()
+    {
+    List<Object> result = new ArrayList<>();
+
+    for( Line line : root.getOrder().getLines() )
+      result.add( line.getPrice() );
+
+    return result;
+    }
+
+  @Benchmark
+  public List<Object> reflection() throws ReflectiveOperationException
+    {
+    List<Object> result = new ArrayList<>();
+
+    for( Object line : (List<?>) getLines.invoke( getOrder.invoke( root ) ) )
+      result.add( getPrice.invoke( line ) );
+
+    return result;
+    }
+
+  @Benchmark
+  public List<Object> allAt()
+    {
+    return pointer.allAt( root );
+    }
+  }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import heretical.pointer.path.xml.XMLStreamPointer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import static heretical.pointer.path.xml.XMLNestedPointerCompiler.COMPILER;
+
+/**
+ * Benchmarks querying a feed of {@code entries} elements by parsing it into a DOM, and by streaming it.
+ * <p>
+ * Run with {@code -prof gc} to compare the allocation of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class XMLStreamPointerBenchmark
+  {
+  @Param({"1000", "10000"})
+  public int entries;
+
+  @Param({"/feed/entry[10]/title", "/feed/*/title", "/**/price"})
+  public String path;
+
+  byte[] feed;
+  DocumentBuilderFactory factory;
+  XMLStreamPointer pointer;
+
+  @Setup
+  public void setup()
+    {
+    StringBuilder builder = new StringBuilder( "<feed>" );
+
+    for( int i = 0; i < entries; i++ )
+      {
+      builder.append( "<entry id=\"" ).append( i ).append( "\"><title>entry " ).append( i ).append( "</title>" );
+      builder.append( "<lines><line sku=\"a\"><price>1.5</price></line><line sku=\"b\"><price>2.0</price></line></lines>" );
+      builder.append( "<summary>Lorem ipsum dolor sit amet, consectetur adipiscing elit.</summary></entry>" );
+      }
+
+    feed = builder.append( "</feed>" ).toString().getBytes( StandardCharsets.UTF_8 );
+
+    factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware( true );
+
+    pointer = new XMLStreamPointer( path );
+    }
+
+  @Benchmark
+  public List<Node> dom() throws Exception
+    {
+    Document document = factory.newDocumentBuilder().parse( new ByteArrayInputStream( feed ) );
+
+    return COMPILER.nested( path ).allAt( document );
+    }
+
+  @Benchmark
+  public List<Node> stream() throws Exception
+    {
+    return pointer.allAt( new ByteArrayInputStream( feed ) );
+    }
+  }
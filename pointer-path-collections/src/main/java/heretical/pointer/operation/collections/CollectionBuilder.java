@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.collections;
+
+import java.util.List;
+
+import heretical.pointer.operation.BuildSpec;
+import heretical.pointer.operation.Builder;
+import heretical.pointer.path.collections.CollectionNestedPointerCompiler;
+
+/**
+ * CollectionBuilder provides the a means to copy values from a lookup function into a {@link java.util.Map}.
+ * <p>
+ * The {@link BuildSpec} build declaration relies on {@link heretical.pointer.path.collections.CollectionNestedPointer}
+ * Strings to define the insertion paths.
+ */
+public class CollectionBuilder extends Builder<Object, List<Object>>
+  {
+  /**
+   * Creates a new CollectionBuilder instance.
+   *
+   * @param buildSpecs the build declaration
+   */
+  public CollectionBuilder( BuildSpec... buildSpecs )
+    {
+    super( CollectionNestedPointerCompiler.COMPILER, buildSpecs );
+    }
+  }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.collections;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import heretical.pointer.operation.Copier;
+import heretical.pointer.operation.CopyPlan;
+import heretical.pointer.operation.CopySpec;
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.collections.CollectionNestedPointerCompiler;
+
+/**
+ * CollectionCopier provides the a means to copy values from one {@link java.util.Map} into a another Map.
+ *
+ * The {@link CopySpec} copy declaration relies on {@link heretical.pointer.path.collections.CollectionNestedPointer}
+ * Strings to define the copy from and to copy paths.
+ */
+public class CollectionCopier extends Copier<Object, List<Object>>
+  {
+  /**
+   * Creates a new CollectionCopier instance.
+   *
+   * @param copySpecs the copy declaration
+   */
+  public CollectionCopier( CopySpec... copySpecs )
+    {
+    super( CollectionNestedPointerCompiler.COMPILER, copySpecs );
+    }
+
+  /**
+   * Creates a new CollectionCopier instance.
+   *
+   * @param copyMode  how copied values are placed into the result
+   * @param copySpecs the copy declaration
+   */
+  public CollectionCopier( CopyMode copyMode, CopySpec... copySpecs )
+    {
+    super( CollectionNestedPointerCompiler.COMPILER, copyMode, copySpecs );
+    }
+
+  /**
+   * Creates a new CollectionCopier instance from a compiled {@link CopyPlan}, which may be shared with other
+   * copiers.
+   *
+   * @param copyMode how copied values are placed into the result
+   * @param plan     the compiled copy declaration
+   */
+  public CollectionCopier( CopyMode copyMode, CopyPlan<Object> plan )
+    {
+    super( CollectionNestedPointerCompiler.COMPILER, copyMode, plan );
+    }
+
+  /**
+   * Method copyAll copies each of the given {@code fromNodes} into a new {@link LinkedHashMap}, in parallel on
+   * the common {@link ForkJoinPool}.
+   *
+   * @param fromNodes the objects to copy and possibly transform values from
+   * @return List<Object> of the new objects, in {@code fromNodes} order
+   */
+  public List<Object> copyAll( List<Object> fromNodes )
+    {
+    return copyAll( ForkJoinPool.commonPool(), fromNodes );
+    }
+
+  /**
+   * Method copyAll copies each of the given {@code fromNodes} into a new {@link LinkedHashMap}, in parallel on
+   * the given {@link ForkJoinPool}.
+   *
+   * @param pool      the pool to run the copies in
+   * @param fromNodes the objects to copy and possibly transform values from
+   * @return List<Object> of the new objects, in {@code fromNodes} order
+   */
+  public List<Object> copyAll( ForkJoinPool pool, List<Object> fromNodes )
+    {
+    return copyAll( pool, fromNodes, LinkedHashMap::new );
+    }
+  }
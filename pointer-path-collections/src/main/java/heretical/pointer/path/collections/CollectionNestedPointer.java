@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.collections;
+
+import java.util.List;
+
+import heretical.pointer.path.BaseNestedPointer;
+import heretical.pointer.path.PointerCompiler;
+
+/**
+ *
+ */
+public class CollectionNestedPointer extends BaseNestedPointer<Object, List<Object>>
+  {
+  public CollectionNestedPointer( PointerCompiler<Object, List<Object>> compiler, String pointer )
+    {
+    super( compiler, pointer );
+    }
+  }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.collections;
+
+import java.util.List;
+
+import heretical.pointer.path.DocumentIndex;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.NestedPointerCompiler;
+import heretical.pointer.path.NestedPointerSet;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.util.BoundedCache;
+
+/**
+ * Class CollectionNestedPointerCompiler is an implementation of {@link NestedPointerCompiler} for use with trees
+ * of {@link java.util.Map} and {@link List} instances.
+ * <p>
+ * Compiled {@link NestedPointer} instances are immutable and are cached by their path, so repeated calls
+ * to {@link #nested(String)} with the same path return the same instance. See {@link #getNestedCache()}
+ * for the cache statistics.
+ *
+ * @see NestedPointerCompiler for more details.
+ * @see CollectionPointerCompiler for how nodes are typed.
+ */
+public class CollectionNestedPointerCompiler implements NestedPointerCompiler<Object, List<Object>>
+  {
+  public static final CollectionNestedPointerCompiler COMPILER = new CollectionNestedPointerCompiler();
+
+  private final CollectionPointerCompiler compiler;
+  private final BoundedCache<String, NestedPointer<Object, List<Object>>> nestedCache;
+
+  /**
+   * Constructor CollectionNestedPointerCompiler creates a new CollectionNestedPointerCompiler instance that
+   * retains up to {@link BoundedCache#DEFAULT_CAPACITY} compiled nested pointers.
+   */
+  public CollectionNestedPointerCompiler()
+    {
+    this( BoundedCache.DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor CollectionNestedPointerCompiler creates a new CollectionNestedPointerCompiler instance.
+   *
+   * @param nestedCacheCapacity the maximum number of compiled nested pointers to retain
+   */
+  public CollectionNestedPointerCompiler( int nestedCacheCapacity )
+    {
+    this( new CollectionPointerCompiler(), nestedCacheCapacity );
+    }
+
+  /**
+   * Constructor CollectionNestedPointerCompiler creates a new CollectionNestedPointerCompiler instance.
+   *
+   * @param compiler            the pointer compiler to delegate to
+   * @param nestedCacheCapacity the maximum number of compiled nested pointers to retain
+   */
+  public CollectionNestedPointerCompiler( CollectionPointerCompiler compiler, int nestedCacheCapacity )
+    {
+    this.compiler = compiler;
+    this.nestedCache = new BoundedCache<>( nestedCacheCapacity );
+    }
+
+  @Override
+  public Pointer<Object> compile( String path )
+    {
+    return compiler.compile( path );
+    }
+
+  @Override
+  public NestedPointer<Object, List<Object>> nested( String path )
+    {
+    return nestedCache.get( path, this::create );
+    }
+
+  @Override
+  public NestedPointerSet<Object, List<Object>> nestedSet( String... paths )
+    {
+    return new NestedPointerSet<>( compiler, paths );
+    }
+
+  private NestedPointer<Object, List<Object>> create( String path )
+    {
+    return new CollectionNestedPointer( compiler, path );
+    }
+
+  /**
+   * Method index creates a new, empty, {@link DocumentIndex} for the given document, to be shared by every
+   * pointer evaluated against it.
+   *
+   * @param root of Object
+   * @return DocumentIndex<Object>
+   */
+  public DocumentIndex<Object> index( Object root )
+    {
+    return new DocumentIndex<>( compiler, root );
+    }
+
+  /**
+   * Method getPointerCompiler returns the underlying {@link CollectionPointerCompiler}.
+   *
+   * @return CollectionPointerCompiler
+   */
+  public CollectionPointerCompiler getPointerCompiler()
+    {
+    return compiler;
+    }
+
+  /**
+   * Method getNestedCache returns the cache of compiled {@link NestedPointer} instances, including
+   * its hit, miss, and eviction counts.
+   *
+   * @return BoundedCache
+   */
+  public BoundedCache<String, NestedPointer<Object, List<Object>>> getNestedCache()
+    {
+    return nestedCache;
+    }
+
+  @Override
+  public Iterable<Object> iterable( List<Object> node )
+    {
+    return node;
+    }
+
+  @Override
+  public int size( List<Object> node )
+    {
+    return node.size();
+    }
+
+  @Override
+  public Object node( Object value )
+    {
+    return compiler.node( value );
+    }
+  }
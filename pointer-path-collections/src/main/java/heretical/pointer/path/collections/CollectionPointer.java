@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.collections;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.Segment;
+
+/**
+ * Class CollectionPointer is an implementation of the {@link Pointer} interface for use with trees of
+ * {@link Map} and {@link List} instances.
+ * <p>
+ * Map keys are expected to be Strings, any value that is neither a Map nor a List is a value, and is never
+ * duplicated. Missing parents are created as a {@link LinkedHashMap} or an {@link ArrayList}.
+ * <p>
+ * A CollectionPointer follows the semantics of the JSON provider {@code JSONPointer} class, but for null values.
+ * A null value is treated as missing, so it is never copied, and is replaced when a parent must be created. Only
+ * {@link #apply(Object, Function)} passes a null value to its transform.
+ */
+public class CollectionPointer implements Pointer<Object>
+  {
+  private static final Segment[][] NO_EXCLUDES = new Segment[ 0 ][];
+
+  private final Segment[] segments;
+  private transient String path;
+
+  public CollectionPointer( String path )
+    {
+    this.segments = Segment.parse( path ); // verify pointer
+    this.path = path;
+    }
+
+  /**
+   * Constructor CollectionPointer creates a new CollectionPointer instance from the given segments, the array
+   * is retained.
+   *
+   * @param segments of Segment[]
+   */
+  public CollectionPointer( Segment[] segments )
+    {
+    this.segments = segments;
+    }
+
+  @Override
+  public Segment[] segments()
+    {
+    return segments;
+    }
+
+  @Override
+  public Object at( Object root )
+    {
+    return at( root, segments.length );
+    }
+
+  /**
+   * Method at returns the node referenced by the first {@code length} segments, or null if there is no such node.
+   */
+  protected Object at( Object node, int length )
+    {
+    for( int i = 0; i < length && node != null; i++ )
+      node = child( node, segments[ i ] );
+
+    return node;
+    }
+
+  private static Object child( Object node, Segment segment )
+    {
+    if( node instanceof Map )
+      return ( (Map<String, Object>) node ).get( segment.getName() );
+
+    if( node instanceof List )
+      {
+      List<Object> list = (List<Object>) node;
+      int index = segment.getIndex();
+
+      if( index < 0 || index >= list.size() )
+        return null;
+
+      return list.get( index );
+      }
+
+    return null;
+    }
+
+  @Override
+  public Object objectAt( Object root )
+    {
+    if( segments.length == 0 )
+      return root;
+
+    return safeWith( parents( root, segments.length ), segments[ segments.length - 1 ], null );
+    }
+
+  @Override
+  public Object remove( Object root )
+    {
+    Segment last = last();
+    Object parent = at( root, segments.length - 1 );
+
+    if( parent instanceof Map )
+      return ( (Map<String, Object>) parent ).remove( last.getName() );
+
+    if( parent instanceof List )
+      {
+      List<Object> list = (List<Object>) parent;
+      int index = last.getIndex();
+
+      if( index < 0 || index >= list.size() )
+        return null;
+
+      return list.remove( index );
+      }
+
+    throw new IllegalStateException( "parent node is of unknown object type: " + typeOf( parent ) );
+    }
+
+  @Override
+  public void copy( Object from, Object into, Predicate<Object> filter )
+    {
+    copy( from, into, filter, CopyMode.DEEP );
+    }
+
+  /**
+   * Method copy places the value referenced by this pointer into the same location relative to {@code into}.
+   * <p>
+   * Values are always shared, with {@link CopyMode#SHARED} Maps and Lists are shared as well.
+   */
+  @Override
+  public void copy( Object from, Object into, Predicate<Object> filter, CopyMode mode )
+    {
+    copy( from, into, filter, mode, null );
+    }
+
+  /**
+   * Method copy places the value referenced by this pointer into the same location relative to {@code into},
+   * without the excluded values.
+   * <p>
+   * Excluded Map entries are skipped while the value is duplicated, so are never copied. List elements
+   * are always copied, and with {@link CopyMode#SHARED} nothing is skipped.
+   */
+  @Override
+  public void copy( Object from, Object into, Predicate<Object> filter, CopyMode mode, Pointer<Object>[] excludes )
+    {
+    Object value = at( from, segments.length );
+
+    if( value == null )
+      return;
+
+    if( filter != null && !filter.test( value ) )
+      return;
+
+    if( mode != CopyMode.SHARED )
+      value = deepCopy( value, excludes == null || excludes.length == 0 ? NO_EXCLUDES : segments( excludes ), 0 );
+
+    if( segments.length == 0 )
+      {
+      ( (Map<String, Object>) into ).putAll( (Map<String, Object>) value );
+      return;
+      }
+
+    Object currentNode = into;
+    int last = segments.length - 1;
+
+    for( int i = 0; i < last; i++ )
+      currentNode = safeWith( currentNode, segments[ i ], segments[ i + 1 ] );
+
+    if( segments[ last ].getIndex() == -1 )
+      setOnObject( (Map<String, Object>) currentNode, segments[ last ], value, Function.identity() );
+    else
+      addOnArray( (List<Object>) currentNode, value, Function.identity() );
+    }
+
+  private static Segment[][] segments( Pointer<Object>[] pointers )
+    {
+    Segment[][] segments = new Segment[ pointers.length ][];
+
+    for( int i = 0; i < pointers.length; i++ )
+      segments[ i ] = pointers[ i ].segments();
+
+    return segments;
+    }
+
+  /**
+   * Method deepCopy duplicates the given node, skipping any Map entry referenced by the {@code excludes}
+   * from the {@code depth} segment on, a {@code *} segment matches every child.
+   */
+  private static Object deepCopy( Object node, Segment[][] excludes, int depth )
+    {
+    if( node instanceof Map )
+      {
+      Map<String, Object> map = (Map<String, Object>) node;
+      Map<String, Object> copy = new LinkedHashMap<>();
+
+      for( Map.Entry<String, Object> entry : map.entrySet() )
+        {
+        Segment[][] below = excludes.length == 0 ? NO_EXCLUDES : below( excludes, depth, entry.getKey(), -1 );
+
+        if( below == null )
+          continue;
+
+        copy.put( entry.getKey(), deepCopy( entry.getValue(), below, depth + 1 ) );
+        }
+
+      return copy;
+      }
+
+    if( node instanceof List )
+      {
+      List<Object> list = (List<Object>) node;
+      List<Object> copy = new ArrayList<>( list.size() );
+
+      for( int i = 0; i < list.size(); i++ )
+        {
+        Segment[][] below = excludes.length == 0 ? NO_EXCLUDES : below( excludes, depth, null, i );
+
+        // list elements are never skipped, removing an element shifts the indexes of the elements following it
+        copy.add( deepCopy( list.get( i ), below == null ? NO_EXCLUDES : below, depth + 1 ) );
+        }
+
+      return copy;
+      }
+
+    return node;
+    }
+
+  /**
+   * Method below returns the excludes continuing below the given child, or null if the child itself is excluded.
+   */
+  private static Segment[][] below( Segment[][] excludes, int depth, String name, int index )
+    {
+    int count = 0;
+
+    for( Segment[] exclude : excludes )
+      {
+      Segment segment = exclude[ depth ];
+
+      if( !matches( segment, name, index ) )
+        continue;
+
+      if( exclude.length == depth + 1 )
+        return null;
+
+      count++;
+      }
+
+    if( count == 0 )
+      return NO_EXCLUDES;
+
+    Segment[][] results = new Segment[ count ][];
+
+    count = 0;
+
+    for( Segment[] exclude : excludes )
+      {
+      Segment segment = exclude[ depth ];
+
+      if( matches( segment, name, index ) )
+        results[ count++ ] = exclude;
+      }
+
+    return results;
+    }
+
+  private static boolean matches( Segment segment, String name, int index )
+    {
+    if( segment.getName().equals( "*" ) )
+      return true;
+
+    return name != null ? segment.getName().equals( name ) : segment.getIndex() == index;
+    }
+
+  /**
+   * Method safeWith returns the child of {@code node} named by {@code segment}, creating it if missing.
+   * The child is created as a List if the {@code next} segment may reference a List element.
+   */
+  protected Object safeWith( Object node, Segment segment, Segment next )
+    {
+    boolean nextIsElement = next != null && next.getIndex() != -1;
+
+    if( node instanceof Map )
+      {
+      Map<String, Object> map = (Map<String, Object>) node;
+      Object child = map.get( segment.getName() );
+
+      if( child == null )
+        {
+        child = nextIsElement ? new ArrayList<>() : new LinkedHashMap<>();
+        map.put( segment.getName(), child );
+        }
+      else if( nextIsElement && !( child instanceof List ) )
+        {
+        throw new UnsupportedOperationException( "value at: " + segment.getName() + ", is not a List, got: " + typeOf( child ) );
+        }
+      else if( !nextIsElement && !( child instanceof Map ) )
+        {
+        throw new UnsupportedOperationException( "value at: " + segment.getName() + ", is not a Map, got: " + typeOf( child ) );
+        }
+
+      return child;
+      }
+
+    if( node instanceof List )
+      {
+      Object child = nextIsElement ? new ArrayList<>() : new LinkedHashMap<>();
+
+      ( (List<Object>) node ).add( child );
+
+      return child;
+      }
+
+    throw new IllegalStateException( "parent node is of unknown object type: " + typeOf( node ) );
+    }
+
+  @Override
+  public void apply( Object root, Function<Object, Object> transform )
+    {
+    Segment last = last();
+    Object parent = at( root, segments.length - 1 );
+
+    if( parent == null )
+      throw new IllegalArgumentException( "parent is missing" );
+
+    if( parent instanceof Map && ( (Map<String, Object>) parent ).containsKey( last.getName() ) )
+      setOnObject( (Map<String, Object>) parent, last, ( (Map<String, Object>) parent ).get( last.getName() ), transform );
+    else if( parent instanceof List && last.getIndex() >= 0 && last.getIndex() < ( (List<Object>) parent ).size() )
+      setOnArray( (List<Object>) parent, last, ( (List<Object>) parent ).get( last.getIndex() ), transform );
+    else if( !( parent instanceof Map ) && !( parent instanceof List ) )
+      throw new IllegalStateException( "parent node is of unknown object type: " + typeOf( parent ) );
+    }
+
+  @Override
+  public void set( Object root, Object child, Function<Object, Object> transform )
+    {
+    Segment last = last();
+    Object parent = parents( root, segments.length );
+
+    update( parent, last, child, transform, true );
+    }
+
+  @Override
+  public void add( Object root, Object child, Function<Object, Object> transform )
+    {
+    Segment last = last();
+    Object parent = parents( root, segments.length );
+
+    update( parent, last, child, transform, false );
+    }
+
+  private Segment last()
+    {
+    if( segments.length == 0 )
+      throw new IllegalStateException( "pointer references the root node" );
+
+    return segments[ segments.length - 1 ];
+    }
+
+  /**
+   * Method parents returns the parent of the node referenced by the first {@code length} segments,
+   * creating any missing ancestors.
+   */
+  protected Object parents( Object root, int length )
+    {
+    int head = length - 1;
+    Object parent = at( root, head );
+
+    if( parent == null )
+      {
+      parent = segments[ length - 1 ].isIndex() ? new ArrayList<>() : new LinkedHashMap<>();
+
+      Object ancestor = parents( root, head );
+
+      update( ancestor, segments[ head - 1 ], parent, Function.identity(), true );
+
+      return parent;
+      }
+
+    if( !isContainer( parent ) )
+      throw new IllegalArgumentException( "parent node at:" + Segment.toString( segments, head ) + ", is not a container node" );
+
+    return parent;
+    }
+
+  protected void update( Object parent, Segment location, Object child, Function<Object, Object> transform, boolean isSet )
+    {
+    if( !isContainer( parent ) )
+      throw new IllegalArgumentException( "parent node must be a container node, got: " + typeOf( parent ) );
+
+    if( !isSet )
+      addTo( parent, location, child );
+    else if( parent instanceof Map )
+      setOnObject( (Map<String, Object>) parent, location, child, transform );
+    else
+      setOnArray( (List<Object>) parent, location, child, transform );
+    }
+
+  protected void addTo( Object parent, Segment last, Object child )
+    {
+    Object container = child( parent, last );
+
+    if( container == null )
+      {
+      container = new ArrayList<>();
+
+      if( parent instanceof Map )
+        setOnObject( (Map<String, Object>) parent, last, container, Function.identity() );
+      else
+        addOnArray( (List<Object>) parent, container, Function.identity() );
+      }
+
+    if( !( container instanceof List ) )
+      throw new IllegalStateException( "node referenced by pointer is not a List: " + this );
+
+    addOnArray( (List<Object>) container, child, Function.identity() );
+    }
+
+  protected void setOnArray( List<Object> parent, Segment location, Object child, Function<Object, Object> transform )
+    {
+    int matchingIndex = location.getIndex();
+
+    while( parent.size() <= matchingIndex )
+      parent.add( null );
+
+    parent.set( matchingIndex, transform.apply( child ) );
+    }
+
+  protected void setOnObject( Map<String, Object> parent, Segment location, Object child, Function<Object, Object> transform )
+    {
+    parent.put( location.getName(), transform.apply( child ) );
+    }
+
+  protected void addOnArray( List<Object> parent, Object child, Function<Object, Object> transform )
+    {
+    parent.add( transform.apply( child ) );
+    }
+
+  private static boolean isContainer( Object node )
+    {
+    return node instanceof Map || node instanceof List;
+    }
+
+  private static String typeOf( Object node )
+    {
+    return node == null ? "null" : node.getClass().getName();
+    }
+
+  @Override
+  public String toString()
+    {
+    if( path == null )
+      path = Segment.toString( segments );
+
+    return path;
+    }
+  }
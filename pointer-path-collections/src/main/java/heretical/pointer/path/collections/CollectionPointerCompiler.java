@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.collections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.PointerCache;
+import heretical.pointer.path.PointerCompiler;
+import heretical.pointer.path.Segment;
+import heretical.pointer.util.BoundedCache;
+
+/**
+ * Class CollectionPointerCompiler is an implementation of {@link PointerCompiler} for use with trees of
+ * {@link Map} and {@link List} instances, for example as read by a JSON or Avro library.
+ * <p>
+ * Any {@link Map} is a Map node, and must have String keys, any {@link List} is an Array node, and any other
+ * value, including null, is a Value node. Nodes are never wrapped, so {@link #node(Object)} returns the given
+ * value.
+ * <p>
+ * Result nodes are {@link ArrayList} instances. A null value is treated as missing, see {@link CollectionPointer},
+ * so is never added to a result.
+ * <p>
+ * Child pointers created while resolving wildcard and descent paths are retained by a per instance
+ * {@link PointerCache}, see {@link #getChildCache()}.
+ *
+ * @see PointerCompiler for more details.
+ */
+public class CollectionPointerCompiler implements PointerCompiler<Object, List<Object>>
+  {
+  private final PointerCache<Object> childCache;
+  private final int maxDescentDepth;
+
+  /**
+   * Constructor CollectionPointerCompiler creates a new CollectionPointerCompiler instance that retains up to
+   * {@link BoundedCache#DEFAULT_CAPACITY} named child pointers.
+   */
+  public CollectionPointerCompiler()
+    {
+    this( BoundedCache.DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor CollectionPointerCompiler creates a new CollectionPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   */
+  public CollectionPointerCompiler( int childCacheCapacity )
+    {
+    this( childCacheCapacity, PointerCache.DEFAULT_INDEX_SIZE, DEFAULT_MAX_DESCENT_DEPTH );
+    }
+
+  /**
+   * Constructor CollectionPointerCompiler creates a new CollectionPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   * @param childIndexSize     the number of List index child pointers to retain
+   * @param maxDescentDepth    the maximum number of levels walked by a descent, see {@link #maxDescentDepth()}
+   */
+  public CollectionPointerCompiler( int childCacheCapacity, int childIndexSize, int maxDescentDepth )
+    {
+    if( maxDescentDepth < 1 )
+      throw new IllegalArgumentException( "maxDescentDepth must be greater than zero, got: " + maxDescentDepth );
+
+    this.childCache = new PointerCache<>( this, childCacheCapacity, childIndexSize );
+    this.maxDescentDepth = maxDescentDepth;
+    }
+
+  @Override
+  public CollectionPointer compile( String path )
+    {
+    return new CollectionPointer( path );
+    }
+
+  @Override
+  public CollectionPointer compile( Segment[] segments )
+    {
+    return new CollectionPointer( segments );
+    }
+
+  @Override
+  public Pointer<Object> child( String name )
+    {
+    return childCache.child( name );
+    }
+
+  @Override
+  public Pointer<Object> child( int index )
+    {
+    return childCache.child( index );
+    }
+
+  /**
+   * Method getChildCache returns the cache of child pointers used by wildcard and descent paths.
+   *
+   * @return PointerCache
+   */
+  public PointerCache<Object> getChildCache()
+    {
+    return childCache;
+    }
+
+  @Override
+  public Kind kind( Object node )
+    {
+    if( node instanceof List )
+      return Kind.Array;
+    if( node instanceof Map )
+      return Kind.Map;
+
+    return Kind.Value;
+    }
+
+  @Override
+  public List<Object> add( List<Object> result, Object node )
+    {
+    if( node != null )
+      result.add( node );
+
+    return result;
+    }
+
+  @Override
+  public List<Object> addAll( List<Object> into, List<Object> from )
+    {
+    if( from != null )
+      into.addAll( from );
+
+    return into;
+    }
+
+  @Override
+  public Object first( List<Object> node )
+    {
+    if( node == null || node.isEmpty() )
+      return null;
+
+    return node.get( 0 );
+    }
+
+  @Override
+  public boolean isContainer( Object node )
+    {
+    return node instanceof Map || node instanceof List;
+    }
+
+  @Override
+  public Iterator<Map.Entry<String, Object>> entries( Object node )
+    {
+    return ( (Map<String, Object>) node ).entrySet().iterator();
+    }
+
+  @Override
+  public Iterable<Object> iterable( Object node )
+    {
+    if( node instanceof List )
+      return (List<Object>) node;
+
+    if( node instanceof Map )
+      return ( (Map<String, Object>) node ).values();
+
+    return Collections.emptyList();
+    }
+
+  @Override
+  public int size( Object node )
+    {
+    if( node == null )
+      throw new IllegalArgumentException( "node may not be null" );
+
+    if( node instanceof List )
+      return ( (List<Object>) node ).size();
+
+    if( node instanceof Map )
+      return ( (Map<String, Object>) node ).size();
+
+    return 0;
+    }
+
+  @Override
+  public List<Object> resultNode()
+    {
+    return new ArrayList<>();
+    }
+
+  @Override
+  public int maxDescentDepth()
+    {
+    return maxDescentDepth;
+    }
+
+  @Override
+  public Object node( Object value )
+    {
+    return value;
+    }
+  }
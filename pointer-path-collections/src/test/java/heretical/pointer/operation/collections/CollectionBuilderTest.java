@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.collections;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.operation.BuildSpec;
+import heretical.pointer.operation.json.JSONBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ */
+public class CollectionBuilderTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void build() throws Exception
+    {
+    Map<Comparable, Object> arguments = new HashMap<>();
+
+    arguments.put( "id", "123-45-6789" );
+    arguments.put( "age", 50 );
+    arguments.put( "first", "John" );
+    arguments.put( "last", "Doe" );
+    arguments.put( "child", "Jane" );
+    arguments.put( "child-age", 4 );
+
+    BuildSpec spec = new BuildSpec()
+      .putInto( "id", "/ssn" )
+      .putInto( "age", String.class, "/age" )
+      .putInto( "first", "/name/first" )
+      .putInto( "last", "/name/last" )
+      .addInto( "child", "/children" )
+      .addInto( "child-age", Integer.class, "/childAges" );
+
+    ObjectNode expected = JsonNodeFactory.instance.objectNode();
+    Map<String, Object> value = new LinkedHashMap<>();
+
+    new JSONBuilder( spec ).build( ( key, type ) -> arguments.get( key ), expected );
+    new CollectionBuilder( spec ).build( ( key, type ) -> arguments.get( key ), value );
+
+    assertEquals( "John", ( (Map) value.get( "name" ) ).get( "first" ) );
+    assertEquals( 50, value.get( "age" ) );
+    assertEquals( expected, mapper.valueToTree( value ) );
+    }
+  }
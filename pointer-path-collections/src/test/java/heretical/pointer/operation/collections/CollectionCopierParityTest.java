@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.collections;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import heretical.pointer.operation.CopySpec;
+import heretical.pointer.operation.json.JSONCopier;
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.json.JSONData;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Applies the same copy declarations with a {@link JSONCopier} and a {@link CollectionCopier}, the results must
+ * be the same.
+ */
+public class CollectionCopierParityTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  private static final Function<JsonNode, JsonNode> JSON_TO_STRING = node -> TextNode.valueOf( node.asText() );
+  private static final Function<Object, Object> TO_STRING = Object::toString;
+
+  private static final Predicate<JsonNode> JSON_IS_JOHN = node -> node.at( "/person/name" ).asText().equals( "John Doe" );
+  private static final Predicate<Object> IS_JOHN = node -> "John Doe".equals( ( (Map) ( (Map) node ).get( "person" ) ).get( "name" ) );
+
+  private static void assertParity( String document, CopySpec jsonSpec, CopySpec spec ) throws Exception
+    {
+    for( CopyMode mode : CopyMode.values() )
+      {
+      JsonNode json = mapper.readTree( document );
+      Object collection = mapper.readValue( document, Object.class );
+
+      ObjectNode expected = JsonNodeFactory.instance.objectNode();
+      Map<String, Object> actual = new LinkedHashMap<>();
+
+      new JSONCopier( mode, jsonSpec ).copy( json, expected );
+      new CollectionCopier( mode, spec ).copy( collection, actual );
+
+      assertEquals( jsonSpec.toString(), expected, mapper.valueToTree( actual ) );
+      assertEquals( jsonSpec.toString(), json, mapper.valueToTree( collection ) );
+      }
+    }
+
+  private static void assertParity( String document, CopySpec spec ) throws Exception
+    {
+    assertParity( document, spec, spec );
+    }
+
+  @Test
+  public void testCopy() throws Exception
+    {
+    assertParity( JSONData.nested, new CopySpec().from( "/person" ) );
+    assertParity( JSONData.nested, new CopySpec( "/result" ).from( "/person/measures/*" ) );
+    assertParity( JSONData.people, new CopySpec().from( "/people/0" ) );
+    assertParity( JSONData.people, new CopySpec( "/people" ).from( "/people/*" ) );
+    }
+
+  @Test
+  public void testCopyInclude() throws Exception
+    {
+    assertParity( JSONData.nested, new CopySpec().fromInclude( "/person", "/firstName", "/age" ) );
+    assertParity( JSONData.nested, new CopySpec().fromInclude( "/person", "/measures/*/value", "/measure" ) );
+    assertParity( JSONData.nested, new CopySpec().fromInclude( "/person", "/**/value" ) );
+    assertParity( JSONData.nested, new CopySpec().fromInclude( "/person", "/measures", "/arrays/*/1" ).exclude( "/measures/0/value" ) );
+    }
+
+  @Test
+  public void testCopyExclude() throws Exception
+    {
+    assertParity( JSONData.nested, new CopySpec().fromExclude( "/person", "/ssn", "/children" ) );
+    assertParity( JSONData.nested, new CopySpec().fromExclude( "/person", "/measures/*/value", "/**/zeroValue" ) );
+    assertParity( JSONData.nested, new CopySpec( "/result" ).fromExclude( "", "/person/arrays" ) );
+    }
+
+  @Test
+  public void testCopyFilter() throws Exception
+    {
+    assertParity( JSONData.people,
+      new CopySpec().from( "/people/*", JSON_IS_JOHN ),
+      new CopySpec().from( "/people/*", IS_JOHN )
+    );
+    assertParity( JSONData.people,
+      new CopySpec().from( "/people/*", JSON_IS_JOHN.negate() ),
+      new CopySpec().from( "/people/*", IS_JOHN.negate() )
+    );
+    }
+
+  @Test
+  public void testCopyTransform() throws Exception
+    {
+    assertParity( JSONData.nested,
+      new CopySpec( "/result" ).fromTransform( "/person", "/measures/*/value", JSON_TO_STRING ),
+      new CopySpec( "/result" ).fromTransform( "/person", "/measures/*/value", TO_STRING )
+    );
+    assertParity( JSONData.nested,
+      new CopySpec().fromTransform( "/person", "/**/value", JSON_TO_STRING ),
+      new CopySpec().fromTransform( "/person", "/**/value", TO_STRING )
+    );
+    }
+
+  @Test
+  public void testCopyAll() throws Exception
+    {
+    CopySpec spec = new CopySpec().fromExclude( "/person", "/ssn" );
+
+    List<JsonNode> jsonNodes = Arrays.asList( mapper.readTree( JSONData.nested ), mapper.readTree( JSONData.nested ) );
+    List<Object> nodes = Arrays.asList( mapper.readValue( JSONData.nested, Object.class ), mapper.readValue( JSONData.nested, Object.class ) );
+
+    assertEquals( mapper.valueToTree( new JSONCopier( spec ).copyAll( jsonNodes ) ), mapper.valueToTree( new CollectionCopier( spec ).copyAll( nodes ) ) );
+    }
+  }
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.collections;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.json.JSONData;
+import heretical.pointer.path.json.JSONNestedPointerCompiler;
+import org.junit.Test;
+
+import static heretical.pointer.path.collections.CollectionNestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ * Evaluates the same paths against a JSON document and the same document read as Maps and Lists, the
+ * results must be the same, but for null values that are never added to a collection result.
+ */
+public class CollectionNestedPointerParityTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  private static final String[] DOCUMENTS = {JSONData.nested, JSONData.people, JSONData.nestedArray};
+
+  private static final String[] PATHS = {
+    "",
+    "/person",
+    "/person/name",
+    "/person/empty",
+    "/person/measure/value",
+    "/person/measures/1/value",
+    "/person/measures/5/value",
+    "/person/measures/*/value",
+    "/person/measured/*",
+    "/person/arrays/*/1",
+    "/person/children/*",
+    "/person/*",
+    "/person/**",
+    "/person/**/value",
+    "/person/**/*",
+    "/**/value",
+    "/**/measures/*/value",
+    "/**/empty",
+    "/**/name",
+    "/**/person/name",
+    "/*/age",
+    "/*/*/*",
+    "/people/*/person/name",
+    "/people/1/person",
+    "/0/annotations/*/value",
+    "/*/annotations/**/name",
+    "/person/missing/*",
+    "/person/name/missing"
+  };
+
+  private static Object read( String json ) throws IOException
+    {
+    return mapper.readValue( json, Object.class );
+    }
+
+  private static JsonNode tree( Object value )
+    {
+    return mapper.valueToTree( value );
+    }
+
+  private static ArrayNode withoutNulls( ArrayNode result )
+    {
+    ArrayNode values = JsonNodeFactory.instance.arrayNode();
+
+    for( JsonNode node : result )
+      {
+      if( !node.isNull() )
+        values.add( node );
+      }
+
+    return values;
+    }
+
+  private static boolean hasNull( ArrayNode result )
+    {
+    return withoutNulls( result ).size() != result.size();
+    }
+
+  private static Class<?> failure( Runnable runnable )
+    {
+    try
+      {
+      runnable.run();
+      return null;
+      }
+    catch( RuntimeException exception )
+      {
+      return exception.getClass();
+      }
+    }
+
+  @Test
+  public void testAllAt() throws Exception
+    {
+    for( String document : DOCUMENTS )
+      {
+      JsonNode json = mapper.readTree( document );
+      Object collection = read( document );
+
+      for( String path : PATHS )
+        {
+        ArrayNode expected = JSONNestedPointerCompiler.COMPILER.nested( path ).allAt( json );
+        List<Object> actual = COMPILER.nested( path ).allAt( collection );
+
+        assertEquals( path, withoutNulls( expected ), tree( actual ) );
+        }
+      }
+    }
+
+  @Test
+  public void testAt() throws Exception
+    {
+    for( String document : DOCUMENTS )
+      {
+      JsonNode json = mapper.readTree( document );
+      Object collection = read( document );
+
+      for( String path : PATHS )
+        {
+        JsonNode expected = JSONNestedPointerCompiler.COMPILER.nested( path ).at( json );
+        Object actual = COMPILER.nested( path ).at( collection );
+
+        if( expected == null || expected.isNull() )
+          assertNull( path, actual );
+        else
+          assertEquals( path, expected, tree( actual ) );
+
+        assertEquals( path, expected != null && !expected.isNull(), COMPILER.nested( path ).exists( collection ) );
+        }
+      }
+    }
+
+  @Test
+  public void testRemove() throws Exception
+    {
+    for( String document : DOCUMENTS )
+      {
+      for( String path : PATHS )
+        {
+        if( path.isEmpty() )
+          continue;
+
+        JsonNode json = mapper.readTree( document );
+        Object collection = read( document );
+
+        ArrayNode[] expected = new ArrayNode[ 1 ];
+        List<Object>[] actual = new List[ 1 ];
+
+        assertEquals( path, failure( () -> expected[ 0 ] = JSONNestedPointerCompiler.COMPILER.nested( path ).remove( json ) ), failure( () -> actual[ 0 ] = COMPILER.nested( path ).remove( collection ) ) );
+
+        if( expected[ 0 ] == null )
+          continue;
+
+        assertEquals( path, withoutNulls( expected[ 0 ] ), tree( actual[ 0 ] ) );
+
+        // null values are not matched by wildcards or descents, so are not removed
+        if( !hasNull( expected[ 0 ] ) )
+          assertEquals( path, json, tree( collection ) );
+        }
+      }
+    }
+
+  @Test
+  public void testApply() throws Exception
+    {
+    Function<JsonNode, JsonNode> jsonTransform = node -> node.isValueNode() && !node.isNull() ? TextNode.valueOf( node.asText() ) : node;
+    Function<Object, Object> transform = value -> value == null || value instanceof Map || value instanceof List ? value : value.toString();
+
+    for( String document : DOCUMENTS )
+      {
+      for( String path : PATHS )
+        {
+        if( path.isEmpty() )
+          continue;
+
+        JsonNode json = mapper.readTree( document );
+        Object collection = read( document );
+
+        Class<?> expected = failure( () -> JSONNestedPointerCompiler.COMPILER.nested( path ).apply( json, jsonTransform ) );
+        Class<?> actual = failure( () -> COMPILER.nested( path ).apply( collection, transform ) );
+
+        assertEquals( path, expected, actual );
+        assertEquals( path, json, tree( collection ) );
+        }
+      }
+    }
+
+  @Test
+  public void testCopy() throws Exception
+    {
+    for( CopyMode mode : CopyMode.values() )
+      {
+      for( String document : DOCUMENTS )
+        {
+        JsonNode json = mapper.readTree( document );
+        Object collection = read( document );
+
+        for( String path : PATHS )
+          {
+          ObjectNode expected = JsonNodeFactory.instance.objectNode();
+          Map<String, Object> actual = new LinkedHashMap<>();
+
+          // null values are never copied from a collection
+          if( !json.isObject() && path.isEmpty() || hasNull( JSONNestedPointerCompiler.COMPILER.nested( path ).allAt( json ) ) )
+            continue;
+
+          JSONNestedPointerCompiler.COMPILER.nested( path ).copy( json, expected, null, mode );
+          COMPILER.nested( path ).copy( collection, actual, null, mode );
+
+          assertEquals( path, expected, tree( actual ) );
+          }
+
+        assertEquals( json, tree( collection ) );
+        }
+      }
+    }
+
+  @Test
+  public void testCopyFiltered() throws Exception
+    {
+    JsonNode json = mapper.readTree( JSONData.nested );
+    Object collection = read( JSONData.nested );
+
+    for( String path : PATHS )
+      {
+      ObjectNode expected = JsonNodeFactory.instance.objectNode();
+      Map<String, Object> actual = new LinkedHashMap<>();
+
+      JSONNestedPointerCompiler.COMPILER.nested( path ).copy( json, expected, node -> node.isValueNode() && !node.isNull() );
+      COMPILER.nested( path ).copy( collection, actual, value -> value != null && !( value instanceof Map ) && !( value instanceof List ) );
+
+      assertEquals( path, expected, tree( actual ) );
+      }
+    }
+
+  @Test
+  public void testSet() throws Exception
+    {
+    String[] paths = {"/person/name", "/person/added", "/person/measures/3/value", "/person/new/nested/value", "/added/0/value"};
+
+    JsonNode json = mapper.readTree( JSONData.nested );
+    Object collection = read( JSONData.nested );
+
+    for( String path : paths )
+      {
+      JSONNestedPointerCompiler.COMPILER.compile( path ).set( json, TextNode.valueOf( path ) );
+      COMPILER.compile( path ).set( collection, path );
+
+      assertEquals( path, json, tree( collection ) );
+      }
+
+    for( String path : new String[]{"/person/measured", "/person/tags", "/added/1"} )
+      {
+      JSONNestedPointerCompiler.COMPILER.compile( path ).add( json, TextNode.valueOf( path ) );
+      COMPILER.compile( path ).add( collection, path );
+
+      assertEquals( path, json, tree( collection ) );
+      }
+    }
+  }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static heretical.pointer.path.collections.CollectionNestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class CollectionPointerTest
+  {
+  @Test
+  public void testSetCreatesParents()
+    {
+    Map<String, Object> root = new LinkedHashMap<>();
+
+    COMPILER.compile( "/person/measures/2/value" ).set( root, 100 );
+    COMPILER.compile( "/person/children" ).add( root, "Jane" );
+
+    assertEquals( "{person={measures=[null, null, {value=100}], children=[Jane]}}", root.toString() );
+    assertTrue( ( (Map) root.get( "person" ) ).get( "measures" ) instanceof ArrayList );
+    assertEquals( 100, COMPILER.compile( "/person/measures/2/value" ).at( root ) );
+    assertNull( COMPILER.compile( "/person/measures/0/value" ).at( root ) );
+    assertNull( COMPILER.compile( "/person/measures/name" ).at( root ) );
+    }
+
+  @Test
+  public void testNullValues()
+    {
+    Map<String, Object> root = new LinkedHashMap<>();
+
+    root.put( "empty", null );
+    root.put( "values", new ArrayList<>( Arrays.asList( 1, null, 3 ) ) );
+
+    assertNull( COMPILER.nested( "/empty" ).at( root ) );
+    assertFalse( COMPILER.nested( "/empty" ).exists( root ) );
+    assertEquals( Arrays.asList( 1, 3 ), COMPILER.nested( "/values/*" ).allAt( root ) );
+
+    Map<String, Object> into = new LinkedHashMap<>();
+
+    COMPILER.nested( "/empty" ).copy( root, into );
+    COMPILER.nested( "/values" ).copy( root, into );
+
+    assertEquals( "{values=[1, null, 3]}", into.toString() );
+    assertNotSame( root.get( "values" ), into.get( "values" ) );
+
+    COMPILER.nested( "/values/*" ).apply( root, value -> value == null ? 2 : value );
+
+    assertEquals( Arrays.asList( 1, 2, 3 ), root.get( "values" ) );
+
+    COMPILER.compile( "/empty/value" ).set( root, 1 );
+
+    assertEquals( 1, COMPILER.nested( "/empty/value" ).at( root ) );
+    }
+
+  @Test
+  public void testNotAContainer()
+    {
+    Map<String, Object> root = new LinkedHashMap<>();
+
+    root.put( "name", "John" );
+
+    try
+      {
+      COMPILER.compile( "/name/first" ).set( root, "John" );
+      fail( "should throw" );
+      }
+    catch( IllegalArgumentException exception )
+      {
+      // expected
+      }
+
+    List<Object> removed = COMPILER.nested( "/name" ).remove( root );
+
+    assertEquals( Arrays.asList( "John" ), removed );
+    assertTrue( root.isEmpty() );
+    }
+  }
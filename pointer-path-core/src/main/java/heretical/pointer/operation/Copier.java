@@ -9,47 +9,111 @@
 package heretical.pointer.operation;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.NestedPointer;
 import heretical.pointer.path.NestedPointerCompiler;
+import heretical.pointer.path.Pointer;
 
 /**
  * Copier is a base class that provides object to object copy functionality declared through a set
  * of {@link CopySpec} instances.
+ * <p>
+ * By default all copied values are duplicated, see {@link CopyMode}. With {@link CopyMode#SHARED} the result
+ * shares objects and arrays with the source, except for values copied by a CopySpec with excludes or transforms,
+ * as these modify the copied values. If the declarations write into a value another include has already placed,
+ * for example with overlapping includes, all values are duplicated, so the copy never modifies the source.
+ * A shared result must be treated as read-only, see {@link CopyMode#SHARED}.
+ * <p>
+ * Once constructed, a Copier may be shared between threads, as long as {@link #resetTransforms(Map)}, or the
+ * deprecated {@link #copy(Map, Object, Object)} which resets the transforms, is not called while copies are
+ * running. Transform arguments are passed per call with {@link #copyWith(Map, Object, Object)}.
+ * See {@link #copyAll(ForkJoinPool, List, Supplier)} to copy a batch of values in parallel.
  */
 public class Copier<Node, Result> implements Serializable
   {
   private final NestedPointerCompiler<Node, Result> nestedPointerCompiler;
-  private final CopySpecDecorator<Node>[] copySpecs;
+  private final CopyMode copyMode;
+  private final CopyPlan<Node> plan;
 
   public Copier( NestedPointerCompiler<Node, Result> nestedPointerCompiler, CopySpec... copySpecs )
+    {
+    this( nestedPointerCompiler, CopyMode.DEEP, copySpecs );
+    }
+
+  public Copier( NestedPointerCompiler<Node, Result> nestedPointerCompiler, CopyMode copyMode, CopySpec... copySpecs )
+    {
+    this( nestedPointerCompiler, copyMode, new CopyPlan<>( nestedPointerCompiler, copySpecs ) );
+    }
+
+  public Copier( NestedPointerCompiler<Node, Result> nestedPointerCompiler, CopyMode copyMode, CopyPlan<Node> plan )
     {
     this.nestedPointerCompiler = nestedPointerCompiler;
-    this.copySpecs = CopySpecDecorator.array( this.nestedPointerCompiler, copySpecs );
+    this.copyMode = copyMode;
+    this.plan = plan;
 
     verify();
     }
 
+  /**
+   * Method verify is called on construction, and does nothing, as every pointer is compiled and verified when the
+   * {@link CopyPlan} is created.
+   *
+   * @deprecated invalid pointers fail when the {@link CopyPlan} is created
+   */
+  @Deprecated
   protected void verify()
     {
-    for( CopySpecDecorator copySpec : this.copySpecs )
-      copySpec.verify();
     }
 
+  /**
+   * Method getCopySpecs returns the declarations of the plan, as decorators compiling their pointers on demand.
+   * A new array is returned on every call.
+   *
+   * @deprecated use {@link #getPlan()} and {@link CopyPlan#getCopySpecs()}
+   */
+  @Deprecated
   protected CopySpecDecorator<Node>[] getCopySpecs()
     {
-    return copySpecs;
+    List<CopySpec> copySpecs = plan.getCopySpecs();
+
+    return CopySpecDecorator.array( nestedPointerCompiler, copySpecs.toArray( new CopySpec[ 0 ] ) );
+    }
+
+  public CopyPlan<Node> getPlan()
+    {
+    return plan;
+    }
+
+  public CopyMode getCopyMode()
+    {
+    return copyMode;
     }
 
   /**
    * Method copy first resets all {@link CopySpec} transforms with the Map of {@code arguments}, then applies
    * all the CopySpec instances to perform a copy and transform.
+   * <p>
+   * The arguments remain set for later calls to {@link #copy(Object, Object)}. To pass arguments to a single
+   * call, without modifying the transforms, see {@link #copyWith(Map, Object, Object)}.
    *
    * @param arguments  a Map of transform arguments, may be null
    * @param fromNode   the object to copy and possibly transform values from
    * @param resultNode the object to copy value to
+   * @deprecated resetting modifies the transforms shared by all threads, use
+   * {@link #copyWith(Map, Object, Object)} to pass the arguments to a single call
    */
+  @Deprecated
   public void copy( Map<Comparable, Object> arguments, Node fromNode, Node resultNode )
     {
     resetTransforms( arguments );
@@ -65,32 +129,221 @@ public class Copier<Node, Result> implements Serializable
    */
   public void copy( Node fromNode, Node resultNode )
     {
-    for( CopySpecDecorator<Node> copySpec : copySpecs )
+    copyValues( null, fromNode, resultNode );
+    }
+
+  /**
+   * Method copyWith applies all the CopySpec instances to perform a copy and transform, passing the Map of
+   * {@code arguments} to every resettable {@link Transform}.
+   * <p>
+   * The transforms are not reset, the arguments are only visible to this call, so a Copier may be used
+   * concurrently with different arguments. See {@link Transform#apply(Map, Object)}.
+   *
+   * @param arguments  a Map of transform arguments, may be null
+   * @param fromNode   the object to copy and possibly transform values from
+   * @param resultNode the object to copy value to
+   */
+  public void copyWith( Map<Comparable, Object> arguments, Node fromNode, Node resultNode )
+    {
+    if( arguments == null )
+      arguments = Collections.emptyMap();
+
+    copyValues( arguments, fromNode, resultNode );
+    }
+
+  private void copyValues( Map<Comparable, Object> arguments, Node fromNode, Node resultNode )
+    {
+    CopyMode planMode = plan.isOverlapping() ? CopyMode.DEEP : copyMode;
+
+    for( CopyPlan.Target<Node> target : plan.getTargets() )
       {
-      Node intoNode = copySpec.getIntoPointer().objectAt( resultNode );
+      Node intoNode = target.into.objectAt( resultNode );
 
-      for( CopySpecDecorator<Node>.FromDecorator fromSpec : copySpec.getFromSpecs() )
+      for( CopyPlan.Source<Node> source : target.sources )
         {
-        Result fromResult = (Result) fromSpec.getFromPointer().allAt( fromNode );
-        Iterable<Node> iterable = iterable( fromResult );
+        Result fromResult = (Result) source.from.allAt( fromNode );
+        CopyMode mode = source.isModifying() ? CopyMode.DEEP : planMode;
 
-        for( Node fromValue : iterable )
+        for( Node fromValue : iterable( fromResult ) )
           {
-          fromSpec.getIncludePointers()
-            .forEach( ( pointer, filter ) -> pointer.copy( fromValue, intoNode, filter ) );
+          if( source.includeSet != null )
+            {
+            copyIncludes( source, fromValue, intoNode, mode );
+            }
+          else
+            {
+            for( int i = 0; i < source.includes.length; i++ )
+              copyInclude( source, i, fromValue, intoNode, mode );
+            }
 
-          fromSpec.getExcludePointers()
-            .forEach( pointer -> pointer.remove( intoNode ) );
+          for( NestedPointer<Node, ?> exclude : source.excludes )
+            exclude.remove( intoNode );
 
-          fromSpec.getTransformPointers()
-            .forEach( ( pointer, transform ) -> pointer.apply( intoNode, transform ) );
+          for( int i = 0; i < source.transforms.length; i++ )
+            source.transforms[ i ].apply( intoNode, bind( source.transformFunctions[ i ], arguments ) );
           }
         }
       }
     }
 
+  /**
+   * Method bind returns a function passing the arguments to the given transform, if it is resettable.
+   */
+  private static <Node> Function<Node, Node> bind( Function<Node, Node> function, Map<Comparable, Object> arguments )
+    {
+    if( arguments == null || !( function instanceof Transform ) || !( (Transform<Node>) function ).isResettable() )
+      return function;
+
+    Transform<Node> transform = (Transform<Node>) function;
+
+    return node -> transform.apply( arguments, node );
+    }
+
+  /**
+   * Method copyAll applies all the CopySpec instances to each of the given {@code fromNodes}, in parallel
+   * on the common {@link ForkJoinPool}.
+   *
+   * @param fromNodes      the objects to copy and possibly transform values from
+   * @param resultSupplier creates a new result object for each copy
+   * @return List<Node> of the result objects, in {@code fromNodes} order
+   */
+  public List<Node> copyAll( List<Node> fromNodes, Supplier<Node> resultSupplier )
+    {
+    return copyAll( ForkJoinPool.commonPool(), fromNodes, resultSupplier );
+    }
+
+  /**
+   * Method copyAll applies all the CopySpec instances to each of the given {@code fromNodes}, in parallel
+   * on the given {@link ForkJoinPool}.
+   * <p>
+   * The {@code fromNodes} are split into ranges that are copied by the pool workers, each into a new result
+   * object created by the {@code resultSupplier}. The from values are only read, so they may share children.
+   * <p>
+   * The call blocks until every value is copied, any exception thrown by a copy is rethrown.
+   *
+   * @param pool           the pool to run the copies in
+   * @param fromNodes      the objects to copy and possibly transform values from
+   * @param resultSupplier creates a new result object for each copy, must be thread safe
+   * @return List<Node> of the result objects, in {@code fromNodes} order
+   */
+  public List<Node> copyAll( ForkJoinPool pool, List<Node> fromNodes, Supplier<Node> resultSupplier )
+    {
+    Node[] results = (Node[]) new Object[ fromNodes.size() ];
+
+    if( results.length == 0 )
+      return Collections.emptyList();
+
+    int batchSize = Math.max( 1, results.length / ( pool.getParallelism() * 4 ) );
+
+    pool.invoke( new CopyAction( fromNodes, resultSupplier, results, 0, results.length, batchSize ) );
+
+    return Arrays.asList( results );
+    }
+
+  private class CopyAction extends RecursiveAction
+    {
+    private final List<Node> fromNodes;
+    private final Supplier<Node> resultSupplier;
+    private final Node[] results;
+    private final int start;
+    private final int end;
+    private final int batchSize;
+
+    CopyAction( List<Node> fromNodes, Supplier<Node> resultSupplier, Node[] results, int start, int end, int batchSize )
+      {
+      this.fromNodes = fromNodes;
+      this.resultSupplier = resultSupplier;
+      this.results = results;
+      this.start = start;
+      this.end = end;
+      this.batchSize = batchSize;
+      }
+
+    @Override
+    protected void compute()
+      {
+      if( end - start > batchSize )
+        {
+        int middle = ( start + end ) >>> 1;
+
+        invokeAll(
+          new CopyAction( fromNodes, resultSupplier, results, start, middle, batchSize ),
+          new CopyAction( fromNodes, resultSupplier, results, middle, end, batchSize )
+        );
+
+        return;
+        }
+
+      for( int i = start; i < end; i++ )
+        {
+        Node resultNode = resultSupplier.get();
+
+        copy( fromNodes.get( i ), resultNode );
+
+        results[ i ] = resultNode;
+        }
+      }
+    }
+
+  /**
+   * Method copyInclude copies the values of the include at {@code index}, skipping any values below the include
+   * that are excluded anyway.
+   */
+  private void copyInclude( CopyPlan.Source<Node> source, int index, Node fromValue, Node intoNode, CopyMode mode )
+    {
+    NestedPointer<Node, ?> include = source.includes[ index ];
+    Predicate<Node> filter = source.includeFilters[ index ];
+
+    if( source.includeExcludes == null || source.includeExcludes[ index ].length == 0 )
+      {
+      include.copy( fromValue, intoNode, filter, mode );
+      return;
+      }
+
+    Pointer<Node>[] excludes = source.includeExcludes[ index ];
+
+    include.visitAt( fromValue, ( path, value ) ->
+    {
+    path.copy( fromValue, intoNode, filter, mode, excludes );
+    return true;
+    } );
+    }
+
+  /**
+   * Method copyIncludes finds the values of all includes in a single pass over {@code fromValue}, then copies
+   * the values of each include in turn, so the result is the same as copying each include separately.
+   */
+  private void copyIncludes( CopyPlan.Source<Node> source, Node fromValue, Node intoNode, CopyMode mode )
+    {
+    List<Pointer<Node>>[] matches = new List[ source.includeSet.size() ];
+
+    source.includeSet.visitAt( fromValue, ( index, path, value ) ->
+    {
+    if( matches[ index ] == null )
+      matches[ index ] = new ArrayList<>();
+
+    matches[ index ].add( path );
+
+    return true;
+    } );
+
+    for( int i = 0; i < matches.length; i++ )
+      {
+      if( matches[ i ] == null )
+        continue;
+
+      Pointer<Node>[] excludes = source.includeExcludes == null ? null : source.includeExcludes[ i ];
+
+      for( Pointer<Node> pointer : matches[ i ] )
+        pointer.copy( fromValue, intoNode, source.includeFilters[ i ], mode, excludes );
+      }
+    }
+
   /**
    * Method resetTransforms resets all {@link CopySpec} transforms.
+   * <p>
+   * Resetting modifies the shared transform instances, prefer {@link #copyWith(Map, Object, Object)} when copying
+   * concurrently.
    *
    * @param arguments a Map of transform arguments, may be null
    */
@@ -99,9 +352,7 @@ public class Copier<Node, Result> implements Serializable
     if( arguments == null )
       arguments = Collections.emptyMap();
 
-    for( CopySpecDecorator<Node> copySpec : copySpecs )
-      copySpec.resetTransforms( arguments );
-
+    plan.resetTransforms( arguments );
     }
 
   protected Iterable<Node> iterable( Result node )
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import heretical.pointer.path.Segment;
+
+/**
+ * Class CopyOptimizer rewrites the includes and excludes of a {@link CopySpec.From} so a {@link CopyPlan}
+ * copies less, without changing the result of the copy.
+ * <p>
+ * Includes nested below an unfiltered include are merged into the outer include, and excludes below an include
+ * are pushed down into the include copy, so excluded values are skipped instead of copied and then removed.
+ * <p>
+ * Only rewrites that hold for any data are made. Copying into arrays appends elements, so merging is limited to
+ * pointers that only name object members, and excludes are never pushed through descents.
+ * <p>
+ * The optimizer also finds plans that write into values already placed in the result, these cannot share
+ * values with the source, see {@link #isOverlapping(CopySpec[])}.
+ */
+final class CopyOptimizer
+  {
+  private static final String WILDCARD = "*";
+  private static final String DESCENT = "**";
+
+  private CopyOptimizer()
+    {
+    }
+
+  /**
+   * Method mergeIncludes returns the given includes, without those fully copied by another include.
+   * <p>
+   * An include is dropped if an earlier unfiltered include is a prefix of it, and both only name object members,
+   * e.g. {@code /a/b} is dropped in favor of an earlier {@code /a}. The include is kept if any include declared
+   * between the two may write below the prefix, and is not dropped itself. Includes are never reordered, so the
+   * members of the result keep their order.
+   */
+  static Map<String, Predicate<?>> mergeIncludes( Map<String, Predicate<?>> includes )
+    {
+    if( includes.size() < 2 )
+      return includes;
+
+    List<String> pointers = new ArrayList<>( includes.keySet() );
+    Map<String, Predicate<?>> results = new LinkedHashMap<>();
+
+    for( int i = 0; i < pointers.size(); i++ )
+      {
+      if( !isMerged( i, pointers, includes ) )
+        results.put( pointers.get( i ), includes.get( pointers.get( i ) ) );
+      }
+
+    return results;
+    }
+
+  private static boolean isMerged( int index, List<String> pointers, Map<String, Predicate<?>> includes )
+    {
+    String[] parts = parts( pointers.get( index ) );
+
+    if( !isMembers( parts ) )
+      return false;
+
+    for( int i = 0; i < index; i++ )
+      {
+      if( includes.get( pointers.get( i ) ) != null )
+        continue;
+
+      String[] outer = parts( pointers.get( i ) );
+
+      if( outer.length < parts.length && isPrefix( outer, parts ) && !isWrittenBetween( outer, i, index, pointers, includes ) )
+        return true;
+      }
+
+    return false;
+    }
+
+  /**
+   * Method isWrittenBetween returns true if an include declared between {@code start} and {@code end} may write
+   * below the {@code outer} include, and is not dropped.
+   */
+  private static boolean isWrittenBetween( String[] outer, int start, int end, List<String> pointers, Map<String, Predicate<?>> includes )
+    {
+    for( int i = start + 1; i < end; i++ )
+      {
+      if( isBelow( outer, parts( pointers.get( i ) ), false ) && !isMerged( i, pointers, includes ) )
+        return true;
+      }
+
+    return false;
+    }
+
+  /**
+   * Method excludesBelow returns the excludes that reference values below the given include, relative to
+   * the values referenced by the include.
+   * <p>
+   * An exclude is returned if the include is a prefix of it, and the remainder has no descent and does not end
+   * with a wildcard, e.g. for {@code /a/*} the exclude {@code /a/*}{@code /b/c} is returned as {@code /b/c}.
+   * Includes with a descent are never matched.
+   */
+  static String[] excludesBelow( String include, List<String> excludes )
+    {
+    if( excludes.isEmpty() )
+      return new String[ 0 ];
+
+    String[] parts = parts( include );
+
+    for( String part : parts )
+      {
+      if( part.equals( DESCENT ) )
+        return new String[ 0 ];
+      }
+
+    List<String> results = new ArrayList<>();
+
+    for( String exclude : excludes )
+      {
+      String[] excludeParts = parts( exclude );
+
+      if( excludeParts.length <= parts.length || !isPrefix( parts, excludeParts ) || !isPushable( excludeParts, parts.length ) )
+        continue;
+
+      StringBuilder builder = new StringBuilder();
+
+      for( int i = parts.length; i < excludeParts.length; i++ )
+        builder.append( '/' ).append( excludeParts[ i ] );
+
+      results.add( builder.toString() );
+      }
+
+    return results.toArray( new String[ 0 ] );
+    }
+
+  /**
+   * Method isOverlapping returns true if any value may be written into, or removed from, a container placed in
+   * the result by an include of a source without excludes or transforms.
+   * <p>
+   * With {@link heretical.pointer.path.CopyMode#SHARED} such a container belongs to the source, so the write
+   * would modify the source. Includes, excludes, and transforms are compared by their location in the result,
+   * wildcards match any element, and a descent is assumed to match anything.
+   */
+  static boolean isOverlapping( CopySpec<?>... copySpecs )
+    {
+    List<String[]> placements = new ArrayList<>();
+    List<String[]> writes = new ArrayList<>(); // values written into the parent of the location
+    List<String[]> modifies = new ArrayList<>(); // values removed or replaced at the location
+
+    for( CopySpec<?> copySpec : copySpecs )
+      {
+      String[] into = parts( copySpec.getInto() );
+
+      for( CopySpec.From from : copySpec.getFromMap().values() )
+        {
+        boolean isModifying = !from.getExcludes().isEmpty() || !from.getTransforms().isEmpty();
+
+        for( String include : mergeIncludes( from.getIncludes() ).keySet() )
+          {
+          // the root include places every child of the value
+          String[] location = include.isEmpty() ? concat( into, new String[]{WILDCARD} ) : concat( into, parts( include ) );
+
+          if( !isModifying )
+            placements.add( location );
+
+          writes.add( location );
+          }
+
+        for( String exclude : from.getExcludes() )
+          modifies.add( concat( into, parts( exclude ) ) );
+
+        for( String transform : from.getTransforms().keySet() )
+          modifies.add( concat( into, parts( transform ) ) );
+        }
+      }
+
+    for( String[] placement : placements )
+      {
+      for( String[] write : writes )
+        {
+        if( isBelow( placement, write, false ) )
+          return true;
+        }
+
+      for( String[] modify : modifies )
+        {
+        if( isBelow( placement, modify, true ) )
+          return true;
+        }
+      }
+
+    return false;
+    }
+
+  /**
+   * Method isBelow returns true if a location matching {@code parts} may be below, or if {@code orEqual} at,
+   * a location matching {@code prefix}.
+   */
+  private static boolean isBelow( String[] prefix, String[] parts, boolean orEqual )
+    {
+    for( int i = 0; ; i++ )
+      {
+      if( i < prefix.length && prefix[ i ].equals( DESCENT ) || i < parts.length && parts[ i ].equals( DESCENT ) )
+        return true;
+
+      if( i == prefix.length )
+        return orEqual ? parts.length >= i : parts.length > i;
+
+      if( i == parts.length )
+        return false;
+
+      if( !prefix[ i ].equals( parts[ i ] ) && !prefix[ i ].equals( WILDCARD ) && !parts[ i ].equals( WILDCARD ) )
+        return false;
+      }
+    }
+
+  private static String[] concat( String[] head, String[] tail )
+    {
+    String[] result = new String[ head.length + tail.length ];
+
+    System.arraycopy( head, 0, result, 0, head.length );
+    System.arraycopy( tail, 0, result, head.length, tail.length );
+
+    return result;
+    }
+
+  /**
+   * Method parts returns the escaped elements of the given pointer, wildcards and descents included.
+   */
+  private static String[] parts( String pointer )
+    {
+    if( pointer.isEmpty() )
+      return new String[ 0 ];
+
+    return pointer.substring( 1 ).split( "/", -1 );
+    }
+
+  private static boolean isPrefix( String[] prefix, String[] parts )
+    {
+    for( int i = 0; i < prefix.length; i++ )
+      {
+      if( !prefix[ i ].equals( parts[ i ] ) )
+        return false;
+      }
+
+    return true;
+    }
+
+  /**
+   * Method isPushable returns true if the parts from {@code start} on have no descent, and do not end with a
+   * wildcard.
+   */
+  private static boolean isPushable( String[] parts, int start )
+    {
+    for( int i = start; i < parts.length; i++ )
+      {
+      if( parts[ i ].equals( DESCENT ) )
+        return false;
+      }
+
+    return !parts[ parts.length - 1 ].equals( WILDCARD );
+    }
+
+  /**
+   * Method isMembers returns true if the parts only name object members, that is no wildcard, descent, or
+   * array index.
+   */
+  private static boolean isMembers( String[] parts )
+    {
+    for( String part : parts )
+      {
+      if( part.equals( WILDCARD ) || part.equals( DESCENT ) || Segment.name( part ).isIndex() )
+        return false;
+      }
+
+    return true;
+    }
+  }
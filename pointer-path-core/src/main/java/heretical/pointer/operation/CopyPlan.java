@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.NestedPointerCompiler;
+import heretical.pointer.path.NestedPointerSet;
+import heretical.pointer.path.Pointer;
+
+/**
+ * Class CopyPlan is the compiled, immutable form of one or more {@link CopySpec} declarations, as applied by
+ * a {@link Copier}.
+ * <p>
+ * All pointers are compiled when the plan is created, so an invalid pointer fails fast with an
+ * {@link IllegalArgumentException}, and the pointers, filters, and transforms of each {@link CopySpec.From} are
+ * held in arrays in declaration order. Includes and excludes are first optimized by the {@link CopyOptimizer}.
+ * <p>
+ * A CopyPlan may be shared between threads. Only the CopySpec declarations are serialized, the pointers are
+ * compiled again when the plan is read.
+ */
+public final class CopyPlan<Node> implements Serializable
+  {
+  /**
+   * A Target is a compiled {@link CopySpec}, the values of all its sources are copied into the same location.
+   */
+  static final class Target<Node>
+    {
+    final Pointer<Node> into; // never a nested path
+    final Source<Node>[] sources;
+
+    Target( Pointer<Node> into, Source<Node>[] sources )
+      {
+      this.into = into;
+      this.sources = sources;
+      }
+    }
+
+  /**
+   * A Source is a compiled {@link CopySpec.From}.
+   */
+  static final class Source<Node>
+    {
+    final NestedPointer<Node, ?> from;
+    final NestedPointer<Node, ?>[] includes;
+    final Predicate<Node>[] includeFilters;
+    final NestedPointerSet<Node, ?> includeSet;
+    final Pointer<Node>[][] includeExcludes; // null if no exclude is below an include
+    final NestedPointer<Node, ?>[] excludes;
+    final NestedPointer<Node, ?>[] transforms;
+    final Function<Node, Node>[] transformFunctions;
+
+    Source( NestedPointerCompiler<Node, ?> compiler, CopySpec.From from )
+      {
+      this.from = compiler.nested( from.getFrom() );
+
+      Map<String, Predicate<?>> includes = CopyOptimizer.mergeIncludes( from.getIncludes() );
+      List<String> excludes = from.getExcludes();
+
+      this.includes = new NestedPointer[ includes.size() ];
+      this.includeFilters = new Predicate[ includes.size() ];
+
+      Pointer<Node>[][] includeExcludes = new Pointer[ includes.size() ][];
+      boolean hasIncludeExcludes = false;
+      int count = 0;
+
+      for( Map.Entry<String, Predicate<?>> entry : includes.entrySet() )
+        {
+        String[] below = CopyOptimizer.excludesBelow( entry.getKey(), excludes );
+
+        includeExcludes[ count ] = new Pointer[ below.length ];
+
+        for( int i = 0; i < below.length; i++ )
+          includeExcludes[ count ][ i ] = compiler.compile( below[ i ] );
+
+        hasIncludeExcludes |= below.length != 0;
+
+        this.includes[ count ] = compiler.nested( entry.getKey() );
+        this.includeFilters[ count++ ] = (Predicate<Node>) entry.getValue();
+        }
+
+      this.includeSet = includeSet( compiler, this.includes );
+      this.includeExcludes = hasIncludeExcludes ? includeExcludes : null;
+
+      this.excludes = new NestedPointer[ excludes.size() ];
+
+      for( int i = 0; i < excludes.size(); i++ )
+        this.excludes[ i ] = compiler.nested( excludes.get( i ) );
+
+      Map<String, Function<?, ?>> transforms = from.getTransforms();
+
+      this.transforms = new NestedPointer[ transforms.size() ];
+      this.transformFunctions = new Function[ transforms.size() ];
+
+      count = 0;
+
+      for( Map.Entry<String, Function<?, ?>> entry : transforms.entrySet() )
+        {
+        this.transforms[ count ] = compiler.nested( entry.getKey() );
+        this.transformFunctions[ count++ ] = (Function<Node, Node>) entry.getValue();
+        }
+      }
+
+    /**
+     * Method includeSet returns all the include pointers as a single {@link NestedPointerSet}, if evaluating
+     * them in one pass produces the same copy as evaluating each include in turn, otherwise null.
+     * <p>
+     * A set is only used for more than one include, when any include has a wildcard, and no include has
+     * a descent. Descent includes are copied depth first.
+     */
+    private static <Node> NestedPointerSet<Node, ?> includeSet( NestedPointerCompiler<Node, ?> compiler, NestedPointer<Node, ?>[] includes )
+      {
+      if( includes.length < 2 )
+        return null;
+
+      boolean isAbsolute = true;
+      String[] paths = new String[ includes.length ];
+
+      for( int i = 0; i < includes.length; i++ )
+        {
+        isAbsolute &= includes[ i ].isAbsolute();
+        paths[ i ] = includes[ i ].toString();
+        }
+
+      if( isAbsolute )
+        return null;
+
+      NestedPointerSet<Node, ?> set = compiler.nestedSet( paths );
+
+      return set.isDescent() ? null : set;
+      }
+
+    /**
+     * Method isModifying returns true if this source declares excludes or transforms, both of which
+     * modify the copied values in place.
+     */
+    boolean isModifying()
+      {
+      return excludes.length != 0 || transforms.length != 0;
+      }
+    }
+
+  private final NestedPointerCompiler<Node, ?> compiler;
+  private final CopySpec[] copySpecs;
+  private final transient Target<Node>[] targets;
+  private final transient boolean isOverlapping;
+
+  /**
+   * Constructor CopyPlan creates a new CopyPlan instance.
+   *
+   * @param compiler  the compiler used to compile all pointers
+   * @param copySpecs the copy declarations
+   * @throws IllegalArgumentException if any declaration has an invalid pointer
+   */
+  public CopyPlan( NestedPointerCompiler<Node, ?> compiler, CopySpec... copySpecs )
+    {
+    this.compiler = compiler;
+    this.copySpecs = copySpecs.clone();
+    this.targets = new Target[ copySpecs.length ];
+
+    for( int i = 0; i < copySpecs.length; i++ )
+      this.targets[ i ] = target( compiler, copySpecs[ i ] );
+
+    this.isOverlapping = CopyOptimizer.isOverlapping( copySpecs );
+    }
+
+  private static <Node> Target<Node> target( NestedPointerCompiler<Node, ?> compiler, CopySpec<?> copySpec )
+    {
+    try
+      {
+      Pointer<Node> into = compiler.compile( copySpec.getInto() );
+      Map<String, CopySpec.From> fromMap = copySpec.getFromMap();
+      Source<Node>[] sources = new Source[ fromMap.size() ];
+
+      int count = 0;
+
+      for( CopySpec.From from : fromMap.values() )
+        sources[ count++ ] = new Source<>( compiler, from );
+
+      return new Target<>( into, sources );
+      }
+    catch( RuntimeException exception )
+      {
+      throw new IllegalArgumentException( "CopySpec has invalid pointer: " + copySpec, exception );
+      }
+    }
+
+  /**
+   * Method getCopySpecs returns the declarations this plan was compiled from.
+   *
+   * @return List<CopySpec>
+   */
+  public List<CopySpec> getCopySpecs()
+    {
+    return Collections.unmodifiableList( Arrays.asList( copySpecs ) );
+    }
+
+  Target<Node>[] getTargets()
+    {
+    return targets;
+    }
+
+  /**
+   * Method isOverlapping returns true if the plan writes into values it has already placed in the result,
+   * see {@link CopyOptimizer#isOverlapping(CopySpec[])}.
+   */
+  boolean isOverlapping()
+    {
+    return isOverlapping;
+    }
+
+  /**
+   * Method resetTransforms resets all {@link CopySpec} transforms.
+   *
+   * @param arguments a Map of transform arguments, never null
+   */
+  void resetTransforms( Map<Comparable, Object> arguments )
+    {
+    for( CopySpec copySpec : copySpecs )
+      copySpec.resetTransforms( arguments );
+    }
+
+  private Object writeReplace() throws ObjectStreamException
+    {
+    return new SerializedForm<>( compiler, copySpecs );
+    }
+
+  private static class SerializedForm<Node> implements Serializable
+    {
+    private final NestedPointerCompiler<Node, ?> compiler;
+    private final CopySpec[] copySpecs;
+
+    SerializedForm( NestedPointerCompiler<Node, ?> compiler, CopySpec[] copySpecs )
+      {
+      this.compiler = compiler;
+      this.copySpecs = copySpecs;
+      }
+
+    private Object readResolve() throws ObjectStreamException
+      {
+      return new CopyPlan<>( compiler, copySpecs );
+      }
+    }
+
+  @Override
+  public String toString()
+    {
+    final StringBuilder sb = new StringBuilder( "CopyPlan{" );
+    sb.append( "copySpecs=" ).append( Arrays.toString( copySpecs ) );
+    sb.append( '}' );
+    return sb.toString();
+    }
+  }
@@ -41,7 +41,7 @@ public class CopySpec<T extends CopySpec> implements Serializable
   {
   public static final String ROOT = "";
 
-  protected static class From implements Serializable
+  public static class From implements Serializable
     {
     String from;
     Predicate<?> filter;
@@ -21,8 +21,10 @@ import heretical.pointer.path.NestedPointerCompiler;
 import heretical.pointer.path.Pointer;
 
 /**
- *
+ * @deprecated the Copier applies a {@link CopyPlan}, this class is only returned by the deprecated
+ * {@link Copier#getCopySpecs()}
  */
+@Deprecated
 class CopySpecDecorator<Node> implements Serializable
   {
   public static <Node> CopySpecDecorator<Node>[] array( NestedPointerCompiler<Node, ?> compiler, CopySpec... copySpecs )
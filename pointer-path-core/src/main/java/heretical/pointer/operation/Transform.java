@@ -15,7 +15,9 @@ import java.util.function.Function;
 /**
  * A Transform is a {@link Function} used to transform a value into a new value during a copy operation.
  * <p>
- * Transforms can be reset in order to re-initialize any value before the transform is invoked.
+ * Transforms can be reset in order to re-initialize any value before the transform is invoked. As reset mutates
+ * the Transform, a resettable Transform should also implement {@link #apply(Map, Object)}, which receives the
+ * arguments with each invocation, so the same instance can be used concurrently with different arguments.
  */
 public interface Transform<Node> extends Function<Node, Node>, Serializable
   {
@@ -27,4 +29,18 @@ public interface Transform<Node> extends Function<Node, Node>, Serializable
   default void reset( Map<String, Object> values )
     {
     }
+
+  /**
+   * Method apply transforms the given value with the given arguments, without modifying this Transform.
+   * <p>
+   * By default the arguments are ignored and {@link #apply(Object)} is called.
+   *
+   * @param arguments a Map of transform arguments, never null
+   * @param node      the value to transform
+   * @return Node
+   */
+  default Node apply( Map<Comparable, Object> arguments, Node node )
+    {
+    return apply( node );
+    }
   }
@@ -8,6 +8,7 @@
 
 package heretical.pointer.path;
 
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -33,9 +34,18 @@ public class BaseNestedPointer<Node, Result> implements NestedPointer<Node, Resu
     build();
     }
 
+  /**
+   * Method split returns the elements of the given nested pointer path, any wildcard ({@code /*}) and
+   * descent ({@code /**}) elements are returned as individual elements.
+   */
+  static String[] split( String pointer )
+    {
+    return pattern.split( pointer );
+    }
+
   private void build()
     {
-    String[] split = pattern.split( this.pointer );
+    String[] split = split( this.pointer );
 
     resolver = new Resolver<>( compiler );
 
@@ -87,21 +97,141 @@ public class BaseNestedPointer<Node, Result> implements NestedPointer<Node, Resu
   @Override
   public Result allAt( Node root )
     {
+    return allAt( root, null );
+    }
+
+  @Override
+  public Result allAt( DocumentIndex<Node> index )
+    {
+    Result result = compiler.resultNode();
+
+    visit( index, ( path, node ) ->
+    {
+    compiler.add( result, node );
+    return true;
+    } );
+
+    return result;
+    }
+
+  @Override
+  public Node at( DocumentIndex<Node> index )
+    {
+    Object[] first = new Object[ 1 ];
+
+    visit( index, ( path, node ) ->
+    {
+    first[ 0 ] = node;
+    return false;
+    } );
+
+    return (Node) first[ 0 ];
+    }
+
+  /**
+   * Resolves the leading absolute part of this pointer through the index, and visits the remainder from there.
+   */
+  private boolean visit( DocumentIndex<Node> index, Resolver.Visitor<Node> visitor )
+    {
+    if( !( resolver.next instanceof PointerResolver ) )
+      return resolver.visit( resolver, null, index.getRoot(), visitor );
+
+    PointerResolver<Node, Result> prefix = (PointerResolver<Node, Result>) resolver.next;
+    Node start = index.at( prefix.pointer );
+
+    return start == null || prefix.next.visit( prefix, null, start, visitor );
+    }
+
+  @Override
+  public Result allAt( Node root, KeySummary<Node> keySummary )
+    {
+    Result result = compiler.resultNode();
+
     if( isAbsolute() )
-      return compiler.add( compiler.resultNode(), absoluteAt( root ) );
+      return compiler.add( result, absoluteAt( root ) );
 
-    return resolver.resolve( resolver, root, compiler.resultNode() );
+    resolver.visit( resolver, null, root, Resolver.Visitor.with( keySummary, ( path, node ) ->
+    {
+    compiler.add( result, node );
+    return true;
+    } ) );
+
+    return result;
     }
 
   @Override
   public Node at( Node root )
+    {
+    return at( root, null );
+    }
+
+  @Override
+  public Node at( Node root, KeySummary<Node> keySummary )
     {
     if( isAbsolute() )
       return absoluteAt( root );
 
-    Result result = resolver.resolve( resolver, root, compiler.resultNode() );
+    Object[] first = new Object[ 1 ];
+
+    resolver.visit( resolver, null, root, Resolver.Visitor.with( keySummary, ( path, node ) ->
+    {
+    first[ 0 ] = node;
+    return false;
+    } ) );
+
+    return (Node) first[ 0 ];
+    }
+
+  @Override
+  public boolean exists( Node root )
+    {
+    return exists( root, null );
+    }
+
+  @Override
+  public boolean exists( Node root, KeySummary<Node> keySummary )
+    {
+    if( isAbsolute() )
+      return absoluteAt( root ) != null;
+
+    return !resolver.visit( resolver, null, root, Resolver.Visitor.with( keySummary, ( path, node ) -> false ) );
+    }
+
+  @Override
+  public void forEachAt( Node root, Consumer<Node> consumer )
+    {
+    forEachAt( root, null, consumer );
+    }
+
+  @Override
+  public void forEachAt( Node root, KeySummary<Node> keySummary, Consumer<Node> consumer )
+    {
+    if( !isAbsolute() )
+      {
+      resolver.visit( resolver, null, root, Resolver.Visitor.with( keySummary, ( path, node ) ->
+      {
+      consumer.accept( node );
+      return true;
+      } ) );
+
+      return;
+      }
+
+    Node at = absoluteAt( root );
+
+    if( at != null )
+      consumer.accept( at );
+    }
+
+  @Override
+  public boolean visitAt( Node root, MatchVisitor<Node> visitor )
+    {
+    if( !isAbsolute() )
+      return resolver.visit( resolver, new SegmentStack(), root, ( path, node ) -> visitor.visit( compiler.compile( path.toArray() ), node ) );
+
+    Node at = absoluteAt( root );
 
-    return compiler.first( result );
+    return at == null || visitor.visit( asPointer(), at );
     }
 
   @Override
@@ -114,12 +244,52 @@ public class BaseNestedPointer<Node, Result> implements NestedPointer<Node, Resu
     }
 
   @Override
-  public void copy( Node from, Node into, Predicate<Node> filter )
+  public Result remove( DocumentIndex<Node> index )
+    {
+    if( !( resolver.next instanceof PointerResolver ) )
+      {
+      Result result = remove( index.getRoot() );
+
+      index.clear();
+
+      return result;
+      }
+
+    PointerResolver<Node, Result> prefix = (PointerResolver<Node, Result>) resolver.next;
+
+    if( isAbsolute() )
+      {
+      Node parent = index.parentAt( prefix.pointer );
+      Node removed = parent == null ? prefix.pointer.remove( index.getRoot() ) : last( prefix.pointer ).remove( parent );
+
+      index.invalidateParent( prefix.pointer );
+
+      return compiler.add( compiler.resultNode(), removed );
+      }
+
+    Node start = index.at( prefix.pointer );
+
+    if( start == null )
+      return null;
+
+    Result result = prefix.next.remove( prefix, index.getRoot(), prefix.pointer, start );
+
+    // a trailing descent also removes the start node, changing the position of its siblings
+    if( prefix.next.isDescent() && prefix.next.next.isFinal() )
+      index.invalidateParent( prefix.pointer );
+    else
+      index.invalidate( prefix.pointer );
+
+    return result;
+    }
+
+  @Override
+  public void copy( Node from, Node into, Predicate<Node> filter, CopyMode mode )
     {
     if( isAbsolute() )
-      asPointer().copy( from, into, filter );
+      asPointer().copy( from, into, filter, mode );
     else
-      resolver.copy( resolver, null, from, from, null, into, filter );
+      resolver.copy( resolver, null, from, from, null, into, filter, mode );
     }
 
   @Override
@@ -131,6 +301,45 @@ public class BaseNestedPointer<Node, Result> implements NestedPointer<Node, Resu
       resolver.set( resolver, null, null, root, transform );
     }
 
+  @Override
+  public void apply( DocumentIndex<Node> index, Function<Node, Node> transform )
+    {
+    if( !( resolver.next instanceof PointerResolver ) )
+      {
+      apply( index.getRoot(), transform );
+      index.clear();
+      return;
+      }
+
+    PointerResolver<Node, Result> prefix = (PointerResolver<Node, Result>) resolver.next;
+
+    if( isAbsolute() )
+      {
+      Node parent = index.parentAt( prefix.pointer );
+
+      if( parent == null )
+        prefix.pointer.apply( index.getRoot(), transform );
+      else
+        last( prefix.pointer ).apply( parent, transform );
+      }
+    else
+      {
+      Node start = index.at( prefix.pointer );
+
+      if( start != null )
+        prefix.next.set( prefix, index.getRoot(), prefix.pointer, start, transform );
+      }
+
+    index.invalidate( prefix.pointer );
+    }
+
+  private Pointer<Node> last( Pointer<Node> pointer )
+    {
+    Segment[] segments = pointer.segments();
+
+    return compiler.compile( new Segment[]{segments[ segments.length - 1 ]} );
+    }
+
   @Override
   public String toString()
     {
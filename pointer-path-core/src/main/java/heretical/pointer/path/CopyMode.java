@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+/**
+ * Enum CopyMode declares how values are placed into the target of a copy.
+ */
+public enum CopyMode
+  {
+    /**
+     * Every copied object and array is duplicated, the target never shares a container with the source.
+     * <p>
+     * This is the default.
+     */
+    DEEP,
+    /**
+     * Copied values are placed into the target as is, so the target shares containers with the source.
+     * <p>
+     * Only the containers created to hold the copied values are new. Shared containers are not copied on write,
+     * so the target must be treated as read-only: any later write into a shared container, for example by
+     * {@link Pointer#set(Object, Object)} or {@link Pointer#apply(Object, java.util.function.Function)} on the
+     * target, changes the source as well, and a change to the source is visible through the target.
+     * <p>
+     * A Copier duplicates the values of a copy that would write into its own shared values, but cannot guard
+     * against writes made after the copy.
+     */
+    SHARED
+  }
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Class DescentCursor walks the descendants of a node depth first, in pre-order, using an explicit stack
+ * instead of recursion, so the Java stack does not grow with the depth of the tree.
+ * <p>
+ * Each call to {@link #next()} moves to the next child of the current container, optionally skipping Value
+ * nodes. The children of the node just returned are only walked if {@link #descend()} is called before the
+ * following call to {@code next()}, and are read when {@code descend()} is called, so the node may be
+ * modified first.
+ * <p>
+ * If a {@link SegmentStack} is given, it holds the path to the current node, relative to the node the cursor
+ * started from.
+ * <p>
+ * Walking below {@link PointerCompiler#maxDescentDepth()} levels fails with an {@link IllegalStateException}.
+ * <p>
+ * Not thread safe, a new instance is created per traversal.
+ */
+class DescentCursor<Node>
+  {
+  private final PointerCompiler<Node, ?> compiler;
+  private final SegmentStack path;
+  private final boolean named;
+  private final boolean containers;
+  private final int maxDepth;
+
+  private Iterator<?>[] iterators = new Iterator[ 16 ];
+  private Object[] parents = new Object[ 16 ];
+  private int[] indexes = new int[ 16 ];
+  private boolean[] entries = new boolean[ 16 ];
+  private int depth = 0;
+
+  private Node node;
+  private String name;
+  private int index;
+  private boolean pushed; // the current node is on the path, and it was not descended
+
+  /**
+   * Constructor DescentCursor creates a cursor over the children of the given node.
+   *
+   * @param compiler   the compiler used to read the nodes
+   * @param path       the path to the current node, may be null
+   * @param named      if false child names and indexes are not tracked, and {@code path} must be null
+   * @param containers if true only Array and Map nodes are returned
+   * @param root       the node to walk the descendants of
+   */
+  DescentCursor( PointerCompiler<Node, ?> compiler, SegmentStack path, boolean named, boolean containers, Node root )
+    {
+    this.compiler = compiler;
+    this.path = path;
+    this.named = named;
+    this.containers = containers;
+    this.maxDepth = compiler.maxDescentDepth();
+
+    if( named )
+      push( root );
+    else
+      push( root, compiler.iterable( root ).iterator(), false );
+    }
+
+  /**
+   * Method next moves to the next node, returns false if no nodes remain.
+   */
+  boolean next()
+    {
+    if( pushed )
+      {
+      path.pop();
+      pushed = false;
+      }
+
+    while( depth != 0 )
+      {
+      int top = depth - 1;
+      Iterator<?> iterator = iterators[ top ];
+
+      if( !iterator.hasNext() )
+        {
+        pop();
+        continue;
+        }
+
+      Object next = iterator.next();
+
+      if( named )
+        index = indexes[ top ]++;
+
+      if( named && entries[ top ] )
+        {
+        Map.Entry<String, Node> entry = (Map.Entry<String, Node>) next;
+
+        name = entry.getKey();
+        node = entry.getValue();
+        }
+      else
+        {
+        name = null;
+        node = (Node) next;
+        }
+
+      if( containers && !compiler.isContainer( node ) )
+        continue;
+
+      if( path != null )
+        {
+        path.push( pointer().segments() );
+        pushed = true;
+        }
+
+      return true;
+      }
+
+    return false;
+    }
+
+  /**
+   * Method descend walks the children of the current node before moving on to its next sibling.
+   */
+  void descend()
+    {
+    if( named )
+      {
+      if( !push( node ) )
+        return;
+      }
+    else
+      {
+      if( !compiler.isContainer( node ) )
+        return;
+
+      push( node, compiler.iterable( node ).iterator(), false );
+      }
+
+    pushed = false; // the segment is popped with the frame
+    }
+
+  /**
+   * Method close abandons the walk, and removes any segments it added from the path.
+   */
+  void close()
+    {
+    if( pushed )
+      {
+      path.pop();
+      pushed = false;
+      }
+
+    while( depth != 0 )
+      pop();
+    }
+
+  /**
+   * Method depth returns the level of the current node, the children of the starting node are at level 1.
+   */
+  int depth()
+    {
+    return depth;
+    }
+
+  Node node()
+    {
+    return node;
+    }
+
+  Node parent()
+    {
+    return (Node) parents[ depth - 1 ];
+    }
+
+  /**
+   * Method name returns the name of the current node in its parent Map, or null if an Array element.
+   */
+  String name()
+    {
+    return name;
+    }
+
+  /**
+   * Method index returns the position of the current node in its parent.
+   */
+  int index()
+    {
+    return index;
+    }
+
+  /**
+   * Method pointer returns a pointer to the current node relative to its parent, only valid if named.
+   */
+  Pointer<Node> pointer()
+    {
+    return name != null ? compiler.child( name ) : compiler.child( index );
+    }
+
+  private boolean push( Node node )
+    {
+    PointerCompiler.Kind kind = compiler.kind( node );
+
+    if( kind == PointerCompiler.Kind.Array )
+      push( node, compiler.iterable( node ).iterator(), false );
+    else if( kind == PointerCompiler.Kind.Map )
+      push( node, compiler.entries( node ), true );
+    else
+      return false;
+
+    return true;
+    }
+
+  private void push( Node node, Iterator<?> iterator, boolean isEntries )
+    {
+    if( depth == maxDepth && iterator.hasNext() )
+      throw new IllegalStateException( "descent exceeded the max depth of " + maxDepth + ( path != null ? ", at: " + path : "" ) );
+
+    if( depth == iterators.length )
+      {
+      iterators = Arrays.copyOf( iterators, depth * 2 );
+      parents = Arrays.copyOf( parents, depth * 2 );
+      indexes = Arrays.copyOf( indexes, depth * 2 );
+      entries = Arrays.copyOf( entries, depth * 2 );
+      }
+
+    iterators[ depth ] = iterator;
+    parents[ depth ] = node;
+    indexes[ depth ] = 0;
+    entries[ depth ] = isEntries;
+    depth++;
+    }
+
+  private void pop()
+    {
+    depth--;
+    iterators[ depth ] = null;
+    parents[ depth ] = null;
+
+    // every frame but the first was pushed by descend, and owns the segment of its node
+    if( path != null && depth != 0 )
+      path.pop();
+    }
+  }
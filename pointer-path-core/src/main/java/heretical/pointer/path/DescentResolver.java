@@ -8,16 +8,21 @@
 
 package heretical.pointer.path;
 
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
-import heretical.pointer.util.PathTree;
-
 /**
- *
+ * Class DescentResolver resolves the {@code **} segment, applying the remainder of the path to the current node
+ * and to all of its descendants, depth first.
+ * <p>
+ * Descendants are walked with a {@link DescentCursor}, not recursively, so the Java stack does not grow with
+ * the depth of the data, see {@link PointerCompiler#maxDescentDepth()}. Value nodes are skipped when the
+ * remainder of the path can only match below a container, e.g. {@code /**}{@code /name}.
+ * <p>
+ * When visiting with a {@link KeySummary}, branches that cannot contain the member named by the next segment
+ * are skipped entirely.
  */
 class DescentResolver<Node, Result> extends Resolver<Node, Result>
   {
@@ -33,27 +38,43 @@ class DescentResolver<Node, Result> extends Resolver<Node, Result>
     }
 
   @Override
-  Result resolve( Resolver<Node, Result> previous, Node node, Result result )
+  boolean matchesValues()
+    {
+    return next.matchesValues();
+    }
+
+  @Override
+  boolean visit( Resolver<Node, Result> previous, SegmentStack path, Node node, Visitor<Node> visitor )
     {
     if( node == null )
-      return null;
+      return true;
 
-    next.resolve( this, node, result );
+    KeySummary<Node> keySummary = visitor.keySummary();
+    String name = keySummary != null ? next.memberName() : null;
 
-    return recursiveAdd( compiler.iterable( node ), result );
-    }
+    if( name != null && !keySummary.mayContain( node, name ) )
+      return true;
 
-  private Result recursiveAdd( Iterable<Node> node, Result result )
-    {
-    for( Node child : node )
+    if( !next.visit( this, path, node, visitor ) )
+      return false;
+
+    DescentCursor<Node> cursor = new DescentCursor<>( compiler, path, path != null, !next.matchesValues(), node );
+
+    while( cursor.next() )
       {
-      next.resolve( this, child, result );
+      if( name != null && !keySummary.mayContain( cursor.node(), name ) )
+        continue;
+
+      if( !next.visit( this, path, cursor.node(), visitor ) )
+        {
+        cursor.close();
+        return false;
+        }
 
-      if( compiler.isContainer( child ) )
-        recursiveAdd( compiler.iterable( child ), result );
+      cursor.descend();
       }
 
-    return result;
+    return true;
     }
 
   @Override
@@ -68,44 +89,15 @@ class DescentResolver<Node, Result> extends Resolver<Node, Result>
 
     compiler.addAll( result, remove );
 
-    return recursiveRemove( result, child );
-    }
+    DescentCursor<Node> cursor = new DescentCursor<>( compiler, null, true, !next.matchesValues(), child );
 
-  private Result recursiveRemove( Result result, Node node )
-    {
-    switch( compiler.kind( node ) )
+    while( cursor.next() )
       {
-      case Array:
-        int i = 0;
-        for( Node child : compiler.iterable( node ) )
-          {
-          Result removed = next.remove( this, node, compiler.compile( "/" + i ), child );
-
-          compiler.addAll( result, removed );
-
-          recursiveRemove( result, child );
-          }
-        break;
-
-      case Map:
-        Iterator<Map.Entry<String, Node>> fields = compiler.entries( node );
-
-        while( fields.hasNext() )
-          {
-          Map.Entry<String, Node> next = fields.next();
-          String key = next.getKey();
-          Node child = next.getValue();
-
-          Result removed = this.next.remove( this, node, compiler.compile( "/" + key ), child );
-
-          compiler.addAll( result, removed );
+      Result removed = next.remove( this, cursor.parent(), cursor.pointer(), cursor.node() );
 
-          recursiveRemove( result, child );
-          }
-        break;
+      compiler.addAll( result, removed );
 
-      case Value:
-        break;
+      cursor.descend();
       }
 
     return result;
@@ -119,108 +111,62 @@ class DescentResolver<Node, Result> extends Resolver<Node, Result>
 
     next.set( this, parent, pointer, child, transform );
 
-    recursiveSet( child, transform );
-    }
+    DescentCursor<Node> cursor = new DescentCursor<>( compiler, null, true, !next.matchesValues(), child );
 
-  private void recursiveSet( Node node, Function<Node, Node> transform )
-    {
-    switch( compiler.kind( node ) )
+    while( cursor.next() )
       {
-      case Array:
-        int i = 0;
-        for( Node child : compiler.iterable( node ) )
-          {
-          next.set( this, node, compiler.compile( "/" + i ), child, transform );
-
-          i++;
-
-          recursiveSet( child, transform );
-          }
-        break;
-
-      case Map:
-        Iterator<Map.Entry<String, Node>> fields = compiler.entries( node );
-
-        while( fields.hasNext() )
-          {
-          Map.Entry<String, Node> next = fields.next();
-          String key = next.getKey();
-          Node child = next.getValue();
+      next.set( this, cursor.parent(), cursor.pointer(), cursor.node(), transform );
 
-          this.next.set( this, node, compiler.compile( "/" + key ), child, transform );
-
-          recursiveSet( child, transform );
-          }
-        break;
-
-      case Value:
-        break;
+      cursor.descend();
       }
     }
 
   @Override
-  public void copy( Resolver<Node, Result> previous, Deque<String> queue, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter )
-    {
-    copyNew( queue, root, from, pointer, into, filter );
-    }
-
-  private void copyNew( Deque<String> queue, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter )
+  public void copy( Resolver<Node, Result> previous, SegmentStack path, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter, CopyMode mode )
     {
     if( from == null )
       return;
 
     if( this.next.isFinal() && filter == null )
       {
-      this.next.copy( this, queue, root, from, pointer, into, filter );
+      this.next.copy( this, path, root, from, pointer, into, filter, mode );
       return;
       }
 
-    PathTree pathTree = new PathTree();
-    buildTree( pathTree.root(), from );
+    // descendants are copied before their parent, the open nodes are the ancestors of the current node
+    List<Node> nodes = new ArrayList<>();
+    List<Pointer<Node>> pointers = new ArrayList<>();
+
+    DescentCursor<Node> cursor = new DescentCursor<>( compiler, null, true, !next.matchesValues(), from );
 
-    for( String path : pathTree.depthFirstPointers() )
+    while( cursor.next() )
       {
-      queue.addLast( path );
+      int depth = cursor.depth();
 
-      Pointer<Node> childPointer = compiler.compile( path );
-      Node child = childPointer.at( from );
+      while( nodes.size() >= depth )
+        copyLast( path, root, nodes, pointers, into, filter, mode );
 
-      try
-        {
-        this.next.copy( this, queue, root, child, childPointer, into, filter );
-        }
-      finally
-        {
-        queue.removeLast();
-        }
+      Pointer<Node> childPointer = cursor.pointer();
+
+      path.push( childPointer.segments() );
+      nodes.add( cursor.node() );
+      pointers.add( childPointer );
+
+      cursor.descend();
       }
+
+    while( !nodes.isEmpty() )
+      copyLast( path, root, nodes, pointers, into, filter, mode );
+
+    this.next.copy( this, path, root, from, pointer, into, filter, mode );
     }
 
-  private void buildTree( PathTree.Element current, Node from )
+  private void copyLast( SegmentStack path, Node root, List<Node> nodes, List<Pointer<Node>> pointers, Node into, Predicate<Node> filter, CopyMode mode )
     {
-    switch( compiler.kind( from ) )
-      {
-      case Array:
-        int i = 0;
-        for( Node child : compiler.iterable( from ) )
-          buildTree( current.child( i++ ), child );
-        break;
-
-      case Map:
-        Iterator<Map.Entry<String, Node>> fields = compiler.entries( from );
-
-        while( fields.hasNext() )
-          {
-          Map.Entry<String, Node> next = fields.next();
-          String key = next.getKey();
-          Node child = next.getValue();
-
-          buildTree( current.child( key ), child );
-          }
-        break;
-
-      case Value:
-        break;
-      }
+    int last = nodes.size() - 1;
+
+    this.next.copy( this, path, root, nodes.remove( last ), pointers.remove( last ), into, filter, mode );
+
+    path.pop();
     }
   }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class DocumentIndex remembers the node found at every absolute pointer prefix resolved against a single root
+ * node, so many {@link NestedPointer} instances evaluated against the same document share those lookups.
+ * <p>
+ * The index is a trie keyed by path segment, filled in as pointers are resolved. Resolving a pointer walks at
+ * most one trie entry per segment, and only segments not seen before are looked up in the document.
+ * <p>
+ * The {@link NestedPointer} mutators that accept an index, {@link NestedPointer#remove(DocumentIndex)} and
+ * {@link NestedPointer#apply(DocumentIndex, java.util.function.Function)}, invalidate the entries they may
+ * have changed. Any other modification of the document must be followed by a call to
+ * {@link #invalidate(Pointer)} or {@link #clear()}.
+ * <p>
+ * This class is not thread safe.
+ */
+public class DocumentIndex<Node>
+  {
+  private class Entry
+    {
+    final Node node;
+    Map<String, Entry> children;
+
+    Entry( Node node )
+      {
+      this.node = node;
+      }
+
+    Entry child( Segment segment )
+      {
+      if( children == null )
+        children = new HashMap<>();
+
+      Entry child = children.get( segment.getName() );
+
+      if( child == null )
+        {
+        child = new Entry( resolve( node, segment ) );
+        children.put( segment.getName(), child );
+        }
+
+      return child;
+      }
+    }
+
+  private final PointerCompiler<Node, ?> compiler;
+  private final Node root;
+  private Entry rootEntry;
+
+  /**
+   * Constructor DocumentIndex creates a new, empty, DocumentIndex instance for the given root node.
+   *
+   * @param compiler the compiler used to resolve child nodes
+   * @param root     the document root
+   */
+  public DocumentIndex( PointerCompiler<Node, ?> compiler, Node root )
+    {
+    this.compiler = compiler;
+    this.root = root;
+    this.rootEntry = new Entry( root );
+    }
+
+  /**
+   * Method getRoot returns the root node of the indexed document.
+   *
+   * @return Node
+   */
+  public Node getRoot()
+    {
+    return root;
+    }
+
+  /**
+   * Method size returns the number of pointer prefixes currently held by this index.
+   *
+   * @return int
+   */
+  public int size()
+    {
+    return count( rootEntry );
+    }
+
+  /**
+   * Method at returns the node referenced by the given absolute pointer relative to the root, or null if
+   * not found.
+   *
+   * @param pointer of Pointer<Node>
+   * @return Node
+   */
+  public Node at( Pointer<Node> pointer )
+    {
+    Segment[] segments = pointer.segments();
+
+    return at( segments, segments.length );
+    }
+
+  /**
+   * Method parentAt returns the parent of the node referenced by the given absolute pointer relative to the
+   * root, or null if not found, or the pointer references the root.
+   *
+   * @param pointer of Pointer<Node>
+   * @return Node
+   */
+  public Node parentAt( Pointer<Node> pointer )
+    {
+    Segment[] segments = pointer.segments();
+
+    if( segments.length == 0 )
+      return null;
+
+    return at( segments, segments.length - 1 );
+    }
+
+  private Node at( Segment[] segments, int length )
+    {
+    Entry entry = rootEntry;
+
+    for( int i = 0; i < length && entry.node != null; i++ )
+      entry = entry.child( segments[ i ] );
+
+    return entry.node;
+    }
+
+  private Node resolve( Node parent, Segment segment )
+    {
+    if( parent == null || !compiler.isContainer( parent ) )
+      return null;
+
+    return compiler.child( segment.getName() ).at( parent );
+    }
+
+  /**
+   * Method invalidate drops the entries for the given pointer and every pointer below it, they are looked up
+   * again in the document when next resolved.
+   *
+   * @param pointer of Pointer<Node>
+   */
+  public void invalidate( Pointer<Node> pointer )
+    {
+    Segment[] segments = pointer.segments();
+
+    invalidate( segments, segments.length );
+    }
+
+  /**
+   * Method invalidateParent drops the entries for the parent of the given pointer, and every pointer below it,
+   * as removing an array element changes the node referenced by its siblings.
+   */
+  void invalidateParent( Pointer<Node> pointer )
+    {
+    Segment[] segments = pointer.segments();
+
+    invalidate( segments, Math.max( 0, segments.length - 1 ) );
+    }
+
+  private void invalidate( Segment[] segments, int length )
+    {
+    if( length == 0 )
+      {
+      clear();
+      return;
+      }
+
+    Entry entry = rootEntry;
+
+    for( int i = 0; i < length - 1; i++ )
+      {
+      entry = entry.children == null ? null : entry.children.get( segments[ i ].getName() );
+
+      if( entry == null )
+        return;
+      }
+
+    if( entry.children != null )
+      entry.children.remove( segments[ length - 1 ].getName() );
+    }
+
+  private int count( Entry entry )
+    {
+    if( entry.children == null )
+      return 0;
+
+    int count = entry.children.size();
+
+    for( Entry child : entry.children.values() )
+      count += count( child );
+
+    return count;
+    }
+
+  /**
+   * Method clear drops all entries, they are looked up again in the document when next resolved.
+   */
+  public void clear()
+    {
+    rootEntry = new Entry( root );
+    }
+
+  @Override
+  public String toString()
+    {
+    final StringBuilder sb = new StringBuilder( "DocumentIndex{" );
+    sb.append( "size=" ).append( size() );
+    sb.append( '}' );
+    return sb.toString();
+    }
+  }
@@ -8,7 +8,6 @@
 
 package heretical.pointer.path;
 
-import java.util.Deque;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -29,9 +28,9 @@ class FinalResolver<Node, Result> extends Resolver<Node, Result>
     }
 
   @Override
-  Result resolve( Resolver<Node, Result> previous, Node node, Result result )
+  boolean visit( Resolver<Node, Result> previous, SegmentStack path, Node node, Visitor<Node> visitor )
     {
-    return compiler.add( result, node );
+    return visitor.visit( path, node );
     }
 
   @Override
@@ -49,14 +48,10 @@ class FinalResolver<Node, Result> extends Resolver<Node, Result>
     }
 
   @Override
-  public void copy( Resolver<Node, Result> previous, Deque<String> queue, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter )
+  public void copy( Resolver<Node, Result> previous, SegmentStack path, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter, CopyMode mode )
     {
-    StringBuilder buffer = new StringBuilder();
+    Pointer<Node> pathPointer = compiler.compile( path.toArray() );
 
-    queue.forEach( buffer::append );
-
-    Pointer<Node> queuePointer = compiler.compile( buffer.toString() );
-
-    queuePointer.copy( root, into, filter );
+    pathPointer.copy( root, into, filter, mode );
     }
   }
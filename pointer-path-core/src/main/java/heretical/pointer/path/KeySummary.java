@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+/**
+ * Interface KeySummary is implemented by specific nested type providers to summarize the Map member names
+ * found in each container of a single document, and below it.
+ * <p>
+ * A summary is built once for a document and passed to the {@link NestedPointer} query methods, so descent
+ * ({@code /**}) paths may skip every branch that cannot contain the member named by the next segment,
+ * e.g. {@code name} in {@code /**}{@code /name}.
+ * <p>
+ * A summary may report false positives, but never false negatives. Removing values from the document keeps a
+ * summary valid, adding or renaming members does not, and the summary must be rebuilt.
+ */
+public interface KeySummary<Node>
+  {
+  /**
+   * Method mayContain returns false if neither the given node nor any of its descendants is a Map with a
+   * member of the given name.
+   * <p>
+   * Containers unknown to this summary, e.g. added after it was built, must return true.
+   *
+   * @param node of Node
+   * @param name of String
+   * @return boolean
+   */
+  boolean mayContain( Node node, String name );
+  }
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+/**
+ * A MatchVisitor receives each value matched by a {@link NestedPointer}, along with an absolute
+ * {@link Pointer} to the value.
+ *
+ * @see NestedPointer#visitAt(Object, MatchVisitor)
+ */
+@FunctionalInterface
+public interface MatchVisitor<Node>
+  {
+  /**
+   * Method visit is called for every matched value, in traversal order.
+   *
+   * @param path  the absolute location of the value, relative to the visited root node
+   * @param value the matched value
+   * @return true to continue visiting, false to stop
+   */
+  boolean visit( Pointer<Node> path, Node value );
+  }
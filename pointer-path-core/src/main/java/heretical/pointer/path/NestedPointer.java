@@ -9,6 +9,7 @@
 package heretical.pointer.path;
 
 import java.io.Serializable;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -62,14 +63,130 @@ public interface NestedPointer<Node, Result> extends Serializable
   /**
    * Method at returns the first value referenced by this pointer relative to the given root node.
    * <p>
-   * This is a convenience method around {@link #allAt(Object)} that returns the first element
-   * in the result node, or null if no values are found.
+   * This is equivalent to the first element returned by {@link #allAt(Object)}, or null if no values are found,
+   * but stops traversing the tree as soon as the first value is found.
    *
    * @param root of Node
    * @return Node
    */
   Node at( Node root );
 
+  /**
+   * Method exists returns true if this pointer references at least one value relative to the given root node.
+   * <p>
+   * Like {@link #at(Object)}, the traversal stops as soon as the first value is found.
+   *
+   * @param root of Node
+   * @return boolean
+   */
+  boolean exists( Node root );
+
+  /**
+   * Method forEachAt passes every value referenced by this pointer relative to the given root node to
+   * the given {@code consumer}, in the same order as {@link #allAt(Object)}, without collecting the
+   * values into a result.
+   *
+   * @param root     of Node
+   * @param consumer of Consumer<Node>
+   */
+  void forEachAt( Node root, Consumer<Node> consumer );
+
+  /**
+   * Method visitAt passes every value referenced by this pointer relative to the given root node, and
+   * the absolute path to the value, to the given {@code visitor}, in the same order as {@link #allAt(Object)}.
+   * <p>
+   * The traversal stops as soon as the visitor returns {@code false}.
+   *
+   * @param root    of Node
+   * @param visitor of MatchVisitor<Node>
+   * @return true if every value was visited, false if the visitor stopped the traversal
+   */
+  boolean visitAt( Node root, MatchVisitor<Node> visitor );
+
+  /**
+   * Method allAt returns all the values referenced by this pointer relative to the root of the given
+   * {@link DocumentIndex}.
+   * <p>
+   * The leading absolute part of this pointer, up to any wildcard or descent, is resolved through the index.
+   *
+   * @param index of DocumentIndex<Node>
+   * @return Result
+   */
+  default Result allAt( DocumentIndex<Node> index )
+    {
+    return allAt( index.getRoot() );
+    }
+
+  /**
+   * Method at returns the first value referenced by this pointer relative to the root of the given
+   * {@link DocumentIndex}.
+   *
+   * @param index of DocumentIndex<Node>
+   * @return Node
+   * @see #allAt(DocumentIndex)
+   */
+  default Node at( DocumentIndex<Node> index )
+    {
+    return at( index.getRoot() );
+    }
+
+  /**
+   * Method allAt returns all the values referenced by this pointer relative to the given root node, using the
+   * given {@link KeySummary} of the root to skip descent branches that cannot match.
+   *
+   * @param root       of Node
+   * @param keySummary of KeySummary<Node>, may be null
+   * @return Result
+   * @see #allAt(Object)
+   */
+  default Result allAt( Node root, KeySummary<Node> keySummary )
+    {
+    return allAt( root );
+    }
+
+  /**
+   * Method at returns the first value referenced by this pointer relative to the given root node, using the
+   * given {@link KeySummary} of the root to skip descent branches that cannot match.
+   *
+   * @param root       of Node
+   * @param keySummary of KeySummary<Node>, may be null
+   * @return Node
+   * @see #at(Object)
+   */
+  default Node at( Node root, KeySummary<Node> keySummary )
+    {
+    return at( root );
+    }
+
+  /**
+   * Method exists returns true if this pointer references at least one value relative to the given root node,
+   * using the given {@link KeySummary} of the root to skip descent branches that cannot match.
+   *
+   * @param root       of Node
+   * @param keySummary of KeySummary<Node>, may be null
+   * @return boolean
+   * @see #exists(Object)
+   */
+  default boolean exists( Node root, KeySummary<Node> keySummary )
+    {
+    return exists( root );
+    }
+
+  /**
+   * Method forEachAt passes every value referenced by this pointer relative to the given root node to
+   * the given {@code consumer}, using the given {@link KeySummary} of the root to skip descent branches that
+   * cannot match.
+   *
+   * @param root       of Node
+   * @param keySummary of KeySummary<Node>, may be null
+   * @param consumer   of Consumer<Node>
+   * @see #forEachAt(Object, Consumer)
+   */
+  default void forEachAt( Node root, KeySummary<Node> keySummary, Consumer<Node> consumer )
+    {
+    forEachAt( root, consumer );
+    }
+
   /**
    * Method remove will remove all values referenced by this instance relative to the given root node.
    *
@@ -78,6 +195,22 @@ public interface NestedPointer<Node, Result> extends Serializable
    */
   Result remove( Node root );
 
+  /**
+   * Method remove will remove all values referenced by this instance relative to the root of the given
+   * {@link DocumentIndex}, and invalidates the index entries that may have changed.
+   *
+   * @param index of DocumentIndex<Node>
+   * @return Result
+   */
+  default Result remove( DocumentIndex<Node> index )
+    {
+    Result result = remove( index.getRoot() );
+
+    index.clear();
+
+    return result;
+    }
+
   /**
    * Method copy duplicates the matched tree of values referenced from the {@code from} node and places them into the
    * {@code into} node. Any path not matched from the {@code from} node will be ignored.
@@ -102,7 +235,23 @@ public interface NestedPointer<Node, Result> extends Serializable
    * @param into   of Node
    * @param filter of Predicate<Node>
    */
-  void copy( Node from, Node into, Predicate<Node> filter );
+  default void copy( Node from, Node into, Predicate<Node> filter )
+    {
+    copy( from, into, filter, CopyMode.DEEP );
+    }
+
+  /**
+   * Method copy places the matched tree of values referenced from the {@code from} node into the
+   * {@code into} node. Any path not matched from the {@code from} node or by the {@code filter} will be ignored.
+   * <p>
+   * The matched values are duplicated unless the {@code mode} is {@link CopyMode#SHARED}.
+   *
+   * @param from   of Node
+   * @param into   of Node
+   * @param filter of Predicate<Node>
+   * @param mode   of CopyMode
+   */
+  void copy( Node from, Node into, Predicate<Node> filter, CopyMode mode );
 
   /**
    * Method apply will pass the object or value referenced by this pointer relative to the
@@ -115,4 +264,19 @@ public interface NestedPointer<Node, Result> extends Serializable
    * @param transform of Function<Node, Node>
    */
   void apply( Node root, Function<Node, Node> transform );
+
+  /**
+   * Method apply will pass every value referenced by this instance relative to the root of the given
+   * {@link DocumentIndex} to the given {@code transform}, replacing the original value with the result,
+   * and invalidates the index entries that may have changed.
+   *
+   * @param index     of DocumentIndex<Node>
+   * @param transform of Function<Node, Node>
+   */
+  default void apply( DocumentIndex<Node> index, Function<Node, Node> transform )
+    {
+    apply( index.getRoot(), transform );
+
+    index.clear();
+    }
   }
\ No newline at end of file
@@ -19,6 +19,8 @@ public interface NestedPointerCompiler<Node, Result> extends Serializable
 
   NestedPointer<Node, Result> nested( String path );
 
+  NestedPointerSet<Node, Result> nestedSet( String... paths );
+
   Iterable<Node> iterable( Result node );
 
   int size( Result node );
@@ -0,0 +1,698 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Class NestedPointerSet evaluates many nested pointer expressions against a tree in a single traversal.
+ * <p>
+ * All the pointer expressions, including wildcard ({@code *}) and descent ({@code **}) elements, are
+ * compiled into one automaton, where each {@link State} tracks every pointer that may still match
+ * below the current node. Common prefixes are evaluated once, and subtrees no pointer can match
+ * are never visited.
+ * <p>
+ * Every match is tagged with the index of the pointer that produced it, in the order the pointers
+ * were given.
+ * <p>
+ * Values are reported in pre-order, a node before its children. Siblings are visited in document
+ * order, unless every remaining element of the matching pointers is a plain name or index, in which case
+ * those children are looked up directly. Unlike {@link NestedPointer#allAt(Object)}, a value matched more
+ * than once by the same descent pointer is only reported once.
+ * <p>
+ * States are created lazily, on first use, and are shared by all threads using this instance.
+ */
+public class NestedPointerSet<Node, Result> implements Serializable
+  {
+  /**
+   * Visitor receives each matched value, with the index of the pointer that matched it.
+   */
+  @FunctionalInterface
+  public interface Visitor<Node>
+    {
+    /**
+     * Method visit is called for every matched value.
+     *
+     * @param index the index of the matching pointer
+     * @param path  the absolute location of the value, relative to the visited root node
+     * @param value the matched value
+     * @return true to continue visiting, false to stop
+     */
+    boolean visit( int index, Pointer<Node> path, Node value );
+    }
+
+  private static final Step WILDCARD = new Step( null );
+  private static final Step DESCENT = new Step( null );
+
+  private static class Step
+    {
+    final Segment segment;
+
+    Step( Segment segment )
+      {
+      this.segment = segment;
+      }
+    }
+
+  private final PointerCompiler<Node, Result> compiler;
+  private final String[] pointers;
+
+  private transient Step[][] steps;
+  private transient Map<Key, State> states;
+  private transient State start;
+
+  /**
+   * Constructor NestedPointerSet creates a new NestedPointerSet instance.
+   *
+   * @param compiler the compiler used to resolve nodes and create pointers
+   * @param pointers the nested pointer expressions to evaluate
+   */
+  public NestedPointerSet( PointerCompiler<Node, Result> compiler, String... pointers )
+    {
+    if( pointers == null )
+      throw new IllegalArgumentException( "pointers may not be null" );
+
+    this.compiler = compiler;
+    this.pointers = pointers.clone();
+
+    build();
+    }
+
+  private void build()
+    {
+    steps = new Step[ pointers.length ][];
+
+    for( int i = 0; i < pointers.length; i++ )
+      steps[ i ] = parse( pointers[ i ] );
+
+    states = new ConcurrentHashMap<>();
+
+    long[] positions = new long[ 0 ];
+
+    for( int i = 0; i < pointers.length; i++ )
+      positions = closure( positions, i, 0 );
+
+    start = intern( positions );
+    }
+
+  private static Step[] parse( String pointer )
+    {
+    List<Step> result = new ArrayList<>();
+
+    for( String token : BaseNestedPointer.split( pointer ) )
+      {
+      switch( token )
+        {
+        case "/**":
+          result.add( DESCENT );
+          break;
+
+        case "/*":
+          result.add( WILDCARD );
+          break;
+
+        default:
+          for( Segment segment : Segment.parse( token ) )
+            result.add( new Step( segment ) );
+          break;
+        }
+      }
+
+    return result.toArray( new Step[ result.size() ] );
+    }
+
+  /**
+   * Method size returns the number of pointers in this set.
+   *
+   * @return int
+   */
+  public int size()
+    {
+    return pointers.length;
+    }
+
+  /**
+   * Method getPointer returns the pointer expression at the given index.
+   *
+   * @param index of int
+   * @return String
+   */
+  public String getPointer( int index )
+    {
+    return pointers[ index ];
+    }
+
+  /**
+   * Method getPointers returns all the pointer expressions in this set, in index order.
+   *
+   * @return List<String>
+   */
+  public List<String> getPointers()
+    {
+    return Collections.unmodifiableList( Arrays.asList( pointers ) );
+    }
+
+  /**
+   * Method isDescent returns true if any pointer in this set has a descent ({@code **}) element.
+   *
+   * @return boolean
+   */
+  public boolean isDescent()
+    {
+    for( Step[] pointer : steps )
+      {
+      for( Step step : pointer )
+        {
+        if( step == DESCENT )
+          return true;
+        }
+      }
+
+    return false;
+    }
+
+  /**
+   * Method start returns the {@link State} of the automaton at the root node.
+   * <p>
+   * Use {@link State#name(String)} and {@link State#index(int)} to step to the state of a child node, this allows
+   * a set to be evaluated against trees that are not held in memory, such as a token stream.
+   *
+   * @return State
+   */
+  public State start()
+    {
+    return start;
+    }
+
+  /**
+   * Method allAt returns all the values referenced by each pointer relative to the given root node.
+   * <p>
+   * The returned List has one Result per pointer, in index order.
+   *
+   * @param root of Node
+   * @return List<Result>
+   */
+  public List<Result> allAt( Node root )
+    {
+    List<Result> results = new ArrayList<>( pointers.length );
+
+    for( int i = 0; i < pointers.length; i++ )
+      results.add( compiler.resultNode() );
+
+    forEachAt( root, ( value, index ) -> compiler.add( results.get( index ), value ) );
+
+    return results;
+    }
+
+  /**
+   * Method forEachAt passes every value referenced by any pointer in this set, and the index of the
+   * matching pointer, to the given {@code consumer}.
+   *
+   * @param root     of Node
+   * @param consumer of ObjIntConsumer<Node>
+   */
+  public void forEachAt( Node root, ObjIntConsumer<Node> consumer )
+    {
+    forEachAt( start, root, consumer );
+    }
+
+  /**
+   * Method forEachAt passes every value referenced by any pointer in this set, relative to a node in the
+   * given {@code state}, and the index of the matching pointer, to the given {@code consumer}.
+   * <p>
+   * This allows a traversal started outside of this set to continue on a materialized node.
+   *
+   * @param state    the state of the given node
+   * @param node     of Node
+   * @param consumer of ObjIntConsumer<Node>
+   */
+  public void forEachAt( State state, Node node, ObjIntConsumer<Node> consumer )
+    {
+    visit( verify( state ), null, node, ( index, path, value ) ->
+    {
+    consumer.accept( value, index );
+    return true;
+    } );
+    }
+
+  /**
+   * Method visitAt passes every value referenced by any pointer in this set, the index of the matching
+   * pointer, and the absolute path to the value, to the given {@code visitor}.
+   * <p>
+   * The traversal stops as soon as the visitor returns {@code false}.
+   *
+   * @param root    of Node
+   * @param visitor of Visitor<Node>
+   * @return true if every value was visited, false if the visitor stopped the traversal
+   */
+  public boolean visitAt( Node root, Visitor<Node> visitor )
+    {
+    return visitAt( start, root, visitor );
+    }
+
+  /**
+   * Method visitAt passes every value referenced by any pointer in this set, relative to a node in the
+   * given {@code state}, to the given {@code visitor}.
+   * <p>
+   * The paths passed to the visitor are relative to the given node.
+   *
+   * @param state   the state of the given node
+   * @param node    of Node
+   * @param visitor of Visitor<Node>
+   * @return true if every value was visited, false if the visitor stopped the traversal
+   */
+  public boolean visitAt( State state, Node node, Visitor<Node> visitor )
+    {
+    return visit( verify( state ), new SegmentStack(), node, visitor );
+    }
+
+  private State verify( State state )
+    {
+    if( state.owner() != this )
+      throw new IllegalArgumentException( "state was not created by this set" );
+
+    return state;
+    }
+
+  private boolean visit( State state, SegmentStack path, Node node, Visitor<Node> visitor )
+    {
+    if( state.matches.length != 0 )
+      {
+      Pointer<Node> pointer = path == null ? null : compiler.compile( path.toArray() );
+
+      for( int index : state.matches )
+        {
+        if( !visitor.visit( index, pointer, node ) )
+          return false;
+        }
+      }
+
+    if( state.isFinal() )
+      return true;
+
+    switch( compiler.kind( node ) )
+      {
+      case Array:
+        if( state.isExplicit() )
+          {
+          for( int index : state.indexes )
+            {
+            Pointer<Node> child = compiler.child( index );
+
+            if( !visitChild( state.index( index ), path, child, child.at( node ), visitor ) )
+              return false;
+            }
+
+          break;
+          }
+
+        int i = 0;
+        for( Node child : compiler.iterable( node ) )
+          {
+          State next = state.index( i );
+
+          if( !next.isDead() && !visitChild( next, path, compiler.child( i ), child, visitor ) )
+            return false;
+
+          i++;
+          }
+        break;
+
+      case Map:
+        if( state.isExplicit() )
+          {
+          for( String name : state.names )
+            {
+            Pointer<Node> child = compiler.child( name );
+
+            if( !visitChild( state.name( name ), path, child, child.at( node ), visitor ) )
+              return false;
+            }
+
+          break;
+          }
+
+        Iterator<Map.Entry<String, Node>> fields = compiler.entries( node );
+
+        while( fields.hasNext() )
+          {
+          Map.Entry<String, Node> next = fields.next();
+          State nextState = state.name( next.getKey() );
+
+          if( !nextState.isDead() && !visitChild( nextState, path, compiler.child( next.getKey() ), next.getValue(), visitor ) )
+            return false;
+          }
+        break;
+
+      case Value:
+        break;
+      }
+
+    return true;
+    }
+
+  private boolean visitChild( State state, SegmentStack path, Pointer<Node> pointer, Node child, Visitor<Node> visitor )
+    {
+    if( child == null )
+      return true;
+
+    if( path == null )
+      return visit( state, null, child, visitor );
+
+    Segment[] segments = pointer.segments();
+
+    path.push( segments );
+
+    boolean result = visit( state, path, child, visitor );
+
+    path.pop( segments.length );
+
+    return result;
+    }
+
+  /**
+   * A position is a pointer index in the high word, and the index of the next step to match in the low word.
+   */
+  private static long position( int pointer, int step )
+    {
+    return ( (long) pointer << 32 ) | step;
+    }
+
+  private static int pointer( long position )
+    {
+    return (int) ( position >>> 32 );
+    }
+
+  private static int step( long position )
+    {
+    return (int) position;
+    }
+
+  /**
+   * Method closure adds the given position, and if it is a descent step, the position after the descent, as
+   * a descent may match zero elements.
+   */
+  private long[] closure( long[] positions, int pointer, int step )
+    {
+    Step[] pointerSteps = steps[ pointer ];
+
+    while( true )
+      {
+      positions = add( positions, position( pointer, step ) );
+
+      if( step == pointerSteps.length || pointerSteps[ step ] != DESCENT )
+        return positions;
+
+      step++;
+      }
+    }
+
+  private static long[] add( long[] positions, long position )
+    {
+    int found = Arrays.binarySearch( positions, position );
+
+    if( found >= 0 )
+      return positions;
+
+    int insert = -( found + 1 );
+    long[] result = new long[ positions.length + 1 ];
+
+    System.arraycopy( positions, 0, result, 0, insert );
+    result[ insert ] = position;
+    System.arraycopy( positions, insert, result, insert + 1, positions.length - insert );
+
+    return result;
+    }
+
+  private State step( State state, String name, int index )
+    {
+    long[] result = new long[ 0 ];
+
+    for( long position : state.positions )
+      {
+      int pointer = pointer( position );
+      int step = step( position );
+      Step[] pointerSteps = steps[ pointer ];
+
+      if( step == pointerSteps.length )
+        continue;
+
+      Step current = pointerSteps[ step ];
+
+      if( current == DESCENT )
+        result = closure( result, pointer, step );
+      else if( current == WILDCARD || matches( current.segment, name, index ) )
+        result = closure( result, pointer, step + 1 );
+      }
+
+    return intern( result );
+    }
+
+  private static boolean matches( Segment segment, String name, int index )
+    {
+    if( name != null )
+      return segment.getName().equals( name );
+
+    return index >= 0 && segment.getIndex() == index;
+    }
+
+  private State intern( long[] positions )
+    {
+    return states.computeIfAbsent( new Key( positions ), key -> new State( key.positions ) );
+    }
+
+  private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+    {
+    in.defaultReadObject();
+
+    build();
+    }
+
+  @Override
+  public String toString()
+    {
+    final StringBuilder sb = new StringBuilder( "NestedPointerSet{" );
+    sb.append( "pointers=" ).append( Arrays.toString( pointers ) );
+    sb.append( ", states=" ).append( states.size() );
+    sb.append( '}' );
+    return sb.toString();
+    }
+
+  private static class Key
+    {
+    final long[] positions;
+    final int hashCode;
+
+    Key( long[] positions )
+      {
+      this.positions = positions;
+      this.hashCode = Arrays.hashCode( positions );
+      }
+
+    @Override
+    public boolean equals( Object object )
+      {
+      return object instanceof Key && Arrays.equals( positions, ( (Key) object ).positions );
+      }
+
+    @Override
+    public int hashCode()
+      {
+      return hashCode;
+      }
+    }
+
+  /**
+   * Class State is the set of all pointers, and their current element, that may match at a given node.
+   * <p>
+   * A State is immutable, transitions to child states are created on first use and retained.
+   */
+  public final class State
+    {
+    private final long[] positions;
+    private final int[] matches;
+    private final boolean isExplicit;
+    private final Set<String> names = new LinkedHashSet<>();
+    private final int[] indexes; // sorted, so explicit lookups are in document order
+
+    private final Map<String, State> nameTransitions = new ConcurrentHashMap<>();
+    private final Map<Integer, State> indexTransitions = new ConcurrentHashMap<>();
+    private volatile State other;
+
+    private State( long[] positions )
+      {
+      this.positions = positions;
+
+      Set<Integer> matches = new LinkedHashSet<>();
+      Set<Integer> indexes = new LinkedHashSet<>();
+      boolean isExplicit = true;
+
+      for( long position : positions )
+        {
+        Step[] pointerSteps = steps[ pointer( position ) ];
+        int step = step( position );
+
+        if( step == pointerSteps.length )
+          {
+          matches.add( pointer( position ) );
+          continue;
+          }
+
+        Step current = pointerSteps[ step ];
+
+        if( current == WILDCARD || current == DESCENT )
+          {
+          isExplicit = false;
+          continue;
+          }
+
+        names.add( current.segment.getName() );
+
+        if( current.segment.isIndex() )
+          indexes.add( current.segment.getIndex() );
+        }
+
+      this.matches = matches.stream().mapToInt( Integer::intValue ).sorted().toArray();
+      this.indexes = indexes.stream().mapToInt( Integer::intValue ).sorted().toArray();
+      this.isExplicit = isExplicit;
+      }
+
+    /**
+     * Method name returns the state of the named child of a Map node in this state.
+     *
+     * @param name of String
+     * @return State
+     */
+    public State name( String name )
+      {
+      if( !names.contains( name ) )
+        return other();
+
+      return nameTransitions.computeIfAbsent( name, key -> step( this, key, -1 ) );
+      }
+
+    /**
+     * Method index returns the state of the indexed child of an Array node in this state.
+     *
+     * @param index of int
+     * @return State
+     */
+    public State index( int index )
+      {
+      if( Arrays.binarySearch( indexes, index ) < 0 )
+        return other();
+
+      return indexTransitions.computeIfAbsent( index, key -> step( this, null, key ) );
+      }
+
+    private NestedPointerSet<Node, Result> owner()
+      {
+      return NestedPointerSet.this;
+      }
+
+    private State other()
+      {
+      State state = other;
+
+      // racing threads will intern the same instance
+      if( state == null )
+        {
+        state = step( this, null, -1 );
+        other = state;
+        }
+
+      return state;
+      }
+
+    /**
+     * Method isDead returns true if no pointer can match this node or any of its children.
+     *
+     * @return boolean
+     */
+    public boolean isDead()
+      {
+      return positions.length == 0;
+      }
+
+    /**
+     * Method isFinal returns true if no pointer can match any child of this node.
+     *
+     * @return boolean
+     */
+    public boolean isFinal()
+      {
+      return positions.length == matches.length;
+      }
+
+    /**
+     * Method isExplicit returns true if every pointer that may match a child of this node names
+     * the child, that is, no wildcard or descent elements remain.
+     *
+     * @return boolean
+     */
+    public boolean isExplicit()
+      {
+      return isExplicit;
+      }
+
+    /**
+     * Method isMatch returns true if any pointer matches this node.
+     *
+     * @return boolean
+     */
+    public boolean isMatch()
+      {
+      return matches.length != 0;
+      }
+
+    /**
+     * Method getMatchCount returns the number of pointers that match this node.
+     *
+     * @return int
+     */
+    public int getMatchCount()
+      {
+      return matches.length;
+      }
+
+    /**
+     * Method getMatch returns the index of the nth pointer that matches this node, in index order.
+     *
+     * @param ordinal of int
+     * @return the pointer index
+     */
+    public int getMatch( int ordinal )
+      {
+      return matches[ ordinal ];
+      }
+
+    @Override
+    public String toString()
+      {
+      final StringBuilder sb = new StringBuilder( "State{" );
+      sb.append( "positions=" ).append( positions.length );
+      sb.append( ", matches=" ).append( Arrays.toString( matches ) );
+      sb.append( ", isExplicit=" ).append( isExplicit );
+      sb.append( '}' );
+      return sb.toString();
+      }
+    }
+  }
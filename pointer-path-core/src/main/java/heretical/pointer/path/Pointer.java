@@ -17,6 +17,18 @@ import java.util.function.Predicate;
  */
 public interface Pointer<Node> extends Serializable
   {
+  /**
+   * Method segments returns the unescaped path elements referenced by this pointer.
+   * <p>
+   * Implementations may return their internal array, callers must not modify it.
+   *
+   * @return Segment[]
+   */
+  default Segment[] segments()
+    {
+    return Segment.parse( toString() );
+    }
+
   /**
    * Method at returns the object or value referenced by this pointer relative to the
    * give {@code root} node. If no object or value is referenced, {@code null} is returned.
@@ -59,6 +71,43 @@ public interface Pointer<Node> extends Serializable
    */
   void copy( Node from, Node into, Predicate<Node> filter );
 
+  /**
+   * Method copy places the {@code from} node into the location referenced by this pointer relative to the
+   * {@code into} node if the {@code filter} returns true when given the {@code from} node.
+   * <p>
+   * The node is duplicated unless the {@code mode} is {@link CopyMode#SHARED}. Implementations that cannot
+   * share nodes always duplicate.
+   *
+   * @param from   of Node
+   * @param into   of Node
+   * @param filter of Predicate<Node>
+   * @param mode   of CopyMode
+   */
+  default void copy( Node from, Node into, Predicate<Node> filter, CopyMode mode )
+    {
+    copy( from, into, filter );
+    }
+
+  /**
+   * Method copy places the {@code from} node into the location referenced by this pointer relative to the
+   * {@code into} node if the {@code filter} returns true when given the {@code from} node, without the values
+   * referenced by the {@code excludes}.
+   * <p>
+   * The excludes are relative to the copied node, where a {@code *} segment references every child. Skipping them
+   * is an optimization, implementations may copy excluded values, so callers must still remove them from
+   * the result.
+   *
+   * @param from     of Node
+   * @param into     of Node
+   * @param filter   of Predicate<Node>
+   * @param mode     of CopyMode
+   * @param excludes of Pointer<Node>[], may be null
+   */
+  default void copy( Node from, Node into, Predicate<Node> filter, CopyMode mode, Pointer<Node>[] excludes )
+    {
+    copy( from, into, filter, mode );
+    }
+
   /**
    * Method apply will pass the object or value referenced by this pointer relative to the
    * given {@code root} node to the given {@code transform} and replace the original value with the
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+import heretical.pointer.util.BoundedCache;
+
+/**
+ * Class PointerCache retains the single element child {@link Pointer} instances created by a
+ * {@link PointerCompiler} while resolving wildcard and descent paths.
+ * <p>
+ * Named children are held in a {@link BoundedCache}, array indices below {@link #getIndexSize()} are held
+ * in a fixed table and never touch the named cache.
+ * <p>
+ * Child pointers are created directly from their {@link Segment}, so the cached pointers also serve to
+ * intern the segments pushed onto a path during traversal.
+ */
+public class PointerCache<Node> implements Serializable
+  {
+  public static final int DEFAULT_INDEX_SIZE = 256;
+
+  private final PointerCompiler<Node, ?> compiler;
+  private final BoundedCache<String, Pointer<Node>> names;
+  private final int indexSize;
+
+  private transient Pointer<Node>[] indexes;
+
+  /**
+   * Constructor PointerCache creates a new PointerCache instance.
+   *
+   * @param compiler  the compiler used to create new pointers
+   * @param capacity  the maximum number of named pointers to retain
+   * @param indexSize the number of array index pointers to retain
+   */
+  public PointerCache( PointerCompiler<Node, ?> compiler, int capacity, int indexSize )
+    {
+    if( indexSize < 0 )
+      throw new IllegalArgumentException( "indexSize may not be negative, got: " + indexSize );
+
+    this.compiler = compiler;
+    this.names = new BoundedCache<>( capacity );
+    this.indexSize = indexSize;
+
+    init();
+    }
+
+  @SuppressWarnings("unchecked")
+  private void init()
+    {
+    indexes = new Pointer[ indexSize ];
+    }
+
+  /**
+   * Method child returns a pointer to the named child.
+   *
+   * @param name of String
+   * @return Pointer<Node>
+   */
+  public Pointer<Node> child( String name )
+    {
+    return names.get( name, this::compileName );
+    }
+
+  /**
+   * Method child returns a pointer to the indexed child.
+   *
+   * @param index of int
+   * @return Pointer<Node>
+   */
+  public Pointer<Node> child( int index )
+    {
+    if( index < 0 || index >= indexes.length )
+      return compileIndex( index );
+
+    Pointer<Node> pointer = indexes[ index ];
+
+    // racing threads may both compile, either result is valid
+    if( pointer == null )
+      {
+      pointer = compileIndex( index );
+      indexes[ index ] = pointer;
+      }
+
+    return pointer;
+    }
+
+  private Pointer<Node> compileName( String name )
+    {
+    return compiler.compile( new Segment[]{Segment.name( name )} );
+    }
+
+  private Pointer<Node> compileIndex( int index )
+    {
+    return compiler.compile( new Segment[]{Segment.index( index )} );
+    }
+
+  /**
+   * Method getIndexSize returns the number of array index pointers retained.
+   *
+   * @return int
+   */
+  public int getIndexSize()
+    {
+    return indexSize;
+    }
+
+  /**
+   * Method getNameCache returns the cache of named child pointers, including its hit, miss, and eviction counts.
+   *
+   * @return BoundedCache
+   */
+  public BoundedCache<String, Pointer<Node>> getNameCache()
+    {
+    return names;
+    }
+
+  private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+    {
+    in.defaultReadObject();
+
+    init();
+    }
+
+  @Override
+  public String toString()
+    {
+    final StringBuilder sb = new StringBuilder( "PointerCache{" );
+    sb.append( "names=" ).append( names );
+    sb.append( ", indexSize=" ).append( indexSize );
+    sb.append( '}' );
+    return sb.toString();
+    }
+  }
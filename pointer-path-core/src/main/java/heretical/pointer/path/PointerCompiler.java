@@ -22,6 +22,11 @@ public interface PointerCompiler<Node, Result> extends Serializable
       Array, Map, Value
     }
 
+  /**
+   * The default maximum number of levels walked below a descent, see {@link #maxDescentDepth()}.
+   */
+  int DEFAULT_MAX_DESCENT_DEPTH = 10_000;
+
   /**
    * Method compile creates a new {@link Pointer} instance for the given path.
    *
@@ -30,6 +35,60 @@ public interface PointerCompiler<Node, Result> extends Serializable
    */
   Pointer<Node> compile( String path );
 
+  /**
+   * Method compile creates a new {@link Pointer} instance for the given, already parsed, path segments.
+   * <p>
+   * Implementations should not re-parse the segments, and may retain the given array.
+   *
+   * @param segments of Segment[]
+   * @return Pointer<Node>
+   */
+  default Pointer<Node> compile( Segment[] segments )
+    {
+    return compile( Segment.toString( segments ) );
+    }
+
+  /**
+   * Method append creates a new {@link Pointer} referencing the {@code child} path relative to
+   * the {@code parent} path, without re-parsing either.
+   *
+   * @param parent of Pointer<Node>
+   * @param child  of Pointer<Node>
+   * @return Pointer<Node>
+   */
+  default Pointer<Node> append( Pointer<Node> parent, Pointer<Node> child )
+    {
+    return compile( Segment.concat( parent.segments(), child.segments() ) );
+    }
+
+  /**
+   * Method child returns a {@link Pointer} referencing the named child of a Map node.
+   * <p>
+   * This method is called for every child visited by wildcard and descent paths, implementations
+   * are expected to return cached instances, see {@link PointerCache}.
+   *
+   * @param name of String
+   * @return Pointer<Node>
+   */
+  default Pointer<Node> child( String name )
+    {
+    return compile( new Segment[]{Segment.name( name )} );
+    }
+
+  /**
+   * Method child returns a {@link Pointer} referencing the indexed child of an Array node.
+   * <p>
+   * This method is called for every child visited by wildcard and descent paths, implementations
+   * are expected to return cached instances, see {@link PointerCache}.
+   *
+   * @param index of int
+   * @return Pointer<Node>
+   */
+  default Pointer<Node> child( int index )
+    {
+    return compile( new Segment[]{Segment.index( index )} );
+    }
+
   /**
    * Method kind returns the element type of the given node.
    * <p>
@@ -107,5 +166,19 @@ public interface PointerCompiler<Node, Result> extends Serializable
    */
   Result resultNode();
 
+  /**
+   * Method maxDescentDepth returns the maximum number of levels a descent ({@code **}) path walks below
+   * the node it is applied to.
+   * <p>
+   * Descents walk nodes with an explicit stack, so deeper trees do not overflow the Java stack, instead
+   * an {@link IllegalStateException} is thrown once this depth is exceeded.
+   *
+   * @return int
+   */
+  default int maxDescentDepth()
+    {
+    return DEFAULT_MAX_DESCENT_DEPTH;
+    }
+
   Node node( Object value );
   }
\ No newline at end of file
@@ -8,7 +8,6 @@
 
 package heretical.pointer.path;
 
-import java.util.Deque;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -22,18 +21,45 @@ class PointerResolver<Node, Result> extends Resolver<Node, Result>
   public PointerResolver( PointerCompiler<Node, Result> compiler, String pointer )
     {
     super( compiler );
-    this.pointer = compiler.compile( pointer );
+    this.pointer = compiler.compile( Segment.parse( pointer ) );
     }
 
   @Override
-  Result resolve( Resolver<Node, Result> previous, Node node, Result result )
+  boolean matchesValues()
+    {
+    return pointer.segments().length == 0;
+    }
+
+  @Override
+  String memberName()
+    {
+    Segment[] segments = pointer.segments();
+
+    // an index may also name an array element
+    if( segments.length == 0 || segments[ 0 ].isIndex() )
+      return null;
+
+    return segments[ 0 ].getName();
+    }
+
+  @Override
+  boolean visit( Resolver<Node, Result> previous, SegmentStack path, Node node, Visitor<Node> visitor )
     {
     Node at = pointer.at( node );
 
     if( at == null )
-      return result;
+      return true;
+
+    if( path == null )
+      return next.visit( this, null, at, visitor );
 
-    next.resolve( this, at, result );
+    Segment[] segments = pointer.segments();
+
+    path.push( segments );
+
+    boolean result = next.visit( this, path, at, visitor );
+
+    path.pop( segments.length );
 
     return result;
     }
@@ -61,17 +87,19 @@ class PointerResolver<Node, Result> extends Resolver<Node, Result>
     }
 
   @Override
-  public void copy( Resolver<Node, Result> previous, Deque<String> queue, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter )
+  public void copy( Resolver<Node, Result> previous, SegmentStack path, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter, CopyMode mode )
     {
     Node child = this.pointer.at( from );
 
     if( child == null )
       return;
 
-    queue.addLast( this.pointer.toString() );
+    Segment[] segments = this.pointer.segments();
+
+    path.push( segments );
 
-    next.copy( this, queue, root, child, this.pointer, into, filter );
+    next.copy( this, path, root, child, this.pointer, into, filter, mode );
 
-    queue.removeLast();
+    path.pop( segments.length );
     }
   }
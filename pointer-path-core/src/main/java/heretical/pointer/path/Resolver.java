@@ -9,11 +9,6 @@
 package heretical.pointer.path;
 
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -22,14 +17,40 @@ import java.util.function.Predicate;
  */
 class Resolver<Node, Result> implements Serializable
   {
-  static final Map<Object, Pointer> cache = Collections.synchronizedMap( new LinkedHashMap<Object, Pointer>()
+  @FunctionalInterface
+  interface Visitor<Node>
     {
-    @Override
-    protected boolean removeEldestEntry( Map.Entry<Object, Pointer> eldest )
+    boolean visit( SegmentStack path, Node node );
+
+    /**
+     * Returns the summary of the document being visited, if any.
+     */
+    default KeySummary<Node> keySummary()
+      {
+      return null;
+      }
+
+    static <Node> Visitor<Node> with( KeySummary<Node> keySummary, Visitor<Node> visitor )
       {
-      return size() > 200;
+      if( keySummary == null )
+        return visitor;
+
+      return new Visitor<Node>()
+        {
+        @Override
+        public boolean visit( SegmentStack path, Node node )
+          {
+          return visitor.visit( path, node );
+          }
+
+        @Override
+        public KeySummary<Node> keySummary()
+          {
+          return keySummary;
+          }
+        };
       }
-    } );
+    }
 
   final PointerCompiler<Node, Result> compiler;
   Resolver<Node, Result> next;
@@ -39,11 +60,6 @@ class Resolver<Node, Result> implements Serializable
     this.compiler = compiler;
     }
 
-  Pointer get( Object pointer )
-    {
-    return cache.computeIfAbsent( pointer, k -> compiler.compile( "/" + pointer ) );
-    }
-
   public Resolver<Node, Result> setNext( Resolver<Node, Result> next )
     {
     this.next = next;
@@ -66,9 +82,32 @@ class Resolver<Node, Result> implements Serializable
     return false;
     }
 
-  Result resolve( Resolver<Node, Result> previous, Node node, Result result )
+  /**
+   * Returns false if the remaining resolvers can never match a Value node, as a Value has no children, so
+   * a descent need not apply them to Values.
+   */
+  boolean matchesValues()
+    {
+    return true;
+    }
+
+  /**
+   * Returns the Map member name the remaining resolvers look up first, relative to the current node,
+   * or null if there is no such name.
+   */
+  String memberName()
+    {
+    return null;
+    }
+
+  /**
+   * Visits every node matched by the remaining resolvers, stopping once the visitor returns false.
+   * <p>
+   * The path is only tracked if not null.
+   */
+  boolean visit( Resolver<Node, Result> previous, SegmentStack path, Node node, Visitor<Node> visitor )
     {
-    return next.resolve( this, node, result );
+    return next.visit( this, path, node, visitor );
     }
 
   Result remove( Resolver<Node, Result> previous, Node parent, Pointer<Node> pointer, Node child )
@@ -81,8 +120,8 @@ class Resolver<Node, Result> implements Serializable
     next.set( previous, parent, pointer, child, transform );
     }
 
-  public void copy( Resolver<Node, Result> previous, Deque<String> queue, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter )
+  public void copy( Resolver<Node, Result> previous, SegmentStack path, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter, CopyMode mode )
     {
-    next.copy( previous, new LinkedList<>(), root, from, pointer, into, filter );
+    next.copy( previous, new SegmentStack(), root, from, pointer, into, filter, mode );
     }
   }
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class Segment is a single, unescaped element of a pointer path.
+ * <p>
+ * A Segment always has a name, and if the name is a valid array index, an index. Objects are
+ * addressed by the name, arrays by the index.
+ * <p>
+ * Segments are immutable, index segments below {@link #INDEX_TABLE_SIZE} are shared instances,
+ * named segments are typically shared through a {@link PointerCache}.
+ */
+public final class Segment implements Serializable
+  {
+  public static final int INDEX_TABLE_SIZE = 1024;
+
+  public static final Segment[] EMPTY = new Segment[ 0 ];
+
+  private static final Segment[] INDEXES = new Segment[ INDEX_TABLE_SIZE ];
+
+  static
+    {
+    for( int i = 0; i < INDEXES.length; i++ )
+      INDEXES[ i ] = new Segment( Integer.toString( i ), i );
+    }
+
+  private final String name;
+  private final int index;
+
+  private Segment( String name, int index )
+    {
+    this.name = name;
+    this.index = index;
+    }
+
+  /**
+   * Method name returns a Segment for the given unescaped name.
+   *
+   * @param name of String
+   * @return Segment
+   */
+  public static Segment name( String name )
+    {
+    if( name == null )
+      throw new IllegalArgumentException( "name may not be null" );
+
+    int index = parseIndex( name );
+
+    if( index >= 0 && index < INDEXES.length )
+      return INDEXES[ index ];
+
+    return new Segment( name, index );
+    }
+
+  /**
+   * Method index returns a Segment for the given array index.
+   *
+   * @param index of int
+   * @return Segment
+   */
+  public static Segment index( int index )
+    {
+    if( index < 0 )
+      throw new IllegalArgumentException( "index may not be negative, got: " + index );
+
+    if( index < INDEXES.length )
+      return INDEXES[ index ];
+
+    return new Segment( Integer.toString( index ), index );
+    }
+
+  /**
+   * Method parse splits the given pointer path into its unescaped segments.
+   * <p>
+   * The empty path references the root and returns an empty array.
+   *
+   * @param path of String
+   * @return Segment[]
+   * @throws IllegalArgumentException if the path is not empty and does not start with a {@code /}
+   */
+  public static Segment[] parse( String path )
+    {
+    if( path == null || path.isEmpty() )
+      return EMPTY;
+
+    if( path.charAt( 0 ) != '/' )
+      throw new IllegalArgumentException( "Invalid input: JSON Pointer expression must start with '/': \"" + path + "\"" );
+
+    List<Segment> segments = new ArrayList<>();
+    StringBuilder buffer = new StringBuilder();
+    int length = path.length();
+
+    for( int i = 1; i <= length; i++ )
+      {
+      char c = i == length ? '/' : path.charAt( i );
+
+      if( c == '/' )
+        {
+        segments.add( name( buffer.toString() ) );
+        buffer.setLength( 0 );
+        }
+      else if( c == '~' && i + 1 < length && ( path.charAt( i + 1 ) == '0' || path.charAt( i + 1 ) == '1' ) )
+        {
+        buffer.append( path.charAt( ++i ) == '0' ? '~' : '/' );
+        }
+      else
+        {
+        buffer.append( c );
+        }
+      }
+
+    return segments.toArray( EMPTY );
+    }
+
+  /**
+   * Method concat returns a new array holding the given segments in order.
+   *
+   * @param head of Segment[]
+   * @param tail of Segment[]
+   * @return Segment[]
+   */
+  public static Segment[] concat( Segment[] head, Segment[] tail )
+    {
+    if( tail.length == 0 )
+      return head;
+
+    if( head.length == 0 )
+      return tail;
+
+    Segment[] result = new Segment[ head.length + tail.length ];
+
+    System.arraycopy( head, 0, result, 0, head.length );
+    System.arraycopy( tail, 0, result, head.length, tail.length );
+
+    return result;
+    }
+
+  /**
+   * Method toString returns the escaped pointer path of the given segments.
+   *
+   * @param segments of Segment[]
+   * @param length   the number of leading segments to include
+   * @return String
+   */
+  public static String toString( Segment[] segments, int length )
+    {
+    StringBuilder buffer = new StringBuilder();
+
+    for( int i = 0; i < length; i++ )
+      segments[ i ].appendTo( buffer );
+
+    return buffer.toString();
+    }
+
+  /**
+   * Method toString returns the escaped pointer path of the given segments.
+   *
+   * @param segments of Segment[]
+   * @return String
+   */
+  public static String toString( Segment[] segments )
+    {
+    return toString( segments, segments.length );
+    }
+
+  private static int parseIndex( String name )
+    {
+    int length = name.length();
+
+    // no leading zeros, and never larger than an int
+    if( length == 0 || length > 10 )
+      return -1;
+
+    char c = name.charAt( 0 );
+
+    if( c <= '0' )
+      return length == 1 && c == '0' ? 0 : -1;
+
+    if( c > '9' )
+      return -1;
+
+    for( int i = 1; i < length; i++ )
+      {
+      c = name.charAt( i );
+
+      if( c > '9' || c < '0' )
+        return -1;
+      }
+
+    long value = Long.parseLong( name );
+
+    return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+  /**
+   * Method getName returns the unescaped name of this Segment.
+   *
+   * @return String
+   */
+  public String getName()
+    {
+    return name;
+    }
+
+  /**
+   * Method getIndex returns the array index of this Segment, or {@code -1} if the name is not a valid index.
+   *
+   * @return int
+   */
+  public int getIndex()
+    {
+    return index;
+    }
+
+  /**
+   * Method isIndex returns true if this Segment may reference an array element.
+   *
+   * @return boolean
+   */
+  public boolean isIndex()
+    {
+    return index != -1;
+    }
+
+  void appendTo( StringBuilder buffer )
+    {
+    buffer.append( '/' );
+
+    for( int i = 0; i < name.length(); i++ )
+      {
+      char c = name.charAt( i );
+
+      if( c == '~' )
+        buffer.append( "~0" );
+      else if( c == '/' )
+        buffer.append( "~1" );
+      else
+        buffer.append( c );
+      }
+    }
+
+  private Object readResolve()
+    {
+    return index >= 0 && index < INDEXES.length ? INDEXES[ index ] : this;
+    }
+
+  @Override
+  public boolean equals( Object object )
+    {
+    if( this == object )
+      return true;
+
+    if( object == null || getClass() != object.getClass() )
+      return false;
+
+    return name.equals( ( (Segment) object ).name );
+    }
+
+  @Override
+  public int hashCode()
+    {
+    return name.hashCode();
+    }
+
+  @Override
+  public String toString()
+    {
+    StringBuilder buffer = new StringBuilder();
+
+    appendTo( buffer );
+
+    return buffer.toString();
+    }
+  }
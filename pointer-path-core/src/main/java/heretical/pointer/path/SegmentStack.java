@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path;
+
+import java.util.Arrays;
+
+/**
+ * Class SegmentStack tracks the path to the current node while resolvers traverse a tree.
+ * <p>
+ * Not thread safe, a new instance is created per traversal.
+ */
+class SegmentStack
+  {
+  private Segment[] segments = new Segment[ 16 ];
+  private int size = 0;
+
+  void push( Segment segment )
+    {
+    if( size == segments.length )
+      segments = Arrays.copyOf( segments, size * 2 );
+
+    segments[ size++ ] = segment;
+    }
+
+  void push( Segment[] values )
+    {
+    if( size + values.length > segments.length )
+      segments = Arrays.copyOf( segments, Math.max( size * 2, size + values.length ) );
+
+    System.arraycopy( values, 0, segments, size, values.length );
+
+    size += values.length;
+    }
+
+  void pop()
+    {
+    segments[ --size ] = null;
+    }
+
+  void pop( int count )
+    {
+    for( int i = 0; i < count; i++ )
+      segments[ --size ] = null;
+    }
+
+  int size()
+    {
+    return size;
+    }
+
+  Segment[] toArray()
+    {
+    return size == 0 ? Segment.EMPTY : Arrays.copyOf( segments, size );
+    }
+
+  @Override
+  public String toString()
+    {
+    return Segment.toString( segments, size );
+    }
+  }
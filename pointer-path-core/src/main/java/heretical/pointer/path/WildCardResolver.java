@@ -8,7 +8,6 @@
 
 package heretical.pointer.path;
 
-import java.util.Deque;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Function;
@@ -31,12 +30,65 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
     }
 
   @Override
-  Result resolve( Resolver<Node, Result> previous, Node node, Result result )
+  boolean matchesValues()
     {
-    compiler.iterable( node )
-      .forEach( child -> next.resolve( this, child, result ) );
+    return false;
+    }
 
-    return result;
+  @Override
+  boolean visit( Resolver<Node, Result> previous, SegmentStack path, Node node, Visitor<Node> visitor )
+    {
+    if( path == null )
+      {
+      for( Node child : compiler.iterable( node ) )
+        {
+        if( !next.visit( this, null, child, visitor ) )
+          return false;
+        }
+
+      return true;
+      }
+
+    switch( compiler.kind( node ) )
+      {
+      case Array:
+        int i = 0;
+        for( Node child : compiler.iterable( node ) )
+          {
+          path.push( compiler.child( i++ ).segments() );
+
+          boolean result = next.visit( this, path, child, visitor );
+
+          path.pop();
+
+          if( !result )
+            return false;
+          }
+        break;
+
+      case Map:
+        Iterator<Map.Entry<String, Node>> fields = compiler.entries( node );
+
+        while( fields.hasNext() )
+          {
+          Map.Entry<String, Node> next = fields.next();
+
+          path.push( compiler.child( next.getKey() ).segments() );
+
+          boolean result = this.next.visit( this, path, next.getValue(), visitor );
+
+          path.pop();
+
+          if( !result )
+            return false;
+          }
+        break;
+
+      case Value:
+        break;
+      }
+
+    return true;
     }
 
   @Override
@@ -50,7 +102,7 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
         int i = 0;
         for( Node child : compiler.iterable( node ) )
           {
-          Pointer<Node> current = this.next.isFinal() ? get( i ) : null;
+          Pointer<Node> current = this.next.isFinal() ? compiler.child( i ) : null;
 
           Result removed = this.next.remove( this, node, current, child );
 
@@ -66,7 +118,7 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
         while( fields.hasNext() )
           {
           Map.Entry<String, Node> next = fields.next();
-          Pointer<Node> current = this.next.isFinal() ? get( next.getKey() ) : null;
+          Pointer<Node> current = this.next.isFinal() ? compiler.child( next.getKey() ) : null;
 
           Result removed = this.next.remove( this, node, current, next.getValue() );
 
@@ -90,7 +142,7 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
         int i = 0;
         for( Node child : compiler.iterable( node ) )
           {
-          Pointer<Node> current = this.next.isFinal() ? get( i ) : null;
+          Pointer<Node> current = this.next.isFinal() ? compiler.child( i ) : null;
 
           this.next.set( this, node, current, child, transform );
 
@@ -104,7 +156,7 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
         while( fields.hasNext() )
           {
           Map.Entry<String, Node> next = fields.next();
-          Pointer<Node> current = this.next.isFinal() ? get( next.getKey() ) : null;
+          Pointer<Node> current = this.next.isFinal() ? compiler.child( next.getKey() ) : null;
 
           this.next.set( this, node, current, next.getValue(), transform );
           }
@@ -116,7 +168,7 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
     }
 
   @Override
-  public void copy( Resolver<Node, Result> previous, Deque<String> queue, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter )
+  public void copy( Resolver<Node, Result> previous, SegmentStack path, Node root, Node from, Pointer<Node> pointer, Node into, Predicate<Node> filter, CopyMode mode )
     {
     switch( compiler.kind( from ) )
       {
@@ -124,13 +176,13 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
         int i = 0;
         for( Node child : compiler.iterable( from ) )
           {
-          Pointer<Node> current = this.next.isFinal() ? get( i ) : null;
+          Pointer<Node> current = compiler.child( i );
 
-          queue.addLast( "/" + i );
+          path.push( current.segments() );
 
-          this.next.copy( this, queue, root, child, current, into, filter );
+          this.next.copy( this, path, root, child, current, into, filter, mode );
 
-          queue.removeLast();
+          path.pop();
 
           i++;
           }
@@ -142,13 +194,13 @@ class WildCardResolver<Node, Result> extends Resolver<Node, Result>
         while( fields.hasNext() )
           {
           Map.Entry<String, Node> next = fields.next();
-          Pointer current = this.next.isFinal() ? get( next.getKey() ) : null;
+          Pointer<Node> current = compiler.child( next.getKey() );
 
-          queue.addLast( "/" + next.getKey() );
+          path.push( current.segments() );
 
-          this.next.copy( this, queue, root, next.getValue(), current, into, filter );
+          this.next.copy( this, path, root, next.getValue(), current, into, filter, mode );
 
-          queue.removeLast();
+          path.pop();
           }
         break;
 
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Class BoundedCache is a concurrent cache holding at most {@link #getCapacity()} values.
+ * <p>
+ * Lookups never block, values are computed outside of any lock, so under contention a value
+ * may be computed more than once, but only the first value stored is ever returned.
+ * <p>
+ * When the capacity is exceeded, entries are evicted using a CLOCK (second chance) policy, entries
+ * that have been read since the last sweep are retained over those that have not.
+ * <p>
+ * Hit, miss, and eviction counts are maintained and may be read at any time.
+ * <p>
+ * Cached values are not serialized, a de-serialized instance is empty.
+ */
+public class BoundedCache<K, V> implements Serializable
+  {
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private static class Entry<V>
+    {
+    final V value;
+    volatile boolean referenced;
+
+    Entry( V value )
+      {
+      this.value = value;
+      }
+    }
+
+  private final int capacity;
+
+  private transient Map<K, Entry<V>> map;
+  private transient AtomicBoolean evicting;
+  private transient Iterator<Map.Entry<K, Entry<V>>> hand;
+  private transient LongAdder hits;
+  private transient LongAdder misses;
+  private transient LongAdder evictions;
+
+  /**
+   * Constructor BoundedCache creates a new BoundedCache instance with the {@link #DEFAULT_CAPACITY}.
+   */
+  public BoundedCache()
+    {
+    this( DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor BoundedCache creates a new BoundedCache instance.
+   *
+   * @param capacity the maximum number of values to retain, must be greater than zero
+   */
+  public BoundedCache( int capacity )
+    {
+    if( capacity < 1 )
+      throw new IllegalArgumentException( "capacity must be greater than zero, got: " + capacity );
+
+    this.capacity = capacity;
+
+    init();
+    }
+
+  private void init()
+    {
+    map = new ConcurrentHashMap<>( Math.min( capacity, 1 << 16 ) );
+    evicting = new AtomicBoolean();
+    hits = new LongAdder();
+    misses = new LongAdder();
+    evictions = new LongAdder();
+    }
+
+  /**
+   * Method get returns the value cached for the given key, or computes, caches, and returns a new
+   * value using the given {@code factory}.
+   *
+   * @param key     of K
+   * @param factory of Function
+   * @return V
+   */
+  public V get( K key, Function<? super K, ? extends V> factory )
+    {
+    Entry<V> entry = map.get( key );
+
+    if( entry != null )
+      {
+      if( !entry.referenced )
+        entry.referenced = true;
+
+      hits.increment();
+
+      return entry.value;
+      }
+
+    misses.increment();
+
+    V value = factory.apply( key );
+
+    Entry<V> existing = map.putIfAbsent( key, new Entry<>( value ) );
+
+    if( existing != null )
+      return existing.value;
+
+    if( map.size() > capacity )
+      evict();
+
+    return value;
+    }
+
+  private void evict()
+    {
+    // only one thread sweeps at a time, others may briefly overshoot the capacity
+    if( !evicting.compareAndSet( false, true ) )
+      return;
+
+    try
+      {
+      while( map.size() > capacity )
+        {
+        if( hand == null || !hand.hasNext() )
+          hand = map.entrySet().iterator();
+
+        if( !hand.hasNext() )
+          break;
+
+        Map.Entry<K, Entry<V>> next = hand.next();
+        Entry<V> entry = next.getValue();
+
+        if( entry.referenced )
+          entry.referenced = false;
+        else if( map.remove( next.getKey(), entry ) )
+          evictions.increment();
+        }
+      }
+    finally
+      {
+      evicting.set( false );
+      }
+    }
+
+  /**
+   * Method getCapacity returns the maximum number of values retained by this cache.
+   *
+   * @return int
+   */
+  public int getCapacity()
+    {
+    return capacity;
+    }
+
+  /**
+   * Method size returns the current number of values retained by this cache.
+   *
+   * @return int
+   */
+  public int size()
+    {
+    return map.size();
+    }
+
+  /**
+   * Method getHits returns the number of lookups answered from the cache.
+   *
+   * @return long
+   */
+  public long getHits()
+    {
+    return hits.sum();
+    }
+
+  /**
+   * Method getMisses returns the number of lookups that required a new value to be computed.
+   *
+   * @return long
+   */
+  public long getMisses()
+    {
+    return misses.sum();
+    }
+
+  /**
+   * Method getEvictions returns the number of values removed to honor the capacity.
+   *
+   * @return long
+   */
+  public long getEvictions()
+    {
+    return evictions.sum();
+    }
+
+  /**
+   * Method clear removes all values, counters are retained.
+   */
+  public void clear()
+    {
+    map.clear();
+    }
+
+  private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+    {
+    in.defaultReadObject();
+
+    init();
+    }
+
+  @Override
+  public String toString()
+    {
+    final StringBuilder sb = new StringBuilder( "BoundedCache{" );
+    sb.append( "capacity=" ).append( capacity );
+    sb.append( ", size=" ).append( size() );
+    sb.append( ", hits=" ).append( getHits() );
+    sb.append( ", misses=" ).append( getMisses() );
+    sb.append( ", evictions=" ).append( getEvictions() );
+    sb.append( '}' );
+    return sb.toString();
+    }
+  }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017-2018 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
  *
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -8,109 +8,291 @@
 
 package heretical.pointer.util;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
+ * Class PathTree is a trie of pointer paths, where children are kept in insertion order.
+ * <p>
+ * Elements are held in parallel primitive arrays, indexed by element id, and linked to their first child and
+ * next sibling. Keys are interned, a String name and an int ordinal being distinct keys, and children are
+ * found through a single open addressing table keyed on the parent id and key id.
+ * <p>
+ * An {@link Element} is only a handle on an element id. Pointers are emitted depth first from a single
+ * growing buffer, so no pointer string is rebuilt from its parents.
  *
+ * @deprecated no longer used by the descent pointers, which copy matches in a single walk of the source, and will
+ * be removed in a future release
  */
+@Deprecated
 public class PathTree
   {
+  private static final int ROOT = 0;
+  private static final int NONE = 0; // the root is never a child or sibling
+
   public class Element
     {
-    PathTree tree = PathTree.this;
-    Element parent = null;
-    String path = "";
-    Map<Comparable, Element> children = new LinkedHashMap<>();
+    private final int id;
 
-    private Element()
+    private Element( int id )
       {
-      }
-
-    Element( Element parent, Comparable path )
-      {
-      this.parent = parent;
-      this.path = path.toString();
+      this.id = id;
       }
 
     public PathTree tree()
       {
-      return tree;
+      return PathTree.this;
       }
 
     public Element child( String path )
       {
-      return children.computeIfAbsent( path, p -> new Element( this, p ) );
+      return new Element( childOf( id, path ) );
       }
 
     public Element child( int ordinal )
       {
-      return children.computeIfAbsent( ordinal, o -> new Element( this, o ) );
+      return new Element( childOf( id, ordinal ) );
       }
 
     public String pointer()
       {
-      LinkedList<String> paths = new LinkedList<>();
+      return pointerOf( id );
+      }
+    }
 
-      addPath( paths, this );
+  private final Map<Comparable, Integer> keyIds = new HashMap<>();
+  private String[] keys = new String[ 16 ];
 
-      return paths.stream().collect( Collectors.joining( "/" ) );
-      }
+  private int[] keyOf = new int[ 16 ];
+  private int[] parentOf = new int[ 16 ];
+  private int[] firstChild = new int[ 16 ];
+  private int[] lastChild = new int[ 16 ];
+  private int[] nextSibling = new int[ 16 ];
+  private int size = 1;
 
-    private void addPath( LinkedList<String> paths, Element element )
-      {
-      if( element == null )
-        return;
+  private long[] slotKeys = new long[ 32 ];
+  private int[] slotValues = new int[ 32 ];
+
+  public PathTree()
+    {
+    }
+
+  public Element root()
+    {
+    return new Element( ROOT );
+    }
 
-      paths.addFirst( element.path );
+  public Element child( String path )
+    {
+    return root().child( path );
+    }
 
-      addPath( paths, element.parent );
+  /**
+   * Method size returns the number of elements in this tree, including the root.
+   *
+   * @return int
+   */
+  public int size()
+    {
+    return size;
+    }
+
+  private int childOf( int parent, Comparable key )
+    {
+    Integer keyId = keyIds.get( key );
+
+    if( keyId == null )
+      keyId = intern( key );
+
+    long slotKey = ( (long) parent << 32 ) | keyId;
+    int mask = slotValues.length - 1;
+    int slot = hash( slotKey ) & mask;
+
+    while( slotValues[ slot ] != NONE )
+      {
+      if( slotKeys[ slot ] == slotKey )
+        return slotValues[ slot ];
+
+      slot = ( slot + 1 ) & mask;
       }
+
+    int child = add( parent, keyId );
+
+    slotKeys[ slot ] = slotKey;
+    slotValues[ slot ] = child;
+
+    if( size * 2 > slotValues.length )
+      rehash();
+
+    return child;
     }
 
-  private Element root = new Element();
+  private int intern( Comparable key )
+    {
+    int keyId = keyIds.size();
 
-  public PathTree()
+    if( keyId == keys.length )
+      keys = Arrays.copyOf( keys, keyId * 2 );
+
+    keys[ keyId ] = key.toString();
+    keyIds.put( key, keyId );
+
+    return keyId;
+    }
+
+  private int add( int parent, int keyId )
     {
+    if( size == keyOf.length )
+      {
+      int capacity = size * 2;
+
+      keyOf = Arrays.copyOf( keyOf, capacity );
+      parentOf = Arrays.copyOf( parentOf, capacity );
+      firstChild = Arrays.copyOf( firstChild, capacity );
+      lastChild = Arrays.copyOf( lastChild, capacity );
+      nextSibling = Arrays.copyOf( nextSibling, capacity );
+      }
+
+    int id = size++;
+
+    keyOf[ id ] = keyId;
+    parentOf[ id ] = parent;
+
+    if( lastChild[ parent ] == NONE )
+      firstChild[ parent ] = id;
+    else
+      nextSibling[ lastChild[ parent ] ] = id;
+
+    lastChild[ parent ] = id;
+
+    return id;
     }
 
-  public Element root()
+  private void rehash()
     {
-    return root;
+    long[] oldKeys = slotKeys;
+    int[] oldValues = slotValues;
+
+    slotKeys = new long[ oldKeys.length * 2 ];
+    slotValues = new int[ oldValues.length * 2 ];
+
+    int mask = slotValues.length - 1;
+
+    for( int i = 0; i < oldValues.length; i++ )
+      {
+      if( oldValues[ i ] == NONE )
+        continue;
+
+      int slot = hash( oldKeys[ i ] ) & mask;
+
+      while( slotValues[ slot ] != NONE )
+        slot = ( slot + 1 ) & mask;
+
+      slotKeys[ slot ] = oldKeys[ i ];
+      slotValues[ slot ] = oldValues[ i ];
+      }
     }
 
-  public Element child( String path )
+  private static int hash( long key )
+    {
+    long hash = key * 0x9E3779B97F4A7C15L;
+
+    return (int) ( hash ^ ( hash >>> 32 ) );
+    }
+
+  private String pointerOf( int id )
     {
-    return root.child( path );
+    int depth = 0;
+
+    for( int current = id; current != ROOT; current = parentOf[ current ] )
+      depth++;
+
+    int[] path = new int[ depth ];
+
+    for( int current = id; current != ROOT; current = parentOf[ current ] )
+      path[ --depth ] = current;
+
+    StringBuilder builder = new StringBuilder();
+
+    for( int element : path )
+      builder.append( '/' ).append( keys[ keyOf[ element ] ] );
+
+    return builder.toString();
     }
 
   public List<String> leafPointers()
     {
-    List<String> pointers = new LinkedList<>();
+    List<String> pointers = new ArrayList<>();
 
-    addPointer( pointers, root, true );
+    forEachPointer( true, pointers::add );
 
     return pointers;
     }
 
   public List<String> depthFirstPointers()
     {
-    List<String> pointers = new LinkedList<>();
+    List<String> pointers = new ArrayList<>();
 
-    addPointer( pointers, root, false );
+    forEachPointer( false, pointers::add );
 
     return pointers;
     }
 
-  private void addPointer( List<String> pointers, Element element, boolean leavesOnly )
+  /**
+   * Method depthFirstPointers passes the pointer of every element to the given consumer, children before their
+   * parent, ending with the root pointer.
+   *
+   * @param consumer of Consumer<String>
+   */
+  public void depthFirstPointers( Consumer<String> consumer )
     {
-    element.children.values().forEach( e -> addPointer( pointers, e, leavesOnly ) );
+    forEachPointer( false, consumer );
+    }
 
-    if( !leavesOnly || element.children.isEmpty() )
-      pointers.add( element.pointer() );
+  private void forEachPointer( boolean leavesOnly, Consumer<String> consumer )
+    {
+    StringBuilder path = new StringBuilder();
+    int[] lengths = new int[ 16 ]; // path length before each element on the current branch
+    int depth = 0;
+    int current = ROOT;
+
+    while( true )
+      {
+      while( firstChild[ current ] != NONE )
+        {
+        if( depth == lengths.length )
+          lengths = Arrays.copyOf( lengths, depth * 2 );
+
+        lengths[ depth++ ] = path.length();
+        current = firstChild[ current ];
+        path.append( '/' ).append( keys[ keyOf[ current ] ] );
+        }
+
+      while( true )
+        {
+        if( !leavesOnly || firstChild[ current ] == NONE )
+          consumer.accept( path.toString() );
+
+        if( current == ROOT )
+          return;
+
+        path.setLength( lengths[ --depth ] );
+
+        if( nextSibling[ current ] != NONE )
+          {
+          lengths[ depth++ ] = path.length();
+          current = nextSibling[ current ];
+          path.append( '/' ).append( keys[ keyOf[ current ] ] );
+          break;
+          }
+
+        current = parentOf[ current ];
+        }
+      }
     }
 
   @Override
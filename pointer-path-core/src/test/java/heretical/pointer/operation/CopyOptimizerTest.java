@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class CopyOptimizerTest
+  {
+  @Test
+  public void mergeIncludes()
+    {
+    Map<String, Predicate<?>> includes = new LinkedHashMap<>();
+
+    includes.put( "/a/b", null );
+    includes.put( "/a", null );
+    includes.put( "/a/b/c", null );
+    includes.put( "/d", value -> true );
+    includes.put( "/d/e", null );
+    includes.put( "/f/*", null );
+    includes.put( "/f/*/g", null );
+    includes.put( "/h", null );
+    includes.put( "/h/0", null );
+    includes.put( "/ab", null );
+
+    Assert.assertEquals( Arrays.asList( "/a/b", "/a", "/d", "/d/e", "/f/*", "/f/*/g", "/h", "/h/0", "/ab" ), Arrays.asList( CopyOptimizer.mergeIncludes( includes ).keySet().toArray() ) );
+
+    includes = new LinkedHashMap<>();
+
+    includes.put( "/a/b", null );
+    includes.put( "/x", null );
+    includes.put( "/a", null );
+
+    Assert.assertEquals( includes.keySet(), CopyOptimizer.mergeIncludes( includes ).keySet() );
+
+    includes = new LinkedHashMap<>();
+
+    includes.put( "/a", null );
+    includes.put( "/a/c", null );
+    includes.put( "/x", null );
+    includes.put( "/a/*/0", null );
+    includes.put( "/a/b", null );
+    includes.put( "/y", null );
+
+    Assert.assertEquals( Arrays.asList( "/a", "/x", "/a/*/0", "/a/b", "/y" ), Arrays.asList( CopyOptimizer.mergeIncludes( includes ).keySet().toArray() ) );
+
+    includes = new LinkedHashMap<>();
+
+    includes.put( "", null );
+    includes.put( "/a", null );
+
+    Assert.assertEquals( Collections.singleton( "" ), CopyOptimizer.mergeIncludes( includes ).keySet() );
+    }
+
+  @Test
+  public void excludesBelow()
+    {
+    Assert.assertArrayEquals( new String[]{"/payload/raw", "/a/0/b", "/e/*/f"}, CopyOptimizer.excludesBelow( "", Arrays.asList( "/payload/raw", "/a/0/b", "/**/c", "/d/*", "/e/*/f" ) ) );
+    Assert.assertArrayEquals( new String[]{"/raw", "/*/raw"}, CopyOptimizer.excludesBelow( "/records/*", Arrays.asList( "/records/*/raw", "/records/0/raw", "/records/*", "/records/*/*/raw" ) ) );
+    Assert.assertArrayEquals( new String[]{"/b"}, CopyOptimizer.excludesBelow( "/a", Arrays.asList( "/a/b", "/ab/c", "/a" ) ) );
+    Assert.assertArrayEquals( new String[ 0 ], CopyOptimizer.excludesBelow( "/**/a", Collections.singletonList( "/**/a/b" ) ) );
+    }
+
+  @Test
+  public void isOverlapping()
+    {
+    Assert.assertFalse( CopyOptimizer.isOverlapping( new CopySpec().include( "/a", "/b/*", "/c/0" ) ) );
+    Assert.assertFalse( CopyOptimizer.isOverlapping( new CopySpec().include( "/a", "/a/b" ) ) );
+    Assert.assertFalse( CopyOptimizer.isOverlapping( new CopySpec().fromInclude( "/x", "/a" ), new CopySpec( "/b" ).fromInclude( "/y", "/c" ) ) );
+    Assert.assertFalse( CopyOptimizer.isOverlapping( new CopySpec().fromExclude( "/x", "/a/b" ) ) );
+
+    Assert.assertTrue( CopyOptimizer.isOverlapping( new CopySpec().fromInclude( "/x", "/a" ).fromInclude( "/y", "/a/b" ) ) );
+    Assert.assertTrue( CopyOptimizer.isOverlapping( new CopySpec().fromInclude( "/x", "/a" ).fromInclude( "/y", "/*/b" ) ) );
+    Assert.assertTrue( CopyOptimizer.isOverlapping( new CopySpec().from( "/x" ).fromInclude( "/y", "/a/b" ) ) );
+    Assert.assertTrue( CopyOptimizer.isOverlapping( new CopySpec().include( "/a" ), new CopySpec( "/a/b" ).include( "/c" ) ) );
+    Assert.assertTrue( CopyOptimizer.isOverlapping( new CopySpec().include( "/a" ), new CopySpec().fromExclude( "/x", "/a" ) ) );
+    Assert.assertTrue( CopyOptimizer.isOverlapping( new CopySpec().include( "/**/a" ) ) );
+    }
+  }
@@ -8,6 +8,8 @@
 
 package heretical.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import heretical.pointer.util.PathTree;
@@ -57,4 +59,87 @@ public class PathTreeTest
 
     Assert.assertEquals( 4, pointers.size() );
     }
+
+  @Test
+  public void pathTreeOrder()
+    {
+    PathTree pathTree = new PathTree();
+
+    pathTree.child( "b" ).child( 1 );
+    pathTree.child( "a" ).child( "1" );
+    pathTree.child( "b" ).child( 0 );
+    pathTree.child( "a" ).child( 1 );
+
+    Assert.assertEquals( 7, pathTree.size() ); // the ordinal 1 and the name "1" are distinct
+    Assert.assertEquals( "[/b/1, /b/0, /b, /a/1, /a/1, /a, ]", pathTree.depthFirstPointers().toString() );
+    Assert.assertEquals( "[/b/1, /b/0, /a/1, /a/1]", pathTree.leafPointers().toString() );
+    }
+
+  @Test
+  public void pathTreeLarge()
+    {
+    PathTree pathTree = new PathTree();
+    PathTree.Element element = pathTree.root();
+
+    for( int i = 0; i < 1_000; i++ )
+      element = element.child( "n" );
+
+    for( int i = 0; i < 10_000; i++ )
+      pathTree.child( "wide" ).child( i );
+
+    Assert.assertEquals( 11_002, pathTree.size() );
+    Assert.assertEquals( 2_000, element.pointer().length() );
+    Assert.assertSame( pathTree, pathTree.child( "wide" ).child( 9_999 ).tree() );
+    Assert.assertEquals( "/wide/9999", pathTree.child( "wide" ).child( 9_999 ).pointer() );
+
+    List<String> leaves = pathTree.leafPointers();
+
+    Assert.assertEquals( 10_001, leaves.size() );
+    Assert.assertEquals( element.pointer(), leaves.get( 0 ) );
+    Assert.assertEquals( "/wide/0", leaves.get( 1 ) );
+    Assert.assertEquals( 11_002, pathTree.depthFirstPointers().size() );
+    }
+
+  @Test
+  public void pathTreeRoot()
+    {
+    PathTree pathTree = new PathTree();
+
+    Assert.assertEquals( 1, pathTree.size() );
+    Assert.assertEquals( "", pathTree.root().pointer() );
+    Assert.assertEquals( Collections.singletonList( "" ), pathTree.depthFirstPointers() );
+    Assert.assertEquals( Collections.singletonList( "" ), pathTree.leafPointers() );
+    }
+
+  @Test
+  public void pathTreeLookup()
+    {
+    PathTree pathTree = new PathTree();
+
+    // many parents sharing the same keys, so the child table is rehashed several times
+    for( int i = 0; i < 100; i++ )
+      {
+      for( int j = 0; j < 10; j++ )
+        pathTree.child( "p" + i ).child( j ).child( "leaf" );
+      }
+
+    Assert.assertEquals( 1 + 100 * 21, pathTree.size() );
+
+    for( int i = 0; i < 100; i++ )
+      {
+      for( int j = 0; j < 10; j++ )
+        Assert.assertEquals( "/p" + i + "/" + j + "/leaf", pathTree.child( "p" + i ).child( j ).child( "leaf" ).pointer() );
+      }
+
+    Assert.assertEquals( 1 + 100 * 21, pathTree.size() ); // existing elements are found, not added
+
+    List<String> pointers = new ArrayList<>();
+
+    pathTree.depthFirstPointers( pointers::add );
+
+    Assert.assertEquals( pathTree.depthFirstPointers(), pointers );
+    Assert.assertEquals( "/p0/0/leaf", pointers.get( 0 ) );
+    Assert.assertEquals( "/p0/0", pointers.get( 1 ) );
+    Assert.assertEquals( "/p99", pointers.get( pointers.size() - 2 ) );
+    }
   }
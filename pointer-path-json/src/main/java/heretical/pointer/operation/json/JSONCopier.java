@@ -8,10 +8,16 @@
 
 package heretical.pointer.operation.json;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import heretical.pointer.operation.Copier;
+import heretical.pointer.operation.CopyPlan;
 import heretical.pointer.operation.CopySpec;
+import heretical.pointer.path.CopyMode;
 import heretical.pointer.path.json.JSONNestedPointerCompiler;
 
 /**
@@ -31,4 +37,51 @@ public class JSONCopier extends Copier<JsonNode, ArrayNode>
     {
     super( JSONNestedPointerCompiler.COMPILER, copySpecs );
     }
+
+  /**
+   * Creates a new JSONCopier instance.
+   *
+   * @param copyMode  how copied values are placed into the result
+   * @param copySpecs the copy declaration
+   */
+  public JSONCopier( CopyMode copyMode, CopySpec... copySpecs )
+    {
+    super( JSONNestedPointerCompiler.COMPILER, copyMode, copySpecs );
+    }
+
+  /**
+   * Creates a new JSONCopier instance from a compiled {@link CopyPlan}, which may be shared with other copiers.
+   *
+   * @param copyMode how copied values are placed into the result
+   * @param plan     the compiled copy declaration
+   */
+  public JSONCopier( CopyMode copyMode, CopyPlan<JsonNode> plan )
+    {
+    super( JSONNestedPointerCompiler.COMPILER, copyMode, plan );
+    }
+
+  /**
+   * Method copyAll copies each of the given {@code fromNodes} into a new JSON object, in parallel on the
+   * common {@link ForkJoinPool}.
+   *
+   * @param fromNodes the objects to copy and possibly transform values from
+   * @return List<JsonNode> of the new objects, in {@code fromNodes} order
+   */
+  public List<JsonNode> copyAll( List<JsonNode> fromNodes )
+    {
+    return copyAll( ForkJoinPool.commonPool(), fromNodes );
+    }
+
+  /**
+   * Method copyAll copies each of the given {@code fromNodes} into a new JSON object, in parallel on the
+   * given {@link ForkJoinPool}.
+   *
+   * @param pool      the pool to run the copies in
+   * @param fromNodes the objects to copy and possibly transform values from
+   * @return List<JsonNode> of the new objects, in {@code fromNodes} order
+   */
+  public List<JsonNode> copyAll( ForkJoinPool pool, List<JsonNode> fromNodes )
+    {
+    return copyAll( pool, fromNodes, JsonNodeFactory.instance::objectNode );
+    }
   }
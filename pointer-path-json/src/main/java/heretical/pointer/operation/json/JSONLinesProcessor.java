@@ -0,0 +1,469 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.operation.CopySpec;
+
+/**
+ * Class JSONLinesProcessor applies a {@link JSONCopier} to every record of a newline delimited JSON (NDJSON)
+ * stream, and writes one result object per line, in input order.
+ * <p>
+ * Records are read with a single {@link JsonParser}, and results are written with a single {@link JsonGenerator},
+ * so a record is the only tree held in memory. Every record produces a line, so a record the copier copies nothing
+ * from is written as {@code {}}, and output line {@code n} is always the result of input record {@code n}.
+ * <p>
+ * Given a {@link ForkJoinPool}, the input is read in chunks of whole lines, each chunk is copied by a pool worker
+ * into its own buffer, and the buffers are written in input order. At most two chunks per pool thread are held in
+ * memory at once. In this mode every record must be on a single line, the serial mode accepts any whitespace
+ * between records.
+ * <p>
+ * Every call returns the {@link Stats} of the run. A JSONLinesProcessor is immutable and may be shared between
+ * threads.
+ */
+public class JSONLinesProcessor
+  {
+  /** The default number of input bytes copied by a single task, lines are never split. */
+  public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+  private final ObjectMapper mapper;
+  private final JSONCopier copier;
+  private final int chunkSize;
+
+  /**
+   * Constructor JSONLinesProcessor creates a new JSONLinesProcessor instance.
+   *
+   * @param copySpecs the copy declarations applied to each record
+   */
+  public JSONLinesProcessor( CopySpec... copySpecs )
+    {
+    this( new JSONCopier( copySpecs ) );
+    }
+
+  /**
+   * Constructor JSONLinesProcessor creates a new JSONLinesProcessor instance.
+   *
+   * @param copier the copier applied to each record
+   */
+  public JSONLinesProcessor( JSONCopier copier )
+    {
+    this( new ObjectMapper(), copier, DEFAULT_CHUNK_SIZE );
+    }
+
+  /**
+   * Constructor JSONLinesProcessor creates a new JSONLinesProcessor instance.
+   *
+   * @param mapper    the mapper used to create parsers and generators, and to read records
+   * @param copier    the copier applied to each record
+   * @param chunkSize the number of input bytes copied by a single task when processing in parallel
+   */
+  public JSONLinesProcessor( ObjectMapper mapper, JSONCopier copier, int chunkSize )
+    {
+    if( chunkSize < 1 )
+      throw new IllegalArgumentException( "chunkSize must be greater than zero, got: " + chunkSize );
+
+    this.mapper = mapper;
+    this.copier = copier;
+    this.chunkSize = chunkSize;
+    }
+
+  /**
+   * Method getCopier returns the copier applied to each record.
+   *
+   * @return JSONCopier
+   */
+  public JSONCopier getCopier()
+    {
+    return copier;
+    }
+
+  /**
+   * Method process copies every record in the {@code input} file to the {@code output} file, on the calling
+   * thread. The output file is created or truncated.
+   *
+   * @param input  the file to read from
+   * @param output the file to write to
+   * @return Stats of the run
+   * @throws IOException when a file cannot be read or written, or a record cannot be parsed
+   */
+  public Stats process( Path input, Path output ) throws IOException
+    {
+    try( InputStream inputStream = Files.newInputStream( input );
+         OutputStream outputStream = Files.newOutputStream( output ) )
+      {
+      return process( inputStream, outputStream );
+      }
+    }
+
+  /**
+   * Method process copies every record in the {@code input} file to the {@code output} file, in parallel on
+   * the given pool. The output file is created or truncated.
+   *
+   * @param pool   the pool to run the copies in
+   * @param input  the file to read from
+   * @param output the file to write to
+   * @return Stats of the run
+   * @throws IOException when a file cannot be read or written, or a record cannot be parsed
+   */
+  public Stats process( ForkJoinPool pool, Path input, Path output ) throws IOException
+    {
+    try( InputStream inputStream = Files.newInputStream( input );
+         OutputStream outputStream = Files.newOutputStream( output ) )
+      {
+      return process( pool, inputStream, outputStream );
+      }
+    }
+
+  /**
+   * Method process copies every record in the given input to the given output, on the calling thread.
+   * <p>
+   * Neither stream is closed.
+   *
+   * @param input  the stream to read from
+   * @param output the stream to write to
+   * @return Stats of the run
+   * @throws IOException when a stream cannot be read or written, or a record cannot be parsed
+   */
+  public Stats process( InputStream input, OutputStream output ) throws IOException
+    {
+    long start = System.nanoTime();
+    JsonFactory factory = mapper.getFactory();
+    CountingInputStream counting = new CountingInputStream( input );
+    long records;
+
+    try( JsonParser parser = factory.createParser( counting ).disable( JsonParser.Feature.AUTO_CLOSE_SOURCE );
+         JsonGenerator generator = factory.createGenerator( output ).disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET ) )
+      {
+      records = copyRecords( parser, generator );
+      }
+
+    return new Stats( records, counting.count, System.nanoTime() - start );
+    }
+
+  /**
+   * Method process copies every record in the given input to the given output, in parallel on the given pool,
+   * see {@link JSONLinesProcessor} for the constraints on the input.
+   * <p>
+   * The calling thread reads the input and writes the output. Neither stream is closed.
+   *
+   * @param pool   the pool to run the copies in
+   * @param input  the stream to read from
+   * @param output the stream to write to
+   * @return Stats of the run
+   * @throws IOException when a stream cannot be read or written, or a record cannot be parsed
+   */
+  public Stats process( ForkJoinPool pool, InputStream input, OutputStream output ) throws IOException
+    {
+    long start = System.nanoTime();
+    int maxPending = pool.getParallelism() * 2;
+    Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>( maxPending );
+    long records = 0;
+    long bytes = 0;
+
+    try
+      {
+      byte[] buffer = new byte[ chunkSize ];
+      int length = 0;
+
+      while( true )
+        {
+        int read = input.read( buffer, length, buffer.length - length );
+
+        if( read == -1 )
+          break;
+
+        length += read;
+
+        if( length < buffer.length )
+          continue;
+
+        int end = lastNewLine( buffer, length );
+
+        // a single line is longer than the buffer
+        if( end == -1 )
+          {
+          buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+          continue;
+          }
+
+        if( pending.size() == maxPending )
+          records += write( pending.removeFirst(), output );
+
+        pending.addLast( pool.submit( copyTask( buffer, end ) ) );
+        bytes += end;
+
+        byte[] next = new byte[ Math.max( chunkSize, length - end ) ];
+
+        System.arraycopy( buffer, end, next, 0, length - end );
+
+        buffer = next;
+        length = length - end;
+        }
+
+      if( length != 0 )
+        {
+        pending.addLast( pool.submit( copyTask( buffer, length ) ) );
+        bytes += length;
+        }
+
+      while( !pending.isEmpty() )
+        records += write( pending.removeFirst(), output );
+      }
+    finally
+      {
+      for( ForkJoinTask<Chunk> task : pending )
+        task.cancel( false );
+      }
+
+    return new Stats( records, bytes, System.nanoTime() - start );
+    }
+
+  private ForkJoinTask<Chunk> copyTask( byte[] buffer, int length )
+    {
+    return ForkJoinTask.adapt( () ->
+    {
+    JsonFactory factory = mapper.getFactory();
+    ByteArrayOutputStream output = new ByteArrayOutputStream( length );
+    long records;
+
+    try( JsonParser parser = factory.createParser( buffer, 0, length );
+         JsonGenerator generator = factory.createGenerator( output ) )
+      {
+      records = copyRecords( parser, generator );
+      }
+
+    return new Chunk( output, records );
+    } );
+    }
+
+  private static long write( ForkJoinTask<Chunk> task, OutputStream output ) throws IOException
+    {
+    Chunk chunk;
+
+    try
+      {
+      chunk = task.get();
+      }
+    catch( InterruptedException exception )
+      {
+      Thread.currentThread().interrupt();
+      throw new IOException( "interrupted while waiting for records to be copied", exception );
+      }
+    catch( ExecutionException exception )
+      {
+      // the pool wraps checked exceptions, and may wrap again when rethrowing across threads
+      for( Throwable cause = exception.getCause(); cause != null; cause = cause.getCause() )
+        {
+        if( cause instanceof IOException )
+          throw (IOException) cause;
+        }
+
+      if( exception.getCause() instanceof RuntimeException )
+        throw (RuntimeException) exception.getCause();
+
+      throw new IOException( "unable to copy records", exception.getCause() );
+      }
+
+    chunk.output.writeTo( output );
+
+    return chunk.records;
+    }
+
+  /**
+   * Method copyRecords copies every record read from the parser, writing each result followed by a new line.
+   */
+  private long copyRecords( JsonParser parser, JsonGenerator generator ) throws IOException
+    {
+    // results are separated by the new lines written below
+    generator.setRootValueSeparator( null );
+
+    long records = 0;
+
+    while( parser.nextToken() != null )
+      {
+      JsonNode record = mapper.readTree( parser );
+      ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+      copier.copy( record, result );
+
+      generator.writeTree( result );
+      generator.writeRaw( '\n' );
+
+      records++;
+      }
+
+    return records;
+    }
+
+  private static int lastNewLine( byte[] buffer, int length )
+    {
+    for( int i = length - 1; i >= 0; i-- )
+      {
+      if( buffer[ i ] == '\n' )
+        return i + 1;
+      }
+
+    return -1;
+    }
+
+  private static class CountingInputStream extends FilterInputStream
+    {
+    long count;
+
+    CountingInputStream( InputStream input )
+      {
+      super( input );
+      }
+
+    @Override
+    public int read() throws IOException
+      {
+      int value = super.read();
+
+      if( value != -1 )
+        count++;
+
+      return value;
+      }
+
+    @Override
+    public int read( byte[] buffer, int offset, int length ) throws IOException
+      {
+      int read = super.read( buffer, offset, length );
+
+      if( read != -1 )
+        count += read;
+
+      return read;
+      }
+
+    @Override
+    public long skip( long length ) throws IOException
+      {
+      long skipped = super.skip( length );
+
+      count += skipped;
+
+      return skipped;
+      }
+    }
+
+  private static class Chunk
+    {
+    final ByteArrayOutputStream output;
+    final long records;
+
+    Chunk( ByteArrayOutputStream output, long records )
+      {
+      this.output = output;
+      this.records = records;
+      }
+    }
+
+  /**
+   * Class Stats holds the number of records and bytes read by a single run of a {@link JSONLinesProcessor}, and
+   * the elapsed wall clock time of the run.
+   */
+  public static class Stats
+    {
+    private final long records;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    Stats( long records, long bytes, long elapsedNanos )
+      {
+      this.records = records;
+      this.bytes = bytes;
+      this.elapsedNanos = elapsedNanos;
+      }
+
+    /**
+     * Method getRecords returns the number of records read, and so the number of lines written.
+     *
+     * @return long
+     */
+    public long getRecords()
+      {
+      return records;
+      }
+
+    /**
+     * Method getBytes returns the number of input bytes read.
+     *
+     * @return long
+     */
+    public long getBytes()
+      {
+      return bytes;
+      }
+
+    /**
+     * Method getElapsed returns the elapsed time of the run in the given unit.
+     *
+     * @param unit of TimeUnit
+     * @return long
+     */
+    public long getElapsed( TimeUnit unit )
+      {
+      return unit.convert( elapsedNanos, TimeUnit.NANOSECONDS );
+      }
+
+    /**
+     * Method getRecordsPerSecond returns the number of records read per second.
+     *
+     * @return double
+     */
+    public double getRecordsPerSecond()
+      {
+      return perSecond( records );
+      }
+
+    /**
+     * Method getBytesPerSecond returns the number of input bytes read per second.
+     *
+     * @return double
+     */
+    public double getBytesPerSecond()
+      {
+      return perSecond( bytes );
+      }
+
+    private double perSecond( long count )
+      {
+      return elapsedNanos == 0 ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+      }
+
+    @Override
+    public String toString()
+      {
+      return String.format( "records: %,d, bytes: %,d, elapsed: %,dms, records/sec: %,.0f, bytes/sec: %,.0f", records, bytes, getElapsed( TimeUnit.MILLISECONDS ), getRecordsPerSecond(), getBytesPerSecond() );
+      }
+    }
+  }
@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import heretical.pointer.operation.CopySpec;
+import heretical.pointer.path.NestedPointerSet;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.Segment;
+import heretical.pointer.path.json.JSONFormat;
+import heretical.pointer.path.json.JSONNestedPointerCompiler;
+
+/**
+ * JSONStreamCopier applies a {@link CopySpec} to a JSON token stream, writing the result directly to a
+ * {@link JsonGenerator}, without reading the source into, or building the result as, a {@link JsonNode} tree.
+ * <p>
+ * Included values are copied token by token, a value is only read into a tree if it must be tested by a filter,
+ * or changed by a transform. Subtrees that cannot be included are skipped.
+ * <p>
+ * The CopySpec must have a single from pointer, without a wildcard ({@code *}) or descent ({@code **}) element,
+ * so it references at most one value, and its into pointer may only reference objects.
+ * <p>
+ * The result is written as a projection of the source, and differs from {@link JSONCopier} in that:
+ * <ul>
+ * <li>containers keep the type and the element order of the source</li>
+ * <li>values of an array element matched by more than one include are written into the same element, not appended
+ * as separate elements</li>
+ * <li>excludes and transforms are matched against source array indices</li>
+ * <li>transforms and excludes referencing values that are not copied are ignored</li>
+ * </ul>
+ */
+public class JSONStreamCopier implements Serializable
+  {
+  private final ObjectMapper mapper;
+  private final String[] into;
+  private final NestedPointerSet<JsonNode, ArrayNode> from;
+  private final NestedPointerSet<JsonNode, ArrayNode> includes;
+  private final Predicate<JsonNode>[] includeFilters;
+  private final NestedPointerSet<JsonNode, ArrayNode> excludes;
+  private final NestedPointerSet<JsonNode, ArrayNode> transforms;
+  private final Function<JsonNode, JsonNode>[] transformFunctions;
+
+  /**
+   * Creates a new JSONStreamCopier instance.
+   *
+   * @param copySpec the copy declaration
+   */
+  public JSONStreamCopier( CopySpec copySpec )
+    {
+    this( new ObjectMapper(), copySpec );
+    }
+
+  /**
+   * Creates a new JSONStreamCopier instance that reads and writes streams of the given format.
+   *
+   * @param format   the format of the streams copied by {@link #copy(InputStream, OutputStream)}
+   * @param copySpec the copy declaration
+   */
+  public JSONStreamCopier( JSONFormat format, CopySpec copySpec )
+    {
+    this( format.getMapper(), copySpec );
+    }
+
+  /**
+   * Creates a new JSONStreamCopier instance.
+   *
+   * @param mapper   the mapper used to read values that must be filtered or transformed
+   * @param copySpec the copy declaration
+   */
+  @SuppressWarnings("unchecked")
+  public JSONStreamCopier( ObjectMapper mapper, CopySpec copySpec )
+    {
+    this.mapper = mapper;
+
+    Map<String, CopySpec.From> fromMap = copySpec.getFromMap();
+
+    if( fromMap.size() != 1 )
+      throw new IllegalArgumentException( "CopySpec must have a single from pointer, found: " + fromMap.keySet() );
+
+    CopySpec.From from = fromMap.values().iterator().next();
+    JSONNestedPointerCompiler compiler = JSONNestedPointerCompiler.COMPILER;
+
+    try
+      {
+      this.into = intoNames( copySpec.getInto() );
+      this.from = compiler.nestedSet( from.getFrom() );
+
+      // values of more than one from match would be written into the same object, and could not be merged
+      if( !compiler.nested( from.getFrom() ).isAbsolute() )
+        throw new IllegalArgumentException( "from pointer may not have a wildcard or descent element: " + from.getFrom() );
+
+      Map<String, Predicate<?>> includes = from.getIncludes();
+
+      this.includes = compiler.nestedSet( includes.keySet().toArray( new String[ 0 ] ) );
+      this.includeFilters = includes.values().toArray( new Predicate[ 0 ] );
+      this.excludes = compiler.nestedSet( from.getExcludes().toArray( new String[ 0 ] ) );
+
+      Map<String, Function<?, ?>> transforms = from.getTransforms();
+
+      this.transforms = compiler.nestedSet( transforms.keySet().toArray( new String[ 0 ] ) );
+      this.transformFunctions = transforms.values().toArray( new Function[ 0 ] );
+      }
+    catch( RuntimeException exception )
+      {
+      throw new IllegalArgumentException( "CopySpec has invalid pointer: " + copySpec, exception );
+      }
+    }
+
+  private static String[] intoNames( String into )
+    {
+    Segment[] segments = Segment.parse( into );
+    String[] names = new String[ segments.length ];
+
+    for( int i = 0; i < segments.length; i++ )
+      {
+      if( segments[ i ].isIndex() )
+        throw new IllegalArgumentException( "into pointer may only reference objects, got: " + into );
+
+      names[ i ] = segments[ i ].getName();
+      }
+
+    return names;
+    }
+
+  /**
+   * Method copy reads every value from the given input, and writes one object per value to the given output, both
+   * in the format of the mapper given to this copier.
+   * <p>
+   * To read one format and write another, for example Smile in and JSON out, use
+   * {@link #copy(JsonParser, JsonGenerator)} with a parser and generator from each {@link JSONFormat}.
+   * <p>
+   * Both streams are closed on return.
+   *
+   * @param input  the stream to read from
+   * @param output the stream to write to
+   * @throws IOException when the streams cannot be read, parsed, or written
+   */
+  public void copy( InputStream input, OutputStream output ) throws IOException
+    {
+    JsonFactory factory = mapper.getFactory();
+
+    try( JsonParser parser = factory.createParser( input );
+         JsonGenerator generator = factory.createGenerator( output ) )
+      {
+      while( parser.nextToken() != null )
+        copy( parser, generator );
+      }
+    }
+
+  /**
+   * Method copy reads the next value from the given parser, and writes the copied values as a single object to
+   * the given generator.
+   * <p>
+   * As with {@link ObjectMapper#readTree(JsonParser)}, if the given parser has a current token the value starting
+   * at that token is copied, otherwise the next token is read first.
+   *
+   * @param parser    the parser to read from
+   * @param generator the generator to write to
+   * @throws IOException when the parser or generator fail
+   */
+  public void copy( JsonParser parser, JsonGenerator generator ) throws IOException
+    {
+    generator.writeStartObject();
+
+    for( String name : into )
+      {
+      generator.writeFieldName( name );
+      generator.writeStartObject();
+      }
+
+    if( parser.hasCurrentToken() || parser.nextToken() != null )
+      findFrom( from.start(), parser, generator );
+
+    for( int i = 0; i <= into.length; i++ )
+      generator.writeEndObject();
+    }
+
+  private void findFrom( NestedPointerSet<JsonNode, ArrayNode>.State state, JsonParser parser, JsonGenerator generator ) throws IOException
+    {
+    if( state.isDead() )
+      {
+      parser.skipChildren();
+      return;
+      }
+
+    if( state.isMatch() )
+      {
+      copyFrom( parser, generator );
+      return;
+      }
+
+    JsonToken token = parser.currentToken();
+
+    if( token == JsonToken.START_OBJECT )
+      {
+      while( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+        String name = parser.getCurrentName();
+
+        parser.nextToken();
+
+        findFrom( state.name( name ), parser, generator );
+        }
+      }
+    else if( token == JsonToken.START_ARRAY )
+      {
+      int index = 0;
+
+      while( parser.nextToken() != JsonToken.END_ARRAY )
+        findFrom( state.index( index++ ), parser, generator );
+      }
+    }
+
+  private void copyFrom( JsonParser parser, JsonGenerator generator ) throws IOException
+    {
+    Frame root = new Frame( generator );
+    NestedPointerSet<JsonNode, ArrayNode>.State include = includes.start();
+
+    if( include.isMatch() && !isIncluded( include, null ) )
+      {
+      JsonNode value = readTree( parser );
+
+      if( isIncluded( include, value ) )
+        include = null;
+
+      parser = treeParser( value );
+      }
+    else if( include.isMatch() )
+      {
+      include = null;
+      }
+
+    // the from value is copied into the into object, as with JSONCopier
+    JsonToken token = parser.currentToken();
+
+    if( include == null && token != JsonToken.START_OBJECT )
+      throw new IllegalStateException( "from value must be an object, got: " + token );
+
+    copyChildren( root, include, live( excludes.start() ), live( transforms.start() ), parser, true );
+    }
+
+  /**
+   * Method copyValue copies the value at the current token into the parent frame, {@code include} is null if
+   * the value is already included.
+   */
+  private void copyValue( Frame parent, String name, NestedPointerSet<JsonNode, ArrayNode>.State include, NestedPointerSet<JsonNode, ArrayNode>.State exclude, NestedPointerSet<JsonNode, ArrayNode>.State transform, JsonParser parser ) throws IOException
+    {
+    if( exclude != null && exclude.isMatch() )
+      {
+      parser.skipChildren();
+      return;
+      }
+
+    if( include != null && include.isDead() )
+      {
+      parser.skipChildren();
+      return;
+      }
+
+    if( include != null && include.isMatch() )
+      {
+      if( isIncluded( include, null ) )
+        {
+        include = null;
+        }
+      else
+        {
+        JsonNode value = readTree( parser );
+
+        if( isIncluded( include, value ) )
+          include = null;
+        else if( include.isFinal() )
+          return;
+
+        parser = treeParser( value );
+        }
+      }
+
+    boolean isIncluded = include == null;
+
+    if( isIncluded && exclude == null && transform == null )
+      {
+      parent.writeName( name );
+      parent.generator.copyCurrentStructure( parser );
+      return;
+      }
+
+    if( isIncluded && transform != null && transform.isMatch() )
+      {
+      parent.writeName( name );
+      parent.generator.writeTree( transform( readTree( parser ), exclude, transform ) );
+      return;
+      }
+
+    JsonToken token = parser.currentToken();
+
+    if( token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY )
+      {
+      Frame frame = new Frame( parent, name, token == JsonToken.START_OBJECT );
+
+      // an included container is copied even if all its children are excluded
+      if( isIncluded )
+        frame.open();
+
+      copyChildren( frame, include, exclude, transform, parser, false );
+
+      frame.close();
+      }
+    else if( isIncluded )
+      {
+      parent.writeName( name );
+      parent.generator.copyCurrentEvent( parser );
+      }
+    }
+
+  private void copyChildren( Frame frame, NestedPointerSet<JsonNode, ArrayNode>.State include, NestedPointerSet<JsonNode, ArrayNode>.State exclude, NestedPointerSet<JsonNode, ArrayNode>.State transform, JsonParser parser, boolean isRoot ) throws IOException
+    {
+    JsonToken token = parser.currentToken();
+
+    if( token == JsonToken.START_OBJECT )
+      {
+      while( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+        String name = parser.getCurrentName();
+
+        parser.nextToken();
+
+        copyValue( frame, name, include == null ? null : include.name( name ), exclude == null ? null : live( exclude.name( name ) ), transform == null ? null : live( transform.name( name ) ), parser );
+        }
+      }
+    else if( token == JsonToken.START_ARRAY )
+      {
+      int index = 0;
+
+      while( parser.nextToken() != JsonToken.END_ARRAY )
+        {
+        // elements of a from array are written as fields of the into object
+        String name = isRoot ? Integer.toString( index ) : null;
+
+        copyValue( frame, name, include == null ? null : include.index( index ), exclude == null ? null : live( exclude.index( index ) ), transform == null ? null : live( transform.index( index ) ), parser );
+
+        index++;
+        }
+      }
+    }
+
+  private boolean isIncluded( NestedPointerSet<JsonNode, ArrayNode>.State include, JsonNode value )
+    {
+    for( int i = 0; i < include.getMatchCount(); i++ )
+      {
+      Predicate<JsonNode> filter = includeFilters[ include.getMatch( i ) ];
+
+      if( filter == null || value != null && filter.test( value ) )
+        return true;
+      }
+
+    return false;
+    }
+
+  private JsonNode transform( JsonNode value, NestedPointerSet<JsonNode, ArrayNode>.State exclude, NestedPointerSet<JsonNode, ArrayNode>.State transform )
+    {
+    if( exclude != null )
+      {
+      List<Pointer<JsonNode>> paths = new ArrayList<>();
+
+      excludes.visitAt( exclude, value, ( index, path, child ) -> paths.add( path ) );
+
+      // children before parents, and later array elements first
+      for( int i = paths.size() - 1; i >= 0; i-- )
+        paths.get( i ).remove( value );
+      }
+
+    List<List<Pointer<JsonNode>>> paths = new ArrayList<>();
+
+    for( int i = 0; i < transformFunctions.length; i++ )
+      paths.add( new ArrayList<>() );
+
+    transforms.visitAt( transform, value, ( index, path, child ) -> paths.get( index ).add( path ) );
+
+    for( int i = 0; i < transformFunctions.length; i++ )
+      {
+      for( Pointer<JsonNode> path : paths.get( i ) )
+        {
+        if( path.segments().length == 0 )
+          value = transformFunctions[ i ].apply( value );
+        else
+          path.apply( value, transformFunctions[ i ] );
+        }
+      }
+
+    return value;
+    }
+
+  private static NestedPointerSet<JsonNode, ArrayNode>.State live( NestedPointerSet<JsonNode, ArrayNode>.State state )
+    {
+    return state.isDead() ? null : state;
+    }
+
+  private JsonNode readTree( JsonParser parser ) throws IOException
+    {
+    JsonNode value = mapper.readTree( parser );
+
+    return value == null ? NullNode.getInstance() : value;
+    }
+
+  private JsonParser treeParser( JsonNode value ) throws IOException
+    {
+    JsonParser parser = mapper.treeAsTokens( value );
+
+    parser.nextToken();
+
+    return parser;
+    }
+
+  /**
+   * A Frame is an object or array in the result that is only written once a value is written into it.
+   */
+  private static class Frame
+    {
+    final JsonGenerator generator;
+    final Frame parent;
+    final String name;
+    final boolean isObject;
+    boolean isOpen;
+
+    Frame( JsonGenerator generator )
+      {
+      this.generator = generator;
+      this.parent = null;
+      this.name = null;
+      this.isObject = true;
+      this.isOpen = true;
+      }
+
+    Frame( Frame parent, String name, boolean isObject )
+      {
+      this.generator = parent.generator;
+      this.parent = parent;
+      this.name = name;
+      this.isObject = isObject;
+      }
+
+    void open() throws IOException
+      {
+      if( isOpen )
+        return;
+
+      parent.writeName( name );
+
+      if( isObject )
+        generator.writeStartObject();
+      else
+        generator.writeStartArray();
+
+      isOpen = true;
+      }
+
+    void writeName( String name ) throws IOException
+      {
+      open();
+
+      if( isObject )
+        generator.writeFieldName( name );
+      }
+
+    void close() throws IOException
+      {
+      if( !isOpen )
+        return;
+
+      if( isObject )
+        generator.writeEndObject();
+      else
+        generator.writeEndArray();
+      }
+    }
+  }
@@ -66,6 +66,18 @@ public class JSONSetTextTransform implements Transform<JsonNode>
     return JsonNodeFactory.instance.textNode( replace );
     }
 
+  @Override
+  public JsonNode apply( Map<Comparable, Object> arguments, JsonNode node )
+    {
+    if( !isResettable() )
+      return apply( node );
+
+    if( node.getNodeType() != JsonNodeType.STRING )
+      throw new IllegalStateException( "can only be applied to a TextNode" );
+
+    return JsonNodeFactory.instance.textNode( asString( arguments.getOrDefault( name, defaultReplace ) ) );
+    }
+
   /**
    * Method isResettable returns the resettable of this JSONSetTextTransform object.
    *
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Enum JSONFormat declares the encodings a {@link JsonNode} tree or token stream may be read from and written to.
+ * <p>
+ * Every format is parsed into the same tokens, so the streaming evaluator and copier, and any pointer, work
+ * unchanged on binary input, and a binary document is never converted to text first.
+ * <p>
+ * Each format holds a single {@link ObjectMapper}, mappers are thread safe once configured, so the returned
+ * mapper must not be reconfigured.
+ */
+public enum JSONFormat
+  {
+    /**
+     * Text JSON.
+     */
+    JSON( JsonFactory::new ),
+    /**
+     * Binary <a href="https://github.com/FasterXML/smile-format-specification">Smile</a>, written with
+     * shared property names, so repeated keys are written once per document.
+     */
+    SMILE( SmileFactory::new ),
+    /**
+     * Binary <a href="https://tools.ietf.org/html/rfc7049">CBOR</a>.
+     */
+    CBOR( CBORFactory::new );
+
+  private final ObjectMapper mapper;
+
+  JSONFormat( Supplier<JsonFactory> factory )
+    {
+    this.mapper = new ObjectMapper( factory.get() );
+    }
+
+  /**
+   * Method getMapper returns the shared mapper for this format.
+   *
+   * @return ObjectMapper
+   */
+  public ObjectMapper getMapper()
+    {
+    return mapper;
+    }
+
+  /**
+   * Method getFactory returns the factory of parsers and generators for this format.
+   *
+   * @return JsonFactory
+   */
+  public JsonFactory getFactory()
+    {
+    return mapper.getFactory();
+    }
+  }
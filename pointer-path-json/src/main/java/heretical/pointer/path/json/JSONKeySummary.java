@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import heretical.pointer.path.KeySummary;
+
+/**
+ * Class JSONKeySummary is an implementation of {@link KeySummary} for use with JSON documents.
+ * <p>
+ * Every object and array in the document is mapped, by identity, to a 64 bit bloom filter of the field names
+ * found in it and below it. The summary is built once, walking the document without recursion, and is
+ * typically reused for many descent queries against the same document:
+ * <pre>
+ * JSONKeySummary summary = new JSONKeySummary( document );
+ *
+ * ArrayNode names = COMPILER.nested( "/**}{@code /name" ).allAt( document, summary );
+ * </pre>
+ * Containers holding many distinct field names set most bits, so the filter only prunes branches that hold
+ * few names, which is where descent queries spend most of their time.
+ * <p>
+ * This class is safe to share between threads once created, if the document is not modified.
+ */
+public class JSONKeySummary implements KeySummary<JsonNode>
+  {
+  private final Map<JsonNode, Long> filters = new IdentityHashMap<>();
+
+  /**
+   * Constructor JSONKeySummary creates a new JSONKeySummary instance for the given document.
+   *
+   * @param root of JsonNode
+   */
+  public JSONKeySummary( JsonNode root )
+    {
+    List<JsonNode> containers = new ArrayList<>();
+
+    if( root.isContainerNode() )
+      containers.add( root );
+
+    // breadth first, so every container is listed before its descendants
+    for( int i = 0; i < containers.size(); i++ )
+      {
+      for( JsonNode child : containers.get( i ) )
+        {
+        if( child.isContainerNode() )
+          containers.add( child );
+        }
+      }
+
+    // in reverse, so every descendant is summarized before its container
+    for( int i = containers.size() - 1; i >= 0; i-- )
+      {
+      JsonNode node = containers.get( i );
+      long filter = 0;
+
+      if( node.isObject() )
+        {
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+        while( fields.hasNext() )
+          {
+          Map.Entry<String, JsonNode> field = fields.next();
+
+          filter |= bits( field.getKey() );
+
+          if( field.getValue().isContainerNode() )
+            filter |= filters.get( field.getValue() );
+          }
+        }
+      else
+        {
+        for( JsonNode child : node )
+          {
+          if( child.isContainerNode() )
+            filter |= filters.get( child );
+          }
+        }
+
+      filters.put( node, filter );
+      }
+    }
+
+  private static long bits( String name )
+    {
+    int hash = name.hashCode() * 0x9E3779B9;
+
+    return ( 1L << ( hash & 63 ) ) | ( 1L << ( ( hash >>> 6 ) & 63 ) );
+    }
+
+  /**
+   * Method size returns the number of containers in this summary.
+   *
+   * @return int
+   */
+  public int size()
+    {
+    return filters.size();
+    }
+
+  @Override
+  public boolean mayContain( JsonNode node, String name )
+    {
+    Long filter = filters.get( node );
+
+    if( filter == null )
+      return node.isContainerNode();
+
+    long bits = bits( name );
+
+    return ( filter & bits ) == bits;
+    }
+  }
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import heretical.pointer.path.NestedPointer;
+
+/**
+ * Class JSONMappedArray evaluates a function against every element of a JSON file holding a single top level array,
+ * in parallel, without reading the file into the Java heap.
+ * <p>
+ * The file is memory mapped, so its bytes are read through the OS page cache. The calling thread scans the mapped
+ * bytes for the commas between array elements, tracking strings and nesting but not parsing values, and splits the
+ * array into chunks of whole elements of about {@code chunkSize} bytes. Each chunk is parsed by a pool worker, one
+ * element {@link JsonNode} at a time, so only the elements being evaluated are held as trees.
+ * <p>
+ * Results are passed to the consumer on the calling thread in element order. At most two chunks per pool thread are
+ * in flight at once.
+ * <p>
+ * The file must not be modified while mapped. A JSONMappedArray is immutable and may be shared between threads.
+ */
+public class JSONMappedArray
+  {
+  /** The default number of bytes of elements parsed by a single task, elements are never split. */
+  public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+  /** The size of each mapped region, a single region may not exceed {@link Integer#MAX_VALUE} bytes. */
+  static final int REGION_SIZE = 1 << 30;
+
+  private static final byte[] START = {'['};
+  private static final byte[] END = {']'};
+
+  private final ObjectMapper mapper;
+  private final long regionSize;
+  private final MappedByteBuffer[] regions;
+  private final long size;
+  private final int chunkSize;
+
+  /**
+   * Constructor JSONMappedArray creates a new JSONMappedArray instance mapping the given file.
+   *
+   * @param path the file to map
+   * @throws IOException when the file cannot be mapped
+   */
+  public JSONMappedArray( Path path ) throws IOException
+    {
+    this( new ObjectMapper(), path, DEFAULT_CHUNK_SIZE );
+    }
+
+  /**
+   * Constructor JSONMappedArray creates a new JSONMappedArray instance mapping the given file.
+   *
+   * @param mapper    the mapper used to create parsers and to read elements
+   * @param path      the file to map
+   * @param chunkSize the number of bytes of elements parsed by a single task
+   * @throws IOException when the file cannot be mapped
+   */
+  public JSONMappedArray( ObjectMapper mapper, Path path, int chunkSize ) throws IOException
+    {
+    this( mapper, path, chunkSize, REGION_SIZE );
+    }
+
+  JSONMappedArray( ObjectMapper mapper, Path path, int chunkSize, int regionSize ) throws IOException
+    {
+    if( chunkSize < 1 )
+      throw new IllegalArgumentException( "chunkSize must be greater than zero, got: " + chunkSize );
+
+    this.mapper = mapper;
+    this.chunkSize = chunkSize;
+    this.regionSize = regionSize;
+
+    // a mapping remains valid after its channel is closed
+    try( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) )
+      {
+      this.size = channel.size();
+      this.regions = new MappedByteBuffer[ (int) ( ( size + regionSize - 1 ) / regionSize ) ];
+
+      for( int i = 0; i < regions.length; i++ )
+        {
+        long position = i * regionSize;
+
+        regions[ i ] = channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( regionSize, size - position ) );
+        }
+      }
+    }
+
+  /**
+   * Method size returns the size of the mapped file in bytes.
+   *
+   * @return long
+   */
+  public long size()
+    {
+    return size;
+    }
+
+  /**
+   * Method allAt returns all the values referenced by the given pointer in every element of the array, in element
+   * order, evaluated in parallel on the given pool.
+   *
+   * @param pool    the pool to evaluate the elements in
+   * @param pointer the pointer to evaluate against each element
+   * @return ArrayNode
+   * @throws IOException when the file is not a JSON array, or cannot be parsed
+   */
+  public ArrayNode allAt( ForkJoinPool pool, NestedPointer<JsonNode, ArrayNode> pointer ) throws IOException
+    {
+    ArrayNode result = mapper.getNodeFactory().arrayNode();
+
+    process( pool, pointer::allAt, result::addAll );
+
+    return result;
+    }
+
+  /**
+   * Method process applies the {@code function} to every element of the array, in parallel on the given pool, and
+   * passes each result to the {@code consumer}, in element order, on the calling thread.
+   * <p>
+   * The function must be thread safe. To copy each element with a {@code JSONCopier}, the function creates the
+   * result object and copies into it.
+   *
+   * @param pool     the pool to evaluate the elements in
+   * @param function the function to apply to each element
+   * @param consumer the consumer of each result
+   * @return the number of elements in the array
+   * @throws IOException when the file is not a JSON array, or cannot be parsed
+   */
+  public <R> long process( ForkJoinPool pool, Function<JsonNode, R> function, Consumer<? super R> consumer ) throws IOException
+    {
+    int maxPending = pool.getParallelism() * 2;
+    Deque<ForkJoinTask<List<R>>> pending = new ArrayDeque<>( maxPending );
+    long elements = 0;
+
+    try
+      {
+      long offset = 0;
+      long chunkStart = -1;
+      int depth = 0;
+      boolean inString = false;
+      boolean isEscaped = false;
+
+      scan:
+      for( MappedByteBuffer region : regions )
+        {
+        ByteBuffer buffer = region.duplicate();
+        int limit = buffer.limit();
+
+        for( int i = 0; i < limit; i++, offset++ )
+          {
+          byte current = buffer.get( i );
+
+          if( inString )
+            {
+            if( isEscaped )
+              isEscaped = false;
+            else if( current == '\\' )
+              isEscaped = true;
+            else if( current == '"' )
+              inString = false;
+
+            continue;
+            }
+
+          switch( current )
+            {
+            case '"':
+              inString = true;
+              break;
+
+            case '[':
+            case '{':
+              if( depth++ == 0 )
+                {
+                if( current != '[' )
+                  throw new IOException( "file does not hold a JSON array, found an object at: " + offset );
+
+                chunkStart = offset + 1;
+                }
+
+              break;
+
+            case ']':
+            case '}':
+              if( --depth == 0 )
+                {
+                elements += submit( pool, pending, maxPending, chunkStart, offset, function, consumer );
+                break scan;
+                }
+
+              break;
+
+            case ',':
+              if( depth == 1 && offset - chunkStart >= chunkSize )
+                {
+                elements += submit( pool, pending, maxPending, chunkStart, offset, function, consumer );
+                chunkStart = offset + 1;
+                }
+
+              break;
+
+            default:
+              if( depth == 0 && !isWhitespace( current ) && !( offset < 3 && isByteOrderMark( current ) ) )
+                throw new IOException( "file does not hold a JSON array, found: '" + (char) current + "', at: " + offset );
+            }
+          }
+        }
+
+      if( depth != 0 || chunkStart == -1 )
+        throw new IOException( "file does not hold a complete JSON array" );
+
+      while( !pending.isEmpty() )
+        elements += accept( pending.removeFirst(), consumer );
+      }
+    finally
+      {
+      for( ForkJoinTask<List<R>> task : pending )
+        task.cancel( false );
+      }
+
+    return elements;
+    }
+
+  private <R> long submit( ForkJoinPool pool, Deque<ForkJoinTask<List<R>>> pending, int maxPending, long start, long end, Function<JsonNode, R> function, Consumer<? super R> consumer ) throws IOException
+    {
+    long elements = 0;
+
+    if( pending.size() == maxPending )
+      elements = accept( pending.removeFirst(), consumer );
+
+    pending.addLast( pool.submit( ForkJoinTask.adapt( () -> evaluate( start, end, function ) ) ) );
+
+    return elements;
+    }
+
+  /**
+   * Method evaluate parses the elements between {@code start} and {@code end}, as the array {@code [...]}, and
+   * applies the function to each.
+   */
+  private <R> List<R> evaluate( long start, long end, Function<JsonNode, R> function ) throws IOException
+    {
+    List<R> results = new ArrayList<>();
+
+    try( JsonParser parser = mapper.getFactory().createParser( stream( start, end ) ) )
+      {
+      if( parser.nextToken() != JsonToken.START_ARRAY )
+        throw new IOException( "expected the start of an array, got: " + parser.currentToken() );
+
+      while( parser.nextToken() != JsonToken.END_ARRAY )
+        results.add( function.apply( mapper.readTree( parser ) ) );
+      }
+
+    return results;
+    }
+
+  private InputStream stream( long start, long end )
+    {
+    List<InputStream> streams = new ArrayList<>();
+
+    streams.add( new ByteArrayInputStream( START ) );
+
+    // a chunk may span two regions
+    for( long position = start; position < end; )
+      {
+      int index = (int) ( position / regionSize );
+      int from = (int) ( position - index * regionSize );
+      int to = (int) Math.min( end - index * regionSize, regions[ index ].limit() );
+      ByteBuffer slice = regions[ index ].duplicate();
+
+      slice.position( from ).limit( to );
+      streams.add( new ByteBufferBackedInputStream( slice.slice() ) );
+
+      position += to - from;
+      }
+
+    streams.add( new ByteArrayInputStream( END ) );
+
+    return new SequenceInputStream( Collections.enumeration( streams ) );
+    }
+
+  private static <R> long accept( ForkJoinTask<List<R>> task, Consumer<? super R> consumer ) throws IOException
+    {
+    List<R> results;
+
+    try
+      {
+      results = task.get();
+      }
+    catch( InterruptedException exception )
+      {
+      Thread.currentThread().interrupt();
+      throw new IOException( "interrupted while waiting for elements to be evaluated", exception );
+      }
+    catch( ExecutionException exception )
+      {
+      // the pool wraps checked exceptions, and may wrap again when rethrowing across threads
+      for( Throwable cause = exception.getCause(); cause != null; cause = cause.getCause() )
+        {
+        if( cause instanceof IOException )
+          throw (IOException) cause;
+        }
+
+      if( exception.getCause() instanceof RuntimeException )
+        throw (RuntimeException) exception.getCause();
+
+      throw new IOException( "unable to evaluate elements", exception.getCause() );
+      }
+
+    results.forEach( consumer );
+
+    return results.size();
+    }
+
+  private static boolean isWhitespace( byte value )
+    {
+    return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+    }
+
+  private static boolean isByteOrderMark( byte value )
+    {
+    return value == (byte) 0xEF || value == (byte) 0xBB || value == (byte) 0xBF;
+    }
+  }
@@ -10,12 +10,19 @@ package heretical.pointer.path.json;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import heretical.pointer.path.DocumentIndex;
 import heretical.pointer.path.NestedPointer;
 import heretical.pointer.path.NestedPointerCompiler;
+import heretical.pointer.path.NestedPointerSet;
 import heretical.pointer.path.Pointer;
+import heretical.pointer.util.BoundedCache;
 
 /**
  * Class JSONNestedPointerCompiler is an implementation of {@link NestedPointerCompiler} for use with JSON objects.
+ * <p>
+ * Compiled {@link NestedPointer} instances are immutable and are cached by their path, so repeated calls
+ * to {@link #nested(String)} with the same path return the same instance. See {@link #getNestedCache()}
+ * for the cache statistics.
  *
  * @see NestedPointerCompiler for more details.
  */
@@ -23,7 +30,39 @@ public class JSONNestedPointerCompiler implements NestedPointerCompiler<JsonNode
   {
   public static final JSONNestedPointerCompiler COMPILER = new JSONNestedPointerCompiler();
 
-  private JSONPointerCompiler compiler = new JSONPointerCompiler();
+  private final JSONPointerCompiler compiler;
+  private final BoundedCache<String, NestedPointer<JsonNode, ArrayNode>> nestedCache;
+
+  /**
+   * Constructor JSONNestedPointerCompiler creates a new JSONNestedPointerCompiler instance that retains
+   * up to {@link BoundedCache#DEFAULT_CAPACITY} compiled nested pointers.
+   */
+  public JSONNestedPointerCompiler()
+    {
+    this( BoundedCache.DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor JSONNestedPointerCompiler creates a new JSONNestedPointerCompiler instance.
+   *
+   * @param nestedCacheCapacity the maximum number of compiled nested pointers to retain
+   */
+  public JSONNestedPointerCompiler( int nestedCacheCapacity )
+    {
+    this( new JSONPointerCompiler(), nestedCacheCapacity );
+    }
+
+  /**
+   * Constructor JSONNestedPointerCompiler creates a new JSONNestedPointerCompiler instance.
+   *
+   * @param compiler            the pointer compiler to delegate to
+   * @param nestedCacheCapacity the maximum number of compiled nested pointers to retain
+   */
+  public JSONNestedPointerCompiler( JSONPointerCompiler compiler, int nestedCacheCapacity )
+    {
+    this.compiler = compiler;
+    this.nestedCache = new BoundedCache<>( nestedCacheCapacity );
+    }
 
   @Override
   public Pointer<JsonNode> compile( String path )
@@ -33,10 +72,54 @@ public class JSONNestedPointerCompiler implements NestedPointerCompiler<JsonNode
 
   @Override
   public NestedPointer<JsonNode, ArrayNode> nested( String path )
+    {
+    return nestedCache.get( path, this::create );
+    }
+
+  @Override
+  public NestedPointerSet<JsonNode, ArrayNode> nestedSet( String... paths )
+    {
+    return new NestedPointerSet<>( compiler, paths );
+    }
+
+  private NestedPointer<JsonNode, ArrayNode> create( String path )
     {
     return new JSONNestedPointer( compiler, path );
     }
 
+  /**
+   * Method index creates a new, empty, {@link DocumentIndex} for the given document, to be shared by every
+   * pointer evaluated against it.
+   *
+   * @param root of JsonNode
+   * @return DocumentIndex<JsonNode>
+   */
+  public DocumentIndex<JsonNode> index( JsonNode root )
+    {
+    return new DocumentIndex<>( compiler, root );
+    }
+
+  /**
+   * Method getPointerCompiler returns the underlying {@link JSONPointerCompiler}.
+   *
+   * @return JSONPointerCompiler
+   */
+  public JSONPointerCompiler getPointerCompiler()
+    {
+    return compiler;
+    }
+
+  /**
+   * Method getNestedCache returns the cache of compiled {@link NestedPointer} instances, including
+   * its hit, miss, and eviction counts.
+   *
+   * @return BoundedCache
+   */
+  public BoundedCache<String, NestedPointer<JsonNode, ArrayNode>> getNestedCache()
+    {
+    return nestedCache;
+    }
+
   @Override
   public Iterable<JsonNode> iterable( ArrayNode node )
     {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
  *
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -8,6 +8,9 @@
 
 package heretical.pointer.path.json;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -16,39 +19,54 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ContainerNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.CopyMode;
 import heretical.pointer.path.Pointer;
+import heretical.pointer.path.Segment;
 
 /**
- * Class JSONPointer is an implementation of the {@link Pointer} interface that encapsulates
- * the FasterXML {@link JsonPointer} class.
+ * Class JSONPointer is an implementation of the {@link Pointer} interface for use with Jackson
+ * {@link JsonNode} trees.
+ * <p>
+ * A JSONPointer is an array of {@link Segment} instances, and follows the semantics of the
+ * FasterXML {@link JsonPointer} class. Pointers created from segments are never
+ * re-parsed.
  */
 public class JSONPointer implements Pointer<JsonNode>
   {
   private static final JsonNodeFactory INSTANCE = JsonNodeFactory.instance;
+  private static final Segment[][] NO_EXCLUDES = new Segment[ 0 ][];
 
-  private final String path;
-  private transient JsonPointer pointer;
+  private final Segment[] segments;
+  private transient String path;
 
   public JSONPointer( String path )
     {
+    this.segments = Segment.parse( path ); // verify pointer
     this.path = path;
-
-    getPointer(); // verify pointer
     }
 
-  private JsonPointer getPointer()
+  /**
+   * Constructor JSONPointer creates a new JSONPointer instance from the given segments, the array is retained.
+   *
+   * @param segments of Segment[]
+   */
+  public JSONPointer( Segment[] segments )
     {
-    if( pointer == null )
-      pointer = JsonPointer.compile( path );
+    this.segments = segments;
+    }
 
-    return pointer;
+  @Override
+  public Segment[] segments()
+    {
+    return segments;
     }
 
   @Override
   public JsonNode at( JsonNode root )
     {
-    JsonNode at = root.at( getPointer() );
+    JsonNode at = at( root, segments.length );
 
     if( at == null || at.isMissingNode() )
       return null;
@@ -56,26 +74,49 @@ public class JSONPointer implements Pointer<JsonNode>
     return at;
     }
 
+  /**
+   * Method at returns the node referenced by the first {@code length} segments, or a
+   * {@link MissingNode} if there is no such node.
+   */
+  protected JsonNode at( JsonNode node, int length )
+    {
+    for( int i = 0; i < length; i++ )
+      {
+      Segment segment = segments[ i ];
+
+      if( node.isObject() )
+        node = node.get( segment.getName() );
+      else if( node.isArray() )
+        node = node.get( segment.getIndex() );
+      else
+        node = null;
+
+      if( node == null )
+        return MissingNode.getInstance();
+      }
+
+    return node;
+    }
+
   @Override
   public JsonNode objectAt( JsonNode root )
     {
-    if( getPointer().matches() )
+    if( segments.length == 0 )
       return root;
 
-    return safeWith( parents( root, getPointer() ), getPointer().last() );
+    return safeWith( parents( root, segments.length ), segments[ segments.length - 1 ], null );
     }
 
   @Override
   public JsonNode remove( JsonNode root )
     {
-    JsonPointer head = getPointer().head();
-    JsonNode parent = !head.matches() ? root.at( head ) : root;
-    JsonPointer last = !getPointer().last().matches() ? getPointer().last() : getPointer();
+    Segment last = last();
+    JsonNode parent = at( root, segments.length - 1 );
 
     if( parent.isObject() )
-      return ( (ObjectNode) parent ).remove( last.getMatchingProperty() );
+      return ( (ObjectNode) parent ).remove( last.getName() );
     else if( parent.isArray() )
-      return ( (ArrayNode) parent ).remove( last.getMatchingIndex() );
+      return ( (ArrayNode) parent ).remove( last.getIndex() );
     else
       throw new IllegalStateException( "parent node is of unknown object type: " + parent.getNodeType() );
     }
@@ -83,8 +124,32 @@ public class JSONPointer implements Pointer<JsonNode>
   @Override
   public void copy( JsonNode from, JsonNode into, Predicate<JsonNode> filter )
     {
-    JsonPointer currentPointer = getPointer();
-    JsonNode value = from.at( currentPointer );
+    copy( from, into, filter, CopyMode.DEEP );
+    }
+
+  /**
+   * Method copy places the value referenced by this pointer into the same location relative to {@code into}.
+   * <p>
+   * Jackson value nodes are immutable and are always shared, with {@link CopyMode#SHARED} objects and arrays
+   * are shared as well.
+   */
+  @Override
+  public void copy( JsonNode from, JsonNode into, Predicate<JsonNode> filter, CopyMode mode )
+    {
+    copy( from, into, filter, mode, null );
+    }
+
+  /**
+   * Method copy places the value referenced by this pointer into the same location relative to {@code into},
+   * without the excluded values.
+   * <p>
+   * Excluded object members are skipped while the value is duplicated, so are never copied. Array elements
+   * are always copied, and with {@link CopyMode#SHARED} nothing is skipped.
+   */
+  @Override
+  public void copy( JsonNode from, JsonNode into, Predicate<JsonNode> filter, CopyMode mode, Pointer<JsonNode>[] excludes )
+    {
+    JsonNode value = at( from, segments.length );
 
     if( value == null || value.isMissingNode() )
       return;
@@ -92,53 +157,144 @@ public class JSONPointer implements Pointer<JsonNode>
     if( filter != null && !filter.test( value ) )
       return;
 
-    value = value.deepCopy();
+    if( mode != CopyMode.SHARED )
+      value = excludes == null || excludes.length == 0 ? value.deepCopy() : deepCopy( value, segments( excludes ), 0 );
 
-    if( currentPointer.tail() == null )
+    if( segments.length == 0 )
       {
       ( (ObjectNode) into ).setAll( (ObjectNode) value );
       return;
       }
 
     JsonNode currentNode = into;
+    int last = segments.length - 1;
+
+    for( int i = 0; i < last; i++ )
+      currentNode = safeWith( currentNode, segments[ i ], segments[ i + 1 ] );
+
+    if( segments[ last ].getIndex() == -1 )
+      setOnObject( (ObjectNode) currentNode, segments[ last ], value, Function.identity() );
+    else
+      addOnArray( (ArrayNode) currentNode, value, Function.identity() );
+    }
+
+  private static Segment[][] segments( Pointer<JsonNode>[] pointers )
+    {
+    Segment[][] segments = new Segment[ pointers.length ][];
+
+    for( int i = 0; i < pointers.length; i++ )
+      segments[ i ] = pointers[ i ].segments();
+
+    return segments;
+    }
 
-    while( true )
+  /**
+   * Method deepCopy duplicates the given node, skipping any object member referenced by the {@code excludes}
+   * from the {@code depth} segment on, a {@code *} segment matches every child.
+   */
+  private static JsonNode deepCopy( JsonNode node, Segment[][] excludes, int depth )
+    {
+    if( node.isObject() )
       {
-      if( currentPointer.tail() == null )
-        break;
+      ObjectNode copy = INSTANCE.objectNode();
+      Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+      while( fields.hasNext() )
+        {
+        Map.Entry<String, JsonNode> field = fields.next();
+        Segment[][] below = below( excludes, depth, field.getKey(), -1 );
+
+        if( below == null )
+          continue;
 
-      int matchingIndex = currentPointer.getMatchingIndex();
+        copy.set( field.getKey(), below.length == 0 ? field.getValue().deepCopy() : deepCopy( field.getValue(), below, depth + 1 ) );
+        }
+
+      return copy;
+      }
 
-      if( !currentPointer.tail().matches() )
+    if( node.isArray() )
+      {
+      ArrayNode copy = INSTANCE.arrayNode( node.size() );
+
+      for( int i = 0; i < node.size(); i++ )
         {
-        currentNode = safeWith( currentNode, currentPointer );
+        Segment[][] below = below( excludes, depth, null, i );
+
+        // array elements are never skipped, removing an element shifts the indexes of the elements following it
+        copy.add( below == null || below.length == 0 ? node.get( i ).deepCopy() : deepCopy( node.get( i ), below, depth + 1 ) );
+        }
+
+      return copy;
+      }
 
-        currentPointer = currentPointer.tail();
+    return node.deepCopy();
+    }
+
+  /**
+   * Method below returns the excludes continuing below the given child, or null if the child itself is excluded.
+   */
+  private static Segment[][] below( Segment[][] excludes, int depth, String name, int index )
+    {
+    int count = 0;
 
+    for( Segment[] exclude : excludes )
+      {
+      Segment segment = exclude[ depth ];
+
+      if( !matches( segment, name, index ) )
         continue;
-        }
 
-      if( matchingIndex == -1 )
-        setOnObject( (ObjectNode) currentNode, currentPointer, value, Function.identity() );
-      else
-        addOnArray( (ArrayNode) currentNode, value, Function.identity() );
+      if( exclude.length == depth + 1 )
+        return null;
+
+      count++;
+      }
 
-      break;
+    if( count == 0 )
+      return NO_EXCLUDES;
+
+    Segment[][] results = new Segment[ count ][];
+
+    count = 0;
+
+    for( Segment[] exclude : excludes )
+      {
+      Segment segment = exclude[ depth ];
+
+      if( matches( segment, name, index ) )
+        results[ count++ ] = exclude;
       }
+
+    return results;
     }
 
-  protected JsonNode safeWith( JsonNode node, JsonPointer pointer )
+  private static boolean matches( Segment segment, String name, int index )
     {
+    if( segment.getName().equals( "*" ) )
+      return true;
+
+    return name != null ? segment.getName().equals( name ) : segment.getIndex() == index;
+    }
+
+  /**
+   * Method safeWith returns the child of {@code node} named by {@code segment}, creating it if missing.
+   * The child is created as an array if the {@code next} segment may reference an array element.
+   */
+  protected JsonNode safeWith( JsonNode node, Segment segment, Segment next )
+    {
+    boolean nextIsElement = next != null && next.getIndex() != -1;
+
     if( node.isObject() )
       {
-      if( pointer.tail().getMatchingIndex() == -1 )
-        node = node.with( pointer.getMatchingProperty() );
+      if( !nextIsElement )
+        node = node.with( segment.getName() );
       else
-        node = node.withArray( pointer.getMatchingProperty() );
+        node = node.withArray( segment.getName() );
       }
     else if( node.isArray() )
       {
-      if( pointer.tail().getMatchingIndex() == -1 )
+      if( !nextIsElement )
         node = ( (ArrayNode) node ).addObject();
       else
         node = ( (ArrayNode) node ).addArray();
@@ -151,22 +307,19 @@ public class JSONPointer implements Pointer<JsonNode>
     return node;
     }
 
-  @SuppressWarnings("ConstantConditions")
   @Override
   public void apply( JsonNode root, Function<JsonNode, JsonNode> transform )
     {
-    JsonPointer head = getPointer().head();
-    JsonNode parent = !head.matches() ? root.at( head ) : (ObjectNode) root;
+    Segment last = last();
+    JsonNode parent = at( root, segments.length - 1 );
 
     if( parent == null || parent.isMissingNode() )
       throw new IllegalArgumentException( "parent is missing" );
 
-    JsonPointer last = !getPointer().last().matches() ? getPointer().last() : getPointer();
-
-    if( parent.isObject() && parent.has( last.getMatchingProperty() ) )
-      setOnObject( (ObjectNode) parent, last, parent.get( last.getMatchingProperty() ), transform );
-    else if( parent.isArray() && parent.has( last.getMatchingIndex() ) )
-      setOnArray( (ArrayNode) parent, last, parent.get( last.getMatchingIndex() ), transform );
+    if( parent.isObject() && parent.has( last.getName() ) )
+      setOnObject( (ObjectNode) parent, last, parent.get( last.getName() ), transform );
+    else if( parent.isArray() && parent.has( last.getIndex() ) )
+      setOnArray( (ArrayNode) parent, last, parent.get( last.getIndex() ), transform );
     else if( !parent.isObject() && !parent.isArray() )
       throw new IllegalStateException( "parent node is of unknown object type: " + parent.getNodeType() );
     }
@@ -174,8 +327,8 @@ public class JSONPointer implements Pointer<JsonNode>
   @Override
   public void set( JsonNode root, JsonNode child, Function<JsonNode, JsonNode> transform )
     {
-    JsonNode parent = parents( root, getPointer() );
-    JsonPointer last = !getPointer().last().matches() ? getPointer().last() : getPointer();
+    Segment last = last();
+    JsonNode parent = parents( root, segments.length );
 
     update( parent, last, child, transform, true );
     }
@@ -183,35 +336,45 @@ public class JSONPointer implements Pointer<JsonNode>
   @Override
   public void add( JsonNode root, JsonNode child, Function<JsonNode, JsonNode> transform )
     {
-    JsonNode parent = parents( root, getPointer() );
-    JsonPointer last = !getPointer().last().matches() ? getPointer().last() : getPointer();
+    Segment last = last();
+    JsonNode parent = parents( root, segments.length );
 
     update( parent, last, child, transform, false );
     }
 
-  protected ContainerNode parents( JsonNode root, JsonPointer pointer )
+  private Segment last()
     {
-    JsonPointer head = pointer.head();
-    JsonNode parent = !head.matches() ? root.at( head ) : root;
+    if( segments.length == 0 )
+      throw new IllegalStateException( "pointer references the root node" );
+
+    return segments[ segments.length - 1 ];
+    }
+
+  /**
+   * Method parents returns the parent of the node referenced by the first {@code length} segments,
+   * creating any missing ancestors.
+   */
+  protected ContainerNode parents( JsonNode root, int length )
+    {
+    int head = length - 1;
+    JsonNode parent = at( root, head );
 
     if( !parent.isContainerNode() && !parent.isMissingNode() )
-      throw new IllegalArgumentException( "parent node at:" + head + ", is not a container node" );
+      throw new IllegalArgumentException( "parent node at:" + Segment.toString( segments, head ) + ", is not a container node" );
 
     if( !parent.isMissingNode() )
       return (ContainerNode) parent;
 
-    parent = pointer
-      .last()
-      .mayMatchElement() ? INSTANCE.arrayNode() : INSTANCE.objectNode();
+    parent = segments[ length - 1 ].isIndex() ? INSTANCE.arrayNode() : INSTANCE.objectNode();
 
     ContainerNode ancestor = parents( root, head );
 
-    update( ancestor, head.last(), parent, Function.identity(), true );
+    update( ancestor, segments[ head - 1 ], parent, Function.identity(), true );
 
     return (ContainerNode) parent;
     }
 
-  protected void update( JsonNode parent, JsonPointer location, JsonNode child, Function<JsonNode, JsonNode> transform, boolean isSet )
+  protected void update( JsonNode parent, Segment location, JsonNode child, Function<JsonNode, JsonNode> transform, boolean isSet )
     {
     if( !parent.isContainerNode() )
       throw new IllegalArgumentException( "parent node must be a container node, got: " + parent.getNodeType() );
@@ -230,15 +393,14 @@ public class JSONPointer implements Pointer<JsonNode>
       throw new IllegalStateException( "parent node is of unknown object type: " + parent.getNodeType() );
     }
 
-  @SuppressWarnings("ConstantConditions")
-  protected void addTo( JsonNode parent, JsonPointer last, JsonNode child )
+  protected void addTo( JsonNode parent, Segment last, JsonNode child )
     {
     JsonNode container = null;
 
     if( parent instanceof ObjectNode )
-      container = parent.get( last.getMatchingProperty() );
+      container = parent.get( last.getName() );
     else if( parent instanceof ArrayNode )
-      container = parent.get( last.getMatchingIndex() );
+      container = parent.get( last.getIndex() );
 
     if( container == null || container.isMissingNode() )
       {
@@ -251,15 +413,15 @@ public class JSONPointer implements Pointer<JsonNode>
       }
 
     if( !container.isArray() )
-      throw new IllegalStateException( "node referenced by pointer is not an array: " + getPointer() );
+      throw new IllegalStateException( "node referenced by pointer is not an array: " + this );
 
     addOnArray( (ArrayNode) container, child, Function.identity() );
     }
 
-  protected void setOnArray( ArrayNode parent, JsonPointer location, JsonNode child, Function<JsonNode, JsonNode> transform )
+  protected void setOnArray( ArrayNode parent, Segment location, JsonNode child, Function<JsonNode, JsonNode> transform )
     {
     int size = parent.size();
-    int matchingIndex = location.getMatchingIndex();
+    int matchingIndex = location.getIndex();
 
     if( size - 1 < matchingIndex )
       {
@@ -270,9 +432,9 @@ public class JSONPointer implements Pointer<JsonNode>
     parent.set( matchingIndex, transform.apply( child ) );
     }
 
-  protected void setOnObject( ObjectNode parent, JsonPointer location, JsonNode child, Function<JsonNode, JsonNode> transform )
+  protected void setOnObject( ObjectNode parent, Segment location, JsonNode child, Function<JsonNode, JsonNode> transform )
     {
-    parent.set( location.getMatchingProperty(), transform.apply( child ) );
+    parent.set( location.getName(), transform.apply( child ) );
     }
 
   protected void addOnArray( ArrayNode parent, JsonNode child, Function<JsonNode, JsonNode> transform )
@@ -280,9 +442,84 @@ public class JSONPointer implements Pointer<JsonNode>
     parent.add( transform.apply( child ) );
     }
 
+  /**
+   * @deprecated use {@link #safeWith(JsonNode, Segment, Segment)}, this method is final as it is no longer called by
+   * JSONPointer, override the Segment based method instead
+   */
+  @Deprecated
+  protected final JsonNode safeWith( JsonNode node, JsonPointer pointer )
+    {
+    JsonPointer tail = pointer.tail();
+
+    return safeWith( node, segment( pointer ), tail == null || tail.matches() ? null : segment( tail ) );
+    }
+
+  /**
+   * @deprecated use {@link #parents(JsonNode, int)}, this method is final as it is no longer called by
+   * JSONPointer, override the Segment based method instead
+   */
+  @Deprecated
+  protected final ContainerNode parents( JsonNode root, JsonPointer pointer )
+    {
+    Segment[] parsed = Segment.parse( pointer.toString() );
+
+    if( parsed.length <= segments.length && Arrays.equals( parsed, Arrays.copyOf( segments, parsed.length ) ) )
+      return parents( root, parsed.length );
+
+    return new JSONPointer( parsed ).parents( root, parsed.length );
+    }
+
+  /**
+   * @deprecated use {@link #update(JsonNode, Segment, JsonNode, Function, boolean)}, this method is final as it is no
+   * longer called by JSONPointer, override the Segment based method instead
+   */
+  @Deprecated
+  protected final void update( JsonNode parent, JsonPointer location, JsonNode child, Function<JsonNode, JsonNode> transform, boolean isSet )
+    {
+    update( parent, segment( location ), child, transform, isSet );
+    }
+
+  /**
+   * @deprecated use {@link #addTo(JsonNode, Segment, JsonNode)}, this method is final as it is no longer called by
+   * JSONPointer, override the Segment based method instead
+   */
+  @Deprecated
+  protected final void addTo( JsonNode parent, JsonPointer last, JsonNode child )
+    {
+    addTo( parent, segment( last ), child );
+    }
+
+  /**
+   * @deprecated use {@link #setOnArray(ArrayNode, Segment, JsonNode, Function)}, this method is final as it is no
+   * longer called by JSONPointer, override the Segment based method instead
+   */
+  @Deprecated
+  protected final void setOnArray( ArrayNode parent, JsonPointer location, JsonNode child, Function<JsonNode, JsonNode> transform )
+    {
+    setOnArray( parent, segment( location ), child, transform );
+    }
+
+  /**
+   * @deprecated use {@link #setOnObject(ObjectNode, Segment, JsonNode, Function)}, this method is final as it is no
+   * longer called by JSONPointer, override the Segment based method instead
+   */
+  @Deprecated
+  protected final void setOnObject( ObjectNode parent, JsonPointer location, JsonNode child, Function<JsonNode, JsonNode> transform )
+    {
+    setOnObject( parent, segment( location ), child, transform );
+    }
+
+  private static Segment segment( JsonPointer pointer )
+    {
+    return Segment.name( pointer.getMatchingProperty() );
+    }
+
   @Override
   public String toString()
     {
-    return getPointer().toString();
+    if( path == null )
+      path = Segment.toString( segments );
+
+    return path;
     }
   }
@@ -17,7 +17,11 @@ import java.util.function.Function;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.PointerCache;
 import heretical.pointer.path.PointerCompiler;
+import heretical.pointer.path.Segment;
+import heretical.pointer.util.BoundedCache;
 
 /**
  * Class JSONPointerCompiler is an implementation of {@link PointerCompiler} for use with JSON objects.
@@ -40,6 +44,9 @@ import heretical.pointer.path.PointerCompiler;
  * </ul>
  * <p>
  * Any other type will be wrapped in a {@link com.fasterxml.jackson.databind.node.POJONode}.
+ * <p>
+ * Child pointers created while resolving wildcard and descent paths are retained by a per instance
+ * {@link PointerCache}, see {@link #getChildCache()}.
  *
  * @see PointerCompiler for more details.
  */
@@ -64,12 +71,89 @@ public class JSONPointerCompiler implements PointerCompiler<JsonNode, ArrayNode>
     convert.put( Boolean.TYPE, value -> JsonNodeFactory.instance.booleanNode( (Boolean) value ) );
     }
 
+  private final PointerCache<JsonNode> childCache;
+  private final int maxDescentDepth;
+
+  /**
+   * Constructor JSONPointerCompiler creates a new JSONPointerCompiler instance that retains up to
+   * {@link BoundedCache#DEFAULT_CAPACITY} named child pointers.
+   */
+  public JSONPointerCompiler()
+    {
+    this( BoundedCache.DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor JSONPointerCompiler creates a new JSONPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   */
+  public JSONPointerCompiler( int childCacheCapacity )
+    {
+    this( childCacheCapacity, PointerCache.DEFAULT_INDEX_SIZE );
+    }
+
+  /**
+   * Constructor JSONPointerCompiler creates a new JSONPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   * @param childIndexSize     the number of array index child pointers to retain
+   */
+  public JSONPointerCompiler( int childCacheCapacity, int childIndexSize )
+    {
+    this( childCacheCapacity, childIndexSize, DEFAULT_MAX_DESCENT_DEPTH );
+    }
+
+  /**
+   * Constructor JSONPointerCompiler creates a new JSONPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   * @param childIndexSize     the number of array index child pointers to retain
+   * @param maxDescentDepth    the maximum number of levels walked by a descent, see {@link #maxDescentDepth()}
+   */
+  public JSONPointerCompiler( int childCacheCapacity, int childIndexSize, int maxDescentDepth )
+    {
+    if( maxDescentDepth < 1 )
+      throw new IllegalArgumentException( "maxDescentDepth must be greater than zero, got: " + maxDescentDepth );
+
+    this.childCache = new PointerCache<>( this, childCacheCapacity, childIndexSize );
+    this.maxDescentDepth = maxDescentDepth;
+    }
+
   @Override
   public JSONPointer compile( String path )
     {
     return new JSONPointer( path );
     }
 
+  @Override
+  public JSONPointer compile( Segment[] segments )
+    {
+    return new JSONPointer( segments );
+    }
+
+  @Override
+  public Pointer<JsonNode> child( String name )
+    {
+    return childCache.child( name );
+    }
+
+  @Override
+  public Pointer<JsonNode> child( int index )
+    {
+    return childCache.child( index );
+    }
+
+  /**
+   * Method getChildCache returns the cache of child pointers used by wildcard and descent paths.
+   *
+   * @return PointerCache
+   */
+  public PointerCache<JsonNode> getChildCache()
+    {
+    return childCache;
+    }
+
   @Override
   public Kind kind( JsonNode node )
     {
@@ -146,6 +230,12 @@ public class JSONPointerCompiler implements PointerCompiler<JsonNode, ArrayNode>
     return JsonNodeFactory.instance.arrayNode();
     }
 
+  @Override
+  public int maxDescentDepth()
+    {
+    return maxDescentDepth;
+    }
+
   @Override
   public JsonNode node( Object value )
     {
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import heretical.pointer.path.NestedPointerSet;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.Segment;
+
+/**
+ * Class JSONStreamEvaluator evaluates nested pointer expressions directly against a Jackson {@link JsonParser}
+ * token stream, without reading the whole document into a {@link JsonNode} tree.
+ * <p>
+ * The pointers are compiled into a {@link NestedPointerSet}, the parser is stepped through the set states as
+ * tokens are read. Any object or array no pointer can match is skipped with {@link JsonParser#skipChildren()},
+ * and only matched values are materialized. If a pointer can also match a child of a matched value, the
+ * value is evaluated as a tree.
+ * <p>
+ * Values are reported in pre-order, as with {@link NestedPointerSet#visitAt(Object, NestedPointerSet.Visitor)},
+ * and the same value is reported at most once per pointer.
+ * <p>
+ * As with {@link ObjectMapper#readTree(JsonParser)}, if the given parser has a current token the value starting
+ * at that token is evaluated, otherwise the next token is read first.
+ * <p>
+ * A JSONStreamEvaluator is immutable and may be shared between threads, a parser may not.
+ */
+public class JSONStreamEvaluator implements Serializable
+  {
+  private final ObjectMapper mapper;
+  private final JSONNestedPointerCompiler compiler;
+  private final NestedPointerSet<JsonNode, ArrayNode> pointers;
+
+  /**
+   * Constructor JSONStreamEvaluator creates a new JSONStreamEvaluator instance.
+   *
+   * @param pointers the nested pointer expressions to evaluate
+   */
+  public JSONStreamEvaluator( String... pointers )
+    {
+    this( new ObjectMapper(), JSONNestedPointerCompiler.COMPILER, pointers );
+    }
+
+  /**
+   * Constructor JSONStreamEvaluator creates a new JSONStreamEvaluator instance that reads streams of the given
+   * format, binary Smile or CBOR streams are evaluated without a text JSON step.
+   *
+   * @param format   the format of the streams to evaluate
+   * @param pointers the nested pointer expressions to evaluate
+   */
+  public JSONStreamEvaluator( JSONFormat format, String... pointers )
+    {
+    this( format.getMapper(), JSONNestedPointerCompiler.COMPILER, pointers );
+    }
+
+  /**
+   * Constructor JSONStreamEvaluator creates a new JSONStreamEvaluator instance.
+   *
+   * @param mapper   the mapper used to create parsers and to read matched values
+   * @param compiler the compiler used to create the pointer set
+   * @param pointers the nested pointer expressions to evaluate
+   */
+  public JSONStreamEvaluator( ObjectMapper mapper, JSONNestedPointerCompiler compiler, String... pointers )
+    {
+    this.mapper = mapper;
+    this.compiler = compiler;
+    this.pointers = compiler.nestedSet( pointers );
+    }
+
+  /**
+   * Method getPointers returns the compiled {@link NestedPointerSet}.
+   *
+   * @return NestedPointerSet
+   */
+  public NestedPointerSet<JsonNode, ArrayNode> getPointers()
+    {
+    return pointers;
+    }
+
+  /**
+   * Method allAt returns all the values referenced by each pointer in the given stream.
+   * <p>
+   * The returned List has one ArrayNode per pointer, in the order the pointers were given.
+   *
+   * @param input of InputStream
+   * @return List<ArrayNode>
+   * @throws IOException when the stream cannot be read or parsed
+   */
+  public List<ArrayNode> allAt( InputStream input ) throws IOException
+    {
+    try( JsonParser parser = mapper.getFactory().createParser( input ) )
+      {
+      return allAt( parser );
+      }
+    }
+
+  /**
+   * Method allAt returns all the values referenced by each pointer in the next value read from the given parser.
+   * <p>
+   * The returned List has one ArrayNode per pointer, in the order the pointers were given.
+   *
+   * @param parser of JsonParser
+   * @return List<ArrayNode>
+   * @throws IOException when the parser fails
+   */
+  public List<ArrayNode> allAt( JsonParser parser ) throws IOException
+    {
+    List<ArrayNode> results = new ArrayList<>( pointers.size() );
+
+    for( int i = 0; i < pointers.size(); i++ )
+      results.add( mapper.getNodeFactory().arrayNode() );
+
+    forEachAt( parser, ( value, index ) -> results.get( index ).add( value ) );
+
+    return results;
+    }
+
+  /**
+   * Method at returns the first value referenced by any pointer in the next value read from the given parser,
+   * or null if no values are found.
+   * <p>
+   * Parsing stops as soon as the first value is found.
+   *
+   * @param parser of JsonParser
+   * @return JsonNode
+   * @throws IOException when the parser fails
+   */
+  public JsonNode at( JsonParser parser ) throws IOException
+    {
+    JsonNode[] first = new JsonNode[ 1 ];
+
+    visit( pointers.start(), null, parser, ( index, path, value ) ->
+    {
+    first[ 0 ] = value;
+    return false;
+    } );
+
+    return first[ 0 ];
+    }
+
+  /**
+   * Method forEachAt passes every value referenced by any pointer in the next value read from the given parser,
+   * and the index of the matching pointer, to the given {@code consumer}.
+   *
+   * @param parser   of JsonParser
+   * @param consumer of ObjIntConsumer<JsonNode>
+   * @throws IOException when the parser fails
+   */
+  public void forEachAt( JsonParser parser, ObjIntConsumer<JsonNode> consumer ) throws IOException
+    {
+    visit( pointers.start(), null, parser, ( index, path, value ) ->
+    {
+    consumer.accept( value, index );
+    return true;
+    } );
+    }
+
+  /**
+   * Method visitAt passes every value referenced by any pointer in the next value read from the given parser,
+   * the index of the matching pointer, and the absolute path to the value, to the given {@code visitor}.
+   * <p>
+   * Parsing stops as soon as the visitor returns {@code false}.
+   *
+   * @param parser  of JsonParser
+   * @param visitor of Visitor<JsonNode>
+   * @return true if every value was visited, false if the visitor stopped the traversal
+   * @throws IOException when the parser fails
+   */
+  public boolean visitAt( JsonParser parser, NestedPointerSet.Visitor<JsonNode> visitor ) throws IOException
+    {
+    return visit( pointers.start(), new ArrayList<>(), parser, visitor );
+    }
+
+  private boolean visit( NestedPointerSet<JsonNode, ArrayNode>.State state, List<Segment> path, JsonParser parser, NestedPointerSet.Visitor<JsonNode> visitor ) throws IOException
+    {
+    if( !parser.hasCurrentToken() && parser.nextToken() == null )
+      return true;
+
+    return visitValue( state, path, parser, visitor );
+    }
+
+  private boolean visitValue( NestedPointerSet<JsonNode, ArrayNode>.State state, List<Segment> path, JsonParser parser, NestedPointerSet.Visitor<JsonNode> visitor ) throws IOException
+    {
+    if( state.isDead() )
+      {
+      parser.skipChildren();
+      return true;
+      }
+
+    if( state.isMatch() )
+      return visitMatch( state, path, parser, visitor );
+
+    JsonToken token = parser.currentToken();
+
+    if( token == JsonToken.START_OBJECT )
+      {
+      while( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+        String name = parser.getCurrentName();
+
+        parser.nextToken();
+
+        if( !visitChild( state.name( name ), path, name, -1, parser, visitor ) )
+          return false;
+        }
+      }
+    else if( token == JsonToken.START_ARRAY )
+      {
+      int index = 0;
+
+      while( parser.nextToken() != JsonToken.END_ARRAY )
+        {
+        if( !visitChild( state.index( index ), path, null, index, parser, visitor ) )
+          return false;
+
+        index++;
+        }
+      }
+
+    return true;
+    }
+
+  /**
+   * Method visitChild visits the child named {@code name}, or if null at {@code index}, the path segment is only
+   * created if the path is tracked.
+   */
+  private boolean visitChild( NestedPointerSet<JsonNode, ArrayNode>.State state, List<Segment> path, String name, int index, JsonParser parser, NestedPointerSet.Visitor<JsonNode> visitor ) throws IOException
+    {
+    if( path == null )
+      return visitValue( state, null, parser, visitor );
+
+    path.add( name != null ? Segment.name( name ) : Segment.index( index ) );
+
+    boolean result = visitValue( state, path, parser, visitor );
+
+    path.remove( path.size() - 1 );
+
+    return result;
+    }
+
+  private boolean visitMatch( NestedPointerSet<JsonNode, ArrayNode>.State state, List<Segment> path, JsonParser parser, NestedPointerSet.Visitor<JsonNode> visitor ) throws IOException
+    {
+    JsonNode value = mapper.readTree( parser );
+
+    if( value == null )
+      value = NullNode.getInstance();
+
+    if( path == null )
+      {
+      boolean[] result = {true};
+
+      // the value is already materialized, so only the callbacks stop
+      pointers.forEachAt( state, value, ( child, index ) -> result[ 0 ] = result[ 0 ] && visitor.visit( index, null, child ) );
+
+      return result[ 0 ];
+      }
+
+    JSONPointerCompiler pointerCompiler = compiler.getPointerCompiler();
+    Pointer<JsonNode> parent = pointerCompiler.compile( path.toArray( Segment.EMPTY ) );
+
+    return pointers.visitAt( state, value, ( index, relative, child ) -> visitor.visit( index, pointerCompiler.append( parent, relative ), child ) );
+    }
+  }
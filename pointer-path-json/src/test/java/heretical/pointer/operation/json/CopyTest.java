@@ -8,8 +8,16 @@
 
 package heretical.pointer.operation.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,11 +25,15 @@ import com.fasterxml.jackson.databind.node.FloatNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.operation.CopyPlan;
 import heretical.pointer.operation.CopySpec;
 import heretical.pointer.operation.json.filter.JSONBooleanPointerFilter;
 import heretical.pointer.operation.json.filter.JSONStringPointerFilter;
 import heretical.pointer.operation.json.transform.JSONSetTextTransform;
+import heretical.pointer.path.CopyMode;
 import heretical.pointer.path.json.JSONData;
+import heretical.pointer.path.json.JSONNestedPointerCompiler;
+import heretical.pointer.path.json.JSONPointer;
 import heretical.pointer.path.json.JSONPrimitiveTransforms;
 import org.junit.Test;
 
@@ -273,6 +285,131 @@ public class CopyTest
     assertEquals( null, result.findValue( "ssn" ) );
     }
 
+  @Test
+  public void testCopyIncludeWildMany() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    String[] includes = {"/person/measures/*/value", "/person/arrays/*/1", "/person/firstName", "/*/age", "/person/measured/*"};
+
+    CopySpec spec = new CopySpec();
+
+    for( String include : includes )
+      spec.include( include );
+
+    JSONCopier copier = new JSONCopier( spec );
+
+    copier.copy( value, result );
+
+    ObjectNode expected = JsonNodeFactory.instance.objectNode();
+
+    for( String include : includes )
+      JSONNestedPointerCompiler.COMPILER.nested( include ).copy( value, expected );
+
+    assertEquals( expected, result );
+    assertEquals( expected.toString(), result.toString() );
+    }
+
+  @Test
+  public void testCopyMergedIncludes() throws Exception
+    {
+    JsonNode value = mapper.readTree( "{\"a\":{\"b\":1,\"c\":2,\"d\":[[3,4]]},\"x\":3,\"y\":4}" );
+
+    String[][] includesList = {
+      {"/a/b", "/x", "/a"},
+      {"/a", "/x", "/a/b"},
+      {"/a", "/a/d/*/0", "/a/d", "/y"},
+      {"/y", "/a/c", "/a", "/a/b", "/x"}
+    };
+
+    for( String[] includes : includesList )
+      {
+      ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+      new JSONCopier( new CopySpec().include( includes ) ).copy( value, result );
+
+      ObjectNode expected = JsonNodeFactory.instance.objectNode();
+
+      for( String include : includes )
+        JSONNestedPointerCompiler.COMPILER.nested( include ).copy( value, expected );
+
+      assertEquals( Arrays.toString( includes ), expected.toString(), result.toString() );
+      }
+    }
+
+  @Test
+  public void testCopyShared() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+    ObjectNode deep = JsonNodeFactory.instance.objectNode();
+    ObjectNode shared = JsonNodeFactory.instance.objectNode();
+
+    CopySpec spec = new CopySpec()
+      .include( "/person/measures", "/person/arrays/*" );
+
+    new JSONCopier( spec ).copy( value, deep );
+    new JSONCopier( CopyMode.SHARED, spec ).copy( value, shared );
+
+    assertEquals( deep, shared );
+    assertSame( value.get( "person" ).get( "measures" ), shared.get( "person" ).get( "measures" ) );
+    assertSame( value.get( "person" ).get( "arrays" ).get( 0 ), shared.get( "person" ).get( "arrays" ).get( 0 ) );
+    }
+
+  @Test
+  public void testCopySharedOverlapping() throws Exception
+    {
+    JsonNode value = mapper.readTree( "{\"x\":{\"a\":{\"b\":{\"c\":1}}},\"y\":{\"a\":{\"b\":{\"d\":2}}}}" );
+    JsonNode original = value.deepCopy();
+    ObjectNode deep = JsonNodeFactory.instance.objectNode();
+    ObjectNode shared = JsonNodeFactory.instance.objectNode();
+
+    CopySpec spec = new CopySpec()
+      .fromInclude( "/x", "/a" )
+      .fromInclude( "/y", "/a/b" );
+
+    new JSONCopier( spec ).copy( value, deep );
+    new JSONCopier( CopyMode.SHARED, spec ).copy( value, shared );
+
+    assertEquals( original, value );
+    assertEquals( deep, shared );
+    assertNotSame( value.get( "x" ).get( "a" ), shared.get( "a" ) );
+    }
+
+  @Test
+  public void testCopySharedIsReadOnly() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( CopyMode.SHARED, new CopySpec().include( "/person/measure" ) ).copy( value, result );
+
+    assertSame( value.get( "person" ).get( "measure" ), result.get( "person" ).get( "measure" ) );
+
+    // shared containers are not copied on write, a write into the result is a write into the source
+    new JSONPointer( "/person/measure/added" ).set( result, JsonNodeFactory.instance.booleanNode( true ) );
+
+    assertTrue( value.get( "person" ).get( "measure" ).get( "added" ).booleanValue() );
+    }
+
+  @Test
+  public void testCopySharedModified() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+    JsonNode original = value.deepCopy();
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    CopySpec spec = new CopySpec()
+      .fromExclude( "/person", "/measure/value" )
+      .fromTransform( "/person", "/measures/*/value", JSONPrimitiveTransforms.TO_STRING );
+
+    new JSONCopier( CopyMode.SHARED, spec ).copy( value, result );
+
+    assertEquals( original, value );
+    assertFalse( result.get( "measure" ).has( "value" ) );
+    assertEquals( "1000", result.get( "measures" ).get( 0 ).get( "value" ).textValue() );
+    }
+
   @Test
   public void testCopyIncludeDescent() throws Exception
     {
@@ -456,5 +593,207 @@ public class CopyTest
 
     assertNotNull( result );
     assertEquals( "value3", result.get( "name" ).textValue() );
+
+    // the arguments remain set
+    copier.copy( value, result );
+
+    assertEquals( "value3", result.get( "name" ).textValue() );
+
+    // per call arguments leave the transform unchanged
+    copier.copyWith( Collections.singletonMap( "set-text", "value4" ), value, result );
+
+    assertEquals( "value4", result.get( "name" ).textValue() );
+
+    copier.copy( value, result );
+
+    assertEquals( "value3", result.get( "name" ).textValue() );
+    }
+
+  @Test
+  public void testResettableTransformConcurrent() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+
+    JSONSetTextTransform transform = new JSONSetTextTransform( "set-text", "value1" );
+
+    CopySpec spec = new CopySpec()
+      .fromTransform( "/person", "/name", transform );
+
+    JSONCopier copier = new JSONCopier( spec );
+
+    List<Integer> indexes = new ArrayList<>();
+
+    for( int i = 0; i < 1000; i++ )
+      indexes.add( i );
+
+    indexes.parallelStream().forEach( i ->
+    {
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    copier.copyWith( Collections.singletonMap( "set-text", "value-" + i ), value, result );
+
+    assertEquals( "value-" + i, result.get( "name" ).textValue() );
+    } );
+
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    copier.copyWith( null, value, result );
+
+    assertEquals( "value1", result.get( "name" ).textValue() );
+    assertTrue( transform.toString().contains( "replace='null'" ) );
+    }
+
+  @Test
+  public void testCopyAll() throws Exception
+    {
+    List<JsonNode> values = new ArrayList<>();
+
+    for( int i = 0; i < 1000; i++ )
+      {
+      ObjectNode value = (ObjectNode) mapper.readTree( JSONData.nested );
+
+      ( (ObjectNode) value.get( "person" ) ).put( "age", i );
+
+      values.add( value );
+      }
+
+    CopySpec spec = new CopySpec()
+      .fromInclude( "/person", "/name", "/age", "/measures/*/value" )
+      .exclude( "/measures/0" );
+
+    JSONCopier copier = new JSONCopier( spec );
+
+    ForkJoinPool pool = new ForkJoinPool( 4 );
+
+    try
+      {
+      List<JsonNode> results = copier.copyAll( pool, values );
+
+      assertEquals( values.size(), results.size() );
+
+      for( int i = 0; i < values.size(); i++ )
+        {
+        ObjectNode expected = JsonNodeFactory.instance.objectNode();
+
+        copier.copy( values.get( i ), expected );
+
+        assertEquals( expected, results.get( i ) );
+        assertEquals( i, results.get( i ).get( "age" ).intValue() );
+        }
+      }
+    finally
+      {
+      pool.shutdown();
+      }
+
+    assertTrue( copier.copyAll( Collections.emptyList() ).isEmpty() );
+    }
+
+  @Test
+  public void testCopyPlan() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+
+    CopySpec spec = new CopySpec()
+      .fromInclude( "/person", "/name", "/measures/*/value", "/arrays/*" )
+      .exclude( "/measures/0" )
+      .transform( "/measures/*/value", JSONPrimitiveTransforms.TO_FLOAT );
+
+    CopyPlan<JsonNode> plan = new CopyPlan<>( JSONNestedPointerCompiler.COMPILER, spec );
+
+    ObjectNode expected = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( spec ).copy( value, expected );
+
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( CopyMode.SHARED, plan ).copy( value, result );
+
+    assertEquals( expected, result );
+    assertEquals( FloatNode.class, result.get( "measures" ).get( 0 ).get( "value" ).getClass() );
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+      {
+      out.writeObject( new JSONCopier( CopyMode.DEEP, plan ) );
+      }
+
+    JSONCopier copier;
+
+    try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+      {
+      copier = (JSONCopier) in.readObject();
+      }
+
+    result = JsonNodeFactory.instance.objectNode();
+
+    copier.copy( value, result );
+
+    assertEquals( expected, result );
+    assertEquals( 1, copier.getPlan().getCopySpecs().size() );
+    }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCopyPlanInvalid()
+    {
+    new CopyPlan<>( JSONNestedPointerCompiler.COMPILER, new CopySpec().include( "person" ) );
+    }
+
+  @Test
+  public void testCopyExcludePushDown() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+    String[] excludes = {"/ssn", "/measure/value", "/measures/0/value", "/measures/1", "/arrays/0/1", "/arrays/*/0", "/*/zeroValue"};
+
+    ObjectNode expected = (ObjectNode) value.get( "person" ).deepCopy();
+
+    for( String exclude : excludes )
+      JSONNestedPointerCompiler.COMPILER.nested( exclude ).remove( expected );
+
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( new CopySpec().fromExclude( "/person", excludes ) ).copy( value, result );
+
+    assertEquals( expected, result );
+    assertEquals( mapper.readTree( JSONData.nested ), value );
+
+    expected = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( new CopySpec().fromInclude( "/person", "/measures/*" ) ).copy( value, expected );
+    JSONNestedPointerCompiler.COMPILER.nested( "/measures/*/value" ).remove( expected );
+
+    result = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( new CopySpec().fromInclude( "/person", "/measures/*" ).fromExclude( "/person", "/measures/*/value" ) ).copy( value, result );
+
+    assertEquals( expected, result );
+    assertEquals( 0, result.get( "measures" ).get( 0 ).size() );
+    }
+
+  @Test
+  public void testCopyIncludeMerge() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+
+    ObjectNode expected = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( new CopySpec().include( "/person" ) ).copy( value, expected );
+
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( new CopySpec().include( "/person/measure", "/person", "/person/measure/value" ) ).copy( value, result );
+
+    assertEquals( expected, result );
+
+    // a filtered include does not copy the includes below it
+    result = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( new CopySpec()
+      .include( "/person", new JSONStringPointerFilter( "/name", "Jane Doe" ) )
+      .include( "/person/age" ) ).copy( value, result );
+
+    assertEquals( 1, result.get( "person" ).size() );
+    assertEquals( 50, result.get( "person" ).get( "age" ).intValue() );
     }
   }
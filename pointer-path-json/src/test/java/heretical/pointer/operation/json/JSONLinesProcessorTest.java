@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.operation.CopySpec;
+import heretical.pointer.path.json.JSONData;
+import heretical.pointer.path.json.JSONPrimitiveTransforms;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONLinesProcessorTest
+  {
+  ObjectMapper mapper = new ObjectMapper();
+
+  CopySpec spec = new CopySpec()
+    .include( "/age", "/person/name", "/people/*/person/lastName" )
+    .transform( "/age", JSONPrimitiveTransforms.TO_STRING );
+
+  @Test
+  public void testProcess() throws Exception
+    {
+    String lines = lines( 100 );
+    JSONLinesProcessor processor = new JSONLinesProcessor( spec );
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    JSONLinesProcessor.Stats stats = processor.process( new ByteArrayInputStream( lines.getBytes( StandardCharsets.UTF_8 ) ), output );
+
+    assertEquals( expected( lines ), output.toString( "UTF-8" ) );
+    assertEquals( 100, stats.getRecords() );
+    assertEquals( lines.length(), stats.getBytes() );
+    assertTrue( stats.getRecordsPerSecond() > 0 );
+    }
+
+  @Test
+  public void testProcessParallel() throws Exception
+    {
+    String lines = lines( 1000 );
+    ForkJoinPool pool = new ForkJoinPool( 4 );
+
+    try
+      {
+      // smaller than most lines, so lines are read into a grown buffer
+      for( int chunkSize : new int[]{16, 1024, JSONLinesProcessor.DEFAULT_CHUNK_SIZE} )
+        {
+        JSONLinesProcessor processor = new JSONLinesProcessor( mapper, new JSONCopier( spec ), chunkSize );
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        JSONLinesProcessor.Stats stats = processor.process( pool, new ByteArrayInputStream( lines.getBytes( StandardCharsets.UTF_8 ) ), output );
+
+        assertEquals( "chunkSize: " + chunkSize, expected( lines ), output.toString( "UTF-8" ) );
+        assertEquals( 1000, stats.getRecords() );
+        assertEquals( lines.length(), stats.getBytes() );
+        }
+      }
+    finally
+      {
+      pool.shutdown();
+      }
+    }
+
+  @Test
+  public void testProcessPath() throws Exception
+    {
+    Path directory = Files.createTempDirectory( "lines" );
+    Path input = directory.resolve( "input.json" );
+    Path output = directory.resolve( "output.json" );
+    String lines = lines( 10 ).replace( "\n", "\r\n" ) + "\n";
+
+    try
+      {
+      Files.write( input, lines.getBytes( StandardCharsets.UTF_8 ) );
+
+      new JSONLinesProcessor( spec ).process( input, output );
+
+      assertEquals( expected( lines ), new String( Files.readAllBytes( output ), StandardCharsets.UTF_8 ) );
+
+      JSONLinesProcessor.Stats stats = new JSONLinesProcessor( spec ).process( ForkJoinPool.commonPool(), input, output );
+
+      assertEquals( expected( lines ), new String( Files.readAllBytes( output ), StandardCharsets.UTF_8 ) );
+      assertEquals( 10, stats.getRecords() );
+      }
+    finally
+      {
+      Files.deleteIfExists( input );
+      Files.deleteIfExists( output );
+      Files.delete( directory );
+      }
+    }
+
+  @Test(expected = com.fasterxml.jackson.core.JsonParseException.class)
+  public void testProcessParallelFailure() throws Exception
+    {
+    String lines = lines( 10 ) + "{\"broken\":\n";
+
+    new JSONLinesProcessor( mapper, new JSONCopier( spec ), 64 )
+      .process( ForkJoinPool.commonPool(), new ByteArrayInputStream( lines.getBytes( StandardCharsets.UTF_8 ) ), new ByteArrayOutputStream() );
+    }
+
+  private static String lines( int count )
+    {
+    String[] records = {JSONData.objects[ 0 ], JSONData.objects[ 1 ], JSONData.simple, JSONData.people};
+    StringBuilder builder = new StringBuilder();
+
+    for( int i = 0; i < count; i++ )
+      builder.append( records[ i % records.length ].replace( "\n", " " ) ).append( '\n' );
+
+    return builder.toString();
+    }
+
+  private String expected( String lines ) throws Exception
+    {
+    JSONCopier copier = new JSONCopier( spec );
+    StringBuilder builder = new StringBuilder();
+
+    for( String line : lines.split( "\r?\n" ) )
+      {
+      JsonNode record = mapper.readTree( line );
+      ObjectNode result = JsonNodeFactory.instance.objectNode();
+
+      copier.copy( record, result );
+
+      builder.append( mapper.writeValueAsString( result ) ).append( '\n' );
+      }
+
+    return builder.toString();
+    }
+  }
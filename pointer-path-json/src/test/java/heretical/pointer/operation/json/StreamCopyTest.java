@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.operation.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.operation.CopySpec;
+import heretical.pointer.operation.json.filter.JSONBooleanPointerFilter;
+import heretical.pointer.operation.json.filter.JSONStringPointerFilter;
+import heretical.pointer.path.json.JSONData;
+import heretical.pointer.path.json.JSONFormat;
+import heretical.pointer.path.json.JSONPrimitiveTransforms;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class StreamCopyTest
+  {
+  ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void testCopy() throws Exception
+    {
+    assertCopy( JSONData.nested, new CopySpec().from( "/person" ) );
+    assertCopy( JSONData.nested, new CopySpec( "/result/inner" ).from( "/person" ) );
+    assertCopy( JSONData.nested, new CopySpec().from( "/person/missing" ) );
+    }
+
+  @Test
+  public void testCopyPredicate() throws Exception
+    {
+    assertCopy( JSONData.nested, new CopySpec().from( "/person", new JSONStringPointerFilter( "/name", "John Doe" ) ) );
+    assertCopy( JSONData.nested, new CopySpec().from( "/person", new JSONStringPointerFilter( "/name", "John Doe" ).negate() ) );
+    assertCopy( JSONData.people, new CopySpec().from( "/people/0", new JSONBooleanPointerFilter( "/person/female", false ) ) );
+    assertCopy( JSONData.people, new CopySpec().from( "/people/1", new JSONBooleanPointerFilter( "/person/female", false ) ) );
+    }
+
+  @Test
+  public void testCopyInclude() throws Exception
+    {
+    assertCopy( JSONData.nested, new CopySpec().include( "/person/firstName", "/person/age" ) );
+    assertCopy( JSONData.nested, new CopySpec().include( "/person/firstName" ).include( "/*/age" ) );
+    assertCopy( JSONData.nested, new CopySpec().include( "/person/measures/*/value", "/person/firstName" ) );
+    assertCopy( JSONData.nested, new CopySpec().include( "/person/arrays/*/1", "/person/measured" ) );
+    assertCopy( JSONData.nested, new CopySpec().include( "/**/value" ) );
+    assertCopy( JSONData.nested, new CopySpec().fromInclude( "/person", "/firstName", "/age" ) );
+    assertCopy( JSONData.nested, new CopySpec().include( "/person/name", new JSONStringPointerFilter( "John Doe" ) ).include( "/person/age" ) );
+    assertCopy( JSONData.nested, new CopySpec().include( "/person/name", new JSONStringPointerFilter( "Jane Doe" ) ).include( "/person/age" ) );
+    }
+
+  @Test
+  public void testCopyExclude() throws Exception
+    {
+    assertCopy( JSONData.nested, new CopySpec().fromExclude( "/person", "/ssn", "/children" ) );
+    assertCopy( JSONData.nested, new CopySpec().fromExclude( "/person", "/measures/*/value", "/**/zeroValue" ) );
+    assertCopy( JSONData.nested, new CopySpec().include( "/person" ).exclude( "/person/measure", "/person/arrays" ) );
+    }
+
+  @Test
+  public void testCopyTransform() throws Exception
+    {
+    assertCopy( JSONData.nested, new CopySpec().fromTransform( "/person", "/age", JSONPrimitiveTransforms.TO_STRING ) );
+    assertCopy( JSONData.nested, new CopySpec().fromTransform( "/person", "/measured/*", JSONPrimitiveTransforms.TO_STRING ) );
+    assertCopy( JSONData.nested, new CopySpec().fromTransform( "/person", "/**/value", JSONPrimitiveTransforms.TO_DOUBLE ) );
+
+    CopySpec spec = new CopySpec()
+      .fromExclude( "/person", "/measure/value" )
+      .fromTransform( "/person", "/measure", node -> ( (ObjectNode) node ).put( "added", true ) );
+
+    assertCopy( JSONData.nested, spec );
+    }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMultipleFrom()
+    {
+    new JSONStreamCopier( new CopySpec().from( "/person" ).from( "/people" ) );
+    }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWildcardFrom()
+    {
+    new JSONStreamCopier( new CopySpec().from( "/people/*" ) );
+    }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDescentFrom()
+    {
+    new JSONStreamCopier( new CopySpec().from( "/**/person" ) );
+    }
+
+  @Test
+  public void testValues() throws Exception
+    {
+    JSONStreamCopier copier = new JSONStreamCopier( new CopySpec().include( "/age", "/person/age" ) );
+    StringWriter writer = new StringWriter();
+
+    try( JsonParser parser = mapper.getFactory().createParser( String.join( "\n", JSONData.objects ) );
+         JsonGenerator generator = mapper.getFactory().createGenerator( writer ) )
+      {
+      while( parser.nextToken() != null )
+        copier.copy( parser, generator );
+      }
+
+    assertEquals( "{\"age\":50} {\"person\":{\"age\":50}} {\"age\":50} {}", writer.toString() );
+    }
+
+  @Test
+  public void testCopyBinary() throws Exception
+    {
+    JsonNode value = mapper.readTree( JSONData.nested );
+    CopySpec spec = new CopySpec()
+      .fromExclude( "/person", "/measures/*/value" )
+      .fromTransform( "/person", "/age", JSONPrimitiveTransforms.TO_STRING );
+
+    ObjectNode expected = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( spec ).copy( value, expected );
+
+    for( JSONFormat format : new JSONFormat[]{JSONFormat.SMILE, JSONFormat.CBOR} )
+      {
+      ObjectMapper binary = format.getMapper();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+      new JSONStreamCopier( format, spec ).copy( new ByteArrayInputStream( binary.writeValueAsBytes( value ) ), output );
+
+      assertEquals( format.toString(), expected, binary.readTree( output.toByteArray() ) );
+
+      // binary in, text out
+      StringWriter writer = new StringWriter();
+
+      try( JsonParser parser = binary.getFactory().createParser( binary.writeValueAsBytes( value ) );
+           JsonGenerator generator = mapper.getFactory().createGenerator( writer ) )
+        {
+        new JSONStreamCopier( spec ).copy( parser, generator );
+        }
+
+      assertEquals( format.toString(), expected, mapper.readTree( writer.toString() ) );
+      }
+    }
+
+  @Test
+  public void testCopyBinaryValues() throws Exception
+    {
+    byte[] payload = {0, 1, 2, (byte) 0xff};
+    ObjectNode value = JsonNodeFactory.instance.objectNode();
+
+    value.putObject( "record" ).put( "payload", payload ).put( "name", "record" );
+
+    CopySpec spec = new CopySpec().include( "/record/payload" );
+
+    for( JSONFormat format : new JSONFormat[]{JSONFormat.SMILE, JSONFormat.CBOR} )
+      {
+      ObjectMapper binary = format.getMapper();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+      new JSONStreamCopier( format, spec ).copy( new ByteArrayInputStream( binary.writeValueAsBytes( value ) ), output );
+
+      JsonNode result = binary.readTree( output.toByteArray() );
+
+      assertArrayEquals( format.toString(), payload, result.at( "/record/payload" ).binaryValue() );
+      assertTrue( format.toString(), result.at( "/record/name" ).isMissingNode() );
+      }
+    }
+
+  private void assertCopy( String json, CopySpec spec ) throws Exception
+    {
+    JsonNode value = mapper.readTree( json );
+    ObjectNode expected = JsonNodeFactory.instance.objectNode();
+
+    new JSONCopier( spec ).copy( value, expected );
+
+    StringWriter writer = new StringWriter();
+
+    try( JsonParser parser = mapper.getFactory().createParser( json );
+         JsonGenerator generator = mapper.getFactory().createGenerator( writer ) )
+      {
+      new JSONStreamCopier( spec ).copy( parser, generator );
+      }
+
+    // keys are written in source order
+    assertEquals( spec.toString(), expected, mapper.readTree( writer.toString() ) );
+    }
+  }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.KeySummary;
+import heretical.pointer.path.NestedPointer;
+import org.junit.Test;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONKeySummaryTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void testSummary() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    JSONKeySummary summary = new JSONKeySummary( from );
+
+    assertEquals( 12, summary.size() );
+    assertTrue( summary.mayContain( from, "value" ) );
+    assertTrue( summary.mayContain( from.at( "/person/measures" ), "value" ) );
+    assertFalse( summary.mayContain( from.at( "/person/measures" ), "zeroValue" ) );
+    assertFalse( summary.mayContain( from.at( "/person/arrays" ), "value" ) );
+    assertFalse( summary.mayContain( from.at( "/person/name" ), "value" ) );
+    assertTrue( summary.mayContain( mapper.createObjectNode(), "value" ) ); // unknown
+    }
+
+  @Test
+  public void testSameResults() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    JSONKeySummary summary = new JSONKeySummary( from );
+
+    assertSameResults( from, summary, "/**/value" );
+    assertSameResults( from, summary, "/person/**/value" );
+    assertSameResults( from, summary, "/**/zeroValue" );
+    assertSameResults( from, summary, "/**/missing" );
+    assertSameResults( from, summary, "/**/measures/*/value" );
+    assertSameResults( from, summary, "/**/0" );
+    assertSameResults( from, summary, "/**/*" );
+    assertSameResults( from, summary, "/**" );
+    assertSameResults( from, summary, "/person/*/value" );
+    }
+
+  private void assertSameResults( JsonNode from, KeySummary<JsonNode> summary, String path )
+    {
+    NestedPointer<JsonNode, ArrayNode> pointer = COMPILER.nested( path );
+
+    assertEquals( path, pointer.allAt( from ), pointer.allAt( from, summary ) );
+    assertEquals( path, pointer.at( from ), pointer.at( from, summary ) );
+    assertEquals( path, pointer.exists( from ), pointer.exists( from, summary ) );
+
+    List<JsonNode> values = new ArrayList<>();
+
+    pointer.forEachAt( from, summary, values::add );
+
+    List<JsonNode> expected = new ArrayList<>();
+
+    pointer.allAt( from ).forEach( expected::add );
+
+    assertEquals( path, expected, values );
+    }
+
+  @Test
+  public void testPruned() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    JSONKeySummary summary = new JSONKeySummary( from );
+    List<JsonNode> pruned = new ArrayList<>();
+
+    KeySummary<JsonNode> recording = ( node, name ) ->
+    {
+    boolean result = summary.mayContain( node, name );
+
+    if( !result )
+      pruned.add( node );
+
+    return result;
+    };
+
+    ArrayNode values = COMPILER.nested( "/**/zeroValue" ).allAt( from, recording );
+
+    assertEquals( "[0]", values.toString() );
+    assertTrue( pruned.contains( from.at( "/person/measures" ) ) );
+    assertTrue( pruned.contains( from.at( "/person/arrays" ) ) );
+    assertFalse( pruned.contains( from.at( "/person/measures/0" ) ) ); // never reached
+    }
+
+  @Test
+  public void testModified() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    JSONKeySummary summary = new JSONKeySummary( from );
+
+    COMPILER.nested( "/**/value" ).remove( from );
+
+    assertEquals( 0, COMPILER.nested( "/**/value" ).allAt( from, summary ).size() );
+
+    // containers added since the summary was built are always walked
+    ObjectNode added = ( (ObjectNode) from.get( "person" ) ).putObject( "added" );
+
+    added.putObject( "nested" ).put( "value", 1 );
+
+    assertEquals( "[1]", COMPILER.nested( "/person/added/**/value" ).allAt( from, summary ).toString() );
+    }
+  }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import heretical.pointer.path.NestedPointer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONMappedArrayTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  // strings holding the characters the scanner tracks
+  private static String[] elements = new String[]{
+    JSONData.nested,
+    JSONData.people,
+    "{ \"person\":{ \"name\":\"[Jane], {\\\"J\\\"} \\\\\", \"age\":49 } }",
+    "\"a string, with ] and }\"",
+    "[ 1, [ 2, 3 ], { \"age\":4 } ]",
+    "{ \"person\":{ \"name\":\"élève\", \"age\":12 } }",
+    "null",
+    "42"
+  };
+
+  private ForkJoinPool pool;
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException
+    {
+    pool = new ForkJoinPool( 4 );
+    directory = Files.createTempDirectory( "mapped" );
+    }
+
+  @After
+  public void tearDown() throws IOException
+    {
+    pool.shutdown();
+
+    for( Path path : Files.newDirectoryStream( directory ) )
+      Files.delete( path );
+
+    Files.delete( directory );
+    }
+
+  @Test
+  public void testProcess() throws Exception
+    {
+    Path file = write( "array.json", array( 50 ) );
+    JsonNode expected = mapper.readTree( file.toFile() );
+
+    // region sizes smaller than an element, so chunks span regions
+    for( int regionSize : new int[]{7, 100, JSONMappedArray.REGION_SIZE} )
+      {
+      for( int chunkSize : new int[]{1, 256, JSONMappedArray.DEFAULT_CHUNK_SIZE} )
+        {
+        List<JsonNode> results = new ArrayList<>();
+
+        long count = new JSONMappedArray( mapper, file, chunkSize, regionSize ).process( pool, node -> node, results::add );
+
+        assertEquals( regionSize + ":" + chunkSize, expected.size(), count );
+        assertEquals( regionSize + ":" + chunkSize, expected, mapper.valueToTree( results ) );
+        }
+      }
+    }
+
+  @Test
+  public void testAllAt() throws Exception
+    {
+    Path file = write( "array.json", array( 20 ) );
+    JsonNode from = mapper.readTree( file.toFile() );
+
+    for( String path : new String[]{"/person/age", "/**/age", "/people/*/person/name", "/2"} )
+      {
+      NestedPointer<JsonNode, ArrayNode> pointer = COMPILER.nested( path );
+      ArrayNode expected = mapper.createArrayNode();
+
+      for( JsonNode element : from )
+        expected.addAll( pointer.allAt( element ) );
+
+      assertEquals( path, expected, new JSONMappedArray( mapper, file, 128 ).allAt( pool, pointer ) );
+      }
+    }
+
+  @Test
+  public void testEmpty() throws Exception
+    {
+    assertEquals( 0, new JSONMappedArray( write( "empty.json", " [ ] \n" ) ).process( pool, node -> node, node -> fail() ) );
+    }
+
+  @Test
+  public void testNotArray() throws Exception
+    {
+    for( String json : new String[]{"", JSONData.simple, "\"string\"", "[ 1, 2 "} )
+      {
+      try
+        {
+        new JSONMappedArray( write( "invalid.json", json ) ).process( pool, node -> node, node -> {} );
+        fail( "no exception for: " + json );
+        }
+      catch( IOException exception )
+        {
+        // expected
+        }
+      }
+    }
+
+  @Test(expected = com.fasterxml.jackson.core.JsonParseException.class)
+  public void testInvalidElement() throws Exception
+    {
+    new JSONMappedArray( write( "invalid.json", "[ {\"a\":1}, {\"a\" 2} ]" ) ).process( pool, node -> node, node -> {} );
+    }
+
+  private static String array( int count )
+    {
+    StringBuilder builder = new StringBuilder( "\n[\n" );
+
+    for( int i = 0; i < count; i++ )
+      builder.append( i == 0 ? "  " : ",\n  " ).append( elements[ i % elements.length ] );
+
+    return builder.append( "\n]\n" ).toString();
+    }
+
+  private Path write( String name, String json ) throws IOException
+    {
+    return Files.write( directory.resolve( name ), json.getBytes( StandardCharsets.UTF_8 ) );
+    }
+  }
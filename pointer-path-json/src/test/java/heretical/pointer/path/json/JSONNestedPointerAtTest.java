@@ -10,12 +10,13 @@ package heretical.pointer.path.json;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
+import heretical.pointer.path.NestedPointer;
 import org.junit.Test;
 
 import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.*;
 
 /**
  *
@@ -265,4 +266,40 @@ public class JSONNestedPointerAtTest
     assertEquals( "begin", result.get( 0 ).asText() );
     assertEquals( "end", result.get( 1 ).asText() );
     }
+
+  @Test
+  public void testFirstAt() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    assertFirstAt( from, "/person/measures/*/value" );
+    assertFirstAt( from, "/person/**/value" );
+    assertFirstAt( from, "/**/value" );
+    assertFirstAt( from, "/person/arrays/*/*" );
+    assertFirstAt( from, "/**/missing" );
+    }
+
+  private void assertFirstAt( JsonNode from, String path )
+    {
+    NestedPointer<JsonNode, ArrayNode> pointer = COMPILER.nested( path );
+
+    ArrayNode all = pointer.allAt( from );
+
+    assertEquals( path, all.size() == 0 ? null : all.get( 0 ), pointer.at( from ) );
+    assertEquals( path, all.size() != 0, pointer.exists( from ) );
+    }
+
+  @Test
+  public void testExists() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    assertTrue( COMPILER.nested( "/person/measure/value" ).exists( from ) );
+    assertTrue( COMPILER.nested( "/person/empty" ).exists( from ) );
+    assertTrue( COMPILER.nested( "/**/zeroValue" ).exists( from ) );
+    assertTrue( COMPILER.nested( "/person/arrays/*/2" ).exists( from ) );
+    assertFalse( COMPILER.nested( "/person/missing" ).exists( from ) );
+    assertFalse( COMPILER.nested( "/**/missing" ).exists( from ) );
+    assertFalse( COMPILER.nested( "/person/arrays/*/3" ).exists( from ) );
+    }
   }
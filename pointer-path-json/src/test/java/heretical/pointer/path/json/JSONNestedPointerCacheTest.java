@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.PointerCache;
+import heretical.pointer.util.BoundedCache;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONNestedPointerCacheTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void testCached() throws Exception
+    {
+    JSONNestedPointerCompiler compiler = new JSONNestedPointerCompiler();
+    BoundedCache<String, NestedPointer<JsonNode, ArrayNode>> cache = compiler.getNestedCache();
+
+    NestedPointer<JsonNode, ArrayNode> first = compiler.nested( "/person/**/value" );
+    NestedPointer<JsonNode, ArrayNode> second = compiler.nested( "/person/**/value" );
+
+    assertSame( first, second );
+    assertEquals( 1, cache.getMisses() );
+    assertEquals( 1, cache.getHits() );
+    assertEquals( 1, cache.size() );
+
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    assertEquals( 3, second.allAt( from ).size() );
+    }
+
+  @Test
+  public void testEviction()
+    {
+    JSONNestedPointerCompiler compiler = new JSONNestedPointerCompiler( 4 );
+    BoundedCache<String, NestedPointer<JsonNode, ArrayNode>> cache = compiler.getNestedCache();
+
+    NestedPointer<JsonNode, ArrayNode> hot = compiler.nested( "/hot" );
+
+    for( int i = 0; i < 20; i++ )
+      {
+      compiler.nested( "/cold/" + i );
+      compiler.nested( "/hot" );
+      }
+
+    assertEquals( 4, cache.size() );
+    assertEquals( 17, cache.getEvictions() );
+    assertEquals( 21, cache.getMisses() );
+    assertEquals( 20, cache.getHits() );
+    assertSame( hot, compiler.nested( "/hot" ) );
+    }
+
+  @Test
+  public void testChildCache() throws Exception
+    {
+    JSONNestedPointerCompiler compiler = new JSONNestedPointerCompiler( new JSONPointerCompiler( 16, 2 ), 16 );
+    PointerCache<JsonNode> cache = compiler.getPointerCompiler().getChildCache();
+
+    assertSame( cache.child( 1 ), compiler.getPointerCompiler().child( 1 ) );
+    assertNotSame( cache.child( 2 ), cache.child( 2 ) ); // beyond the index table
+
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    compiler.nested( "/person/arrays/*/*" ).apply( from, JSONPrimitiveTransforms.TO_STRING );
+    compiler.nested( "/person/measured/*" ).apply( from, JSONPrimitiveTransforms.TO_STRING );
+
+    assertEquals( 0, cache.getNameCache().getMisses() ); // indices never touch the named cache
+
+    compiler.nested( "/person/*" ).apply( from, Function.identity() );
+    compiler.nested( "/person/*" ).apply( from, Function.identity() );
+
+    assertEquals( 14, cache.getNameCache().getMisses() );
+    assertEquals( 14, cache.getNameCache().getHits() );
+    assertEquals( "1000", from.at( "/person/measured/0" ).textValue() );
+    assertEquals( "Josh2", from.at( "/person/arrays/1/2" ).textValue() );
+
+    Pointer<JsonNode> pointer = cache.child( "age" );
+
+    assertSame( pointer, compiler.getPointerCompiler().child( "age" ) );
+    assertEquals( 50, pointer.at( from.get( "person" ) ).asInt() );
+    }
+  }
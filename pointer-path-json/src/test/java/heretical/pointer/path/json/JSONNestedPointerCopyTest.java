@@ -15,6 +15,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.CopyMode;
 import org.junit.Test;
 
 import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
@@ -234,6 +235,17 @@ public class JSONNestedPointerCopyTest
     assertEquals( "John Doe", into.get( "person" ).get( "name" ).textValue() );
     }
 
+  @Test
+  public void testCopyChildDescentEscaped() throws Exception
+    {
+    JsonNode from = mapper.readTree( "{\"a/b\":{\"c~d\":{\"value\":1},\"other\":2}}" );
+    ObjectNode into = JsonNodeFactory.instance.objectNode();
+
+    COMPILER.nested( "/**/value" ).copy( from, into );
+
+    assertEquals( "{\"a/b\":{\"c~d\":{\"value\":1}}}", into.toString() );
+    }
+
   @Test
   public void testCopyChildDescent2() throws Exception
     {
@@ -361,4 +373,31 @@ public class JSONNestedPointerCopyTest
     assertEquals( 2000, into.get( "person" ).get( "measures" ).get( 1 ).get( "value" ).intValue() );
     assertTrue( into.has( "empty" ) );
     }
+
+  @Test
+  public void testCopyShared() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    for( String path : new String[]{"/person/measures", "/person/*", "/**/measures", "/person/arrays/*"} )
+      {
+      ObjectNode deep = JsonNodeFactory.instance.objectNode();
+      ObjectNode shared = JsonNodeFactory.instance.objectNode();
+
+      COMPILER.nested( path ).copy( from, deep, null, CopyMode.DEEP );
+      COMPILER.nested( path ).copy( from, shared, null, CopyMode.SHARED );
+
+      assertEquals( path, deep, shared );
+      }
+
+    ObjectNode deep = JsonNodeFactory.instance.objectNode();
+    ObjectNode shared = JsonNodeFactory.instance.objectNode();
+
+    COMPILER.nested( "/person/*" ).copy( from, deep );
+    COMPILER.nested( "/person/*" ).copy( from, shared, null, CopyMode.SHARED );
+
+    assertNotSame( from.get( "person" ).get( "measures" ), deep.get( "person" ).get( "measures" ) );
+    assertSame( from.get( "person" ).get( "measures" ), shared.get( "person" ).get( "measures" ) );
+    assertNotSame( from.get( "person" ), shared.get( "person" ) );
+    }
   }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.PointerCompiler;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONNestedPointerDescentTest
+  {
+  private static final int DEPTH = 100_000;
+
+  private static JSONNestedPointerCompiler compiler( int maxDescentDepth )
+    {
+    return new JSONNestedPointerCompiler( new JSONPointerCompiler( 16, 16, maxDescentDepth ), 16 );
+    }
+
+  /**
+   * Returns {"value":0,"next":{"value":1,"next":{... "next":[{"value":depth - 1}]}}}, holding depth values,
+   * the deepest of which is depth + 2 levels below the root.
+   */
+  private static ObjectNode deep( int depth )
+    {
+    ObjectNode root = JsonNodeFactory.instance.objectNode();
+    ObjectNode current = root;
+
+    for( int i = 0; i < depth - 1; i++ )
+      {
+      current.put( "value", i );
+      current = current.putObject( "next" );
+      }
+
+    current.putArray( "next" ).addObject().put( "value", depth - 1 );
+
+    return root;
+    }
+
+  @Test
+  public void testDeepAllAt()
+    {
+    JSONNestedPointerCompiler compiler = compiler( DEPTH * 2 );
+    ObjectNode from = deep( DEPTH );
+
+    ArrayNode values = compiler.nested( "/**/value" ).allAt( from );
+
+    assertEquals( DEPTH, values.size() );
+    assertEquals( 0, values.get( 0 ).asInt() );
+    assertEquals( DEPTH - 1, values.get( DEPTH - 1 ).asInt() );
+    }
+
+  @Test
+  public void testDeepVisitAt()
+    {
+    JSONNestedPointerCompiler compiler = compiler( DEPTH * 2 );
+    ObjectNode from = deep( DEPTH );
+    List<Integer> depths = new ArrayList<>();
+
+    boolean completed = compiler.nested( "/**/value" ).visitAt( from, ( path, value ) ->
+    {
+    depths.add( path.segments().length );
+    return depths.size() < 10;
+    } );
+
+    assertFalse( completed );
+    assertEquals( 10, depths.size() );
+    assertEquals( 1, (int) depths.get( 0 ) );
+    assertEquals( 10, (int) depths.get( 9 ) );
+    }
+
+  @Test
+  public void testDeepSetAndRemove()
+    {
+    JSONNestedPointerCompiler compiler = compiler( DEPTH * 2 );
+    ObjectNode from = deep( DEPTH );
+
+    compiler.nested( "/**/value" ).apply( from, node -> TextNode.valueOf( node.asText() ) );
+
+    assertEquals( "0", from.get( "value" ).textValue() );
+    assertEquals( Integer.toString( DEPTH - 1 ), compiler.nested( "/**/value" ).allAt( from ).get( DEPTH - 1 ).textValue() );
+
+    ArrayNode removed = compiler.nested( "/**/value" ).remove( from );
+
+    assertEquals( DEPTH, removed.size() );
+    assertEquals( 0, compiler.nested( "/**/value" ).allAt( from ).size() );
+    }
+
+  @Test
+  public void testDeepCopy()
+    {
+    JSONNestedPointerCompiler compiler = compiler( DEPTH * 2 );
+    ObjectNode from = deep( 1_000 );
+    ObjectNode into = JsonNodeFactory.instance.objectNode();
+
+    compiler.nested( "/**/value" ).copy( from, into );
+
+    assertEquals( from, into );
+    }
+
+  @Test
+  public void testDescentValues()
+    {
+    JSONNestedPointerCompiler compiler = compiler( 16 );
+    ObjectNode from = deep( 3 );
+
+    assertEquals( "[{\"value\":0,\"next\":{\"value\":1,\"next\":{\"next\":[{\"value\":2}]}}},0,{\"value\":1,\"next\":{\"next\":[{\"value\":2}]}},1,{\"next\":[{\"value\":2}]},[{\"value\":2}],{\"value\":2},2]", compiler.nested( "/**" ).allAt( from ).toString() );
+    assertEquals( "[0,{\"value\":1,\"next\":{\"next\":[{\"value\":2}]}},1,{\"next\":[{\"value\":2}]},[{\"value\":2}],{\"value\":2},2]", compiler.nested( "/**/*" ).allAt( from ).toString() );
+    assertEquals( "[0,1,2,1,2,2,2,2]", compiler.nested( "/**/**/value" ).allAt( from ).toString() );
+    }
+
+  @Test
+  public void testMaxDescentDepth()
+    {
+    ObjectNode from = deep( 10 );
+
+    assertEquals( PointerCompiler.DEFAULT_MAX_DESCENT_DEPTH, new JSONPointerCompiler().maxDescentDepth() );
+    assertEquals( 10, compiler( 12 ).nested( "/**/value" ).allAt( from ).size() );
+
+    NestedPointer<JsonNode, ArrayNode> pointer = compiler( 11 ).nested( "/**/value" );
+
+    try
+      {
+      pointer.allAt( from );
+      fail( "should fail" );
+      }
+    catch( IllegalStateException exception )
+      {
+      // ignore
+      }
+
+    try
+      {
+      pointer.visitAt( from, ( path, value ) -> true );
+      fail( "should fail" );
+      }
+    catch( IllegalStateException exception )
+      {
+      assertTrue( exception.getMessage(), exception.getMessage().contains( "/next/next" ) );
+      }
+
+    try
+      {
+      pointer.apply( from, node -> node );
+      fail( "should fail" );
+      }
+    catch( IllegalStateException exception )
+      {
+      // ignore
+      }
+    }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMaxDescentDepthInvalid()
+    {
+    new JSONPointerCompiler( 16, 16, 0 );
+    }
+  }
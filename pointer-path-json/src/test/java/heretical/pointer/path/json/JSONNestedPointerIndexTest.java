@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.DocumentIndex;
+import heretical.pointer.path.NestedPointer;
+import org.junit.Test;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONNestedPointerIndexTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  private static final String[] PATHS = {
+    "/person/name",
+    "/person/measures/1/value",
+    "/person/measures/*/value",
+    "/person/arrays/*/1",
+    "/person/**/value",
+    "/**/value",
+    "/*/age",
+    "/person/missing/*",
+    "/person/missing",
+    "/person/name/missing",
+    "/person/measured/5"
+  };
+
+  @Test
+  public void testSameResults() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    DocumentIndex<JsonNode> index = COMPILER.index( from );
+
+    for( int i = 0; i < 2; i++ )
+      {
+      for( String path : PATHS )
+        {
+        NestedPointer<JsonNode, ArrayNode> pointer = COMPILER.nested( path );
+
+        assertEquals( path, pointer.allAt( from ), pointer.allAt( index ) );
+        assertEquals( path, pointer.at( from ), pointer.at( index ) );
+        }
+      }
+
+    // person, name, name/missing, measures, measures/1, measures/1/value, arrays, missing, measured, measured/5
+    assertEquals( 10, index.size() );
+    assertSame( from.get( "person" ), index.parentAt( COMPILER.compile( "/person/name" ) ) );
+    }
+
+  @Test
+  public void testRemoveArrayElement() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    DocumentIndex<JsonNode> index = COMPILER.index( from );
+
+    assertEquals( 2000, COMPILER.nested( "/person/measures/1/value" ).at( index ).asInt() );
+
+    ArrayNode removed = COMPILER.nested( "/person/measures/0" ).remove( index );
+
+    assertEquals( "[{\"value\":1000}]", removed.toString() );
+    assertEquals( 2000, COMPILER.nested( "/person/measures/0/value" ).at( index ).asInt() );
+    assertNull( COMPILER.nested( "/person/measures/1/value" ).at( index ) );
+    assertEquals( 50, COMPILER.nested( "/person/age" ).at( index ).asInt() );
+    }
+
+  @Test
+  public void testRemoveNested() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    DocumentIndex<JsonNode> index = COMPILER.index( from );
+
+    assertEquals( 1000, COMPILER.nested( "/person/measures/0/value" ).at( index ).asInt() );
+
+    ArrayNode removed = COMPILER.nested( "/person/measures/*/value" ).remove( index );
+
+    assertEquals( "[1000,2000]", removed.toString() );
+    assertNull( COMPILER.nested( "/person/measures/0/value" ).at( index ) );
+    assertEquals( "[{},{}]", COMPILER.nested( "/person/measures" ).at( index ).toString() );
+
+    COMPILER.nested( "/person/measures/**" ).remove( index );
+
+    assertNull( COMPILER.nested( "/person/measures" ).at( index ) );
+    assertEquals( "[1000,2000]", COMPILER.nested( "/person/measured" ).at( index ).toString() );
+    }
+
+  @Test
+  public void testApply() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    DocumentIndex<JsonNode> index = COMPILER.index( from );
+
+    assertTrue( COMPILER.nested( "/person/age" ).at( index ).isInt() );
+    assertTrue( COMPILER.nested( "/person/measures/0/value" ).at( index ).isInt() );
+
+    COMPILER.nested( "/person/age" ).apply( index, JSONPrimitiveTransforms.TO_STRING );
+    COMPILER.nested( "/person/**/value" ).apply( index, JSONPrimitiveTransforms.TO_STRING );
+
+    assertEquals( "50", COMPILER.nested( "/person/age" ).at( index ).textValue() );
+    assertEquals( "1000", COMPILER.nested( "/person/measures/0/value" ).at( index ).textValue() );
+    assertEquals( "100", from.at( "/person/measure/value" ).textValue() );
+    }
+
+  @Test
+  public void testInvalidate() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    DocumentIndex<JsonNode> index = COMPILER.index( from );
+
+    assertNull( COMPILER.nested( "/person/added/value" ).at( index ) );
+
+    ( (ObjectNode) from.get( "person" ) ).putObject( "added" ).put( "value", 1 );
+
+    assertNull( COMPILER.nested( "/person/added/value" ).at( index ) ); // stale
+
+    index.invalidate( COMPILER.compile( "/person/added" ) );
+
+    assertEquals( 1, COMPILER.nested( "/person/added/value" ).at( index ).asInt() );
+
+    index.clear();
+
+    assertEquals( 0, index.size() );
+    assertEquals( 1, COMPILER.nested( "/person/added/value" ).at( index ).asInt() );
+    }
+  }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import heretical.pointer.path.NestedPointer;
+import org.junit.Test;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONNestedPointerVisitTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void testForEachAt() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    assertForEachAt( from, "/person/measures/*/value" );
+    assertForEachAt( from, "/person/**/value" );
+    assertForEachAt( from, "/person/arrays/*/*" );
+    assertForEachAt( from, "/person/measure/value" );
+    assertForEachAt( from, "/person/missing" );
+    }
+
+  private void assertForEachAt( JsonNode from, String path )
+    {
+    NestedPointer<JsonNode, ArrayNode> pointer = COMPILER.nested( path );
+    List<JsonNode> values = new ArrayList<>();
+
+    pointer.forEachAt( from, values::add );
+
+    List<JsonNode> expected = new ArrayList<>();
+
+    pointer.allAt( from ).forEach( expected::add );
+
+    assertEquals( path, expected, values );
+    }
+
+  @Test
+  public void testVisitAtPaths() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    List<String> paths = new ArrayList<>();
+
+    boolean completed = COMPILER.nested( "/person/**/value" ).visitAt( from, ( path, value ) ->
+    {
+    assertSame( value, path.at( from ) );
+    paths.add( path.toString() );
+    return true;
+    } );
+
+    assertTrue( completed );
+    assertEquals( asList( "/person/measure/value", "/person/measures/0/value", "/person/measures/1/value" ), paths );
+    }
+
+  @Test
+  public void testVisitAtStops() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    List<String> paths = new ArrayList<>();
+
+    boolean completed = COMPILER.nested( "/person/arrays/*/*" ).visitAt( from, ( path, value ) ->
+    {
+    paths.add( path.toString() );
+    return paths.size() < 4;
+    } );
+
+    assertFalse( completed );
+    assertEquals( asList( "/person/arrays/0/0", "/person/arrays/0/1", "/person/arrays/0/2", "/person/arrays/1/0" ), paths );
+    }
+
+  @Test
+  public void testVisitAtAbsolute() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    List<String> paths = new ArrayList<>();
+
+    COMPILER.nested( "/person/measure/value" ).visitAt( from, ( path, value ) -> paths.add( path.toString() ) );
+    COMPILER.nested( "/person/missing" ).visitAt( from, ( path, value ) -> paths.add( path.toString() ) );
+
+    assertEquals( asList( "/person/measure/value" ), paths );
+    }
+  }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.Segment;
+import org.junit.Test;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONPointerSegmentTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void testParse()
+    {
+    assertEquals( 0, Segment.parse( "" ).length );
+
+    assertParse( "/" );
+    assertParse( "/foo" );
+    assertParse( "/foo/" );
+    assertParse( "/foo/bar/0" );
+    assertParse( "/foo/01/-1/2147483647/2147483648" );
+    assertParse( "/a~1b/c~0d/e~f/~" );
+    }
+
+  private void assertParse( String path )
+    {
+    Segment[] segments = Segment.parse( path );
+    JsonPointer expected = JsonPointer.compile( path );
+
+    for( Segment segment : segments )
+      {
+      assertEquals( expected.getMatchingProperty(), segment.getName() );
+      assertEquals( expected.getMatchingIndex(), segment.getIndex() );
+
+      expected = expected.tail();
+      }
+
+    assertTrue( expected.matches() );
+    }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseInvalid()
+    {
+    Segment.parse( "foo" );
+    }
+
+  @Test
+  public void testSegments() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    JSONPointerCompiler compiler = new JSONPointerCompiler();
+
+    Pointer<JsonNode> parent = compiler.compile( "/person/measures" );
+    Pointer<JsonNode> pointer = compiler.append( parent, compiler.compile( new Segment[]{Segment.index( 1 ), Segment.name( "value" )} ) );
+
+    assertEquals( "/person/measures/1/value", pointer.toString() );
+    assertEquals( 2000, pointer.at( from ).intValue() );
+    assertSame( Segment.index( 1 ), pointer.segments()[ 2 ] );
+    }
+
+  @Test
+  public void testEscapedKeys() throws Exception
+    {
+    JsonNode from = mapper.readTree( "{ \"a/b\": { \"c~d\": 1 }, \"e\": 2 }" );
+    ObjectNode into = JsonNodeFactory.instance.objectNode();
+
+    COMPILER.nested( "/*/*" ).copy( from, into );
+
+    assertEquals( 1, into.get( "a/b" ).get( "c~d" ).intValue() );
+    assertEquals( 1, COMPILER.nested( "/a~1b/c~0d" ).at( into ).intValue() );
+    assertEquals( "/a~1b", COMPILER.compile( "" ).toString() + Segment.name( "a/b" ) );
+    }
+  }
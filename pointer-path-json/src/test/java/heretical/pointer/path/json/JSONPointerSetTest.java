@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import heretical.pointer.path.NestedPointerSet;
+import org.junit.Test;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONPointerSetTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  private static String[] pointers = new String[]{
+    "/person/measure/value",
+    "/person/measures/*/value",
+    "/person/*/value",
+    "/person/**/value",
+    "/**/value",
+    "/person/arrays/*/*",
+    "/person/arrays/1/*",
+    "/person/arrays/*/0",
+    "/person/0",
+    "/person/missing",
+    "/*/children",
+    "/*",
+    "/**",
+    "",
+    "/empty",
+    "/person/empty"
+  };
+
+  @Test
+  public void testAllAt() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    List<ArrayNode> results = COMPILER.nestedSet( pointers ).allAt( from );
+
+    assertEquals( pointers.length, results.size() );
+
+    for( int i = 0; i < pointers.length; i++ )
+      assertEquals( pointers[ i ], sorted( COMPILER.nested( pointers[ i ] ).allAt( from ) ), sorted( results.get( i ) ) );
+    }
+
+  @Test
+  public void testAllAtArray() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nestedArray );
+
+    String[] pointers = {"/0/annotations/**/name", "/*/annotations/*/value", "/0/annotations/1/name", "/**/name"};
+
+    List<ArrayNode> results = COMPILER.nestedSet( pointers ).allAt( from );
+
+    for( int i = 0; i < pointers.length; i++ )
+      assertEquals( pointers[ i ], COMPILER.nested( pointers[ i ] ).allAt( from ), results.get( i ) );
+    }
+
+  @Test
+  public void testVisitAt() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    List<String> matches = new ArrayList<>();
+
+    NestedPointerSet<JsonNode, ArrayNode> set = COMPILER.nestedSet( "/person/measures/*/value", "/person/measure/value", "/person/*/value" );
+
+    boolean completed = set.visitAt( from, ( index, path, value ) ->
+    {
+    assertSame( value, path.at( from ) );
+    matches.add( index + ":" + path );
+    return true;
+    } );
+
+    assertTrue( completed );
+    assertEquals( asList( "1:/person/measure/value", "2:/person/measure/value", "0:/person/measures/0/value", "0:/person/measures/1/value" ), matches );
+    }
+
+  @Test
+  public void testVisitAtStops() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    List<String> matches = new ArrayList<>();
+
+    boolean completed = COMPILER.nestedSet( "/person/arrays/*/*" ).visitAt( from, ( index, path, value ) ->
+    {
+    matches.add( path.toString() );
+    return matches.size() < 2;
+    } );
+
+    assertFalse( completed );
+    assertEquals( asList( "/person/arrays/0/0", "/person/arrays/0/1" ), matches );
+    }
+
+  @Test
+  public void testStates() throws Exception
+    {
+    NestedPointerSet<JsonNode, ArrayNode> set = COMPILER.nestedSet( "/person/name", "/person/*/value", "/**/ssn" );
+
+    NestedPointerSet<JsonNode, ArrayNode>.State start = set.start();
+
+    assertFalse( start.isExplicit() );
+    assertFalse( start.isMatch() );
+
+    NestedPointerSet<JsonNode, ArrayNode>.State person = start.name( "person" );
+
+    assertSame( person, start.name( "person" ) );
+    assertTrue( person.name( "name" ).isMatch() );
+    assertEquals( 0, person.name( "name" ).getMatch( 0 ) );
+    assertTrue( person.name( "ssn" ).isMatch() );
+    assertEquals( 2, person.name( "ssn" ).getMatch( 0 ) );
+    assertTrue( person.name( "measure" ).name( "value" ).isMatch() );
+
+    assertSame( start.name( "other" ), start.name( "another" ) );
+    assertSame( start.name( "other" ), start.name( "other" ).index( 0 ) );
+    assertFalse( start.name( "other" ).isDead() );
+
+    NestedPointerSet<JsonNode, ArrayNode>.State explicit = COMPILER.nestedSet( "/person/name", "/person/age" ).start();
+
+    assertTrue( explicit.isExplicit() );
+    assertTrue( explicit.name( "other" ).isDead() );
+    assertTrue( explicit.name( "person" ).name( "age" ).isFinal() );
+    }
+
+  @Test
+  public void testSerialize() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    NestedPointerSet<JsonNode, ArrayNode> set = COMPILER.nestedSet( pointers );
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+      {
+      out.writeObject( set );
+      }
+
+    NestedPointerSet<JsonNode, ArrayNode> result;
+
+    try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+      {
+      result = (NestedPointerSet<JsonNode, ArrayNode>) in.readObject();
+      }
+
+    assertEquals( set.getPointers(), result.getPointers() );
+    assertEquals( set.allAt( from ), result.allAt( from ) );
+    }
+
+  private static List<String> sorted( ArrayNode node )
+    {
+    List<String> result = new ArrayList<>();
+
+    node.forEach( value -> result.add( value.toString() ) );
+
+    result.sort( String::compareTo );
+
+    return result;
+    }
+  }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.json;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.Test;
+
+import static heretical.pointer.path.json.JSONNestedPointerCompiler.COMPILER;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class JSONStreamEvaluatorTest
+  {
+  private static ObjectMapper mapper = new ObjectMapper();
+
+  private static String[] pointers = new String[]{
+    "/person/measure/value",
+    "/person/measures/*/value",
+    "/person/*/value",
+    "/person/**/value",
+    "/**/value",
+    "/person/arrays/*/*",
+    "/person/arrays/1",
+    "/person/arrays/1/2",
+    "/person/missing",
+    "/*/children",
+    "/*",
+    "",
+    "/empty",
+    "/person/empty"
+  };
+
+  @Test
+  public void testAllAt() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+
+    List<ArrayNode> expected = COMPILER.nestedSet( pointers ).allAt( from );
+    List<ArrayNode> results = new JSONStreamEvaluator( pointers ).allAt( stream( JSONData.nested ) );
+
+    for( int i = 0; i < pointers.length; i++ )
+      assertEquals( pointers[ i ], expected.get( i ), results.get( i ) );
+    }
+
+  @Test
+  public void testAllAtArray() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nestedArray );
+    String[] pointers = {"/0/annotations/**/name", "/*/annotations/*/value", "/0/annotations/1/name"};
+
+    List<ArrayNode> results = new JSONStreamEvaluator( pointers ).allAt( stream( JSONData.nestedArray ) );
+
+    for( int i = 0; i < pointers.length; i++ )
+      assertEquals( pointers[ i ], COMPILER.nested( pointers[ i ] ).allAt( from ), results.get( i ) );
+    }
+
+  @Test
+  public void testAllAtBinary() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    List<ArrayNode> expected = COMPILER.nestedSet( pointers ).allAt( from );
+
+    for( JSONFormat format : new JSONFormat[]{JSONFormat.SMILE, JSONFormat.CBOR} )
+      {
+      byte[] bytes = format.getMapper().writeValueAsBytes( from );
+      List<ArrayNode> results = new JSONStreamEvaluator( format, pointers ).allAt( new ByteArrayInputStream( bytes ) );
+
+      for( int i = 0; i < pointers.length; i++ )
+        assertEquals( format + ":" + pointers[ i ], expected.get( i ), results.get( i ) );
+      }
+    }
+
+  @Test
+  public void testAt() throws Exception
+    {
+    JSONStreamEvaluator evaluator = new JSONStreamEvaluator( "/person/measures/*/value" );
+
+    try( JsonParser parser = mapper.getFactory().createParser( JSONData.nested ) )
+      {
+      assertEquals( 1000, evaluator.at( parser ).intValue() );
+      }
+
+    try( JsonParser parser = mapper.getFactory().createParser( JSONData.nested ) )
+      {
+      assertNull( new JSONStreamEvaluator( "/person/missing" ).at( parser ) );
+      }
+    }
+
+  @Test
+  public void testVisitAt() throws Exception
+    {
+    JsonNode from = mapper.readTree( JSONData.nested );
+    List<String> paths = new ArrayList<>();
+
+    JSONStreamEvaluator evaluator = new JSONStreamEvaluator( "/person/**/value", "/person/arrays/1" );
+
+    try( JsonParser parser = mapper.getFactory().createParser( JSONData.nested ) )
+      {
+      evaluator.visitAt( parser, ( index, path, value ) ->
+      {
+      assertSame( index + ":" + path, path.at( from ).getNodeType(), value.getNodeType() );
+      assertEquals( path.at( from ), value );
+      paths.add( index + ":" + path );
+      return true;
+      } );
+      }
+
+    assertEquals( asList( "0:/person/measure/value", "0:/person/measures/0/value", "0:/person/measures/1/value", "1:/person/arrays/1" ), paths );
+    }
+
+  @Test
+  public void testValues() throws Exception
+    {
+    String lines = JSONData.objects[ 0 ] + "\n" + JSONData.objects[ 1 ] + "\n" + JSONData.objects[ 2 ];
+
+    JSONStreamEvaluator evaluator = new JSONStreamEvaluator( "/**/age" );
+    List<Integer> ages = new ArrayList<>();
+
+    try( JsonParser parser = mapper.getFactory().createParser( lines ) )
+      {
+      while( parser.nextToken() != null )
+        evaluator.forEachAt( parser, ( value, index ) -> ages.add( value.intValue() ) );
+      }
+
+    assertEquals( asList( 50, 50, 50 ), ages );
+    }
+
+  private static ByteArrayInputStream stream( String json )
+    {
+    return new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) );
+    }
+  }
@@ -0,0 +1,564 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.pojo;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Class POJOClass is the accessor table of a Java bean or record class, created once per class, see
+ * {@link #forClass(Class)}.
+ * <p>
+ * The readable properties of a bean are its public getters, {@code getName()} or {@code isName()}, and its public
+ * fields, the properties of a record are its components. Properties are writable through a public setter,
+ * {@code setName(value)}, or a public non final field.
+ * <p>
+ * Public getters and setters of classes visible to this library are called through functions generated by the
+ * {@link LambdaMetafactory}, so reading a property costs about as much as calling the getter directly. Other
+ * accessors, and fields, are called through a {@link MethodHandle}. Reflection is only used when the table is
+ * created.
+ * <p>
+ * Classes in the {@code java.} and {@code javax.} packages, enums, arrays, and classes without readable
+ * properties are values, not beans.
+ * <p>
+ * The table also records the {@link Shape} of the class, so a node is typed by a single lookup rather than
+ * a chain of {@code instanceof} tests, which are slow to fail against interfaces.
+ */
+public final class POJOClass
+  {
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final ClassValue<POJOClass> CLASSES = new ClassValue<POJOClass>()
+    {
+    @Override
+    protected POJOClass computeValue( Class<?> type )
+      {
+      return new POJOClass( type );
+      }
+    };
+
+  /**
+   * Enum Shape is the kind of node an instance of a class is.
+   */
+  enum Shape
+    {
+      Map, List, Collection, Array, Bean, Value
+    }
+
+  /**
+   * Class Property reads, and possibly writes, a single property of a bean.
+   */
+  public static final class Property
+    {
+    private final String name;
+    private final Class<?> type;
+    private final Function<Object, Object> getter;
+    private final BiConsumer<Object, Object> setter;
+
+    Property( String name, Class<?> type, Function<Object, Object> getter, BiConsumer<Object, Object> setter )
+      {
+      this.name = name;
+      this.type = type;
+      this.getter = getter;
+      this.setter = setter;
+      }
+
+    public String getName()
+      {
+      return name;
+      }
+
+    public Class<?> getType()
+      {
+      return type;
+      }
+
+    public boolean isWritable()
+      {
+      return setter != null;
+      }
+
+    public Object get( Object bean )
+      {
+      return getter.apply( bean );
+      }
+
+    /**
+     * Method set writes the given value into the property of the given bean.
+     *
+     * @param bean  of Object
+     * @param value of Object
+     * @throws UnsupportedOperationException if the property is read only
+     * @throws IllegalArgumentException      if the value is null and the property is primitive
+     */
+    public void set( Object bean, Object value )
+      {
+      if( setter == null )
+        throw new UnsupportedOperationException( "property: " + name + ", is not writable on: " + bean.getClass().getName() );
+
+      if( value == null && type.isPrimitive() )
+        throw new IllegalArgumentException( "property: " + name + ", is primitive and may not be null on: " + bean.getClass().getName() );
+
+      setter.accept( bean, value );
+      }
+
+    @Override
+    public String toString()
+      {
+      return name;
+      }
+    }
+
+  private final Class<?> type;
+  private final Shape shape;
+  private final Property[] properties;
+  private final Map<String, Property> names;
+  private final Supplier<Object> constructor;
+
+  /**
+   * Method forClass returns the accessor table of the given class, created on first use.
+   *
+   * @param type of Class
+   * @return POJOClass
+   */
+  public static POJOClass forClass( Class<?> type )
+    {
+    return CLASSES.get( type );
+    }
+
+  private POJOClass( Class<?> type )
+    {
+    this.type = type;
+
+    if( isValueClass( type ) )
+      {
+      this.shape = shape( type );
+      this.properties = new Property[ 0 ];
+      this.names = Collections.emptyMap();
+      this.constructor = null;
+      return;
+      }
+
+    Map<String, Property> properties = isRecord( type ) ? recordProperties( type ) : beanProperties( type );
+
+    this.properties = properties.values().toArray( new Property[ 0 ] );
+    this.names = properties;
+    this.shape = this.properties.length == 0 ? Shape.Value : Shape.Bean;
+    this.constructor = this.properties.length == 0 ? null : constructor( type );
+    }
+
+  private static Shape shape( Class<?> type )
+    {
+    if( Map.class.isAssignableFrom( type ) )
+      return Shape.Map;
+
+    if( java.util.List.class.isAssignableFrom( type ) )
+      return Shape.List;
+
+    if( Collection.class.isAssignableFrom( type ) )
+      return Shape.Collection;
+
+    if( type.isArray() && !type.getComponentType().isPrimitive() )
+      return Shape.Array;
+
+    return Shape.Value;
+    }
+
+  public Class<?> getType()
+    {
+    return type;
+    }
+
+  Shape getShape()
+    {
+    return shape;
+    }
+
+  /**
+   * Method isBean returns true if the class has readable properties, and so is treated as a Map node.
+   *
+   * @return boolean
+   */
+  public boolean isBean()
+    {
+    return properties.length != 0;
+    }
+
+  /**
+   * Method getProperties returns the properties of the class, ordered by name, or in component order for records.
+   * <p>
+   * The array is shared, callers must not modify it.
+   *
+   * @return Property[]
+   */
+  public Property[] getProperties()
+    {
+    return properties;
+    }
+
+  /**
+   * Method getProperty returns the named property, or null if the class has no such readable property.
+   *
+   * @param name of String
+   * @return Property
+   */
+  public Property getProperty( String name )
+    {
+    return names.get( name );
+    }
+
+  /**
+   * Method canCreate returns true if the class has a public no argument constructor.
+   *
+   * @return boolean
+   */
+  public boolean canCreate()
+    {
+    return constructor != null;
+    }
+
+  /**
+   * Method create returns a new instance of the class.
+   *
+   * @return Object
+   * @throws UnsupportedOperationException if the class has no public no argument constructor
+   */
+  public Object create()
+    {
+    if( constructor == null )
+      throw new UnsupportedOperationException( "no public no argument constructor on: " + type.getName() );
+
+    return constructor.get();
+    }
+
+  private static boolean isValueClass( Class<?> type )
+    {
+    if( type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface() )
+      return true;
+
+    if( Map.class.isAssignableFrom( type ) || Collection.class.isAssignableFrom( type ) )
+      return true;
+
+    String name = type.getName();
+
+    return name.startsWith( "java." ) || name.startsWith( "javax." );
+    }
+
+  private static boolean isRecord( Class<?> type )
+    {
+    Class<?> superclass = type.getSuperclass();
+
+    return superclass != null && superclass.getName().equals( "java.lang.Record" );
+    }
+
+  private static Map<String, Property> recordProperties( Class<?> type )
+    {
+    Map<String, Property> properties = new LinkedHashMap<>();
+
+    try
+      {
+      // records are read reflectively, this library is compiled for Java 8
+      Object[] components = (Object[]) Class.class.getMethod( "getRecordComponents" ).invoke( type );
+
+      for( Object component : components )
+        {
+        Method accessor = (Method) component.getClass().getMethod( "getAccessor" ).invoke( component );
+
+        properties.put( accessor.getName(), new Property( accessor.getName(), accessor.getReturnType(), getter( accessor ), null ) );
+        }
+      }
+    catch( ReflectiveOperationException exception )
+      {
+      throw new IllegalStateException( "unable to read record components of: " + type.getName(), exception );
+      }
+
+    return properties;
+    }
+
+  private static Map<String, Property> beanProperties( Class<?> type )
+    {
+    Map<String, Method> getters = new TreeMap<>();
+    Map<String, Method> setters = new TreeMap<>();
+
+    for( Method method : type.getMethods() )
+      {
+      if( Modifier.isStatic( method.getModifiers() ) || method.isBridge() || method.getDeclaringClass() == Object.class )
+        continue;
+
+      String name = method.getName();
+      Class<?> returnType = method.getReturnType();
+      int count = method.getParameterCount();
+
+      if( count == 0 && isAccessor( name, "get" ) && returnType != Void.TYPE )
+        getters.putIfAbsent( property( name, 3 ), method );
+      else if( count == 0 && isAccessor( name, "is" ) && returnType == Boolean.TYPE )
+        getters.putIfAbsent( property( name, 2 ), method );
+      else if( count == 1 && isAccessor( name, "set" ) && returnType == Void.TYPE )
+        setters.putIfAbsent( property( name, 3 ), method );
+      }
+
+    Map<String, Property> properties = new TreeMap<>();
+
+    for( Map.Entry<String, Method> entry : getters.entrySet() )
+      {
+      Method getter = entry.getValue();
+      Method setter = setters.get( entry.getKey() );
+
+      if( setter != null && setter.getParameterTypes()[ 0 ] != getter.getReturnType() )
+        setter = null;
+
+      properties.put( entry.getKey(), new Property( entry.getKey(), getter.getReturnType(), getter( getter ), setter == null ? null : setter( setter ) ) );
+      }
+
+    for( Field field : type.getFields() )
+      {
+      int modifiers = field.getModifiers();
+
+      if( Modifier.isStatic( modifiers ) || properties.containsKey( field.getName() ) )
+        continue;
+
+      try
+        {
+        Function<Object, Object> getter = getter( LOOKUP.unreflectGetter( field ) );
+        BiConsumer<Object, Object> setter = Modifier.isFinal( modifiers ) ? null : setter( LOOKUP.unreflectSetter( field ) );
+
+        properties.put( field.getName(), new Property( field.getName(), field.getType(), getter, setter ) );
+        }
+      catch( IllegalAccessException exception )
+        {
+        // not accessible, not a property
+        }
+      }
+
+    return Collections.unmodifiableMap( new LinkedHashMap<>( properties ) );
+    }
+
+  private static boolean isAccessor( String name, String prefix )
+    {
+    return name.length() > prefix.length() && name.startsWith( prefix ) && Character.isUpperCase( name.charAt( prefix.length() ) );
+    }
+
+  /**
+   * Method property returns the property name of an accessor, following the java beans rules, {@code getURL}
+   * is the {@code URL} property.
+   */
+  private static String property( String method, int prefix )
+    {
+    String name = method.substring( prefix );
+
+    if( name.length() > 1 && Character.isUpperCase( name.charAt( 1 ) ) )
+      return name;
+
+    return Character.toLowerCase( name.charAt( 0 ) ) + name.substring( 1 );
+    }
+
+  private static Function<Object, Object> getter( Method method )
+    {
+    MethodHandle handle = unreflect( method );
+
+    if( isLinkable( method ) )
+      {
+      try
+        {
+        CallSite site = LambdaMetafactory.metafactory(
+          LOOKUP,
+          "apply",
+          MethodType.methodType( Function.class ),
+          MethodType.methodType( Object.class, Object.class ),
+          handle,
+          MethodType.methodType( box( method.getReturnType() ), method.getDeclaringClass() )
+        );
+
+        return (Function<Object, Object>) site.getTarget().invokeExact();
+        }
+      catch( Throwable throwable )
+        {
+        // fall back to the method handle
+        }
+      }
+
+    return getter( handle );
+    }
+
+  private static BiConsumer<Object, Object> setter( Method method )
+    {
+    MethodHandle handle = unreflect( method );
+
+    if( isLinkable( method ) )
+      {
+      try
+        {
+        CallSite site = LambdaMetafactory.metafactory(
+          LOOKUP,
+          "accept",
+          MethodType.methodType( BiConsumer.class ),
+          MethodType.methodType( Void.TYPE, Object.class, Object.class ),
+          handle,
+          MethodType.methodType( Void.TYPE, method.getDeclaringClass(), box( method.getParameterTypes()[ 0 ] ) )
+        );
+
+        return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        }
+      catch( Throwable throwable )
+        {
+        // fall back to the method handle
+        }
+      }
+
+    return setter( handle );
+    }
+
+  private static Function<Object, Object> getter( MethodHandle handle )
+    {
+    MethodHandle generic = handle.asType( MethodType.methodType( Object.class, Object.class ) );
+
+    return bean ->
+    {
+    try
+      {
+      return generic.invokeExact( bean );
+      }
+    catch( RuntimeException | Error exception )
+      {
+      throw exception;
+      }
+    catch( Throwable throwable )
+      {
+      throw new IllegalStateException( throwable );
+      }
+    };
+    }
+
+  private static BiConsumer<Object, Object> setter( MethodHandle handle )
+    {
+    MethodHandle generic = handle.asType( MethodType.methodType( Void.TYPE, Object.class, Object.class ) );
+
+    return ( bean, value ) ->
+    {
+    try
+      {
+      generic.invokeExact( bean, value );
+      }
+    catch( RuntimeException | Error exception )
+      {
+      throw exception;
+      }
+    catch( Throwable throwable )
+      {
+      throw new IllegalStateException( throwable );
+      }
+    };
+    }
+
+  private static Supplier<Object> constructor( Class<?> type )
+    {
+    if( Modifier.isAbstract( type.getModifiers() ) )
+      return null;
+
+    try
+      {
+      Constructor<?> constructor = type.getConstructor();
+      MethodHandle handle = LOOKUP.unreflectConstructor( constructor ).asType( MethodType.methodType( Object.class ) );
+
+      return () ->
+      {
+      try
+        {
+        return handle.invokeExact();
+        }
+      catch( RuntimeException | Error exception )
+        {
+        throw exception;
+        }
+      catch( Throwable throwable )
+        {
+        throw new IllegalStateException( throwable );
+        }
+      };
+      }
+    catch( NoSuchMethodException | IllegalAccessException exception )
+      {
+      return null;
+      }
+    }
+
+  private static MethodHandle unreflect( Method method )
+    {
+    try
+      {
+      if( !isPublic( method ) )
+        method.setAccessible( true );
+
+      return LOOKUP.unreflect( method );
+      }
+    catch( IllegalAccessException | RuntimeException exception )
+      {
+      throw new IllegalStateException( "unable to access: " + method, exception );
+      }
+    }
+
+  private static boolean isPublic( Method method )
+    {
+    return Modifier.isPublic( method.getModifiers() ) && Modifier.isPublic( method.getDeclaringClass().getModifiers() );
+    }
+
+  /**
+   * Method isLinkable returns true if a generated function may call the method, it must be public, and its
+   * declaring class must be visible from this library.
+   */
+  private static boolean isLinkable( Method method )
+    {
+    if( !isPublic( method ) )
+      return false;
+
+    Class<?> declaringClass = method.getDeclaringClass();
+
+    try
+      {
+      return Class.forName( declaringClass.getName(), false, POJOClass.class.getClassLoader() ) == declaringClass;
+      }
+    catch( ClassNotFoundException | LinkageError exception )
+      {
+      return false;
+      }
+    }
+
+  private static Class<?> box( Class<?> type )
+    {
+    if( !type.isPrimitive() )
+      return type;
+
+    return MethodType.methodType( type ).wrap().returnType();
+    }
+
+  @Override
+  public String toString()
+    {
+    final StringBuilder sb = new StringBuilder( "POJOClass{" );
+    sb.append( "type=" ).append( type.getName() );
+    sb.append( ", properties=" ).append( names.keySet() );
+    sb.append( '}' );
+    return sb.toString();
+    }
+  }
@@ -0,0 +1,487 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.pojo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.Segment;
+
+/**
+ * Class POJOPointer is an implementation of the {@link Pointer} interface for use with trees of Java beans,
+ * records, {@link Map}, {@link List}, and array instances.
+ * <p>
+ * Bean properties are read and written through the accessor table of their class, see {@link POJOClass}.
+ * <p>
+ * A missing parent is created as an instance of the declared type of the bean property that holds it, if that type
+ * is a bean with a public no argument constructor, otherwise as a {@link LinkedHashMap} or an {@link ArrayList}.
+ * A null value is treated as missing.
+ * <p>
+ * With {@link CopyMode#DEEP} copied Maps, Collections and arrays are duplicated, but beans are shared, they cannot
+ * be duplicated in general.
+ */
+public class POJOPointer implements Pointer<Object>
+  {
+  private final Segment[] segments;
+  private transient String path;
+
+  public POJOPointer( String path )
+    {
+    this.segments = Segment.parse( path ); // verify pointer
+    this.path = path;
+    }
+
+  /**
+   * Constructor POJOPointer creates a new POJOPointer instance from the given segments, the array is retained.
+   *
+   * @param segments of Segment[]
+   */
+  public POJOPointer( Segment[] segments )
+    {
+    this.segments = segments;
+    }
+
+  @Override
+  public Segment[] segments()
+    {
+    return segments;
+    }
+
+  @Override
+  public Object at( Object root )
+    {
+    return at( root, segments.length );
+    }
+
+  /**
+   * Method at returns the node referenced by the first {@code length} segments, or null if there is no such node.
+   */
+  protected Object at( Object node, int length )
+    {
+    for( int i = 0; i < length && node != null; i++ )
+      node = child( node, segments[ i ] );
+
+    return node;
+    }
+
+  static Object child( Object node, Segment segment )
+    {
+    if( node == null )
+      return null;
+
+    POJOClass pojoClass = POJOClass.forClass( node.getClass() );
+    int index = segment.getIndex();
+
+    switch( pojoClass.getShape() )
+      {
+      case Bean:
+        POJOClass.Property property = pojoClass.getProperty( segment.getName() );
+
+        return property == null ? null : property.get( node );
+
+      case Map:
+        return ( (Map<String, Object>) node ).get( segment.getName() );
+
+      case List:
+        List<Object> list = (List<Object>) node;
+
+        return index < 0 || index >= list.size() ? null : list.get( index );
+
+      case Array:
+        Object[] array = (Object[]) node;
+
+        return index < 0 || index >= array.length ? null : array[ index ];
+
+      case Collection:
+        Collection<Object> collection = (Collection<Object>) node;
+
+        if( index < 0 || index >= collection.size() )
+          return null;
+
+        Iterator<Object> iterator = collection.iterator();
+
+        for( int i = 0; i < index; i++ )
+          iterator.next();
+
+        return iterator.next();
+
+      default:
+        return null;
+      }
+    }
+
+  @Override
+  public Object objectAt( Object root )
+    {
+    if( segments.length == 0 )
+      return root;
+
+    return safeWith( parents( root, segments.length ), segments[ segments.length - 1 ], null );
+    }
+
+  @Override
+  public Object remove( Object root )
+    {
+    Segment last = last();
+    Object parent = at( root, segments.length - 1 );
+
+    if( parent instanceof Map )
+      return ( (Map<String, Object>) parent ).remove( last.getName() );
+
+    if( parent instanceof List )
+      {
+      List<Object> list = (List<Object>) parent;
+      int index = last.getIndex();
+
+      return index < 0 || index >= list.size() ? null : list.remove( index );
+      }
+
+    if( isBean( parent ) )
+      {
+      POJOClass.Property property = POJOClass.forClass( parent.getClass() ).getProperty( last.getName() );
+
+      if( property == null )
+        return null;
+
+      Object value = property.get( parent );
+
+      if( value != null )
+        property.set( parent, null );
+
+      return value;
+      }
+
+    throw new IllegalStateException( "parent node is of unknown object type: " + typeOf( parent ) );
+    }
+
+  @Override
+  public void copy( Object from, Object into, Predicate<Object> filter )
+    {
+    copy( from, into, filter, CopyMode.DEEP );
+    }
+
+  /**
+   * Method copy places the value referenced by this pointer into the same location relative to {@code into}.
+   * <p>
+   * With {@link CopyMode#DEEP} Maps, Collections and arrays are duplicated, beans and values are always shared.
+   */
+  @Override
+  public void copy( Object from, Object into, Predicate<Object> filter, CopyMode mode )
+    {
+    Object value = at( from, segments.length );
+
+    if( value == null )
+      return;
+
+    if( filter != null && !filter.test( value ) )
+      return;
+
+    if( mode != CopyMode.SHARED )
+      value = deepCopy( value );
+
+    if( segments.length == 0 )
+      {
+      POJOPointerCompiler.entriesOf( value ).forEachRemaining( entry -> put( into, Segment.name( entry.getKey() ), entry.getValue() ) );
+      return;
+      }
+
+    Object currentNode = into;
+    int last = segments.length - 1;
+
+    for( int i = 0; i < last; i++ )
+      currentNode = safeWith( currentNode, segments[ i ], segments[ i + 1 ] );
+
+    if( segments[ last ].getIndex() == -1 )
+      put( currentNode, segments[ last ], value );
+    else
+      append( currentNode, value );
+    }
+
+  private static Object deepCopy( Object node )
+    {
+    if( node instanceof Map )
+      {
+      Map<String, Object> copy = new LinkedHashMap<>();
+
+      for( Map.Entry<String, Object> entry : ( (Map<String, Object>) node ).entrySet() )
+        copy.put( entry.getKey(), deepCopy( entry.getValue() ) );
+
+      return copy;
+      }
+
+    if( node instanceof Collection )
+      {
+      Collection<Object> collection = (Collection<Object>) node;
+      List<Object> copy = new ArrayList<>( collection.size() );
+
+      for( Object value : collection )
+        copy.add( deepCopy( value ) );
+
+      return copy;
+      }
+
+    if( node instanceof Object[] )
+      {
+      Object[] copy = ( (Object[]) node ).clone();
+
+      for( int i = 0; i < copy.length; i++ )
+        copy[ i ] = deepCopy( copy[ i ] );
+
+      return copy;
+      }
+
+    return node;
+    }
+
+  /**
+   * Method safeWith returns the child of {@code node} named by {@code segment}, creating it if missing.
+   * The child of a List is always created, and appended.
+   */
+  protected Object safeWith( Object node, Segment segment, Segment next )
+    {
+    boolean nextIsElement = next != null && next.getIndex() != -1;
+
+    if( node instanceof List )
+      {
+      Object child = nextIsElement ? new ArrayList<>() : new LinkedHashMap<>();
+
+      ( (List<Object>) node ).add( child );
+
+      return child;
+      }
+
+    Object child = child( node, segment );
+
+    if( child != null )
+      return child;
+
+    child = create( node, segment, nextIsElement );
+
+    put( node, segment, child );
+
+    return child;
+    }
+
+  @Override
+  public void apply( Object root, Function<Object, Object> transform )
+    {
+    Segment last = last();
+    Object parent = at( root, segments.length - 1 );
+
+    if( parent == null )
+      throw new IllegalArgumentException( "parent is missing" );
+
+    if( !isContainer( parent ) )
+      throw new IllegalStateException( "parent node is of unknown object type: " + typeOf( parent ) );
+
+    if( has( parent, last ) )
+      put( parent, last, transform.apply( child( parent, last ) ) );
+    }
+
+  @Override
+  public void set( Object root, Object child, Function<Object, Object> transform )
+    {
+    Segment last = last();
+    Object parent = parents( root, segments.length );
+
+    put( parent, last, transform.apply( child ) );
+    }
+
+  @Override
+  public void add( Object root, Object child, Function<Object, Object> transform )
+    {
+    Segment last = last();
+    Object parent = parents( root, segments.length );
+    Object container = child( parent, last );
+
+    if( container == null )
+      {
+      container = create( parent, last, true );
+
+      if( parent instanceof List )
+        append( parent, container );
+      else
+        put( parent, last, container );
+      }
+
+    if( !( container instanceof Collection ) )
+      throw new IllegalStateException( "node referenced by pointer is not a Collection: " + this );
+
+    append( container, transform.apply( child ) );
+    }
+
+  private Segment last()
+    {
+    if( segments.length == 0 )
+      throw new IllegalStateException( "pointer references the root node" );
+
+    return segments[ segments.length - 1 ];
+    }
+
+  /**
+   * Method parents returns the parent of the node referenced by the first {@code length} segments,
+   * creating any missing ancestors.
+   */
+  protected Object parents( Object root, int length )
+    {
+    int head = length - 1;
+    Object parent = at( root, head );
+
+    if( parent == null )
+      {
+      Object ancestor = parents( root, head );
+
+      parent = create( ancestor, segments[ head - 1 ], segments[ length - 1 ].isIndex() );
+
+      put( ancestor, segments[ head - 1 ], parent );
+
+      return parent;
+      }
+
+    if( !isContainer( parent ) )
+      throw new IllegalArgumentException( "parent node at:" + Segment.toString( segments, head ) + ", is not a container node" );
+
+    return parent;
+    }
+
+  /**
+   * Method create returns a new container to be placed into {@code parent} at {@code segment}.
+   */
+  private static Object create( Object parent, Segment segment, boolean isList )
+    {
+    Class<?> type = Object.class;
+
+    if( isBean( parent ) )
+      {
+      POJOClass.Property property = POJOClass.forClass( parent.getClass() ).getProperty( segment.getName() );
+
+      if( property != null )
+        type = property.getType();
+      }
+
+    if( isList && type.isAssignableFrom( ArrayList.class ) )
+      return new ArrayList<>();
+
+    if( !isList && type.isAssignableFrom( LinkedHashMap.class ) )
+      return new LinkedHashMap<>();
+
+    POJOClass pojoClass = POJOClass.forClass( type );
+
+    if( !isList && pojoClass.canCreate() )
+      return pojoClass.create();
+
+    throw new UnsupportedOperationException( "unable to create a " + ( isList ? "List" : "Map" ) + " for: " + segment + ", of type: " + type.getName() );
+    }
+
+  private static boolean has( Object parent, Segment segment )
+    {
+    POJOClass pojoClass = POJOClass.forClass( parent.getClass() );
+    int index = segment.getIndex();
+
+    switch( pojoClass.getShape() )
+      {
+      case Bean:
+        return pojoClass.getProperty( segment.getName() ) != null;
+
+      case Map:
+        return ( (Map<String, Object>) parent ).containsKey( segment.getName() );
+
+      case List:
+      case Collection:
+        return index >= 0 && index < ( (Collection<Object>) parent ).size();
+
+      case Array:
+        return index >= 0 && index < ( (Object[]) parent ).length;
+
+      default:
+        return false;
+      }
+    }
+
+  /**
+   * Method put sets the value into the parent, padding a List with nulls as needed.
+   */
+  private static void put( Object parent, Segment segment, Object value )
+    {
+    POJOClass pojoClass = POJOClass.forClass( parent.getClass() );
+
+    switch( pojoClass.getShape() )
+      {
+      case Bean:
+        POJOClass.Property property = pojoClass.getProperty( segment.getName() );
+
+        if( property == null )
+          throw new UnsupportedOperationException( "no property: " + segment + ", on: " + parent.getClass().getName() );
+
+        property.set( parent, value );
+        break;
+
+      case Map:
+        ( (Map<String, Object>) parent ).put( segment.getName(), value );
+        break;
+
+      case List:
+        List<Object> list = (List<Object>) parent;
+        int index = segment.getIndex();
+
+        while( list.size() <= index )
+          list.add( null );
+
+        list.set( index, value );
+        break;
+
+      case Array:
+        ( (Object[]) parent )[ segment.getIndex() ] = value;
+        break;
+
+      default:
+        throw new IllegalArgumentException( "parent node must be a container node, got: " + typeOf( parent ) );
+      }
+    }
+
+  private static void append( Object container, Object value )
+    {
+    if( !( container instanceof Collection ) )
+      throw new IllegalStateException( "node is not a Collection, got: " + typeOf( container ) );
+
+    ( (Collection<Object>) container ).add( value );
+    }
+
+  private static boolean isContainer( Object node )
+    {
+    return node != null && POJOClass.forClass( node.getClass() ).getShape() != POJOClass.Shape.Value;
+    }
+
+  private static boolean isBean( Object node )
+    {
+    return node != null && POJOClass.forClass( node.getClass() ).getShape() == POJOClass.Shape.Bean;
+    }
+
+  private static String typeOf( Object node )
+    {
+    return node == null ? "null" : node.getClass().getName();
+    }
+
+  @Override
+  public String toString()
+    {
+    if( path == null )
+      path = Segment.toString( segments );
+
+    return path;
+    }
+  }
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.pojo;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.PointerCache;
+import heretical.pointer.path.PointerCompiler;
+import heretical.pointer.path.Segment;
+import heretical.pointer.util.BoundedCache;
+
+/**
+ * Class POJOPointerCompiler is an implementation of {@link PointerCompiler} for use with trees of Java beans,
+ * records, {@link Map}, {@link Collection}, and {@code Object[]} instances.
+ * <p>
+ * Any {@link Map} or bean is a Map node, where the children of a bean are its non null properties,
+ * any {@link Collection} or {@code Object[]} is an Array node, and any other value, including null, is a Value
+ * node. Nodes are never wrapped, so {@link #node(Object)} returns the given value.
+ * <p>
+ * Bean properties are read through accessors generated once per class, see {@link POJOClass}, so resolving a
+ * pointer never reflects on the tree.
+ * <p>
+ * Result nodes are {@link ArrayList} instances. A null value is treated as missing, see {@link POJOPointer},
+ * so is never added to a result.
+ *
+ * @see PointerCompiler for more details.
+ */
+public class POJOPointerCompiler implements PointerCompiler<Object, List<Object>>
+  {
+  private final PointerCache<Object> childCache;
+  private final int maxDescentDepth;
+
+  /**
+   * Constructor POJOPointerCompiler creates a new POJOPointerCompiler instance that retains up to
+   * {@link BoundedCache#DEFAULT_CAPACITY} named child pointers.
+   */
+  public POJOPointerCompiler()
+    {
+    this( BoundedCache.DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor POJOPointerCompiler creates a new POJOPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   */
+  public POJOPointerCompiler( int childCacheCapacity )
+    {
+    this( childCacheCapacity, PointerCache.DEFAULT_INDEX_SIZE, DEFAULT_MAX_DESCENT_DEPTH );
+    }
+
+  /**
+   * Constructor POJOPointerCompiler creates a new POJOPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   * @param childIndexSize     the number of List index child pointers to retain
+   * @param maxDescentDepth    the maximum number of levels walked by a descent, see {@link #maxDescentDepth()}
+   */
+  public POJOPointerCompiler( int childCacheCapacity, int childIndexSize, int maxDescentDepth )
+    {
+    if( maxDescentDepth < 1 )
+      throw new IllegalArgumentException( "maxDescentDepth must be greater than zero, got: " + maxDescentDepth );
+
+    this.childCache = new PointerCache<>( this, childCacheCapacity, childIndexSize );
+    this.maxDescentDepth = maxDescentDepth;
+    }
+
+  @Override
+  public POJOPointer compile( String path )
+    {
+    return new POJOPointer( path );
+    }
+
+  @Override
+  public POJOPointer compile( Segment[] segments )
+    {
+    return new POJOPointer( segments );
+    }
+
+  @Override
+  public Pointer<Object> child( String name )
+    {
+    return childCache.child( name );
+    }
+
+  @Override
+  public Pointer<Object> child( int index )
+    {
+    return childCache.child( index );
+    }
+
+  /**
+   * Method getChildCache returns the cache of child pointers used by wildcard and descent paths.
+   *
+   * @return PointerCache
+   */
+  public PointerCache<Object> getChildCache()
+    {
+    return childCache;
+    }
+
+  @Override
+  public Kind kind( Object node )
+    {
+    if( node == null )
+      return Kind.Value;
+
+    switch( POJOClass.forClass( node.getClass() ).getShape() )
+      {
+      case Map:
+      case Bean:
+        return Kind.Map;
+
+      case List:
+      case Collection:
+      case Array:
+        return Kind.Array;
+
+      default:
+        return Kind.Value;
+      }
+    }
+
+  @Override
+  public List<Object> add( List<Object> result, Object node )
+    {
+    if( node != null )
+      result.add( node );
+
+    return result;
+    }
+
+  @Override
+  public List<Object> addAll( List<Object> into, List<Object> from )
+    {
+    if( from != null )
+      into.addAll( from );
+
+    return into;
+    }
+
+  @Override
+  public Object first( List<Object> node )
+    {
+    if( node == null || node.isEmpty() )
+      return null;
+
+    return node.get( 0 );
+    }
+
+  @Override
+  public boolean isContainer( Object node )
+    {
+    return kind( node ) != Kind.Value;
+    }
+
+  @Override
+  public Iterator<Map.Entry<String, Object>> entries( Object node )
+    {
+    return entriesOf( node );
+    }
+
+  /**
+   * Method entriesOf returns the entries of the given Map, or the non null properties of the given bean.
+   */
+  static Iterator<Map.Entry<String, Object>> entriesOf( Object node )
+    {
+    POJOClass pojoClass = POJOClass.forClass( node.getClass() );
+
+    if( pojoClass.getShape() == POJOClass.Shape.Map )
+      return ( (Map<String, Object>) node ).entrySet().iterator();
+
+    POJOClass.Property[] properties = pojoClass.getProperties();
+
+    return new Iterator<Map.Entry<String, Object>>()
+      {
+      int next = advance( 0 );
+      Object value;
+
+      private int advance( int index )
+        {
+        for( ; index < properties.length; index++ )
+          {
+          value = properties[ index ].get( node );
+
+          if( value != null )
+            break;
+          }
+
+        return index;
+        }
+
+      @Override
+      public boolean hasNext()
+        {
+        return next < properties.length;
+        }
+
+      @Override
+      public Map.Entry<String, Object> next()
+        {
+        if( !hasNext() )
+          throw new NoSuchElementException();
+
+        Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<>( properties[ next ].getName(), value );
+
+        next = advance( next + 1 );
+
+        return entry;
+        }
+      };
+    }
+
+  @Override
+  public Iterable<Object> iterable( Object node )
+    {
+    if( node == null )
+      return Collections.emptyList();
+
+    switch( POJOClass.forClass( node.getClass() ).getShape() )
+      {
+      case List:
+      case Collection:
+        return (Collection<Object>) node;
+
+      case Array:
+        return Arrays.asList( (Object[]) node );
+
+      case Map:
+        return ( (Map<String, Object>) node ).values();
+
+      case Bean:
+        return () -> new Iterator<Object>()
+          {
+          final Iterator<Map.Entry<String, Object>> entries = entriesOf( node );
+
+          @Override
+          public boolean hasNext()
+            {
+            return entries.hasNext();
+            }
+
+          @Override
+          public Object next()
+            {
+            return entries.next().getValue();
+            }
+          };
+
+      default:
+        return Collections.emptyList();
+      }
+    }
+
+  @Override
+  public int size( Object node )
+    {
+    if( node == null )
+      throw new IllegalArgumentException( "node may not be null" );
+
+    switch( POJOClass.forClass( node.getClass() ).getShape() )
+      {
+      case List:
+      case Collection:
+        return ( (Collection<Object>) node ).size();
+
+      case Array:
+        return ( (Object[]) node ).length;
+
+      case Map:
+        return ( (Map<String, Object>) node ).size();
+
+      case Bean:
+        int size = 0;
+
+        for( Iterator<Map.Entry<String, Object>> iterator = entriesOf( node ); iterator.hasNext(); iterator.next() )
+          size++;
+
+        return size;
+
+      default:
+        return 0;
+      }
+    }
+
+  @Override
+  public List<Object> resultNode()
+    {
+    return new ArrayList<>();
+    }
+
+  @Override
+  public int maxDescentDepth()
+    {
+    return maxDescentDepth;
+    }
+
+  @Override
+  public Object node( Object value )
+    {
+    return value;
+    }
+  }
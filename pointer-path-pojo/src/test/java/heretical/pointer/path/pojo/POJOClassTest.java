@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.pojo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class POJOClassTest
+  {
+  private static String[] names( POJOClass pojoClass )
+    {
+    return Arrays.stream( pojoClass.getProperties() ).map( POJOClass.Property::getName ).toArray( String[]::new );
+    }
+
+  @Test
+  public void testProperties()
+    {
+    POJOClass pojoClass = POJOClass.forClass( POJOData.Order.class );
+
+    assertTrue( pojoClass.isBean() );
+    assertSame( pojoClass, POJOClass.forClass( POJOData.Order.class ) );
+    assertArrayEquals( new String[]{"attributes", "customer", "id", "lines", "paid", "tags"}, names( pojoClass ) );
+
+    POJOData.Order order = POJOData.order();
+
+    assertEquals( "1001", pojoClass.getProperty( "id" ).get( order ) );
+    assertEquals( false, pojoClass.getProperty( "paid" ).get( order ) );
+    assertSame( order.tags, pojoClass.getProperty( "tags" ).get( order ) );
+    assertNull( pojoClass.getProperty( "missing" ) );
+
+    pojoClass.getProperty( "paid" ).set( order, true );
+    pojoClass.getProperty( "tags" ).set( order, new String[]{"old"} );
+
+    assertTrue( order.isPaid() );
+    assertArrayEquals( new String[]{"old"}, order.tags );
+    assertEquals( boolean.class, pojoClass.getProperty( "paid" ).getType() );
+    }
+
+  @Test
+  public void testReadOnly()
+    {
+    POJOClass pojoClass = POJOClass.forClass( POJOData.Line.class );
+    POJOData.Line line = new POJOData.Line( "a", 1.5 );
+
+    assertFalse( pojoClass.canCreate() );
+    assertFalse( pojoClass.getProperty( "sku" ).isWritable() );
+    assertTrue( pojoClass.getProperty( "price" ).isWritable() );
+    assertFalse( POJOClass.forClass( POJOData.Address.class ).getProperty( "country" ).isWritable() );
+
+    try
+      {
+      pojoClass.getProperty( "sku" ).set( line, "b" );
+      fail( "should throw" );
+      }
+    catch( UnsupportedOperationException exception )
+      {
+      // expected
+      }
+
+    try
+      {
+      pojoClass.getProperty( "price" ).set( line, null );
+      fail( "should throw" );
+      }
+    catch( IllegalArgumentException exception )
+      {
+      // expected
+      }
+    }
+
+  @Test
+  public void testNotPublic()
+    {
+    POJOClass pojoClass = POJOClass.forClass( POJOData.Hidden.class );
+    POJOData.Hidden hidden = new POJOData.Hidden();
+
+    assertEquals( 1, pojoClass.getProperty( "count" ).get( hidden ) );
+
+    pojoClass.getProperty( "count" ).set( hidden, 2 );
+
+    assertEquals( 2, hidden.getCount() );
+    }
+
+  @Test
+  public void testValues()
+    {
+    for( Class<?> type : new Class<?>[]{String.class, Integer.class, int.class, String[].class, HashMap.class, ArrayList.class, Thread.State.class} )
+      {
+      assertFalse( type.getName(), POJOClass.forClass( type ).isBean() );
+      assertEquals( type.getName(), 0, POJOClass.forClass( type ).getProperties().length );
+      }
+
+    assertEquals( POJOClass.Shape.Map, POJOClass.forClass( HashMap.class ).getShape() );
+    assertEquals( POJOClass.Shape.List, POJOClass.forClass( ArrayList.class ).getShape() );
+    assertEquals( POJOClass.Shape.Array, POJOClass.forClass( String[].class ).getShape() );
+    assertEquals( POJOClass.Shape.Value, POJOClass.forClass( int[].class ).getShape() );
+    assertEquals( POJOClass.Shape.Bean, POJOClass.forClass( POJOData.Order.class ).getShape() );
+    }
+  }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.pojo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public class POJOData
+  {
+  public static class Order
+    {
+    private String id;
+    private boolean paid;
+    private Customer customer;
+    private List<Line> lines = new ArrayList<>();
+    private Map<String, Object> attributes;
+    public String[] tags;
+
+    public String getId()
+      {
+      return id;
+      }
+
+    public void setId( String id )
+      {
+      this.id = id;
+      }
+
+    public boolean isPaid()
+      {
+      return paid;
+      }
+
+    public void setPaid( boolean paid )
+      {
+      this.paid = paid;
+      }
+
+    public Customer getCustomer()
+      {
+      return customer;
+      }
+
+    public void setCustomer( Customer customer )
+      {
+      this.customer = customer;
+      }
+
+    public List<Line> getLines()
+      {
+      return lines;
+      }
+
+    public void setLines( List<Line> lines )
+      {
+      this.lines = lines;
+      }
+
+    public Map<String, Object> getAttributes()
+      {
+      return attributes;
+      }
+
+    public void setAttributes( Map<String, Object> attributes )
+      {
+      this.attributes = attributes;
+      }
+    }
+
+  public static class Customer
+    {
+    private String name;
+    private Address address;
+
+    public String getName()
+      {
+      return name;
+      }
+
+    public void setName( String name )
+      {
+      this.name = name;
+      }
+
+    public Address getAddress()
+      {
+      return address;
+      }
+
+    public void setAddress( Address address )
+      {
+      this.address = address;
+      }
+    }
+
+  public static class Address
+    {
+    public String city;
+    public final String country = "US";
+    }
+
+  public static class Line
+    {
+    private final String sku;
+    private double price;
+
+    public Line( String sku, double price )
+      {
+      this.sku = sku;
+      this.price = price;
+      }
+
+    public String getSku()
+      {
+      return sku;
+      }
+
+    public double getPrice()
+      {
+      return price;
+      }
+
+    public void setPrice( double price )
+      {
+      this.price = price;
+      }
+    }
+
+  // not visible outside this package, so its accessors are not linked as lambdas
+  static class Hidden
+    {
+    private int count = 1;
+
+    public int getCount()
+      {
+      return count;
+      }
+
+    public void setCount( int count )
+      {
+      this.count = count;
+      }
+    }
+
+  public static Order order()
+    {
+    Customer customer = new Customer();
+
+    customer.setName( "John Doe" );
+
+    Order order = new Order();
+
+    order.setId( "1001" );
+    order.setCustomer( customer );
+    order.getLines().add( new Line( "a", 1.5 ) );
+    order.getLines().add( new Line( "b", 2.0 ) );
+    order.tags = new String[]{"new", "priority"};
+
+    Map<String, Object> attributes = new LinkedHashMap<>();
+
+    attributes.put( "source", "web" );
+    attributes.put( "discounts", new ArrayList<>( Arrays.asList( 0.1, 0.2 ) ) );
+
+    order.setAttributes( attributes );
+
+    return order;
+    }
+  }
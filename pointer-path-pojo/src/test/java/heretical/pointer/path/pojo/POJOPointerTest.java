@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.pojo;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import heretical.pointer.path.CopyMode;
+import org.junit.Test;
+
+import static heretical.pointer.path.pojo.POJONestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class POJOPointerTest
+  {
+  @Test
+  public void testAt()
+    {
+    POJOData.Order order = POJOData.order();
+
+    assertEquals( "1001", COMPILER.nested( "/id" ).at( order ) );
+    assertEquals( "John Doe", COMPILER.nested( "/customer/name" ).at( order ) );
+    assertEquals( 2.0, COMPILER.nested( "/lines/1/price" ).at( order ) );
+    assertEquals( "priority", COMPILER.nested( "/tags/1" ).at( order ) );
+    assertEquals( "web", COMPILER.nested( "/attributes/source" ).at( order ) );
+    assertNull( COMPILER.nested( "/customer/address/city" ).at( order ) );
+    assertNull( COMPILER.nested( "/lines/2/price" ).at( order ) );
+    assertNull( COMPILER.nested( "/missing" ).at( order ) );
+    assertFalse( COMPILER.nested( "/customer/address" ).exists( order ) );
+    }
+
+  @Test
+  public void testAllAt()
+    {
+    POJOData.Order order = POJOData.order();
+
+    assertEquals( Arrays.asList( 1.5, 2.0 ), COMPILER.nested( "/lines/*/price" ).allAt( order ) );
+    assertEquals( Arrays.asList( 1.5, 2.0 ), COMPILER.nested( "/**/price" ).allAt( order ) );
+    assertEquals( Arrays.asList( "new", "priority" ), COMPILER.nested( "/tags/*" ).allAt( order ) );
+    assertEquals( Arrays.asList( 0.1, 0.2 ), COMPILER.nested( "/**/discounts/*" ).allAt( order ) );
+    assertEquals( Arrays.asList( "John Doe" ), COMPILER.nested( "/*/name" ).allAt( order ) );
+    }
+
+  @Test
+  public void testSet()
+    {
+    POJOData.Order order = POJOData.order();
+
+    COMPILER.compile( "/customer/address/city" ).set( order, "Springfield" );
+    COMPILER.compile( "/lines/0/price" ).set( order, 3.0 );
+    COMPILER.compile( "/attributes/discounts" ).add( order, 0.3 );
+    COMPILER.compile( "/attributes/nested/value" ).set( order, 1 );
+
+    assertEquals( "Springfield", order.getCustomer().getAddress().city );
+    assertEquals( 3.0, order.getLines().get( 0 ).getPrice(), 0 );
+    assertEquals( Arrays.asList( 0.1, 0.2, 0.3 ), order.getAttributes().get( "discounts" ) );
+    assertEquals( "{value=1}", order.getAttributes().get( "nested" ).toString() );
+
+    POJOData.Order created = new POJOData.Order();
+
+    COMPILER.compile( "/customer/name" ).set( created, "Jane Doe" );
+
+    assertEquals( "Jane Doe", created.getCustomer().getName() );
+
+    try
+      {
+      COMPILER.compile( "/lines/0/sku" ).set( order, "c" );
+      fail( "should throw" );
+      }
+    catch( UnsupportedOperationException exception )
+      {
+      // expected
+      }
+    }
+
+  @Test
+  public void testApply()
+    {
+    POJOData.Order order = POJOData.order();
+
+    COMPILER.nested( "/**/price" ).apply( order, value -> (Double) value * 2 );
+
+    assertEquals( Arrays.asList( 3.0, 4.0 ), COMPILER.nested( "/lines/*/price" ).allAt( order ) );
+    }
+
+  @Test
+  public void testRemove()
+    {
+    POJOData.Order order = POJOData.order();
+
+    List<Object> removed = COMPILER.nested( "/customer/name" ).remove( order );
+
+    assertEquals( Arrays.asList( "John Doe" ), removed );
+    assertNull( order.getCustomer().getName() );
+
+    COMPILER.nested( "/lines/0" ).remove( order );
+
+    assertEquals( 1, order.getLines().size() );
+    assertEquals( "b", order.getLines().get( 0 ).getSku() );
+    }
+
+  @Test
+  public void testCopy()
+    {
+    POJOData.Order order = POJOData.order();
+    Map<String, Object> into = new LinkedHashMap<>();
+
+    COMPILER.nested( "/customer/name" ).copy( order, into );
+    COMPILER.nested( "/lines/*/price" ).copy( order, into );
+    COMPILER.nested( "/attributes" ).copy( order, into, null, CopyMode.DEEP );
+
+    assertEquals( "{customer={name=John Doe}, lines=[{price=1.5}, {price=2.0}], attributes={source=web, discounts=[0.1, 0.2]}}", into.toString() );
+    assertNotSame( order.getAttributes().get( "discounts" ), ( (Map) into.get( "attributes" ) ).get( "discounts" ) );
+
+    Map<String, Object> root = new LinkedHashMap<>();
+
+    COMPILER.nested( "" ).copy( order.getCustomer(), root );
+
+    assertEquals( "{name=John Doe}", root.toString() );
+    }
+  }
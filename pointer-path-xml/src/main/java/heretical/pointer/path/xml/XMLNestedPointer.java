@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+import java.util.List;
+
+import heretical.pointer.path.BaseNestedPointer;
+import heretical.pointer.path.PointerCompiler;
+import org.w3c.dom.Node;
+
+/**
+ *
+ */
+public class XMLNestedPointer extends BaseNestedPointer<Node, List<Node>>
+  {
+  public XMLNestedPointer( PointerCompiler<Node, List<Node>> compiler, String pointer )
+    {
+    super( compiler, pointer );
+    }
+  }
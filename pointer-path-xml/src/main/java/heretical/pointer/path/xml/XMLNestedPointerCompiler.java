@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+import java.util.List;
+
+import heretical.pointer.path.DocumentIndex;
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.NestedPointerCompiler;
+import heretical.pointer.path.NestedPointerSet;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.util.BoundedCache;
+import org.w3c.dom.Node;
+
+/**
+ * Class XMLNestedPointerCompiler is an implementation of {@link NestedPointerCompiler} for use with W3C DOM
+ * trees.
+ * <p>
+ * Compiled {@link NestedPointer} instances are immutable and are cached by their path, so repeated calls
+ * to {@link #nested(String)} with the same path return the same instance. See {@link #getNestedCache()}
+ * for the cache statistics.
+ *
+ * @see NestedPointerCompiler for more details.
+ * @see XMLPointerCompiler for how nodes are typed.
+ */
+public class XMLNestedPointerCompiler implements NestedPointerCompiler<Node, List<Node>>
+  {
+  public static final XMLNestedPointerCompiler COMPILER = new XMLNestedPointerCompiler();
+
+  private final XMLPointerCompiler compiler;
+  private final BoundedCache<String, NestedPointer<Node, List<Node>>> nestedCache;
+
+  /**
+   * Constructor XMLNestedPointerCompiler creates a new XMLNestedPointerCompiler instance that
+   * retains up to {@link BoundedCache#DEFAULT_CAPACITY} compiled nested pointers.
+   */
+  public XMLNestedPointerCompiler()
+    {
+    this( BoundedCache.DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor XMLNestedPointerCompiler creates a new XMLNestedPointerCompiler instance.
+   *
+   * @param nestedCacheCapacity the maximum number of compiled nested pointers to retain
+   */
+  public XMLNestedPointerCompiler( int nestedCacheCapacity )
+    {
+    this( new XMLPointerCompiler(), nestedCacheCapacity );
+    }
+
+  /**
+   * Constructor XMLNestedPointerCompiler creates a new XMLNestedPointerCompiler instance.
+   *
+   * @param compiler            the pointer compiler to delegate to
+   * @param nestedCacheCapacity the maximum number of compiled nested pointers to retain
+   */
+  public XMLNestedPointerCompiler( XMLPointerCompiler compiler, int nestedCacheCapacity )
+    {
+    this.compiler = compiler;
+    this.nestedCache = new BoundedCache<>( nestedCacheCapacity );
+    }
+
+  @Override
+  public Pointer<Node> compile( String path )
+    {
+    return compiler.compile( path );
+    }
+
+  @Override
+  public NestedPointer<Node, List<Node>> nested( String path )
+    {
+    return nestedCache.get( path, this::create );
+    }
+
+  @Override
+  public NestedPointerSet<Node, List<Node>> nestedSet( String... paths )
+    {
+    return new NestedPointerSet<>( compiler, paths );
+    }
+
+  private NestedPointer<Node, List<Node>> create( String path )
+    {
+    return new XMLNestedPointer( compiler, path );
+    }
+
+  /**
+   * Method index creates a new, empty, {@link DocumentIndex} for the given document, to be shared by every
+   * pointer evaluated against it.
+   *
+   * @param root of Node
+   * @return DocumentIndex<Node>
+   */
+  public DocumentIndex<Node> index( Node root )
+    {
+    return new DocumentIndex<>( compiler, root );
+    }
+
+  /**
+   * Method getPointerCompiler returns the underlying {@link XMLPointerCompiler}.
+   *
+   * @return XMLPointerCompiler
+   */
+  public XMLPointerCompiler getPointerCompiler()
+    {
+    return compiler;
+    }
+
+  /**
+   * Method getNestedCache returns the cache of compiled {@link NestedPointer} instances, including
+   * its hit, miss, and eviction counts.
+   *
+   * @return BoundedCache
+   */
+  public BoundedCache<String, NestedPointer<Node, List<Node>>> getNestedCache()
+    {
+    return nestedCache;
+    }
+
+  @Override
+  public Iterable<Node> iterable( List<Node> node )
+    {
+    return node;
+    }
+
+  @Override
+  public int size( List<Node> node )
+    {
+    return node.size();
+    }
+
+  @Override
+  public Node node( Object value )
+    {
+    return compiler.node( value );
+    }
+  }
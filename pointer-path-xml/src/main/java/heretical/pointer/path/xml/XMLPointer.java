@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import heretical.pointer.path.CopyMode;
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.Segment;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Class XMLPointer is an implementation of the {@link Pointer} interface for use with W3C DOM trees, see
+ * {@link XMLPointerCompiler} for how segments reference elements and attributes.
+ * <p>
+ * A value placed at an element segment becomes that element if it is an {@link Element} of the same name,
+ * otherwise it becomes the content of the element, so setting a text node sets the text of the element.
+ * A value placed at an {@code @name} segment sets the attribute to the text content of the value. Nodes owned by
+ * another document are imported.
+ * <p>
+ * Missing parents are created as elements, a {@code name[n]} segment also creates any missing earlier siblings
+ * of that name. An element cannot be created for an index segment.
+ * <p>
+ * Copies are always duplicated, nodes cannot be shared between documents.
+ */
+public class XMLPointer implements Pointer<Node>
+  {
+  private final Segment[] segments;
+  private transient String path;
+
+  public XMLPointer( String path )
+    {
+    this.segments = Segment.parse( path ); // verify pointer
+    this.path = path;
+    }
+
+  /**
+   * Constructor XMLPointer creates a new XMLPointer instance from the given segments, the array is retained.
+   *
+   * @param segments of Segment[]
+   */
+  public XMLPointer( Segment[] segments )
+    {
+    this.segments = segments;
+    }
+
+  @Override
+  public Segment[] segments()
+    {
+    return segments;
+    }
+
+  @Override
+  public Node at( Node root )
+    {
+    return at( root, segments.length );
+    }
+
+  /**
+   * Method at returns the node referenced by the first {@code length} segments, or null if there is no such node.
+   */
+  protected Node at( Node node, int length )
+    {
+    for( int i = 0; i < length && node != null; i++ )
+      node = child( node, segments[ i ] );
+
+    return node;
+    }
+
+  static Node child( Node node, Segment segment )
+    {
+    short type = node.getNodeType();
+
+    if( type != Node.ELEMENT_NODE && type != Node.DOCUMENT_NODE )
+      return null;
+
+    String name = segment.getName();
+
+    if( isAttribute( segment ) )
+      return type == Node.ELEMENT_NODE ? attribute( (Element) node, name ) : null;
+
+    int index = segment.getIndex();
+    int ordinal = ordinal( name );
+
+    if( ordinal != 0 )
+      name = base( name );
+
+    Element child = XMLPointerCompiler.nextElement( node.getFirstChild() );
+
+    for( int i = 0; child != null; i++ )
+      {
+      if( index == -1 ? name.equals( XMLPointerCompiler.name( child ) ) && ordinal-- == 0 : i == index )
+        return child;
+
+      child = XMLPointerCompiler.nextElement( child.getNextSibling() );
+      }
+
+    return null;
+    }
+
+  /**
+   * Method ordinal returns {@code n} of a {@code name[n]} segment name, {@code 0} for a plain name, or {@code -1}
+   * if {@code n} is not a number.
+   */
+  static int ordinal( String name )
+    {
+    int last = name.length() - 1;
+
+    if( last < 3 || name.charAt( last ) != ']' )
+      return 0;
+
+    int open = name.lastIndexOf( '[' );
+
+    if( open < 1 || open == last - 1 )
+      return -1;
+
+    int ordinal = 0;
+
+    for( int i = open + 1; i < last; i++ )
+      {
+      char c = name.charAt( i );
+
+      if( c < '0' || c > '9' || ordinal > ( Integer.MAX_VALUE - 9 ) / 10 )
+        return -1;
+
+      ordinal = ordinal * 10 + c - '0';
+      }
+
+    return ordinal;
+    }
+
+  /**
+   * Method base returns {@code name} of a {@code name[n]} segment name.
+   */
+  static String base( String name )
+    {
+    int open = name.lastIndexOf( '[' );
+
+    return open < 1 || !name.endsWith( "]" ) ? name : name.substring( 0, open );
+    }
+
+  private static Attr attribute( Element element, String name )
+    {
+    NamedNodeMap attributes = element.getAttributes();
+
+    for( int i = 0; i < attributes.getLength(); i++ )
+      {
+      Node attribute = attributes.item( i );
+
+      if( name.equals( XMLPointerCompiler.name( attribute ) ) && !XMLPointerCompiler.isDeclaration( attribute ) )
+        return (Attr) attribute;
+      }
+
+    return null;
+    }
+
+  private static boolean isAttribute( Segment segment )
+    {
+    return segment.getName().startsWith( "@" );
+    }
+
+  @Override
+  public Node objectAt( Node root )
+    {
+    if( segments.length == 0 )
+      return root;
+
+    Segment last = segments[ segments.length - 1 ];
+
+    if( isAttribute( last ) )
+      throw new UnsupportedOperationException( "pointer references an attribute: " + this );
+
+    return safeWith( parents( root, segments.length ), last );
+    }
+
+  @Override
+  public Node remove( Node root )
+    {
+    Segment last = last();
+    Node parent = at( root, segments.length - 1 );
+
+    if( !isContainer( parent ) )
+      throw new IllegalStateException( "parent node is not an element or document: " + typeOf( parent ) );
+
+    Node child = child( parent, last );
+
+    if( child == null )
+      return null;
+
+    if( child.getNodeType() == Node.ATTRIBUTE_NODE )
+      return ( (Element) parent ).removeAttributeNode( (Attr) child );
+
+    return parent.removeChild( child );
+    }
+
+  @Override
+  public void copy( Node from, Node into, Predicate<Node> filter )
+    {
+    copy( from, into, filter, CopyMode.DEEP );
+    }
+
+  /**
+   * Method copy imports the node referenced by this pointer into the same location relative to {@code into}.
+   * <p>
+   * The node is always duplicated, regardless of the {@code mode}.
+   */
+  @Override
+  public void copy( Node from, Node into, Predicate<Node> filter, CopyMode mode )
+    {
+    Node value = at( from, segments.length );
+
+    if( value == null )
+      return;
+
+    if( filter != null && !filter.test( value ) )
+      return;
+
+    if( segments.length == 0 )
+      {
+      for( Iterator<Node> children = XMLPointerCompiler.children( value ); children.hasNext(); )
+        append( into, children.next() );
+
+      return;
+      }
+
+    Node currentNode = into;
+    int last = segments.length - 1;
+
+    for( int i = 0; i < last; i++ )
+      currentNode = safeWith( currentNode, segments[ i ] );
+
+    append( currentNode, value );
+    }
+
+  /**
+   * Method safeWith returns the child of {@code node} named by {@code segment}, creating it if missing.
+   */
+  protected Node safeWith( Node node, Segment segment )
+    {
+    Node child = child( node, segment );
+
+    if( child != null )
+      {
+      if( child.getNodeType() != Node.ELEMENT_NODE )
+        throw new UnsupportedOperationException( "value at: " + segment + ", is not an element, got: " + typeOf( child ) );
+
+      return child;
+      }
+
+    return create( node, segment );
+    }
+
+  /**
+   * Method create appends a new element for the given segment to the parent, and any earlier siblings of the
+   * same name a {@code name[n]} segment requires.
+   */
+  private static Node create( Node parent, Segment segment )
+    {
+    String name = segment.getName();
+    int ordinal = ordinal( name );
+
+    if( segment.getIndex() != -1 || isAttribute( segment ) || ordinal == -1 )
+      throw new UnsupportedOperationException( "unable to create an element for: " + segment );
+
+    name = base( name );
+
+    int count = 0;
+
+    for( Element child = XMLPointerCompiler.nextElement( parent.getFirstChild() ); child != null; child = XMLPointerCompiler.nextElement( child.getNextSibling() ) )
+      {
+      if( name.equals( XMLPointerCompiler.name( child ) ) )
+        count++;
+      }
+
+    Node element = null;
+
+    for( int i = count; i <= ordinal; i++ )
+      element = parent.appendChild( document( parent ).createElement( name ) );
+
+    return element;
+    }
+
+  @Override
+  public void apply( Node root, Function<Node, Node> transform )
+    {
+    Segment last = last();
+    Node parent = at( root, segments.length - 1 );
+
+    if( parent == null )
+      throw new IllegalArgumentException( "parent is missing" );
+
+    if( !isContainer( parent ) )
+      throw new IllegalStateException( "parent node is not an element or document: " + typeOf( parent ) );
+
+    Node child = child( parent, last );
+
+    if( child != null )
+      replace( parent, child, transform.apply( child ) );
+    }
+
+  @Override
+  public void set( Node root, Node child, Function<Node, Node> transform )
+    {
+    Segment last = last();
+    Node parent = parents( root, segments.length );
+    Node value = transform.apply( child );
+    Node current = child( parent, last );
+
+    if( current != null )
+      replace( parent, current, value );
+    else if( isAttribute( last ) )
+      ( (Element) parent ).setAttribute( last.getName().substring( 1 ), text( value ) );
+    else
+      replace( parent, create( parent, last ), value );
+    }
+
+  /**
+   * Method add appends a new element named by the last segment, holding the child, after any siblings.
+   */
+  @Override
+  public void add( Node root, Node child, Function<Node, Node> transform )
+    {
+    Segment last = last();
+
+    if( isAttribute( last ) )
+      throw new UnsupportedOperationException( "unable to add to an attribute: " + this );
+
+    Node parent = parents( root, segments.length );
+    Node value = transform.apply( child );
+    String name = base( last.getName() );
+
+    if( value != null && value.getNodeType() == Node.ELEMENT_NODE && name.equals( XMLPointerCompiler.name( value ) ) )
+      append( parent, value );
+    else
+      replace( parent, parent.appendChild( document( parent ).createElement( name ) ), value );
+    }
+
+  private Segment last()
+    {
+    if( segments.length == 0 )
+      throw new IllegalStateException( "pointer references the root node" );
+
+    return segments[ segments.length - 1 ];
+    }
+
+  /**
+   * Method parents returns the parent of the node referenced by the first {@code length} segments,
+   * creating any missing ancestors.
+   */
+  protected Node parents( Node root, int length )
+    {
+    int head = length - 1;
+    Node parent = at( root, head );
+
+    if( parent == null )
+      {
+      Node ancestor = parents( root, head );
+
+      return create( ancestor, segments[ head - 1 ] );
+      }
+
+    if( !isContainer( parent ) )
+      throw new IllegalArgumentException( "parent node at:" + Segment.toString( segments, head ) + ", is not a container node" );
+
+    return parent;
+    }
+
+  /**
+   * Method replace places the value at the current child of the parent.
+   */
+  private static void replace( Node parent, Node current, Node value )
+    {
+    if( value == current )
+      return;
+
+    if( current.getNodeType() == Node.ATTRIBUTE_NODE )
+      {
+      ( (Attr) current ).setValue( text( value ) );
+      return;
+      }
+
+    if( value != null && value.getNodeType() == Node.ELEMENT_NODE && XMLPointerCompiler.name( current ).equals( XMLPointerCompiler.name( value ) ) )
+      {
+      parent.replaceChild( adopt( parent, value ), current );
+      return;
+      }
+
+    while( current.getFirstChild() != null )
+      current.removeChild( current.getFirstChild() );
+
+    if( value != null )
+      current.appendChild( adopt( current, value ) );
+    }
+
+  /**
+   * Method append imports a copy of the value into the parent, after any existing children.
+   */
+  private static void append( Node parent, Node value )
+    {
+    Node copy = document( parent ).importNode( value, true );
+
+    if( copy.getNodeType() == Node.ATTRIBUTE_NODE )
+      ( (Element) parent ).setAttributeNodeNS( (Attr) copy );
+    else
+      parent.appendChild( copy );
+    }
+
+  private static Node adopt( Node parent, Node value )
+    {
+    Document document = document( parent );
+
+    if( value.getOwnerDocument() == document && value.getParentNode() == null )
+      return value;
+
+    return document.importNode( value, true );
+    }
+
+  private static String text( Node value )
+    {
+    return value == null ? "" : value.getTextContent();
+    }
+
+  private static Document document( Node node )
+    {
+    return node.getNodeType() == Node.DOCUMENT_NODE ? (Document) node : node.getOwnerDocument();
+    }
+
+  private static boolean isContainer( Node node )
+    {
+    if( node == null )
+      return false;
+
+    short type = node.getNodeType();
+
+    return type == Node.ELEMENT_NODE || type == Node.DOCUMENT_NODE;
+    }
+
+  private static String typeOf( Node node )
+    {
+    return node == null ? "null" : node.getClass().getName();
+    }
+
+  @Override
+  public String toString()
+    {
+    if( path == null )
+      path = Segment.toString( segments );
+
+    return path;
+    }
+  }
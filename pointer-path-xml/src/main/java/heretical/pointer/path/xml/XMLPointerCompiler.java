@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import heretical.pointer.path.Pointer;
+import heretical.pointer.path.PointerCache;
+import heretical.pointer.path.PointerCompiler;
+import heretical.pointer.path.Segment;
+import heretical.pointer.util.BoundedCache;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Class XMLPointerCompiler is an implementation of {@link PointerCompiler} for use with W3C DOM trees.
+ * <p>
+ * A {@link Document} or {@link Element} is a Map node. The entries of an Element are its attributes, named
+ * {@code @name}, followed by its child elements in document order, named by their local name, or by their
+ * qualified name if the document was not parsed namespace aware. Namespace declarations are not entries. Any
+ * other node, e.g. an {@link Attr}, is a Value node. The single entry of a Document is its document element.
+ * <p>
+ * A name segment references the first child element of that name, {@code name[n]} references the element
+ * following {@code n} earlier siblings of that name, and an index segment references a child element by its
+ * position. So {@code /feed/entry} and {@code /feed/entry[0]} are the first {@code entry} of the {@code feed},
+ * {@code /feed/entry[1]} is the second, and {@code /feed/*}{@code /title} is the {@code title} of every child of
+ * the {@code feed}. An {@code @name} segment references an attribute. None of these can be an element name.
+ * <p>
+ * The entry of a repeated sibling is named {@code name[n]}, so every matched element has a distinct pointer.
+ * <p>
+ * Result nodes are {@link ArrayList} instances.
+ * <p>
+ * To query a large document without parsing it into a DOM, see {@link XMLStreamPointer}.
+ *
+ * @see PointerCompiler for more details.
+ * @see XMLPointer for how a DOM tree is updated.
+ */
+public class XMLPointerCompiler implements PointerCompiler<Node, List<Node>>
+  {
+  private static final ThreadLocal<DocumentBuilder> BUILDER = ThreadLocal.withInitial( XMLPointerCompiler::newBuilder );
+  private static final ThreadLocal<Document> FACTORY = ThreadLocal.withInitial( XMLPointerCompiler::newDocument );
+
+  private final PointerCache<Node> childCache;
+  private final int maxDescentDepth;
+
+  /**
+   * Constructor XMLPointerCompiler creates a new XMLPointerCompiler instance that retains up to
+   * {@link BoundedCache#DEFAULT_CAPACITY} named child pointers.
+   */
+  public XMLPointerCompiler()
+    {
+    this( BoundedCache.DEFAULT_CAPACITY );
+    }
+
+  /**
+   * Constructor XMLPointerCompiler creates a new XMLPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   */
+  public XMLPointerCompiler( int childCacheCapacity )
+    {
+    this( childCacheCapacity, PointerCache.DEFAULT_INDEX_SIZE, DEFAULT_MAX_DESCENT_DEPTH );
+    }
+
+  /**
+   * Constructor XMLPointerCompiler creates a new XMLPointerCompiler instance.
+   *
+   * @param childCacheCapacity the maximum number of named child pointers to retain
+   * @param childIndexSize     the number of child element index pointers to retain
+   * @param maxDescentDepth    the maximum number of levels walked by a descent, see {@link #maxDescentDepth()}
+   */
+  public XMLPointerCompiler( int childCacheCapacity, int childIndexSize, int maxDescentDepth )
+    {
+    if( maxDescentDepth < 1 )
+      throw new IllegalArgumentException( "maxDescentDepth must be greater than zero, got: " + maxDescentDepth );
+
+    this.childCache = new PointerCache<>( this, childCacheCapacity, childIndexSize );
+    this.maxDescentDepth = maxDescentDepth;
+    }
+
+  private static DocumentBuilder newBuilder()
+    {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+
+    factory.setNamespaceAware( true );
+
+    try
+      {
+      factory.setFeature( XMLConstants.FEATURE_SECURE_PROCESSING, true );
+
+      return factory.newDocumentBuilder();
+      }
+    catch( ParserConfigurationException exception )
+      {
+      throw new IllegalStateException( exception );
+      }
+    }
+
+  /**
+   * Method newDocument returns a new, empty, namespace aware {@link Document}.
+   *
+   * @return Document
+   */
+  public static Document newDocument()
+    {
+    return BUILDER.get().newDocument();
+    }
+
+  /**
+   * Method name returns the name of the given node as used by a pointer segment, {@code @name} for an attribute.
+   *
+   * @param node of Node
+   * @return String
+   */
+  public static String name( Node node )
+    {
+    String name = node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+
+    return node.getNodeType() == Node.ATTRIBUTE_NODE ? "@" + name : name;
+    }
+
+  static boolean isDeclaration( Node attribute )
+    {
+    return XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals( attribute.getNamespaceURI() );
+    }
+
+  @Override
+  public XMLPointer compile( String path )
+    {
+    return new XMLPointer( path );
+    }
+
+  @Override
+  public XMLPointer compile( Segment[] segments )
+    {
+    return new XMLPointer( segments );
+    }
+
+  @Override
+  public Pointer<Node> child( String name )
+    {
+    return childCache.child( name );
+    }
+
+  @Override
+  public Pointer<Node> child( int index )
+    {
+    return childCache.child( index );
+    }
+
+  /**
+   * Method getChildCache returns the cache of child pointers used by wildcard and descent paths.
+   *
+   * @return PointerCache
+   */
+  public PointerCache<Node> getChildCache()
+    {
+    return childCache;
+    }
+
+  @Override
+  public Kind kind( Node node )
+    {
+    if( isContainer( node ) )
+      return Kind.Map;
+
+    return Kind.Value;
+    }
+
+  @Override
+  public List<Node> add( List<Node> result, Node node )
+    {
+    if( node != null )
+      result.add( node );
+
+    return result;
+    }
+
+  @Override
+  public List<Node> addAll( List<Node> into, List<Node> from )
+    {
+    if( from != null )
+      into.addAll( from );
+
+    return into;
+    }
+
+  @Override
+  public Node first( List<Node> node )
+    {
+    if( node == null || node.isEmpty() )
+      return null;
+
+    return node.get( 0 );
+    }
+
+  @Override
+  public boolean isContainer( Node node )
+    {
+    if( node == null )
+      return false;
+
+    short type = node.getNodeType();
+
+    return type == Node.ELEMENT_NODE || type == Node.DOCUMENT_NODE;
+    }
+
+  @Override
+  public Iterator<Map.Entry<String, Node>> entries( Node node )
+    {
+    Iterator<Node> children = children( node );
+
+    return new Iterator<Map.Entry<String, Node>>()
+      {
+      Map<String, Integer> seen;
+
+      @Override
+      public boolean hasNext()
+        {
+        return children.hasNext();
+        }
+
+      @Override
+      public Map.Entry<String, Node> next()
+        {
+        Node child = children.next();
+        String name = name( child );
+
+        if( child.getNodeType() == Node.ELEMENT_NODE )
+          {
+          if( seen == null )
+            seen = new HashMap<>();
+
+          int ordinal = seen.merge( name, 1, Integer::sum ) - 1;
+
+          if( ordinal != 0 )
+            name = name + "[" + ordinal + "]";
+          }
+
+        return new AbstractMap.SimpleImmutableEntry<>( name, child );
+        }
+      };
+    }
+
+  /**
+   * Method children returns the attributes, then the child elements, of the given node.
+   */
+  static Iterator<Node> children( Node node )
+    {
+    NamedNodeMap attributes = node.getNodeType() == Node.ELEMENT_NODE ? node.getAttributes() : null;
+
+    return new Iterator<Node>()
+      {
+      int attribute = nextAttribute( 0 );
+      Node child = attribute < length() ? null : nextElement( node.getFirstChild() );
+
+      private int length()
+        {
+        return attributes == null ? 0 : attributes.getLength();
+        }
+
+      private int nextAttribute( int index )
+        {
+        while( index < length() && isDeclaration( attributes.item( index ) ) )
+          index++;
+
+        return index;
+        }
+
+      @Override
+      public boolean hasNext()
+        {
+        return attribute < length() || child != null;
+        }
+
+      @Override
+      public Node next()
+        {
+        if( attribute < length() )
+          {
+          Node next = attributes.item( attribute );
+
+          attribute = nextAttribute( attribute + 1 );
+
+          if( attribute == length() )
+            child = nextElement( node.getFirstChild() );
+
+          return next;
+          }
+
+        if( child == null )
+          throw new NoSuchElementException();
+
+        Node next = child;
+
+        child = nextElement( child.getNextSibling() );
+
+        return next;
+        }
+      };
+    }
+
+  static Element nextElement( Node node )
+    {
+    while( node != null && node.getNodeType() != Node.ELEMENT_NODE )
+      node = node.getNextSibling();
+
+    return (Element) node;
+    }
+
+  @Override
+  public Iterable<Node> iterable( Node node )
+    {
+    if( !isContainer( node ) )
+      return new ArrayList<>();
+
+    return () -> children( node );
+    }
+
+  @Override
+  public int size( Node node )
+    {
+    if( node == null )
+      throw new IllegalArgumentException( "node may not be null" );
+
+    if( !isContainer( node ) )
+      return 0;
+
+    int size = 0;
+
+    for( Iterator<Node> iterator = children( node ); iterator.hasNext(); iterator.next() )
+      size++;
+
+    return size;
+    }
+
+  @Override
+  public List<Node> resultNode()
+    {
+    return new ArrayList<>();
+    }
+
+  @Override
+  public int maxDescentDepth()
+    {
+    return maxDescentDepth;
+    }
+
+  /**
+   * Method node returns the given value if it is a {@link Node}, otherwise a text node holding the value.
+   * <p>
+   * Text nodes are owned by a document private to the calling thread, and are imported into the document
+   * they are placed into by an {@link XMLPointer}.
+   *
+   * @param value of Object
+   * @return Node
+   */
+  @Override
+  public Node node( Object value )
+    {
+    if( value == null || value instanceof Node )
+      return (Node) value;
+
+    return FACTORY.get().createTextNode( value.toString() );
+    }
+  }
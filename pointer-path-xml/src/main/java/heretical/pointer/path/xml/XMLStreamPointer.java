@@ -0,0 +1,566 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import heretical.pointer.path.NestedPointer;
+import heretical.pointer.path.Segment;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * Class XMLStreamPointer evaluates a nested pointer path against an XML document read from a
+ * {@link XMLStreamReader}, without parsing the document into a DOM.
+ * <p>
+ * The path may contain wildcard ({@code *}) and descent ({@code **}) segments, and matches the same nodes
+ * {@link NestedPointer#allAt(Object)} of an {@link XMLNestedPointerCompiler} pointer matches against the parsed
+ * {@link Document}, each matching node once. Only matched elements, and their content, are built as DOM nodes,
+ * so memory does not grow with the size of the document, only with the depth of the document and the size of
+ * the matches. Subtrees that cannot contain a match are skipped without being built.
+ * <p>
+ * Matches are delivered in document order of their start tags, where a match is delivered once it, and any match
+ * enclosing it, is complete. For descent paths this order may differ from the order of {@code allAt}.
+ * <p>
+ * The built nodes of one evaluation share a new {@link Document}, but are not attached to it. A path that
+ * matches the document itself, e.g. {@code /**}, builds the whole document.
+ * <p>
+ * An XMLStreamPointer is immutable, and may be shared between threads.
+ */
+public class XMLStreamPointer
+  {
+  private static final XMLInputFactory FACTORY = newFactory();
+
+  private static final byte DESCENT = 0;
+  private static final byte WILDCARD = 1;
+  private static final byte NAME = 2;
+  private static final byte INDEX = 3;
+  private static final byte ATTRIBUTE = 4;
+
+  private final String path;
+  private final Segment[] segments;
+  private final byte[] types;
+  private final String[] names;
+  private final int[] ordinals;
+  private final long descents;
+  private final long matched;
+
+  private static XMLInputFactory newFactory()
+    {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    factory.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+    factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+
+    return factory;
+    }
+
+  /**
+   * Constructor XMLStreamPointer creates a new XMLStreamPointer instance.
+   *
+   * @param path the nested pointer path, of at most 62 segments
+   */
+  public XMLStreamPointer( String path )
+    {
+    this.path = path;
+    this.segments = Segment.parse( path );
+
+    if( segments.length > 62 )
+      throw new IllegalArgumentException( "path may have at most 62 segments, got: " + segments.length );
+
+    this.types = new byte[ segments.length ];
+    this.names = new String[ segments.length ];
+    this.ordinals = new int[ segments.length ];
+
+    long descents = 0;
+
+    for( int i = 0; i < segments.length; i++ )
+      {
+      String name = segments[ i ].getName();
+
+      if( name.equals( "**" ) )
+        types[ i ] = DESCENT;
+      else if( name.equals( "*" ) )
+        types[ i ] = WILDCARD;
+      else if( name.startsWith( "@" ) )
+        types[ i ] = ATTRIBUTE;
+      else if( segments[ i ].isIndex() )
+        types[ i ] = INDEX;
+      else
+        types[ i ] = NAME;
+
+      if( types[ i ] == ATTRIBUTE )
+        names[ i ] = name.substring( 1 );
+      else if( types[ i ] == NAME )
+        names[ i ] = XMLPointer.base( name );
+
+      if( types[ i ] == NAME )
+        ordinals[ i ] = XMLPointer.ordinal( name );
+
+      if( types[ i ] == DESCENT )
+        descents |= 1L << i;
+      }
+
+    this.descents = descents;
+    this.matched = 1L << segments.length;
+    }
+
+  /**
+   * Method allAt returns every node matched in the given XML document.
+   *
+   * @param input of InputStream
+   * @return List<Node>
+   * @throws XMLStreamException if the document cannot be read
+   */
+  public List<Node> allAt( InputStream input ) throws XMLStreamException
+    {
+    XMLStreamReader reader = FACTORY.createXMLStreamReader( input );
+
+    try
+      {
+      return allAt( reader );
+      }
+    finally
+      {
+      reader.close();
+      }
+    }
+
+  /**
+   * Method allAt returns every node matched in the given XML document.
+   *
+   * @param input of Reader
+   * @return List<Node>
+   * @throws XMLStreamException if the document cannot be read
+   */
+  public List<Node> allAt( Reader input ) throws XMLStreamException
+    {
+    XMLStreamReader reader = FACTORY.createXMLStreamReader( input );
+
+    try
+      {
+      return allAt( reader );
+      }
+    finally
+      {
+      reader.close();
+      }
+    }
+
+  /**
+   * Method allAt returns every node matched in the document read from the given reader, which must be
+   * positioned at the start of the document.
+   *
+   * @param reader of XMLStreamReader
+   * @return List<Node>
+   * @throws XMLStreamException if the document cannot be read
+   */
+  public List<Node> allAt( XMLStreamReader reader ) throws XMLStreamException
+    {
+    List<Node> result = new ArrayList<>();
+
+    visit( reader, result::add );
+
+    return result;
+    }
+
+  /**
+   * Method visit passes every node matched in the document read from the given reader to the consumer, as
+   * soon as it is complete. The reader must be positioned at the start of the document, and is read to its end.
+   *
+   * @param reader   of XMLStreamReader
+   * @param consumer of Consumer<Node>
+   * @throws XMLStreamException if the document cannot be read
+   */
+  public void visit( XMLStreamReader reader, Consumer<Node> consumer ) throws XMLStreamException
+    {
+    new Evaluation( reader, consumer ).run();
+    }
+
+  /**
+   * Method closure adds the state following every descent state, a descent also matches the current node.
+   */
+  private long closure( long mask )
+    {
+    long pending = mask & descents;
+
+    while( pending != 0 )
+      {
+      int i = Long.numberOfTrailingZeros( pending );
+
+      mask |= 1L << ( i + 1 );
+      pending = ( mask & descents ) & ( -1L << ( i + 1 ) );
+      }
+
+    return mask;
+    }
+
+  /**
+   * Method element returns the states of a child element given the states of its parent.
+   */
+  private long element( long parent, String name, int position, int ordinal )
+    {
+    long mask = 0;
+    long states = parent & ~matched;
+
+    while( states != 0 )
+      {
+      int i = Long.numberOfTrailingZeros( states );
+
+      states &= states - 1;
+
+      switch( types[ i ] )
+        {
+        case DESCENT:
+          mask |= 1L << i;
+          break;
+
+        case WILDCARD:
+          mask |= 1L << ( i + 1 );
+          break;
+
+        case NAME:
+          if( ordinal == ordinals[ i ] && name.equals( names[ i ] ) )
+            mask |= 1L << ( i + 1 );
+          break;
+
+        case INDEX:
+          if( position == segments[ i ].getIndex() )
+            mask |= 1L << ( i + 1 );
+          break;
+
+        default:
+          break;
+        }
+      }
+
+    return closure( mask );
+    }
+
+  /**
+   * Method attribute returns the states of an attribute given the states of its element.
+   */
+  private long attribute( long parent, String name )
+    {
+    long mask = 0;
+    long states = parent & ~matched;
+
+    while( states != 0 )
+      {
+      int i = Long.numberOfTrailingZeros( states );
+
+      states &= states - 1;
+
+      switch( types[ i ] )
+        {
+        case DESCENT:
+          mask |= 1L << i;
+          break;
+
+        case WILDCARD:
+          mask |= 1L << ( i + 1 );
+          break;
+
+        case ATTRIBUTE:
+          if( name.equals( names[ i ] ) )
+            mask |= 1L << ( i + 1 );
+          break;
+
+        default:
+          break;
+        }
+      }
+
+    return closure( mask );
+    }
+
+  private boolean needsNames( long mask )
+    {
+    for( long states = mask & ~matched; states != 0; states &= states - 1 )
+      {
+      if( types[ Long.numberOfTrailingZeros( states ) ] == NAME )
+        return true;
+      }
+
+    return false;
+    }
+
+  @Override
+  public String toString()
+    {
+    return path;
+    }
+
+  /**
+   * Class Evaluation holds the state of a single pass over a document.
+   */
+  private class Evaluation
+    {
+    final XMLStreamReader reader;
+    final Consumer<Node> consumer;
+    final Document document = XMLPointerCompiler.newDocument();
+    final List<Node> pending = new ArrayList<>();
+
+    long[] masks = new long[ 16 ];
+    int[] children = new int[ 16 ];
+    List<Map<String, Integer>> seen = new ArrayList<>();
+    int depth = 0;
+
+    Node building;
+    int buildingDepth = -1;
+
+    Evaluation( XMLStreamReader reader, Consumer<Node> consumer )
+      {
+      this.reader = reader;
+      this.consumer = consumer;
+      }
+
+    void run() throws XMLStreamException
+      {
+      masks[ 0 ] = closure( 1L );
+      children[ 0 ] = 0;
+      seen.add( needsNames( masks[ 0 ] ) ? new HashMap<>() : null );
+
+      if( ( masks[ 0 ] & matched ) != 0 )
+        {
+        building = document;
+        buildingDepth = 0;
+        pending.add( document );
+        }
+
+      while( reader.hasNext() )
+        {
+        switch( reader.next() )
+          {
+          case XMLStreamConstants.START_ELEMENT:
+            start();
+            break;
+
+          case XMLStreamConstants.END_ELEMENT:
+            end();
+            break;
+
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.SPACE:
+            if( building != null )
+              text( reader.getText() );
+            break;
+
+          case XMLStreamConstants.CDATA:
+            if( building != null )
+              building.appendChild( document.createCDATASection( reader.getText() ) );
+            break;
+
+          case XMLStreamConstants.COMMENT:
+            if( building != null )
+              building.appendChild( document.createComment( reader.getText() ) );
+            break;
+
+          case XMLStreamConstants.PROCESSING_INSTRUCTION:
+            if( building != null )
+              building.appendChild( document.createProcessingInstruction( reader.getPITarget(), reader.getPIData() ) );
+            break;
+
+          case XMLStreamConstants.END_DOCUMENT:
+            if( buildingDepth == 0 )
+              flush();
+            break;
+
+          default:
+            break;
+          }
+        }
+      }
+
+    private void start() throws XMLStreamException
+      {
+      String name = reader.getLocalName();
+      long parent = masks[ depth ];
+      int position = children[ depth ]++;
+      Map<String, Integer> siblings = seen.get( depth );
+      int ordinal = siblings == null ? -1 : siblings.merge( name, 1, Integer::sum ) - 1;
+
+      long mask = element( parent, name, position, ordinal );
+
+      if( mask == 0 && building == null )
+        {
+        skip();
+        return;
+        }
+
+      Element element = null;
+
+      if( building != null || ( mask & matched ) != 0 )
+        {
+        element = create();
+
+        if( building != null )
+          building.appendChild( element );
+        else
+          buildingDepth = depth + 1;
+
+        building = element;
+
+        if( ( mask & matched ) != 0 )
+          pending.add( element );
+        }
+
+      if( mask != 0 )
+        attributes( mask, element );
+
+      push( mask );
+      }
+
+    private Element create()
+      {
+      Element element = document.createElementNS( namespace( reader.getNamespaceURI() ), qualified( reader.getPrefix(), reader.getLocalName() ) );
+
+      for( int i = 0; i < reader.getNamespaceCount(); i++ )
+        {
+        String prefix = reader.getNamespacePrefix( i );
+        String qualified = prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix;
+
+        element.setAttributeNS( XMLConstants.XMLNS_ATTRIBUTE_NS_URI, qualified, reader.getNamespaceURI( i ) );
+        }
+
+      for( int i = 0; i < reader.getAttributeCount(); i++ )
+        element.setAttributeNS( namespace( reader.getAttributeNamespace( i ) ), qualified( reader.getAttributePrefix( i ), reader.getAttributeLocalName( i ) ), reader.getAttributeValue( i ) );
+
+      return element;
+      }
+
+    private void attributes( long mask, Element element )
+      {
+      for( int i = 0; i < reader.getAttributeCount(); i++ )
+        {
+        String name = reader.getAttributeLocalName( i );
+
+        if( ( attribute( mask, name ) & matched ) == 0 )
+          continue;
+
+        String namespace = namespace( reader.getAttributeNamespace( i ) );
+        Attr attr;
+
+        if( element != null )
+          {
+          attr = element.getAttributeNodeNS( namespace, name );
+          }
+        else
+          {
+          attr = document.createAttributeNS( namespace, qualified( reader.getAttributePrefix( i ), name ) );
+          attr.setValue( reader.getAttributeValue( i ) );
+          }
+
+        pending.add( attr );
+        }
+
+      if( building == null )
+        flush();
+      }
+
+    private void push( long mask )
+      {
+      depth++;
+
+      if( depth == masks.length )
+        {
+        masks = Arrays.copyOf( masks, depth * 2 );
+        children = Arrays.copyOf( children, depth * 2 );
+        }
+
+      masks[ depth ] = mask;
+      children[ depth ] = 0;
+
+      Map<String, Integer> siblings = needsNames( mask ) ? new HashMap<>() : null;
+
+      if( seen.size() == depth )
+        seen.add( siblings );
+      else
+        seen.set( depth, siblings );
+      }
+
+    private void end()
+      {
+      if( building != null )
+        {
+        if( depth == buildingDepth )
+          {
+          building = null;
+          buildingDepth = -1;
+          flush();
+          }
+        else
+          {
+          building = building.getParentNode();
+          }
+        }
+
+      seen.set( depth, null );
+      depth--;
+      }
+
+    private void skip() throws XMLStreamException
+      {
+      int open = 1;
+
+      while( open != 0 )
+        {
+        int event = reader.next();
+
+        if( event == XMLStreamConstants.START_ELEMENT )
+          open++;
+        else if( event == XMLStreamConstants.END_ELEMENT )
+          open--;
+        }
+      }
+
+    private void text( String text )
+      {
+      Node last = building.getLastChild();
+
+      if( last != null && last.getNodeType() == Node.TEXT_NODE )
+        ( (Text) last ).appendData( text );
+      else
+        building.appendChild( document.createTextNode( text ) );
+      }
+
+    private void flush()
+      {
+      for( Node node : pending )
+        consumer.accept( node );
+
+      pending.clear();
+      }
+    }
+
+  private static String namespace( String namespace )
+    {
+    return namespace == null || namespace.isEmpty() ? null : namespace;
+    }
+
+  private static String qualified( String prefix, String name )
+    {
+    return prefix == null || prefix.isEmpty() ? name : prefix + ":" + name;
+    }
+  }
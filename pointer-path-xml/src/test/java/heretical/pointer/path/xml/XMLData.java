@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+/**
+ *
+ */
+public class XMLData
+  {
+  public static final String feed = "<?xml version=\"1.0\"?>\n" +
+    "<feed xmlns:x=\"urn:example\" version=\"2\">\n" +
+    "  <title>Orders</title>\n" +
+    "  <entry id=\"1\" x:flag=\"true\">\n" +
+    "    <title>First</title>\n" +
+    "    <lines>\n" +
+    "      <line sku=\"a\"><price>1.5</price></line>\n" +
+    "      <line sku=\"b\"><price>2.0</price><!-- discounted --></line>\n" +
+    "    </lines>\n" +
+    "  </entry>\n" +
+    "  <entry id=\"2\">\n" +
+    "    <title>Second &amp; last</title>\n" +
+    "    <lines>\n" +
+    "      <line sku=\"c\"><price>3.0</price></line>\n" +
+    "    </lines>\n" +
+    "    <x:note>nested <title>inner</title> text</x:note>\n" +
+    "  </entry>\n" +
+    "</feed>\n";
+
+  public static final String nested = "<?xml version=\"1.0\"?>\n" +
+    "<a><b><a><b>1</b><c>2</c></a></b><b>3</b><c><a><a/></a></c></a>";
+  }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import static heretical.pointer.path.xml.XMLNestedPointerCompiler.COMPILER;
+import static heretical.pointer.path.xml.XMLStreamPointerTest.parse;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class XMLPointerTest
+  {
+  private static String text( Node node )
+    {
+    return node == null ? null : node.getTextContent();
+    }
+
+  @Test
+  public void testAt() throws Exception
+    {
+    Document document = parse( XMLData.feed );
+
+    assertEquals( "Orders", text( COMPILER.nested( "/feed/title" ).at( document ) ) );
+    assertEquals( "First", text( COMPILER.nested( "/feed/entry/title" ).at( document ) ) );
+    assertEquals( "Second & last", text( COMPILER.nested( "/feed/2/title" ).at( document ) ) );
+    assertEquals( "2", text( COMPILER.nested( "/feed/@version" ).at( document ) ) );
+    assertEquals( "true", text( COMPILER.nested( "/feed/entry/@flag" ).at( document ) ) );
+    assertNull( COMPILER.nested( "/feed/@xmlns" ).at( document ) );
+    assertNull( COMPILER.nested( "/feed/@x" ).at( document ) );
+    assertNull( COMPILER.nested( "/feed/3" ).at( document ) );
+    assertEquals( "Second & last", text( COMPILER.nested( "/feed/entry[1]/title" ).at( document ) ) );
+    assertSame( COMPILER.nested( "/feed/2" ).at( document ), COMPILER.nested( "/feed/entry[1]" ).at( document ) );
+    assertNull( COMPILER.nested( "/feed/entry[2]" ).at( document ) );
+    assertEquals( 4, COMPILER.getPointerCompiler().size( document.getDocumentElement() ) );
+    }
+
+  @Test
+  public void testSet() throws Exception
+    {
+    Document document = parse( XMLData.feed );
+    XMLPointerCompiler compiler = COMPILER.getPointerCompiler();
+
+    compiler.compile( "/feed/title" ).set( document, compiler.node( "Updated" ) );
+    compiler.compile( "/feed/@version" ).set( document, compiler.node( 3 ) );
+    compiler.compile( "/feed/updated/by/@name" ).set( document, compiler.node( "jane" ) );
+    compiler.compile( "/feed/entry/lines/line" ).add( document, compiler.node( "added" ) );
+
+    assertEquals( "Updated", text( COMPILER.nested( "/feed/title" ).at( document ) ) );
+    assertEquals( "3", document.getDocumentElement().getAttribute( "version" ) );
+    assertEquals( "jane", text( COMPILER.nested( "/feed/updated/by/@name" ).at( document ) ) );
+    assertEquals( "added", text( COMPILER.nested( "/feed/entry/lines/2" ).at( document ) ) );
+    assertEquals( 3, COMPILER.nested( "/feed/entry/lines/*" ).allAt( document ).size() );
+
+    Element price = document.createElement( "price" );
+
+    price.setTextContent( "9.0" );
+
+    compiler.compile( "/feed/entry/lines/line/price" ).set( document, price );
+
+    assertSame( price, COMPILER.nested( "/feed/entry/lines/line/price" ).at( document ) );
+
+    compiler.compile( "/feed/entry[3]/title" ).set( document, compiler.node( "Fourth" ) );
+
+    assertEquals( 4, document.getElementsByTagName( "entry" ).getLength() );
+    assertEquals( "Fourth", text( COMPILER.nested( "/feed/entry[3]/title" ).at( document ) ) );
+
+    try
+      {
+      compiler.compile( "/feed/entry/lines/5/price" ).set( document, price );
+      fail( "should throw" );
+      }
+    catch( UnsupportedOperationException exception )
+      {
+      // expected
+      }
+    }
+
+  @Test
+  public void testApply() throws Exception
+    {
+    Document document = parse( XMLData.feed );
+    XMLPointerCompiler compiler = COMPILER.getPointerCompiler();
+
+    COMPILER.nested( "/**/price" ).apply( document, node -> compiler.node( Double.parseDouble( node.getTextContent() ) * 2 ) );
+    COMPILER.nested( "/feed/*/@id" ).apply( document, node -> compiler.node( "id-" + node.getTextContent() ) );
+
+    List<Node> prices = COMPILER.nested( "/**/price" ).allAt( document );
+
+    assertEquals( 3, prices.size() );
+    assertEquals( "3.0", text( prices.get( 0 ) ) );
+    assertEquals( "6.0", text( prices.get( 2 ) ) );
+    assertEquals( "id-2", text( COMPILER.nested( "/feed/2/@id" ).at( document ) ) );
+    }
+
+  @Test
+  public void testRemove() throws Exception
+    {
+    Document document = parse( XMLData.feed );
+
+    List<Node> removed = COMPILER.nested( "/**/@sku" ).remove( document );
+
+    assertEquals( 3, removed.size() );
+    assertTrue( COMPILER.nested( "/**/@sku" ).allAt( document ).isEmpty() );
+
+    COMPILER.nested( "/feed/entry" ).remove( document );
+
+    assertEquals( "2", text( COMPILER.nested( "/feed/entry/@id" ).at( document ) ) );
+    }
+
+  @Test
+  public void testCopy() throws Exception
+    {
+    Document document = parse( XMLData.feed );
+    Document into = XMLPointerCompiler.newDocument();
+
+    COMPILER.nested( "/feed/@version" ).copy( document, into );
+    COMPILER.nested( "/feed/entry/lines/*/price" ).copy( document, into );
+    COMPILER.nested( "/feed/*/title" ).copy( document, into );
+
+    assertEquals( "2", into.getDocumentElement().getAttribute( "version" ) );
+    assertEquals( 2, COMPILER.nested( "/feed/entry/lines/*/price" ).allAt( into ).size() );
+
+    assertEquals( "First", text( COMPILER.nested( "/feed/entry/title" ).at( into ) ) );
+    assertEquals( "Second & last", text( COMPILER.nested( "/feed/entry[1]/title" ).at( into ) ) );
+    assertSame( into, COMPILER.nested( "/feed/entry[1]/title" ).at( into ).getOwnerDocument() );
+
+    Document root = XMLPointerCompiler.newDocument();
+
+    COMPILER.nested( "" ).copy( document, root );
+
+    assertTrue( document.getDocumentElement().isEqualNode( root.getDocumentElement() ) );
+    }
+  }
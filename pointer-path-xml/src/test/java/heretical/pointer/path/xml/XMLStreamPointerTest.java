@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017-2019 Chris K Wensel <chris@wensel.net>. All Rights Reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package heretical.pointer.path.xml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import static heretical.pointer.path.xml.XMLNestedPointerCompiler.COMPILER;
+import static org.junit.Assert.*;
+
+/**
+ * Evaluates the same paths against a parsed DOM and a stream of the same document, the results must be the
+ * same nodes, but for their order when descending.
+ */
+public class XMLStreamPointerTest
+  {
+  private static final String[] DOCUMENTS = {XMLData.feed, XMLData.nested};
+
+  private static final String[] PATHS = {
+    "",
+    "/feed",
+    "/feed/title",
+    "/feed/@version",
+    "/feed/entry",
+    "/feed/entry/title",
+    "/feed/entry[1]/title",
+    "/feed/entry[1]/@id",
+    "/feed/entry[2]",
+    "/feed/entry[x]",
+    "/feed/1/title",
+    "/feed/2/@id",
+    "/feed/entry/@x:flag",
+    "/feed/entry/@flag",
+    "/feed/*",
+    "/feed/*/title",
+    "/feed/*/@id",
+    "/feed/*/lines/*/price",
+    "/feed/*/*",
+    "/feed/*/*/*/@sku",
+    "/**",
+    "/**/title",
+    "/**/@sku",
+    "/**/line/price",
+    "/feed/**/*",
+    "/**/lines/*",
+    "/feed/**/note",
+    "/feed/missing/*",
+    "/*/entry/lines",
+    "/a/b",
+    "/a/b[1]",
+    "/a/**/a",
+    "/**/a/b",
+    "/**/a/*",
+    "/a/*/a/c",
+    "/a/0/0/1",
+    "/**/c/**"
+  };
+
+  static Document parse( String xml ) throws Exception
+    {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+
+    factory.setNamespaceAware( true );
+
+    return factory.newDocumentBuilder().parse( new InputSource( new StringReader( xml ) ) );
+    }
+
+  private static List<String> sorted( List<Node> nodes )
+    {
+    List<String> values = new ArrayList<>();
+
+    for( Node node : nodes )
+      values.add( node.getNodeType() + XMLPointerCompiler.name( node ) + "=" + node.getTextContent() );
+
+    values.sort( String::compareTo );
+
+    return values;
+    }
+
+  @Test
+  public void testAllAt() throws Exception
+    {
+    for( String document : DOCUMENTS )
+      {
+      Document dom = parse( document );
+
+      for( String path : PATHS )
+        {
+        List<Node> expected = COMPILER.nested( path ).allAt( dom );
+        List<Node> actual = new XMLStreamPointer( path ).allAt( new StringReader( document ) );
+
+        assertEquals( path, sorted( expected ), sorted( actual ) );
+
+        if( path.contains( "**" ) )
+          continue;
+
+        assertEquals( path, expected.size(), actual.size() );
+
+        for( int i = 0; i < expected.size(); i++ )
+          assertTrue( path + ": " + i, expected.get( i ).isEqualNode( actual.get( i ) ) );
+        }
+      }
+    }
+
+  @Test
+  public void testOrder() throws Exception
+    {
+    List<Node> result = new XMLStreamPointer( "/**/a" ).allAt( new StringReader( XMLData.nested ) );
+
+    assertEquals( 4, result.size() );
+    assertNull( result.get( 0 ).getParentNode() );
+    assertEquals( "123", result.get( 0 ).getTextContent() );
+    assertSame( result.get( 0 ), result.get( 1 ).getParentNode().getParentNode() );
+    assertSame( result.get( 2 ), result.get( 3 ).getParentNode() );
+    }
+
+  @Test
+  public void testVisit() throws Exception
+    {
+    List<String> titles = new ArrayList<>();
+
+    new XMLStreamPointer( "/feed/*/title" ).visit( XMLInputFactory.newInstance().createXMLStreamReader( new StringReader( XMLData.feed ) ), node -> titles.add( node.getTextContent() ) );
+
+    assertEquals( 2, titles.size() );
+    assertEquals( "First", titles.get( 0 ) );
+    assertEquals( "Second & last", titles.get( 1 ) );
+    }
+  }